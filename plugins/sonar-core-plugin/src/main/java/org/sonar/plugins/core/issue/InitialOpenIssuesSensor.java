@@ -24,6 +24,7 @@ import org.apache.ibatis.session.ResultContext;
 import org.apache.ibatis.session.ResultHandler;
 import org.sonar.api.batch.Sensor;
 import org.sonar.api.batch.SensorContext;
+import org.sonar.api.batch.Sequential;
 import org.sonar.api.resources.Project;
 import org.sonar.core.issue.db.IssueChangeDao;
 import org.sonar.core.issue.db.IssueChangeDto;
@@ -36,6 +37,7 @@ import java.util.Date;
 /**
  * Load all the issues referenced during the previous scan.
  */
+@Sequential
 public class InitialOpenIssuesSensor implements Sensor {
 
   private final InitialOpenIssuesStack initialOpenIssuesStack;
@@ -20,7 +20,8 @@
 
 package org.sonar.plugins.core.issue;
 
-import java.util.Collections;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.sonar.api.BatchExtension;
 import org.sonar.api.batch.InstantiationStrategy;
 import org.sonar.batch.index.Cache;
@@ -28,16 +29,25 @@ import org.sonar.batch.index.Caches;
 import org.sonar.core.issue.db.IssueChangeDto;
 import org.sonar.core.issue.db.IssueDto;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import static com.google.common.collect.Lists.newArrayList;
 
+/**
+ * Disk-backed stack of the issues that are not closed in database when starting the scan of a module, with their
+ * changelog. Issues are removed when their component is decorated, so that the remaining ones relate to deleted components.
+ */
 @InstantiationStrategy(InstantiationStrategy.PER_BATCH)
 public class InitialOpenIssuesStack implements BatchExtension {
 
+  private static final Logger LOG = LoggerFactory.getLogger(InitialOpenIssuesStack.class);
+
   private final Cache<IssueDto> issuesCache;
-  private final Cache<ArrayList<IssueChangeDto>> issuesChangelogCache;
+  private final Cache<IssueChangeDto> issuesChangelogCache;
+
+  private int issueCount = 0;
+  private int peakIssueCount = 0;
+  private int changeCount = 0;
 
   public InitialOpenIssuesStack(Caches caches) {
     issuesCache = caches.createCache("last-open-issues");
@@ -46,6 +56,8 @@ public class InitialOpenIssuesStack implements BatchExtension {
 
   public InitialOpenIssuesStack addIssue(IssueDto issueDto) {
     issuesCache.put(issueDto.getComponentKey(), issueDto.getKee(), issueDto);
+    issueCount++;
+    peakIssueCount = Math.max(peakIssueCount, issueCount);
     return this;
   }
 
@@ -55,7 +67,10 @@ public class InitialOpenIssuesStack implements BatchExtension {
     for (IssueDto issue : issues) {
       result.add(issue);
     }
-    issuesCache.clear(componentKey);
+    if (!result.isEmpty()) {
+      issuesCache.clear(componentKey);
+      issueCount -= result.size();
+    }
     return result;
   }
 
@@ -63,23 +78,33 @@ public class InitialOpenIssuesStack implements BatchExtension {
     return issuesCache.values();
   }
 
+  /**
+   * Changes are appended to the changelog of the issue, without loading it. They must be added in chronological order.
+   */
   public InitialOpenIssuesStack addChangelog(IssueChangeDto issueChangeDto) {
-    List<IssueChangeDto> changeDtos = issuesChangelogCache.get(issueChangeDto.getIssueKey());
-    if (changeDtos == null) {
-      changeDtos = newArrayList();
-    }
-    changeDtos.add(issueChangeDto);
-    issuesChangelogCache.put(issueChangeDto.getIssueKey(), newArrayList(changeDtos));
+    // the global counter keeps the changes of an issue sorted in the order they are added
+    issuesChangelogCache.put(issueChangeDto.getIssueKey(), changeCount, issueChangeDto);
+    changeCount++;
     return this;
   }
 
   public List<IssueChangeDto> selectChangelog(String issueKey) {
-    List<IssueChangeDto> changeDtos = issuesChangelogCache.get(issueKey);
-    return changeDtos != null ? changeDtos : Collections.<IssueChangeDto>emptyList();
+    return newArrayList(issuesChangelogCache.values(issueKey));
+  }
+
+  /**
+   * Max number of issues that have been stacked at the same time
+   */
+  public int peakSize() {
+    return peakIssueCount;
   }
 
   public void clear() {
+    LOG.debug("Initial open issues: {} issues at peak, {} changes", peakIssueCount, changeCount);
     issuesCache.clear();
     issuesChangelogCache.clear();
+    issueCount = 0;
+    peakIssueCount = 0;
+    changeCount = 0;
   }
 }
@@ -20,8 +20,6 @@
 
 package org.sonar.plugins.core.issue;
 
-import org.sonar.plugins.core.issue.tracking.SourceChecksum;
-
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Objects;
 import com.google.common.collect.LinkedHashMultimap;
@@ -35,10 +33,11 @@ import org.sonar.core.issue.db.IssueDto;
 import org.sonar.plugins.core.issue.tracking.HashedSequence;
 import org.sonar.plugins.core.issue.tracking.HashedSequenceComparator;
 import org.sonar.plugins.core.issue.tracking.IssueTrackingBlocksRecognizer;
+import org.sonar.plugins.core.issue.tracking.LineHashSequence;
+import org.sonar.plugins.core.issue.tracking.LineHashSequenceComparator;
 import org.sonar.plugins.core.issue.tracking.RollingHashSequence;
 import org.sonar.plugins.core.issue.tracking.RollingHashSequenceComparator;
-import org.sonar.plugins.core.issue.tracking.StringText;
-import org.sonar.plugins.core.issue.tracking.StringTextComparator;
+import org.sonar.plugins.core.issue.tracking.SourceLineIndex;
 
 import javax.annotation.Nullable;
 
@@ -61,13 +60,15 @@ public class IssueTracking implements BatchExtension {
   }
 
   private void setChecksumOnNewIssues(Collection<DefaultIssue> issues, SourceHashHolder sourceHashHolder) {
-    List<String> checksums = SourceChecksum.lineChecksumsOfFile(sourceHashHolder.getSource());
+    if (issues.isEmpty()) {
+      return;
+    }
+    SourceLineIndex lines = sourceHashHolder.getSourceLineIndex();
     for (DefaultIssue issue : issues) {
-      issue.setChecksum(SourceChecksum.getChecksumForLine(checksums, issue.line()));
+      issue.setChecksum(lines.checksum(issue.line()));
     }
   }
 
-
   @VisibleForTesting
   void mapIssues(Collection<DefaultIssue> newIssues, @Nullable Collection<IssueDto> lastIssues, SourceHashHolder sourceHashHolder, IssueTrackingResult result) {
     boolean hasLastScan = false;
@@ -79,7 +80,8 @@ public class IssueTracking implements BatchExtension {
 
     // If each new issue matches an old one we can stop the matching mechanism
     if (result.matched().size() != newIssues.size()) {
-      if (sourceHashHolder.hasBothReferenceAndCurrentSource() && hasLastScan) {
+      // Sources of unchanged files are not diffed
+      if (hasLastScan && !sourceHashHolder.isUnchanged() && sourceHashHolder.hasBothReferenceAndCurrentSource()) {
         mapNewissues(sourceHashHolder, newIssues, result);
       }
       mapIssuesOnSameRule(newIssues, result);
@@ -109,12 +111,12 @@ public class IssueTracking implements BatchExtension {
 
   private void mapNewissues(SourceHashHolder sourceHashHolder, Collection<DefaultIssue> newIssues, IssueTrackingResult result) {
 
-    HashedSequenceComparator<StringText> hashedComparator = new HashedSequenceComparator<StringText>(StringTextComparator.IGNORE_WHITESPACE);
+    HashedSequenceComparator<LineHashSequence> hashedComparator = new HashedSequenceComparator<LineHashSequence>(LineHashSequenceComparator.INSTANCE);
     IssueTrackingBlocksRecognizer rec = new IssueTrackingBlocksRecognizer(sourceHashHolder.getHashedReference(), sourceHashHolder.getHashedSource(), hashedComparator);
 
-    RollingHashSequence<HashedSequence<StringText>> a = RollingHashSequence.wrap(sourceHashHolder.getHashedReference(), hashedComparator, 5);
-    RollingHashSequence<HashedSequence<StringText>> b = RollingHashSequence.wrap(sourceHashHolder.getHashedSource(), hashedComparator, 5);
-    RollingHashSequenceComparator<HashedSequence<StringText>> cmp = new RollingHashSequenceComparator<HashedSequence<StringText>>(hashedComparator);
+    RollingHashSequence<HashedSequence<LineHashSequence>> a = RollingHashSequence.wrap(sourceHashHolder.getHashedReference(), hashedComparator, 5);
+    RollingHashSequence<HashedSequence<LineHashSequence>> b = RollingHashSequence.wrap(sourceHashHolder.getHashedSource(), hashedComparator, 5);
+    RollingHashSequenceComparator<HashedSequence<LineHashSequence>> cmp = new RollingHashSequenceComparator<HashedSequence<LineHashSequence>>(hashedComparator);
 
     Multimap<Integer, DefaultIssue> newIssuesByLines = newIssuesByLines(newIssues, rec, result);
     Multimap<Integer, IssueDto> lastIssuesByLines = lastIssuesByLines(result.unmatched(), rec);
@@ -26,6 +26,8 @@ import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.batch.*;
+import org.sonar.api.batch.fs.FileSystem;
+import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.component.ResourcePerspectives;
 import org.sonar.api.issue.Issuable;
 import org.sonar.api.issue.Issue;
@@ -40,7 +42,9 @@ import org.sonar.api.rules.Rule;
 import org.sonar.api.rules.RuleFinder;
 import org.sonar.api.utils.Duration;
 import org.sonar.api.utils.KeyValueFormat;
+import org.sonar.batch.index.ComponentDataCache;
 import org.sonar.batch.issue.IssueCache;
+import org.sonar.batch.scan.LastLineHashes;
 import org.sonar.batch.scan.LastSnapshots;
 import org.sonar.core.issue.IssueUpdater;
 import org.sonar.core.issue.db.IssueChangeDto;
@@ -59,6 +63,9 @@ public class IssueTrackingDecorator implements Decorator {
   private final InitialOpenIssuesStack initialOpenIssues;
   private final IssueTracking tracking;
   private final LastSnapshots lastSnapshots;
+  private final LastLineHashes lastLineHashes;
+  private final ComponentDataCache componentDataCache;
+  private final FileSystem fs;
   private final SonarIndex index;
   private final IssueHandlers handlers;
   private final IssueWorkflow workflow;
@@ -69,7 +76,8 @@ public class IssueTrackingDecorator implements Decorator {
   private final RuleFinder ruleFinder;
 
   public IssueTrackingDecorator(IssueCache issueCache, InitialOpenIssuesStack initialOpenIssues, IssueTracking tracking,
-                                LastSnapshots lastSnapshots, SonarIndex index,
+                                LastSnapshots lastSnapshots, LastLineHashes lastLineHashes, ComponentDataCache componentDataCache,
+                                FileSystem fs, SonarIndex index,
                                 IssueHandlers handlers, IssueWorkflow workflow,
                                 IssueUpdater updater,
                                 Project project,
@@ -80,6 +88,9 @@ public class IssueTrackingDecorator implements Decorator {
     this.initialOpenIssues = initialOpenIssues;
     this.tracking = tracking;
     this.lastSnapshots = lastSnapshots;
+    this.lastLineHashes = lastLineHashes;
+    this.componentDataCache = componentDataCache;
+    this.fs = fs;
     this.index = index;
     this.handlers = handlers;
     this.workflow = workflow;
@@ -113,7 +124,7 @@ public class IssueTrackingDecorator implements Decorator {
     // all the issues that are not closed in db before starting this module scan, including manual issues
     Collection<IssueDto> dbOpenIssues = initialOpenIssues.selectAndRemoveIssues(resource.getEffectiveKey());
 
-    SourceHashHolder sourceHashHolder = new SourceHashHolder(index, lastSnapshots, resource);
+    SourceHashHolder sourceHashHolder = new SourceHashHolder(index, lastSnapshots, lastLineHashes, componentDataCache, resource, isUnchanged(resource));
 
     IssueTrackingResult trackingResult = tracking.track(sourceHashHolder, dbOpenIssues, issues);
 
@@ -134,6 +145,14 @@ public class IssueTrackingDecorator implements Decorator {
     }
   }
 
+  private boolean isUnchanged(Resource resource) {
+    if (ResourceUtils.isFile(resource)) {
+      InputFile inputFile = fs.inputFile(fs.predicates().hasRelativePath(resource.getPath()));
+      return inputFile != null && inputFile.status() == InputFile.Status.SAME;
+    }
+    return false;
+  }
+
   @VisibleForTesting
   protected void mergeMatched(IssueTrackingResult result) {
     for (DefaultIssue issue : result.matched()) {
@@ -188,7 +207,7 @@ public class IssueTrackingDecorator implements Decorator {
   private void addUnmatched(Collection<IssueDto> unmatchedIssues, SourceHashHolder sourceHashHolder, Collection<DefaultIssue> issues) {
     for (IssueDto unmatchedDto : unmatchedIssues) {
       DefaultIssue unmatched = unmatchedDto.toDefaultIssue();
-      if (StringUtils.isNotBlank(unmatchedDto.getReporter()) && !Issue.STATUS_CLOSED.equals(unmatchedDto.getStatus())) {
+      if (StringUtils.isNotBlank(unmatchedDto.getReporter()) && !Issue.STATUS_CLOSED.equals(unmatchedDto.getStatus()) && !sourceHashHolder.isUnchanged()) {
         relocateManualIssue(unmatched, unmatchedDto, sourceHashHolder);
       }
       updateUnmatchedIssue(unmatched, false /* manual issues can be kept open */);
@@ -19,82 +19,148 @@
  */
 package org.sonar.plugins.core.issue;
 
-import java.util.Collection;
-
 import org.sonar.api.batch.SonarIndex;
 import org.sonar.api.resources.Resource;
+import org.sonar.batch.index.ComponentDataCache;
+import org.sonar.batch.scan.LastLineHashes;
 import org.sonar.batch.scan.LastSnapshots;
+import org.sonar.core.source.LineHashes;
+import org.sonar.core.source.SnapshotDataTypes;
 import org.sonar.plugins.core.issue.tracking.HashedSequence;
-import org.sonar.plugins.core.issue.tracking.StringText;
-import org.sonar.plugins.core.issue.tracking.StringTextComparator;
+import org.sonar.plugins.core.issue.tracking.LineHashSequence;
+import org.sonar.plugins.core.issue.tracking.LineHashSequenceComparator;
+import org.sonar.plugins.core.issue.tracking.SourceLineIndex;
 
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 
+import java.util.Collection;
+import java.util.Collections;
 
 public class SourceHashHolder {
 
   private final SonarIndex index;
   private final LastSnapshots lastSnapshots;
+  private final LastLineHashes lastLineHashes;
+  private final ComponentDataCache componentDataCache;
   private final Resource resource;
+  private final boolean unchanged;
 
   private String source;
   private boolean sourceInitialized;
-  private String referenceSource;
-  private boolean referenceSourceInitialized;
-
-  private HashedSequence<StringText> hashedReference;
-  private HashedSequence<StringText> hashedSource;
-
-  public SourceHashHolder(SonarIndex index, LastSnapshots lastSnapshots, Resource resource) {
+  private int[] referenceHashes;
+  private boolean referenceHashesInitialized;
+  private int[] currentHashes;
+  private boolean currentHashesInitialized;
+
+  private HashedSequence<LineHashSequence> hashedReference;
+  private HashedSequence<LineHashSequence> hashedSource;
+  private SourceLineIndex sourceLineIndex;
+
+  /**
+   * @param unchanged true if the file is known to be the same as during previous analysis. In this case
+   *                  the reference hashes are never loaded.
+   */
+  public SourceHashHolder(SonarIndex index, LastSnapshots lastSnapshots, LastLineHashes lastLineHashes,
+                          ComponentDataCache componentDataCache, Resource resource, boolean unchanged) {
     this.index = index;
     this.lastSnapshots = lastSnapshots;
+    this.lastLineHashes = lastLineHashes;
+    this.componentDataCache = componentDataCache;
     this.resource = resource;
+    this.unchanged = unchanged;
   }
 
   private void initHashes() {
-    hashedReference = HashedSequence.wrap(new StringText(getReferenceSource()), StringTextComparator.IGNORE_WHITESPACE);
-    hashedSource = HashedSequence.wrap(new StringText(getSource()), StringTextComparator.IGNORE_WHITESPACE);
+    hashedReference = wrap(getReferenceHashes());
+    hashedSource = wrap(getCurrentHashes());
   }
 
-  public HashedSequence<StringText> getHashedReference() {
+  private static HashedSequence<LineHashSequence> wrap(@Nullable int[] hashes) {
+    return HashedSequence.wrap(new LineHashSequence(hashes != null ? hashes : new int[0]), LineHashSequenceComparator.INSTANCE);
+  }
+
+  public HashedSequence<LineHashSequence> getHashedReference() {
     initHashesIfNull(hashedReference);
     return hashedReference;
   }
 
-  public HashedSequence<StringText> getHashedSource() {
+  public HashedSequence<LineHashSequence> getHashedSource() {
     initHashesIfNull(hashedSource);
     return hashedSource;
   }
 
   public String getSource() {
-    if (! sourceInitialized) {
+    if (!sourceInitialized) {
       source = index.getSource(resource);
       sourceInitialized = true;
     }
     return source;
   }
 
-  public String getReferenceSource() {
-    if (! referenceSourceInitialized) {
+  /**
+   * Lines of the current source, whose checksums are computed on demand
+   */
+  public SourceLineIndex getSourceLineIndex() {
+    if (sourceLineIndex == null) {
+      sourceLineIndex = new SourceLineIndex(getSource());
+    }
+    return sourceLineIndex;
+  }
+
+  public boolean isUnchanged() {
+    return unchanged;
+  }
+
+  /**
+   * Hashes of lines stored by the previous analysis. The source of the file is requested only if
+   * the previous analysis did not store hashes of lines on the module, for example when it was
+   * executed by a version prior to 4.4.
+   */
+  @CheckForNull
+  private int[] getReferenceHashes() {
+    if (!referenceHashesInitialized) {
       if (resource != null) {
-        referenceSource = lastSnapshots.getSource(resource);
+        if (lastLineHashes.isAvailable()) {
+          referenceHashes = lastLineHashes.getLineHashes(resource.getEffectiveKey());
+        } else {
+          String referenceSource = lastSnapshots.getSource(resource);
+          referenceHashes = referenceSource != null ? LineHashes.compute(referenceSource) : null;
+        }
       }
-      referenceSourceInitialized = true;
+      referenceHashesInitialized = true;
     }
-    return referenceSource;
+    return referenceHashes;
+  }
+
+  @CheckForNull
+  private int[] getCurrentHashes() {
+    if (!currentHashesInitialized) {
+      String data = resource != null ? componentDataCache.getStringData(resource.getEffectiveKey(), SnapshotDataTypes.LINE_HASHES) : null;
+      if (data != null) {
+        currentHashes = LineHashes.parse(data);
+      } else if (getSource() != null) {
+        currentHashes = LineHashes.compute(getSource());
+      }
+      currentHashesInitialized = true;
+    }
+    return currentHashes;
   }
 
   public boolean hasBothReferenceAndCurrentSource() {
-    return getSource() != null && getReferenceSource() != null;
+    return getCurrentHashes() != null && getReferenceHashes() != null;
   }
 
   private void initHashesIfNull(Object required) {
-    if(required == null) {
+    if (required == null) {
       initHashes();
     }
   }
 
   public Collection<Integer> getNewLinesMatching(Integer originLine) {
+    if (originLine < 1 || originLine > getHashedReference().length()) {
+      return Collections.emptyList();
+    }
     return getHashedSource().getLinesForHash(getHashedReference().getHash(originLine));
   }
 }
-
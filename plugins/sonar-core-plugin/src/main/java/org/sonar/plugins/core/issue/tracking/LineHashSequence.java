@@ -0,0 +1,45 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.core.issue.tracking;
+
+import org.sonar.core.source.LineHashes;
+
+/**
+ * Sequence of hashes of lines, as computed by {@link LineHashes}. Contrary to {@link StringText}
+ * it does not require the source, so it can be loaded from the hashes stored by the previous analysis.
+ *
+ * @since 4.4
+ */
+public class LineHashSequence implements Sequence {
+
+  final int[] hashes;
+
+  public LineHashSequence(int[] hashes) {
+    this.hashes = hashes;
+  }
+
+  public static LineHashSequence createForSource(String source) {
+    return new LineHashSequence(LineHashes.compute(source));
+  }
+
+  public int length() {
+    return hashes.length;
+  }
+}
@@ -0,0 +1,42 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.core.issue.tracking;
+
+/**
+ * Equivalence function for {@link LineHashSequence}. Lines are considered equal when their hashes are equal,
+ * which is consistent with {@link StringTextComparator#IGNORE_WHITESPACE} except for hash collisions.
+ *
+ * @since 4.4
+ */
+public class LineHashSequenceComparator implements SequenceComparator<LineHashSequence> {
+
+  public static final LineHashSequenceComparator INSTANCE = new LineHashSequenceComparator();
+
+  private LineHashSequenceComparator() {
+  }
+
+  public boolean equals(LineHashSequence a, int ai, LineHashSequence b, int bi) {
+    return a.hashes[ai] == b.hashes[bi];
+  }
+
+  public int hash(LineHashSequence seq, int i) {
+    return seq.hashes[i];
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.core.issue.tracking;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+/**
+ * Index of the lines of a source file. Boundaries of lines are computed once and the checksum of a line is
+ * computed only when requested, for example for the lines that have issues. Lines are split and checksums are
+ * computed the same way as {@link SourceChecksum#lineChecksumsOfFile(String)}.
+ *
+ * @since 4.4
+ */
+public class SourceLineIndex {
+
+  private final String source;
+  private int[] starts;
+  private int[] ends;
+  private String[] checksums;
+
+  public SourceLineIndex(@Nullable String source) {
+    this.source = source;
+  }
+
+  /**
+   * Number of lines, zero if the source is not available.
+   */
+  public int length() {
+    initBoundaries();
+    return starts.length;
+  }
+
+  /**
+   * @param line line number (first line has number 1)
+   * @return checksum or null if the line does not exist
+   */
+  @CheckForNull
+  public String checksum(@Nullable Integer line) {
+    if (line == null || line < 1 || line > length()) {
+      return null;
+    }
+    String checksum = checksums[line - 1];
+    if (checksum == null) {
+      checksum = SourceChecksum.lineChecksum(source.substring(starts[line - 1], ends[line - 1]));
+      checksums[line - 1] = checksum;
+    }
+    return checksum;
+  }
+
+  private void initBoundaries() {
+    if (starts != null) {
+      return;
+    }
+    if (source == null) {
+      starts = new int[0];
+      ends = new int[0];
+      checksums = new String[0];
+      return;
+    }
+    int count = 1;
+    int length = source.length();
+    for (int i = 0; i < length; i++) {
+      char c = source.charAt(i);
+      if (c == '\n' || (c == '\r' && (i + 1 == length || source.charAt(i + 1) != '\n'))) {
+        count++;
+      }
+    }
+    starts = new int[count];
+    ends = new int[count];
+    checksums = new String[count];
+    int line = 0;
+    for (int i = 0; i < length; i++) {
+      char c = source.charAt(i);
+      if (c == '\n' || c == '\r') {
+        ends[line] = i;
+        if (c == '\r' && i + 1 < length && source.charAt(i + 1) == '\n') {
+          i++;
+        }
+        line++;
+        starts[line] = i + 1;
+      }
+    }
+    ends[line] = length;
+  }
+}
@@ -19,6 +19,8 @@
  */
 package org.sonar.plugins.core.issue.tracking;
 
+import org.sonar.core.source.LineHashes;
+
 /**
  * Equivalence function for {@link StringText}.
  */
@@ -60,14 +62,7 @@ public abstract class StringTextComparator implements SequenceComparator<StringT
 
     @Override
     protected int hashRegion(String content, int start, int end) {
-      int hash = 5381;
-      for (; start < end; start++) {
-        char c = content.charAt(start);
-        if (!Character.isWhitespace(c)) {
-          hash = ((hash << 5) + hash) + (c & 0xff);
-        }
-      }
-      return hash;
+      return LineHashes.hash(content, start, end);
     }
 
   };
@@ -30,6 +30,7 @@ import org.sonar.batch.rule.RulesProfileWrapper;
 
 import java.util.List;
 
+@Sequential
 public class ProfileEventsSensor implements Sensor {
 
   private final RulesProfile profile;
@@ -23,6 +23,7 @@ import org.apache.commons.lang.StringUtils;
 import org.sonar.api.CoreProperties;
 import org.sonar.api.batch.Sensor;
 import org.sonar.api.batch.SensorContext;
+import org.sonar.api.batch.Sequential;
 import org.sonar.api.config.Settings;
 import org.sonar.api.resources.Project;
 import org.sonar.api.resources.ProjectLink;
@@ -30,6 +31,7 @@ import org.sonar.core.i18n.DefaultI18n;
 
 import java.util.Locale;
 
+@Sequential
 public class ProjectLinksSensor implements Sensor {
 
   private Settings settings;
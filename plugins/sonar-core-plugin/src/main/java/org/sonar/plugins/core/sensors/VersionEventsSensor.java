@@ -24,11 +24,13 @@ import org.sonar.core.DryRunIncompatible;
 import org.sonar.api.batch.Event;
 import org.sonar.api.batch.Sensor;
 import org.sonar.api.batch.SensorContext;
+import org.sonar.api.batch.Sequential;
 import org.sonar.api.resources.Project;
 
 import java.util.Iterator;
 
 @DryRunIncompatible
+@Sequential
 public class VersionEventsSensor implements Sensor {
 
   public boolean shouldExecuteOnProject(Project project) {
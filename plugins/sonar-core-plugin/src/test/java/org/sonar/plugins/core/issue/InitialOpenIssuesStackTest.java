@@ -115,6 +115,19 @@ public class InitialOpenIssuesStackTest {
     assertThat(issueChangeDtos.get(1).getKey()).isEqualTo("CHANGE-2");
   }
 
+  @Test
+  public void select_changelog_of_interleaved_issues() {
+    for (int i = 0; i < 20; i++) {
+      stack.addChangelog(new IssueChangeDto().setKey("CHANGE-" + i).setIssueKey(i % 2 == 0 ? "ISSUE-1" : "ISSUE-2"));
+    }
+
+    List<IssueChangeDto> issueChangeDtos = stack.selectChangelog("ISSUE-2");
+    assertThat(issueChangeDtos).hasSize(10);
+    for (int i = 0; i < 10; i++) {
+      assertThat(issueChangeDtos.get(i).getKey()).isEqualTo("CHANGE-" + (2 * i + 1));
+    }
+  }
+
   @Test
   public void return_empty_changelog() {
     assertThat(stack.selectChangelog("ISSUE-1")).isEmpty();
@@ -142,4 +155,17 @@ public class InitialOpenIssuesStackTest {
     stack.clear();
     assertThat(stack.selectChangelog("ISSUE-1")).isEmpty();
   }
+
+  @Test
+  public void report_peak_size() {
+    stack.addIssue(new IssueDto().setComponentKey_unit_test_only("org.struts.Action").setKee("ISSUE-1"));
+    stack.addIssue(new IssueDto().setComponentKey_unit_test_only("org.struts.Action").setKee("ISSUE-2"));
+    stack.selectAndRemoveIssues("org.struts.Action");
+    stack.addIssue(new IssueDto().setComponentKey_unit_test_only("org.struts.Form").setKee("ISSUE-3"));
+
+    assertThat(stack.peakSize()).isEqualTo(2);
+
+    stack.clear();
+    assertThat(stack.peakSize()).isEqualTo(0);
+  }
 }
@@ -25,6 +25,9 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatcher;
 import org.sonar.api.batch.DecoratorContext;
 import org.sonar.api.batch.SonarIndex;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.DefaultFileSystem;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
 import org.sonar.api.component.ResourcePerspectives;
 import org.sonar.api.issue.Issue;
 import org.sonar.api.issue.internal.DefaultIssue;
@@ -38,6 +41,8 @@ import org.sonar.api.rules.Rule;
 import org.sonar.api.rules.RuleFinder;
 import org.sonar.api.utils.Duration;
 import org.sonar.batch.issue.IssueCache;
+import org.sonar.batch.index.ComponentDataCache;
+import org.sonar.batch.scan.LastLineHashes;
 import org.sonar.batch.scan.LastSnapshots;
 import org.sonar.core.issue.IssueUpdater;
 import org.sonar.core.issue.db.IssueChangeDto;
@@ -68,6 +73,9 @@ public class IssueTrackingDecoratorTest extends AbstractDaoTestCase {
   InitialOpenIssuesStack initialOpenIssues = mock(InitialOpenIssuesStack.class);
   IssueTracking tracking = mock(IssueTracking.class, RETURNS_MOCKS);
   LastSnapshots lastSnapshots = mock(LastSnapshots.class);
+  LastLineHashes lastLineHashes = mock(LastLineHashes.class);
+  ComponentDataCache componentDataCache = mock(ComponentDataCache.class);
+  DefaultFileSystem fs = new DefaultFileSystem();
   SonarIndex index = mock(SonarIndex.class);
   IssueHandlers handlers = mock(IssueHandlers.class);
   IssueWorkflow workflow = mock(IssueWorkflow.class);
@@ -83,6 +91,9 @@ public class IssueTrackingDecoratorTest extends AbstractDaoTestCase {
       initialOpenIssues,
       tracking,
       lastSnapshots,
+      lastLineHashes,
+      componentDataCache,
+      fs,
       index,
       handlers,
       workflow,
@@ -204,6 +215,30 @@ public class IssueTrackingDecoratorTest extends AbstractDaoTestCase {
     assertThat(issue.isOnDisabledRule()).isFalse();
   }
 
+  @Test
+  public void manual_issues_should_not_be_moved_if_file_is_unchanged() throws Exception {
+    Resource file = File.create("src/Action.java", "Action.java", null, false).setEffectiveKey("struts:src/Action.java").setId(123);
+    fs.add(new DefaultInputFile("src/Action.java").setFile(new java.io.File("src/Action.java")).setStatus(InputFile.Status.SAME));
+
+    // INPUT : one issue existing during previous scan
+    IssueDto unmatchedIssue = new IssueDto().setKee("ABCDE").setReporter("freddy").setLine(6).setStatus("OPEN").setRuleKey_unit_test_only("manual", "Performance");
+    when(ruleFinder.findByKey(RuleKey.of("manual", "Performance"))).thenReturn(new Rule("manual", "Performance"));
+
+    IssueTrackingResult trackingResult = new IssueTrackingResult();
+    trackingResult.addUnmatched(unmatchedIssue);
+    when(tracking.track(isA(SourceHashHolder.class), anyCollection(), anyCollection())).thenReturn(trackingResult);
+
+    decorator.doDecorate(file);
+
+    ArgumentCaptor<DefaultIssue> argument = ArgumentCaptor.forClass(DefaultIssue.class);
+    verify(issueCache).put(argument.capture());
+    DefaultIssue issue = argument.getValue();
+    assertThat(issue.line()).isEqualTo(6);
+    assertThat(issue.key()).isEqualTo("ABCDE");
+    assertThat(issue.isEndOfLife()).isFalse();
+    verifyZeroInteractions(lastSnapshots, lastLineHashes);
+  }
+
   @Test
   public void manual_issues_should_be_untouched_if_already_closed() throws Exception {
     Resource file = new File("Action.java").setEffectiveKey("struts:Action.java").setId(123);
@@ -19,16 +19,21 @@
  */
 package org.sonar.plugins.core.issue;
 
-import static org.mockito.Mockito.verify;
-
-import org.mockito.Mockito;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.Mockito;
 import org.sonar.api.batch.SonarIndex;
 import org.sonar.api.resources.Resource;
+import org.sonar.batch.index.ComponentDataCache;
+import org.sonar.batch.scan.LastLineHashes;
 import org.sonar.batch.scan.LastSnapshots;
+import org.sonar.core.source.LineHashes;
+import org.sonar.core.source.SnapshotDataTypes;
+
 import static org.fest.assertions.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 public class SourceHashHolderTest {
@@ -37,15 +42,20 @@ public class SourceHashHolderTest {
 
   SonarIndex index;
   LastSnapshots lastSnapshots;
+  LastLineHashes lastLineHashes;
+  ComponentDataCache componentDataCache;
   Resource resource;
 
   @Before
   public void setUp() {
     index = mock(SonarIndex.class);
     lastSnapshots = mock(LastSnapshots.class);
+    lastLineHashes = mock(LastLineHashes.class);
+    componentDataCache = mock(ComponentDataCache.class);
     resource = mock(Resource.class);
+    when(resource.getEffectiveKey()).thenReturn("struts:Action.java");
 
-    sourceHashHolder = new SourceHashHolder(index, lastSnapshots, resource);
+    sourceHashHolder = new SourceHashHolder(index, lastSnapshots, lastLineHashes, componentDataCache, resource, false);
   }
 
   @Test
@@ -61,22 +71,43 @@ public class SourceHashHolderTest {
   }
 
   @Test
-  public void should_lazy_load_reference_source() {
-    final String source = "source";
-    when(lastSnapshots.getSource(resource)).thenReturn(source);
+  public void should_load_hashes_stored_by_previous_analysis() {
+    when(lastLineHashes.isAvailable()).thenReturn(true);
+    when(lastLineHashes.getLineHashes("struts:Action.java")).thenReturn(LineHashes.compute("foo\nbar\n"));
+    when(componentDataCache.getStringData("struts:Action.java", SnapshotDataTypes.LINE_HASHES)).thenReturn(LineHashes.format(LineHashes.compute("bar\nbaz\nfoo")));
 
-    assertThat(sourceHashHolder.getReferenceSource()).isEqualTo(source);
-    verify(lastSnapshots).getSource(resource);
+    assertThat(sourceHashHolder.hasBothReferenceAndCurrentSource()).isTrue();
+    assertThat(sourceHashHolder.getHashedReference().length()).isEqualTo(2);
+    assertThat(sourceHashHolder.getNewLinesMatching(1)).containsOnly(3);
+    assertThat(sourceHashHolder.getNewLinesMatching(2)).containsOnly(1);
+    verifyZeroInteractions(lastSnapshots, index);
+  }
+
+  @Test
+  public void should_compute_hashes_of_reference_source_if_previous_analysis_has_no_hashes() {
+    when(lastLineHashes.isAvailable()).thenReturn(false);
+    when(lastSnapshots.getSource(resource)).thenReturn("foo\nbar");
+    when(index.getSource(resource)).thenReturn("bar\nfoo");
+
+    assertThat(sourceHashHolder.hasBothReferenceAndCurrentSource()).isTrue();
+    assertThat(sourceHashHolder.getNewLinesMatching(1)).containsOnly(2);
+    assertThat(sourceHashHolder.getNewLinesMatching(3)).isEmpty();
+  }
+
+  @Test
+  public void should_not_have_reference_for_new_file() {
+    when(lastLineHashes.isAvailable()).thenReturn(true);
+    when(index.getSource(resource)).thenReturn("foo");
 
-    assertThat(sourceHashHolder.getReferenceSource()).isEqualTo(source);
-    Mockito.verifyNoMoreInteractions(lastSnapshots);
+    assertThat(sourceHashHolder.hasBothReferenceAndCurrentSource()).isFalse();
+    verifyZeroInteractions(lastSnapshots);
   }
 
   @Test
-  public void should_have_null_reference_source_for_null_resource() {
-    sourceHashHolder = new SourceHashHolder(index, lastSnapshots, null);
+  public void should_have_null_reference_for_null_resource() {
+    sourceHashHolder = new SourceHashHolder(index, lastSnapshots, lastLineHashes, componentDataCache, null, false);
 
-    assertThat(sourceHashHolder.getReferenceSource()).isNull();
-    Mockito.verifyNoMoreInteractions(lastSnapshots);
+    assertThat(sourceHashHolder.hasBothReferenceAndCurrentSource()).isFalse();
+    verifyZeroInteractions(lastSnapshots, lastLineHashes);
   }
 }
@@ -0,0 +1,94 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.core.issue.tracking;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the checksums of lines with issues, when computed for the whole file by {@link SourceChecksum} and when
+ * computed on demand by {@link SourceLineIndex}. It is not executed during build. Usage, from the module directory
+ * once tests are compiled :
+ * <pre>
+ * java -cp target/classes:target/test-classes:&lt;dependencies&gt; org.sonar.plugins.core.issue.tracking.SourceLineIndexBenchmark [lines] [issues] [iterations]
+ * </pre>
+ * Defaults are files of 10,000 lines with 10 issues, measured 20 times after a warm-up of the same number of iterations.
+ */
+public class SourceLineIndexBenchmark {
+
+  private final String source;
+  private final int[] issueLines;
+
+  SourceLineIndexBenchmark(int lines, int issues) {
+    Random random = new Random(42L);
+    StringBuilder sb = new StringBuilder(lines * 40);
+    for (int i = 0; i < lines; i++) {
+      sb.append("    int field").append(i).append(" = ").append(random.nextInt()).append(";\n");
+    }
+    source = sb.toString();
+    issueLines = new int[issues];
+    for (int i = 0; i < issues; i++) {
+      issueLines[i] = 1 + random.nextInt(lines);
+    }
+  }
+
+  public static void main(String[] args) {
+    int lines = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+    int issues = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+    int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+    SourceLineIndexBenchmark benchmark = new SourceLineIndexBenchmark(lines, issues);
+    System.out.println(String.format("File: %d lines, %d issues", lines, issues));
+
+    for (int i = 0; i < iterations; i++) {
+      benchmark.wholeFile();
+      benchmark.lineIndex();
+    }
+    benchmark.measure("whole file", true, iterations);
+    benchmark.measure("line index", false, iterations);
+  }
+
+  int wholeFile() {
+    int hash = 0;
+    List<String> checksums = SourceChecksum.lineChecksumsOfFile(source);
+    for (int line : issueLines) {
+      hash += SourceChecksum.getChecksumForLine(checksums, line).hashCode();
+    }
+    return hash;
+  }
+
+  int lineIndex() {
+    int hash = 0;
+    SourceLineIndex index = new SourceLineIndex(source);
+    for (int line : issueLines) {
+      hash += index.checksum(line).hashCode();
+    }
+    return hash;
+  }
+
+  private void measure(String name, boolean wholeFile, int iterations) {
+    int hash = 0;
+    long start = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      hash += wholeFile ? wholeFile() : lineIndex();
+    }
+    long durationUs = (System.nanoTime() - start) / 1000L / iterations;
+    System.out.println(String.format("%-10s %8d us per file (%d)", name, durationUs, hash));
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.core.issue.tracking;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class SourceLineIndexTest {
+
+  @Test
+  public void should_compute_same_checksums_as_whole_file() {
+    String[] sources = {"", "line", "Hello\r\nWorld", "Hello\nWorld\n", "Hello\rWorld\r", "\n\r\n\r", "a\r\r\nb\n\nc", "  void method() {\n\treturn;\r\n}\n"};
+    for (String source : sources) {
+      List<String> expected = SourceChecksum.lineChecksumsOfFile(source);
+      SourceLineIndex index = new SourceLineIndex(source);
+      assertThat(index.length()).as(source).isEqualTo(expected.size());
+      for (int line = 1; line <= expected.size(); line++) {
+        assertThat(index.checksum(line)).as(source).isEqualTo(expected.get(line - 1));
+      }
+    }
+  }
+
+  @Test
+  public void should_not_have_checksum_for_unknown_line() {
+    SourceLineIndex index = new SourceLineIndex("line");
+    assertThat(index.checksum(null)).isNull();
+    assertThat(index.checksum(0)).isNull();
+    assertThat(index.checksum(1)).isNotNull();
+    assertThat(index.checksum(2)).isNull();
+  }
+
+  @Test
+  public void should_support_missing_source() {
+    SourceLineIndex index = new SourceLineIndex(null);
+    assertThat(index.length()).isEqualTo(0);
+    assertThat(index.checksum(1)).isNull();
+  }
+
+  @Test
+  public void should_reuse_computed_checksum() {
+    SourceLineIndex index = new SourceLineIndex("Hello\nWorld");
+    assertThat(index.checksum(2)).isSameAs(index.checksum(2));
+  }
+}
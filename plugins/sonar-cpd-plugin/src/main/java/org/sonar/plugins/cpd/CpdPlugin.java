@@ -68,6 +68,7 @@ public final class CpdPlugin extends SonarPlugin {
       SumDuplicationsDecorator.class,
       DuplicationDensityDecorator.class,
       IndexFactory.class,
+      DuplicationGroupsPersister.class,
       SonarEngine.class,
       SonarBridgeEngine.class);
   }
@@ -0,0 +1,82 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.cpd;
+
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import org.sonar.api.BatchExtension;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.batch.index.ResourcePersister;
+import org.sonar.core.duplication.DuplicationBlockDto;
+import org.sonar.core.duplication.DuplicationDao;
+import org.sonar.duplications.index.CloneGroup;
+import org.sonar.duplications.index.ClonePart;
+
+import javax.annotation.Nullable;
+
+import java.util.List;
+
+/**
+ * Stores the duplication groups of files as rows of the table DUPLICATION_BLOCKS, so that the server
+ * can query them without parsing the measure {@link org.sonar.api.measures.CoreMetrics#DUPLICATIONS_DATA}.
+ * Blocks are buffered and inserted in a single batch by {@link #flush()}, once all the files of the module are processed.
+ *
+ * @since 4.4
+ */
+public class DuplicationGroupsPersister implements BatchExtension {
+
+  private final ResourcePersister resourcePersister;
+  private final DuplicationDao dao;
+  private List<DuplicationBlockDto> blocks = Lists.newArrayList();
+
+  public DuplicationGroupsPersister(ResourcePersister resourcePersister, DuplicationDao dao) {
+    this.resourcePersister = resourcePersister;
+    this.dao = dao;
+  }
+
+  public void persist(InputFile inputFile, @Nullable Iterable<CloneGroup> duplications) {
+    if (duplications == null || Iterables.isEmpty(duplications)) {
+      return;
+    }
+    int snapshotId = resourcePersister.getSnapshotOrFail(inputFile).getId();
+    int groupIndex = 0;
+    for (CloneGroup duplication : duplications) {
+      for (ClonePart part : duplication.getCloneParts()) {
+        blocks.add(new DuplicationBlockDto()
+          .setSnapshotId(snapshotId)
+          .setGroupIndex(groupIndex)
+          .setComponentKey(part.getResourceId())
+          .setStartLine(part.getStartLine())
+          .setEndLine(part.getEndLine()));
+      }
+      groupIndex++;
+    }
+  }
+
+  /**
+   * Inserts the blocks buffered since the previous call
+   */
+  public void flush() {
+    if (!blocks.isEmpty()) {
+      dao.insertBlocks(blocks);
+      blocks = Lists.newArrayList();
+    }
+  }
+}
@@ -61,19 +61,21 @@ public class SonarBridgeEngine extends CpdEngine {
   private static final int TIMEOUT = 5 * 60;
 
   private final IndexFactory indexFactory;
+  private final DuplicationGroupsPersister persister;
   private final CpdMapping[] mappings;
   private final FileSystem fs;
   private final Settings settings;
 
-  public SonarBridgeEngine(IndexFactory indexFactory, CpdMapping[] mappings, FileSystem fs, Settings settings) {
+  public SonarBridgeEngine(IndexFactory indexFactory, DuplicationGroupsPersister persister, CpdMapping[] mappings, FileSystem fs, Settings settings) {
     this.indexFactory = indexFactory;
+    this.persister = persister;
     this.mappings = mappings;
     this.fs = fs;
     this.settings = settings;
   }
 
-  public SonarBridgeEngine(IndexFactory indexFactory, FileSystem fs, Settings settings) {
-    this(indexFactory, new CpdMapping[0], fs, settings);
+  public SonarBridgeEngine(IndexFactory indexFactory, DuplicationGroupsPersister persister, FileSystem fs, Settings settings) {
+    this(indexFactory, persister, new CpdMapping[0], fs, settings);
   }
 
   @Override
@@ -135,7 +137,9 @@ public class SonarBridgeEngine extends CpdEngine {
         }
 
         SonarEngine.save(context, inputFile, filtered);
+        persister.persist(inputFile, filtered);
       }
+      persister.flush();
     } finally {
       executorService.shutdown();
     }
@@ -46,7 +46,7 @@ import org.sonar.duplications.index.CloneIndex;
 import org.sonar.duplications.index.ClonePart;
 import org.sonar.duplications.java.JavaStatementBuilder;
 import org.sonar.duplications.java.JavaTokenProducer;
-import org.sonar.duplications.statement.Statement;
+import org.sonar.duplications.statement.StatementBuffer;
 import org.sonar.duplications.statement.StatementChunker;
 import org.sonar.duplications.token.TokenChunker;
 import org.sonar.plugins.cpd.index.IndexFactory;
@@ -75,11 +75,13 @@ public class SonarEngine extends CpdEngine {
   private static final int TIMEOUT = 5 * 60;
 
   private final IndexFactory indexFactory;
+  private final DuplicationGroupsPersister persister;
   private final FileSystem fs;
   private final Settings settings;
 
-  public SonarEngine(IndexFactory indexFactory, FileSystem fs, Settings settings) {
+  public SonarEngine(IndexFactory indexFactory, DuplicationGroupsPersister persister, FileSystem fs, Settings settings) {
     this.indexFactory = indexFactory;
+    this.persister = persister;
     this.fs = fs;
     this.settings = settings;
   }
@@ -112,17 +114,17 @@ public class SonarEngine extends CpdEngine {
     TokenChunker tokenChunker = JavaTokenProducer.build();
     StatementChunker statementChunker = JavaStatementBuilder.build();
     BlockChunker blockChunker = new BlockChunker(BLOCK_SIZE);
+    // reused for all files
+    StatementBuffer statements = new StatementBuffer();
 
     for (InputFile inputFile : sourceFiles) {
       LOG.debug("Populating index from {}", inputFile);
       String resourceEffectiveKey = ((DefaultInputFile) inputFile).key();
 
-      List<Statement> statements;
-
       Reader reader = null;
       try {
         reader = new InputStreamReader(new FileInputStream(inputFile.file()), fs.encoding());
-        statements = statementChunker.chunk(tokenChunker.chunk(reader));
+        statementChunker.chunk(tokenChunker.chunk(reader), statements.clear());
       } catch (FileNotFoundException e) {
         throw new SonarException("Cannot find file " + inputFile.file(), e);
       } finally {
@@ -158,7 +160,9 @@ public class SonarEngine extends CpdEngine {
         }
 
         save(context, inputFile, clones);
+        persister.persist(inputFile, clones);
       }
+      persister.flush();
     } finally {
       executorService.shutdown();
     }
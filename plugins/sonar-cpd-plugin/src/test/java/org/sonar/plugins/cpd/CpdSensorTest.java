@@ -40,8 +40,8 @@ public class CpdSensorTest {
   @Before
   public void setUp() {
     IndexFactory indexFactory = mock(IndexFactory.class);
-    sonarEngine = new SonarEngine(indexFactory, null, null);
-    sonarBridgeEngine = new SonarBridgeEngine(indexFactory, null, null);
+    sonarEngine = new SonarEngine(indexFactory, null, null, null);
+    sonarBridgeEngine = new SonarBridgeEngine(indexFactory, null, null, null);
     settings = new Settings(new PropertyDefinitions(CpdPlugin.class));
 
     DefaultFileSystem fs = new DefaultFileSystem();
@@ -0,0 +1,112 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.cpd;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.api.database.model.Snapshot;
+import org.sonar.batch.index.ResourcePersister;
+import org.sonar.core.duplication.DuplicationBlockDto;
+import org.sonar.core.duplication.DuplicationDao;
+import org.sonar.duplications.index.CloneGroup;
+import org.sonar.duplications.index.ClonePart;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class DuplicationGroupsPersisterTest {
+
+  ResourcePersister resourcePersister = mock(ResourcePersister.class);
+  DuplicationDao dao = mock(DuplicationDao.class);
+  DuplicationGroupsPersister persister = new DuplicationGroupsPersister(resourcePersister, dao);
+  InputFile inputFile = new DefaultInputFile("src/main/java/Foo.java");
+
+  @Test
+  public void nothing_to_persist() {
+    persister.persist(inputFile, null);
+    persister.persist(inputFile, Collections.<CloneGroup>emptyList());
+    persister.flush();
+
+    verifyZeroInteractions(resourcePersister, dao);
+  }
+
+  @Test
+  public void persist_blocks_of_groups() {
+    Snapshot snapshot = new Snapshot();
+    snapshot.setId(123);
+    when(resourcePersister.getSnapshotOrFail(inputFile)).thenReturn(snapshot);
+
+    List<CloneGroup> groups = Arrays.asList(
+      newCloneGroup(new ClonePart("key1", 0, 5, 204), new ClonePart("key2", 0, 15, 214)),
+      newCloneGroup(new ClonePart("key1", 0, 15, 214), new ClonePart("key3", 0, 15, 214), new ClonePart("key4", 0, 20, 219)));
+    persister.persist(inputFile, groups);
+    verifyZeroInteractions(dao);
+    persister.flush();
+
+    ArgumentCaptor<Collection> captor = ArgumentCaptor.forClass(Collection.class);
+    verify(dao).insertBlocks(captor.capture());
+    List<DuplicationBlockDto> blocks = (List<DuplicationBlockDto>) captor.getValue();
+    assertThat(blocks).hasSize(5);
+
+    DuplicationBlockDto block = blocks.get(1);
+    assertThat(block.getSnapshotId()).isEqualTo(123);
+    assertThat(block.getGroupIndex()).isEqualTo(0);
+    assertThat(block.getComponentKey()).isEqualTo("key2");
+    assertThat(block.getStartLine()).isEqualTo(15);
+    assertThat(block.getEndLine()).isEqualTo(214);
+
+    assertThat(blocks.get(2).getGroupIndex()).isEqualTo(1);
+    assertThat(blocks.get(4).getComponentKey()).isEqualTo("key4");
+    assertThat(blocks.get(4).getGroupIndex()).isEqualTo(1);
+  }
+
+  @Test
+  public void insert_blocks_of_all_files_at_once() {
+    InputFile otherFile = new DefaultInputFile("src/main/java/Bar.java");
+    Snapshot snapshot = new Snapshot();
+    snapshot.setId(123);
+    Snapshot otherSnapshot = new Snapshot();
+    otherSnapshot.setId(456);
+    when(resourcePersister.getSnapshotOrFail(inputFile)).thenReturn(snapshot);
+    when(resourcePersister.getSnapshotOrFail(otherFile)).thenReturn(otherSnapshot);
+
+    persister.persist(inputFile, Arrays.asList(newCloneGroup(new ClonePart("key1", 0, 5, 204), new ClonePart("key2", 0, 15, 214))));
+    persister.persist(otherFile, Arrays.asList(newCloneGroup(new ClonePart("key2", 0, 15, 214), new ClonePart("key1", 0, 5, 204))));
+    persister.flush();
+    persister.flush();
+
+    ArgumentCaptor<Collection> captor = ArgumentCaptor.forClass(Collection.class);
+    verify(dao, times(1)).insertBlocks(captor.capture());
+    List<DuplicationBlockDto> blocks = (List<DuplicationBlockDto>) captor.getValue();
+    assertThat(blocks).hasSize(4);
+    assertThat(blocks.get(3).getSnapshotId()).isEqualTo(456);
+  }
+
+  private CloneGroup newCloneGroup(ClonePart... parts) {
+    return CloneGroup.builder().setLength(0).setOrigin(parts[0]).setParts(Arrays.asList(parts)).build();
+  }
+}
@@ -41,7 +41,7 @@ public class SonarBridgeEngineTest {
   @Before
   public void init() {
     settings = new Settings();
-    engine = new SonarBridgeEngine(null, null, null, settings);
+    engine = new SonarBridgeEngine(null, null, null, null, settings);
   }
 
   @Test
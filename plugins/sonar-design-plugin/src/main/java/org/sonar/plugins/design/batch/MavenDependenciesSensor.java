@@ -37,6 +37,7 @@ import org.apache.maven.shared.dependency.tree.traversal.FilteringDependencyNode
 import org.sonar.api.batch.SupportedEnvironment;
 import org.sonar.api.batch.Sensor;
 import org.sonar.api.batch.SensorContext;
+import org.sonar.api.batch.Sequential;
 import org.sonar.api.batch.SonarIndex;
 import org.sonar.api.design.Dependency;
 import org.sonar.api.resources.Library;
@@ -45,6 +46,7 @@ import org.sonar.api.resources.Resource;
 import org.sonar.api.utils.SonarException;
 
 @SupportedEnvironment("maven")
+@Sequential
 public class MavenDependenciesSensor implements Sensor {
 
   private ArtifactRepository localRepository;
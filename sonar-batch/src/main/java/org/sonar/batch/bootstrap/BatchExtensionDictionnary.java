@@ -20,14 +20,20 @@
 package org.sonar.batch.bootstrap;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import org.apache.commons.lang.ClassUtils;
 import org.sonar.api.BatchExtension;
 import org.sonar.api.batch.CheckProject;
 import org.sonar.api.platform.ComponentContainer;
 import org.sonar.api.resources.Project;
+import org.sonar.api.utils.dag.DirectAcyclicGraph;
+import org.sonar.api.utils.dag.Node;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * @since 2.6
@@ -46,6 +52,44 @@ public class BatchExtensionDictionnary extends org.sonar.api.batch.BatchExtensio
     return result;
   }
 
+  /**
+   * For each extension, the extensions that must be executed before it, according to the annotations
+   * {@link org.sonar.api.batch.DependsUpon}, {@link org.sonar.api.batch.DependedUpon} and {@link org.sonar.api.batch.Phase}.
+   * Keys are sorted like {@link #sort(java.util.Collection)}.
+   *
+   * @since 4.4
+   */
+  public <T> Map<T, Set<T>> predecessors(Collection<T> extensions) {
+    DirectAcyclicGraph dag = dependencyGraph(extensions);
+    // fails on cycles
+    dag.sort();
+
+    Set<T> all = Sets.newHashSet(extensions);
+    Map<T, Set<T>> result = Maps.newLinkedHashMap();
+    for (T extension : sort(extensions)) {
+      Set<T> predecessors = Sets.newLinkedHashSet();
+      collectPredecessors(dag.add(extension), all, predecessors, Sets.<Node>newHashSet());
+      result.put(extension, predecessors);
+    }
+    return result;
+  }
+
+  /**
+   * Walks through the dependencies that are not extensions, like metrics or phases, until reaching extensions.
+   */
+  private static <T> void collectPredecessors(Node node, Set<T> extensions, Set<T> predecessors, Set<Node> visited) {
+    for (Node dependency : node.getDependencies()) {
+      if (visited.add(dependency)) {
+        Object object = dependency.getObject();
+        if (extensions.contains(object)) {
+          predecessors.add((T) object);
+        } else {
+          collectPredecessors(dependency, extensions, predecessors, visited);
+        }
+      }
+    }
+  }
+
   private <T> List<T> getFilteredExtensions(Class<T> type, Project project, ExtensionMatcher matcher) {
     List<T> result = Lists.newArrayList();
     for (BatchExtension extension : getExtensions()) {
@@ -35,7 +35,8 @@ import java.util.Set;
 
 /**
  * <p>
- * This cache is not thread-safe, due to direct usage of {@link com.persistit.Exchange}
+ * Accesses to the underlying {@link com.persistit.Exchange} are synchronized, as sensors and persisters can be executed concurrently.
+ * Iterators use their own copy of the exchange.
  * </p>
  */
 public class Cache<V extends Serializable> {
@@ -48,22 +49,22 @@ public class Cache<V extends Serializable> {
     this.exchange = exchange;
   }
 
-  public Cache<V> put(Object key, V value) {
+  public synchronized Cache<V> put(Object key, V value) {
     resetKey(key);
     return doPut(value);
   }
 
-  public Cache<V> put(Object firstKey, Object secondKey, V value) {
+  public synchronized Cache<V> put(Object firstKey, Object secondKey, V value) {
     resetKey(firstKey, secondKey);
     return doPut(value);
   }
 
-  public Cache<V> put(Object firstKey, Object secondKey, Object thirdKey, V value) {
+  public synchronized Cache<V> put(Object firstKey, Object secondKey, Object thirdKey, V value) {
     resetKey(firstKey, secondKey, thirdKey);
     return doPut(value);
   }
 
-  public Cache<V> put(Object[] key, V value) {
+  public synchronized Cache<V> put(Object[] key, V value) {
     resetKey(key);
     return doPut(value);
   }
@@ -81,7 +82,7 @@ public class Cache<V extends Serializable> {
   /**
    * Returns the value object associated with keys, or null if not found.
    */
-  public V get(Object key) {
+  public synchronized V get(Object key) {
     resetKey(key);
     return doGet();
   }
@@ -90,7 +91,7 @@ public class Cache<V extends Serializable> {
    * Returns the value object associated with keys, or null if not found.
    */
   @CheckForNull
-  public V get(Object firstKey, Object secondKey) {
+  public synchronized V get(Object firstKey, Object secondKey) {
     resetKey(firstKey, secondKey);
     return doGet();
   }
@@ -99,7 +100,7 @@ public class Cache<V extends Serializable> {
    * Returns the value object associated with keys, or null if not found.
    */
   @CheckForNull
-  public V get(Object firstKey, Object secondKey, Object thirdKey) {
+  public synchronized V get(Object firstKey, Object secondKey, Object thirdKey) {
     resetKey(firstKey, secondKey, thirdKey);
     return doGet();
   }
@@ -108,7 +109,7 @@ public class Cache<V extends Serializable> {
    * Returns the value object associated with keys, or null if not found.
    */
   @CheckForNull
-  public V get(Object[] key) {
+  public synchronized V get(Object[] key) {
     resetKey(key);
     return doGet();
   }
@@ -128,22 +129,22 @@ public class Cache<V extends Serializable> {
     }
   }
 
-  public boolean containsKey(Object key) {
+  public synchronized boolean containsKey(Object key) {
     resetKey(key);
     return doContainsKey();
   }
 
-  public boolean containsKey(Object firstKey, Object secondKey) {
+  public synchronized boolean containsKey(Object firstKey, Object secondKey) {
     resetKey(firstKey, secondKey);
     return doContainsKey();
   }
 
-  public boolean containsKey(Object firstKey, Object secondKey, Object thirdKey) {
+  public synchronized boolean containsKey(Object firstKey, Object secondKey, Object thirdKey) {
     resetKey(firstKey, secondKey, thirdKey);
     return doContainsKey();
   }
 
-  public boolean containsKey(Object[] key) {
+  public synchronized boolean containsKey(Object[] key) {
     resetKey(key);
     return doContainsKey();
   }
@@ -158,22 +159,22 @@ public class Cache<V extends Serializable> {
     }
   }
 
-  public boolean remove(Object key) {
+  public synchronized boolean remove(Object key) {
     resetKey(key);
     return doRemove();
   }
 
-  public boolean remove(Object firstKey, Object secondKey) {
+  public synchronized boolean remove(Object firstKey, Object secondKey) {
     resetKey(firstKey, secondKey);
     return doRemove();
   }
 
-  public boolean remove(Object firstKey, Object secondKey, Object thirdKey) {
+  public synchronized boolean remove(Object firstKey, Object secondKey, Object thirdKey) {
     resetKey(firstKey, secondKey, thirdKey);
     return doRemove();
   }
 
-  public boolean remove(Object[] key) {
+  public synchronized boolean remove(Object[] key) {
     resetKey(key);
     return doRemove();
   }
@@ -192,22 +193,22 @@ public class Cache<V extends Serializable> {
    *
    * @param group The group name.
    */
-  public Cache<V> clear(Object key) {
+  public synchronized Cache<V> clear(Object key) {
     resetKey(key);
     return doClear();
   }
 
-  public Cache<V> clear(Object firstKey, Object secondKey) {
+  public synchronized Cache<V> clear(Object firstKey, Object secondKey) {
     resetKey(firstKey, secondKey);
     return doClear();
   }
 
-  public Cache<V> clear(Object firstKey, Object secondKey, Object thirdKey) {
+  public synchronized Cache<V> clear(Object firstKey, Object secondKey, Object thirdKey) {
     resetKey(firstKey, secondKey, thirdKey);
     return doClear();
   }
 
-  public Cache<V> clear(Object[] key) {
+  public synchronized Cache<V> clear(Object[] key) {
     resetKey(key);
     return doClear();
   }
@@ -226,7 +227,7 @@ public class Cache<V extends Serializable> {
   /**
    * Clears the default as well as all group caches.
    */
-  public void clear() {
+  public synchronized void clear() {
     try {
       exchange.clear();
       exchange.removeAll();
@@ -243,7 +244,7 @@ public class Cache<V extends Serializable> {
    * @return The set of cache keys for this group.
    */
   @SuppressWarnings("rawtypes")
-  public Set keySet(Object key) {
+  public synchronized Set keySet(Object key) {
     try {
       Set<Object> keys = Sets.newLinkedHashSet();
       exchange.clear();
@@ -260,7 +261,7 @@ public class Cache<V extends Serializable> {
   }
 
   @SuppressWarnings("rawtypes")
-  public Set keySet(Object firstKey, Object secondKey) {
+  public synchronized Set keySet(Object firstKey, Object secondKey) {
     try {
       Set<Object> keys = Sets.newLinkedHashSet();
       exchange.clear();
@@ -282,7 +283,7 @@ public class Cache<V extends Serializable> {
    *
    * @return The set containing the keys for this cache.
    */
-  public Set<Object> keySet() {
+  public synchronized Set<Object> keySet() {
     try {
       Set<Object> keys = Sets.newLinkedHashSet();
       exchange.clear();
@@ -300,7 +301,7 @@ public class Cache<V extends Serializable> {
   /**
    * Lazy-loading values for given keys
    */
-  public Iterable<V> values(Object firstKey, Object secondKey) {
+  public synchronized Iterable<V> values(Object firstKey, Object secondKey) {
     try {
       exchange.clear();
       exchange.append(firstKey).append(secondKey).append(Key.BEFORE);
@@ -315,7 +316,7 @@ public class Cache<V extends Serializable> {
   /**
    * Lazy-loading values for a given key
    */
-  public Iterable<V> values(Object firstKey) {
+  public synchronized Iterable<V> values(Object firstKey) {
     try {
       exchange.clear();
       exchange.append(firstKey).append(Key.BEFORE);
@@ -330,7 +331,7 @@ public class Cache<V extends Serializable> {
   /**
    * Lazy-loading values
    */
-  public Iterable<V> values() {
+  public synchronized Iterable<V> values() {
     try {
       exchange.clear().append(Key.BEFORE);
       Exchange iteratorExchange = new Exchange(exchange);
@@ -341,13 +342,13 @@ public class Cache<V extends Serializable> {
     }
   }
 
-  public Iterable<Entry<V>> entries() {
+  public synchronized Iterable<Entry<V>> entries() {
     exchange.clear().to(Key.BEFORE);
     KeyFilter filter = new KeyFilter().append(KeyFilter.ALL);
     return new EntryIterable<V>(new Exchange(exchange), filter);
   }
 
-  public Iterable<Entry<V>> entries(Object firstKey) {
+  public synchronized Iterable<Entry<V>> entries(Object firstKey) {
     exchange.clear().append(firstKey).append(Key.BEFORE);
     KeyFilter filter = new KeyFilter().append(KeyFilter.simpleTerm(firstKey));
     return new EntryIterable<V>(new Exchange(exchange), filter);
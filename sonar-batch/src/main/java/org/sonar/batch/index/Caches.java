@@ -25,6 +25,7 @@ import com.esotericsoftware.kryo.io.Output;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Sets;
 import com.persistit.Exchange;
+import com.persistit.Management;
 import com.persistit.Persistit;
 import com.persistit.Value;
 import com.persistit.Volume;
@@ -44,6 +45,7 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.Serializable;
+import java.rmi.RemoteException;
 import java.util.Properties;
 import java.util.Set;
 import java.util.zip.DeflaterOutputStream;
@@ -149,6 +151,40 @@ public class Caches implements BatchComponent, Startable {
     cacheNames.clear();
   }
 
+  /**
+   * Number of pages read from the buffer pool since startup
+   *
+   * @since 4.4
+   */
+  public long bufferHits() {
+    long hits = 0L;
+    for (Management.BufferPoolInfo pool : bufferPools()) {
+      hits += pool.getHitCount();
+    }
+    return hits;
+  }
+
+  /**
+   * Number of pages read from disk since startup
+   *
+   * @since 4.4
+   */
+  public long bufferMisses() {
+    long misses = 0L;
+    for (Management.BufferPoolInfo pool : bufferPools()) {
+      misses += pool.getMissCount();
+    }
+    return misses;
+  }
+
+  private Management.BufferPoolInfo[] bufferPools() {
+    try {
+      return persistit.getManagement().getBufferPoolInfoArray();
+    } catch (RemoteException e) {
+      throw new IllegalStateException("Fail to get statistics of caches", e);
+    }
+  }
+
   File tempDir() {
     return tempDir;
   }
@@ -49,4 +49,11 @@ public class ComponentDataCache implements BatchComponent {
   public <D extends Data> Iterable<Cache.Entry<D>> entries(String componentKey) {
     return cache.entries(componentKey);
   }
+
+  /**
+   * Lazy-loading entries of all components. Keys are [component key, data type].
+   */
+  public <D extends Data> Iterable<Cache.Entry<D>> entries() {
+    return cache.entries();
+  }
 }
@@ -19,14 +19,14 @@
  */
 package org.sonar.batch.index;
 
+import org.sonar.api.batch.DependsUpon;
 import org.sonar.api.database.model.Snapshot;
 import org.sonar.core.persistence.DbSession;
 import org.sonar.core.persistence.MyBatis;
 import org.sonar.core.source.db.SnapshotDataDao;
 import org.sonar.core.source.db.SnapshotDataDto;
 
-import java.util.Map;
-
+@DependsUpon(ScanPersister.SNAPSHOTS)
 public class ComponentDataPersister implements ScanPersister {
   private final ComponentDataCache data;
   private final SnapshotCache snapshots;
@@ -42,23 +42,28 @@ public class ComponentDataPersister implements ScanPersister {
   }
 
   @Override
-  public void persist() {
+  public int persist() {
+    int count = 0;
     DbSession session = mybatis.openSession(true);
-    for (Map.Entry<String, Snapshot> componentEntry : snapshots.snapshots()) {
-      String componentKey = componentEntry.getKey();
-      Snapshot snapshot = componentEntry.getValue();
-      for (Cache.Entry<Data> dataEntry : data.entries(componentKey)) {
+    try {
+      // data is streamed from the cache
+      for (Cache.Entry<Data> dataEntry : data.entries()) {
         Data value = dataEntry.value();
-        if (value != null) {
+        Snapshot snapshot = snapshots.get(dataEntry.key()[0].toString());
+        if (value != null && snapshot != null) {
           SnapshotDataDto dto = new SnapshotDataDto();
           dto.setSnapshotId(snapshot.getId());
           dto.setResourceId(snapshot.getResourceId());
           dto.setDataType(dataEntry.key()[1].toString());
           dto.setData(value.writeString());
           dao.insert(session, dto);
+          count++;
         }
       }
+      session.commit();
+    } finally {
+      MyBatis.closeQuietly(session);
     }
-    session.commit();
+    return count;
   }
 }
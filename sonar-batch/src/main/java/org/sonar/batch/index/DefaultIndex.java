@@ -65,7 +65,6 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -81,11 +80,13 @@ public class DefaultIndex extends SonarIndex {
 
   // caches
   private Project currentProject;
-  private Map<Resource, Bucket> buckets = Maps.newHashMap();
+  // concurrent collections, so that the views returned to sensors executed concurrently can be iterated
+  // while other sensors register resources or dependencies
+  private Map<Resource, Bucket> buckets = Maps.newConcurrentMap();
   private Map<String, Bucket> bucketsByDeprecatedKey = Maps.newHashMap();
-  private Set<Dependency> dependencies = Sets.newHashSet();
-  private Map<Resource, Map<Resource, Dependency>> outgoingDependenciesByResource = Maps.newHashMap();
-  private Map<Resource, Map<Resource, Dependency>> incomingDependenciesByResource = Maps.newHashMap();
+  private Set<Dependency> dependencies = Sets.newSetFromMap(Maps.<Dependency, Boolean>newConcurrentMap());
+  private Map<Resource, Map<Resource, Dependency>> outgoingDependenciesByResource = Maps.newConcurrentMap();
+  private Map<Resource, Map<Resource, Dependency>> incomingDependenciesByResource = Maps.newConcurrentMap();
   private ProjectTree projectTree;
   private final DeprecatedViolations deprecatedViolations;
   private ModuleIssues moduleIssues;
@@ -157,7 +158,7 @@ public class DefaultIndex extends SonarIndex {
   /**
    * Keep only project stuff
    */
-  public void clear() {
+  public synchronized void clear() {
     Iterator<Map.Entry<Resource, Bucket>> it = buckets.entrySet().iterator();
     while (it.hasNext()) {
       Map.Entry<Resource, Bucket> entry = it.next();
@@ -179,12 +180,12 @@ public class DefaultIndex extends SonarIndex {
   }
 
   @Override
-  public Measure getMeasure(Resource resource, Metric metric) {
+  public synchronized Measure getMeasure(Resource resource, Metric metric) {
     return getMeasures(resource, MeasuresFilters.metric(metric));
   }
 
   @Override
-  public <M> M getMeasures(Resource resource, MeasuresFilter<M> filter) {
+  public synchronized <M> M getMeasures(Resource resource, MeasuresFilter<M> filter) {
     // Reload resource so that effective key is populated
     Resource indexedResource = getResource(resource);
     Iterable<Measure> unfiltered;
@@ -204,7 +205,7 @@ public class DefaultIndex extends SonarIndex {
   }
 
   @Override
-  public Measure addMeasure(Resource resource, Measure measure) {
+  public synchronized Measure addMeasure(Resource resource, Measure measure) {
     Bucket bucket = getBucket(resource);
     if (bucket != null) {
       Metric metric = metricFinder.findByKey(measure.getMetricKey());
@@ -226,7 +227,7 @@ public class DefaultIndex extends SonarIndex {
    * Used by some core features like TendencyDecorator, {@link QualityGateVerifier}, VariationDecorator 
    * that need to update some existing measures
    */
-  public void updateMeasure(Resource resource, Measure measure) {
+  public synchronized void updateMeasure(Resource resource, Measure measure) {
     if (!measureCache.contains(resource, measure)) {
       throw new SonarException("Can't update measure on " + resource + ": " + measure);
     }
@@ -242,7 +243,7 @@ public class DefaultIndex extends SonarIndex {
   //
 
   @Override
-  public Dependency addDependency(Dependency dependency) {
+  public synchronized Dependency addDependency(Dependency dependency) {
     Dependency existingDep = getEdge(dependency.getFrom(), dependency.getTo());
     if (existingDep != null) {
       return existingDep;
@@ -254,7 +255,7 @@ public class DefaultIndex extends SonarIndex {
     }
 
     if (registerDependency(dependency)) {
-      persistence.saveDependency(currentProject, dependency, parentDependency);
+      persistence.saveDependency(getProject(), dependency, parentDependency);
     }
     return dependency;
   }
@@ -275,7 +276,7 @@ public class DefaultIndex extends SonarIndex {
   private void registerOutgoingDependency(Dependency dependency) {
     Map<Resource, Dependency> outgoingDeps = outgoingDependenciesByResource.get(dependency.getFrom());
     if (outgoingDeps == null) {
-      outgoingDeps = new HashMap<Resource, Dependency>();
+      outgoingDeps = Maps.newConcurrentMap();
       outgoingDependenciesByResource.put(dependency.getFrom(), outgoingDeps);
     }
     outgoingDeps.put(dependency.getTo(), dependency);
@@ -284,18 +285,21 @@ public class DefaultIndex extends SonarIndex {
   private void registerIncomingDependency(Dependency dependency) {
     Map<Resource, Dependency> incomingDeps = incomingDependenciesByResource.get(dependency.getTo());
     if (incomingDeps == null) {
-      incomingDeps = new HashMap<Resource, Dependency>();
+      incomingDeps = Maps.newConcurrentMap();
       incomingDependenciesByResource.put(dependency.getTo(), incomingDeps);
     }
     incomingDeps.put(dependency.getFrom(), dependency);
   }
 
+  /**
+   * Unmodifiable view of the dependencies. It reflects the dependencies registered concurrently by other sensors.
+   */
   @Override
   public Set<Dependency> getDependencies() {
-    return dependencies;
+    return Collections.unmodifiableSet(dependencies);
   }
 
-  public Dependency getEdge(Resource from, Resource to) {
+  public synchronized Dependency getEdge(Resource from, Resource to) {
     Map<Resource, Dependency> map = outgoingDependenciesByResource.get(from);
     if (map != null) {
       return map.get(to);
@@ -303,18 +307,18 @@ public class DefaultIndex extends SonarIndex {
     return null;
   }
 
-  public boolean hasEdge(Resource from, Resource to) {
+  public synchronized boolean hasEdge(Resource from, Resource to) {
     return getEdge(from, to) != null;
   }
 
   public Set<Resource> getVertices() {
-    return buckets.keySet();
+    return Collections.unmodifiableSet(buckets.keySet());
   }
 
   public Collection<Dependency> getOutgoingEdges(Resource from) {
     Map<Resource, Dependency> deps = outgoingDependenciesByResource.get(from);
     if (deps != null) {
-      return deps.values();
+      return Collections.unmodifiableCollection(deps.values());
     }
     return Collections.emptyList();
   }
@@ -322,7 +326,7 @@ public class DefaultIndex extends SonarIndex {
   public Collection<Dependency> getIncomingEdges(Resource to) {
     Map<Resource, Dependency> deps = incomingDependenciesByResource.get(to);
     if (deps != null) {
-      return deps.values();
+      return Collections.unmodifiableCollection(deps.values());
     }
     return Collections.emptyList();
   }
@@ -349,7 +353,7 @@ public class DefaultIndex extends SonarIndex {
    * {@inheritDoc}
    */
   @Override
-  public List<Violation> getViolations(ViolationQuery violationQuery) {
+  public synchronized List<Violation> getViolations(ViolationQuery violationQuery) {
     Resource resource = violationQuery.getResource();
     if (resource == null) {
       throw new IllegalArgumentException("A resource must be set on the ViolationQuery in order to search for violations.");
@@ -391,10 +395,10 @@ public class DefaultIndex extends SonarIndex {
   }
 
   @Override
-  public void addViolation(Violation violation, boolean force) {
+  public synchronized void addViolation(Violation violation, boolean force) {
     Resource resource = violation.getResource();
     if (resource == null) {
-      violation.setResource(currentProject);
+      violation.setResource(getProject());
     } else if (!Scopes.isHigherThanOrEquals(resource, Scopes.FILE)) {
       throw new IllegalArgumentException("Violations are only supported on files, directories and project");
     }
@@ -429,13 +433,13 @@ public class DefaultIndex extends SonarIndex {
   //
 
   @Override
-  public void addLink(ProjectLink link) {
-    persistence.saveLink(currentProject, link);
+  public synchronized void addLink(ProjectLink link) {
+    persistence.saveLink(getProject(), link);
   }
 
   @Override
-  public void deleteLink(String key) {
-    persistence.deleteLink(currentProject, key);
+  public synchronized void deleteLink(String key) {
+    persistence.deleteLink(getProject(), key);
   }
 
   //
@@ -447,18 +451,18 @@ public class DefaultIndex extends SonarIndex {
   //
 
   @Override
-  public List<Event> getEvents(Resource resource) {
+  public synchronized List<Event> getEvents(Resource resource) {
     // currently events are not cached in memory
     return persistence.getEvents(resource);
   }
 
   @Override
-  public void deleteEvent(Event event) {
+  public synchronized void deleteEvent(Event event) {
     persistence.deleteEvent(event);
   }
 
   @Override
-  public Event addEvent(Resource resource, String name, String description, String category, Date date) {
+  public synchronized Event addEvent(Resource resource, String name, String description, String category, Date date) {
     Event event = new Event(name, description, category);
     event.setDate(date);
     event.setCreatedAt(new Date());
@@ -468,7 +472,7 @@ public class DefaultIndex extends SonarIndex {
   }
 
   @Override
-  public void setSource(Resource reference, String source) {
+  public synchronized void setSource(Resource reference, String source) {
     Bucket bucket = getBucket(reference);
     if (bucket != null) {
       persistence.setSource(reference, source);
@@ -476,7 +480,7 @@ public class DefaultIndex extends SonarIndex {
   }
 
   @Override
-  public String getSource(Resource resource) {
+  public synchronized String getSource(Resource resource) {
     return persistence.getSource(resource);
   }
 
@@ -484,14 +488,14 @@ public class DefaultIndex extends SonarIndex {
    * Does nothing if the resource is already registered.
    */
   @Override
-  public Resource addResource(Resource resource) {
+  public synchronized Resource addResource(Resource resource) {
     Bucket bucket = doIndex(resource);
     return bucket != null ? bucket.getResource() : null;
   }
 
   @Override
   @CheckForNull
-  public <R extends Resource> R getResource(@Nullable R reference) {
+  public synchronized <R extends Resource> R getResource(@Nullable R reference) {
     Bucket bucket = getBucket(reference);
     if (bucket != null) {
       return (R) bucket.getResource();
@@ -500,11 +504,11 @@ public class DefaultIndex extends SonarIndex {
   }
 
   @Override
-  public List<Resource> getChildren(Resource resource) {
+  public synchronized List<Resource> getChildren(Resource resource) {
     return getChildren(resource, false);
   }
 
-  public List<Resource> getChildren(Resource resource, boolean acceptExcluded) {
+  public synchronized List<Resource> getChildren(Resource resource, boolean acceptExcluded) {
     List<Resource> children = Lists.newLinkedList();
     Bucket bucket = getBucket(resource);
     if (bucket != null) {
@@ -516,7 +520,7 @@ public class DefaultIndex extends SonarIndex {
   }
 
   @Override
-  public Resource getParent(Resource resource) {
+  public synchronized Resource getParent(Resource resource) {
     Bucket bucket = getBucket(resource);
     if (bucket != null && bucket.getParent() != null) {
       return bucket.getParent().getResource();
@@ -525,7 +529,7 @@ public class DefaultIndex extends SonarIndex {
   }
 
   @Override
-  public boolean index(Resource resource) {
+  public synchronized boolean index(Resource resource) {
     Bucket bucket = doIndex(resource);
     return bucket != null;
   }
@@ -538,7 +542,7 @@ public class DefaultIndex extends SonarIndex {
   }
 
   @Override
-  public boolean index(Resource resource, Resource parentReference) {
+  public synchronized boolean index(Resource resource, Resource parentReference) {
     Bucket bucket = doIndex(resource, parentReference);
     return bucket != null;
   }
@@ -557,7 +561,7 @@ public class DefaultIndex extends SonarIndex {
     Resource parent = null;
     if (!ResourceUtils.isLibrary(resource)) {
       // a library has no parent
-      parent = (Resource) ObjectUtils.defaultIfNull(parentReference, currentProject);
+      parent = (Resource) ObjectUtils.defaultIfNull(parentReference, getProject());
     }
 
     Bucket parentBucket = getBucket(parent);
@@ -566,12 +570,12 @@ public class DefaultIndex extends SonarIndex {
       return null;
     }
 
-    resource.setEffectiveKey(ComponentKeys.createEffectiveKey(currentProject, resource));
+    resource.setEffectiveKey(ComponentKeys.createEffectiveKey(getProject(), resource));
     bucket = new Bucket(resource).setParent(parentBucket);
     addBucket(resource, bucket);
 
     Resource parentSnapshot = parentBucket != null ? parentBucket.getResource() : null;
-    Snapshot snapshot = persistence.saveResource(currentProject, resource, parentSnapshot);
+    Snapshot snapshot = persistence.saveResource(getProject(), resource, parentSnapshot);
     if (ResourceUtils.isPersistable(resource) && !Qualifiers.LIBRARY.equals(resource.getQualifier())) {
       graph.addComponent(resource, snapshot);
     }
@@ -580,12 +584,12 @@ public class DefaultIndex extends SonarIndex {
   }
 
   @Override
-  public boolean isExcluded(@Nullable Resource reference) {
+  public synchronized boolean isExcluded(@Nullable Resource reference) {
     return false;
   }
 
   @Override
-  public boolean isIndexed(@Nullable Resource reference, boolean acceptExcluded) {
+  public synchronized boolean isIndexed(@Nullable Resource reference, boolean acceptExcluded) {
     return getBucket(reference) != null;
   }
 
@@ -76,6 +76,10 @@ public final class DefaultPersistenceManager implements PersistenceManager {
     }
   }
 
+  public void flushDependencies() {
+    dependencyPersister.flush();
+  }
+
   public void saveLink(Project project, ProjectLink link) {
     linkPersister.saveLink(project, link);
   }
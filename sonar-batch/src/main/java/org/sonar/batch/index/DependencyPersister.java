@@ -19,45 +19,211 @@
  */
 package org.sonar.batch.index;
 
-import org.sonar.api.database.DatabaseSession;
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Table;
+import org.sonar.api.batch.DependsUpon;
 import org.sonar.api.database.model.Snapshot;
 import org.sonar.api.design.Dependency;
-import org.sonar.api.design.DependencyDto;
 import org.sonar.api.resources.Project;
+import org.sonar.core.dependency.DependencyDto;
+import org.sonar.core.dependency.DependencyMapper;
+import org.sonar.core.persistence.DbSession;
+import org.sonar.core.persistence.MyBatis;
 
-public final class DependencyPersister {
+import javax.annotation.Nullable;
 
-  private ResourcePersister resourcePersister;
-  private DatabaseSession session;
+import java.util.Arrays;
+import java.util.Map;
 
-  public DependencyPersister(ResourcePersister resourcePersister, DatabaseSession session) {
+/**
+ * Dependencies are buffered in a compact edge list and inserted in batch mode. Ids are loaded afterwards
+ * in bulk, so that children dependencies can reference their parent.
+ * <p/>
+ * The buffer is flushed at the end of the sensor phase, so that decorators can read ids of dependencies (see design matrix),
+ * and at the end of the scan for the dependencies saved by decorators.
+ */
+@DependsUpon(ScanPersister.SNAPSHOTS)
+public final class DependencyPersister implements ScanPersister {
+
+  private static final int INITIAL_CAPACITY = 256;
+  private static final int NO_PARENT = -1;
+
+  private final ResourcePersister resourcePersister;
+  private final MyBatis myBatis;
+
+  private int size = 0;
+  private Dependency[] dependencies = new Dependency[INITIAL_CAPACITY];
+  private long[] projectSnapshotIds = new long[INITIAL_CAPACITY];
+  private long[] fromSnapshotIds = new long[INITIAL_CAPACITY];
+  private long[] fromResourceIds = new long[INITIAL_CAPACITY];
+  private String[] fromScopes = new String[INITIAL_CAPACITY];
+  private long[] toSnapshotIds = new long[INITIAL_CAPACITY];
+  private long[] toResourceIds = new long[INITIAL_CAPACITY];
+  private String[] toScopes = new String[INITIAL_CAPACITY];
+  private int[] weights = new int[INITIAL_CAPACITY];
+  private String[] usages = new String[INITIAL_CAPACITY];
+  // index of the parent dependency in buffer, or NO_PARENT
+  private int[] parentIndexes = new int[INITIAL_CAPACITY];
+  // id of parent dependency when it has already been flushed, else null
+  private Long[] parentIds = new Long[INITIAL_CAPACITY];
+  private final Map<Dependency, Integer> indexesByDependency = Maps.newHashMap();
+
+  public DependencyPersister(ResourcePersister resourcePersister, MyBatis myBatis) {
     this.resourcePersister = resourcePersister;
-    this.session = session;
+    this.myBatis = myBatis;
   }
 
-  public void saveDependency(Project project, Dependency dependency, Dependency parentDependency) {
+  public synchronized void saveDependency(Project project, Dependency dependency, @Nullable Dependency parentDependency) {
     Snapshot fromSnapshot = resourcePersister.saveResource(project, dependency.getFrom());
     Snapshot toSnapshot = resourcePersister.saveResource(project, dependency.getTo());
     Snapshot projectSnapshot = resourcePersister.getSnapshot(project);
 
-    DependencyDto model = new DependencyDto();
-    model.setProjectSnapshotId(projectSnapshot.getId());
-    model.setUsage(dependency.getUsage());
-    model.setWeight(dependency.getWeight());
+    ensureCapacity(size + 1);
+    dependencies[size] = dependency;
+    projectSnapshotIds[size] = projectSnapshot.getId();
+    fromSnapshotIds[size] = fromSnapshot.getId();
+    fromResourceIds[size] = fromSnapshot.getResourceId();
+    fromScopes[size] = fromSnapshot.getScope();
+    toSnapshotIds[size] = toSnapshot.getId();
+    toResourceIds[size] = toSnapshot.getResourceId();
+    toScopes[size] = toSnapshot.getScope();
+    weights[size] = dependency.getWeight();
+    usages[size] = dependency.getUsage();
+    parentIndexes[size] = NO_PARENT;
+    parentIds[size] = null;
+    if (parentDependency != null) {
+      Integer parentIndex = indexesByDependency.get(parentDependency);
+      if (parentIndex != null) {
+        parentIndexes[size] = parentIndex;
+      } else {
+        // assume that it has been previously flushed
+        parentIds[size] = parentDependency.getId();
+      }
+    }
+    indexesByDependency.put(dependency, size);
+    size++;
+  }
 
-    model.setFromResourceId(fromSnapshot.getResourceId());
-    model.setFromScope(fromSnapshot.getScope());
-    model.setFromSnapshotId(fromSnapshot.getId());
+  @Override
+  public int persist() {
+    return flush();
+  }
 
-    model.setToResourceId(toSnapshot.getResourceId());
-    model.setToSnapshotId(toSnapshot.getId());
-    model.setToScope(toSnapshot.getScope());
+  /**
+   * Inserts the buffered dependencies and sets their ids.
+   *
+   * @return the number of inserted dependencies
+   */
+  public synchronized int flush() {
+    if (size == 0) {
+      return 0;
+    }
+    int count = size;
+    DbSession session = myBatis.openSession(true);
+    try {
+      DependencyMapper mapper = session.getMapper(DependencyMapper.class);
+      Long[] ids = new Long[size];
+      boolean[] inserted = new boolean[size];
+      int remaining = size;
+      while (remaining > 0) {
+        // parents are inserted before children, level by level
+        int insertedCount = insertDependenciesWithKnownParent(mapper, ids, inserted);
+        if (insertedCount == 0) {
+          throw new IllegalStateException("Cycle detected in parents of dependencies");
+        }
+        session.commit();
+        loadIds(mapper, ids, inserted);
+        remaining -= insertedCount;
+      }
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+    clearBuffer();
+    return count;
+  }
 
-    if (parentDependency != null) {
-      // assume that it has been previously saved
-      model.setParentDependencyId(parentDependency.getId());
+  private int insertDependenciesWithKnownParent(DependencyMapper mapper, Long[] ids, boolean[] inserted) {
+    int count = 0;
+    for (int i = 0; i < size; i++) {
+      if (!inserted[i]) {
+        Long parentId = parentIds[i];
+        if (parentIndexes[i] != NO_PARENT) {
+          parentId = ids[parentIndexes[i]];
+          if (parentId == null) {
+            // parent is inserted in this round
+            continue;
+          }
+        }
+        mapper.insert(new DependencyDto()
+          .setProjectSnapshotId(projectSnapshotIds[i])
+          .setFromSnapshotId(fromSnapshotIds[i])
+          .setFromResourceId(fromResourceIds[i])
+          .setFromScope(fromScopes[i])
+          .setToSnapshotId(toSnapshotIds[i])
+          .setToResourceId(toResourceIds[i])
+          .setToScope(toScopes[i])
+          .setWeight(weights[i])
+          .setUsage(usages[i])
+          .setParentDependencyId(parentId));
+        inserted[i] = true;
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Dependencies are unique by source and target within the same project snapshot.
+   */
+  private void loadIds(DependencyMapper mapper, Long[] ids, boolean[] inserted) {
+    Map<Long, Table<Long, Long, Long>> idsByProjectSnapshot = Maps.newHashMap();
+    for (int i = 0; i < size; i++) {
+      if (inserted[i] && ids[i] == null) {
+        Table<Long, Long, Long> idsByEdge = idsByProjectSnapshot.get(projectSnapshotIds[i]);
+        if (idsByEdge == null) {
+          idsByEdge = HashBasedTable.create();
+          for (DependencyDto dto : mapper.selectByProjectSnapshot(projectSnapshotIds[i])) {
+            idsByEdge.put(dto.getFromSnapshotId(), dto.getToSnapshotId(), dto.getId());
+          }
+          idsByProjectSnapshot.put(projectSnapshotIds[i], idsByEdge);
+        }
+        Long id = idsByEdge.get(fromSnapshotIds[i], toSnapshotIds[i]);
+        if (id == null) {
+          throw new IllegalStateException("Fail to load id of dependency " + dependencies[i]);
+        }
+        ids[i] = id;
+        dependencies[i].setId(id);
+      }
     }
-    session.save(model);
-    dependency.setId(model.getId());
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity > dependencies.length) {
+      int newCapacity = Math.max(capacity, dependencies.length * 2);
+      dependencies = Arrays.copyOf(dependencies, newCapacity);
+      projectSnapshotIds = Arrays.copyOf(projectSnapshotIds, newCapacity);
+      fromSnapshotIds = Arrays.copyOf(fromSnapshotIds, newCapacity);
+      fromResourceIds = Arrays.copyOf(fromResourceIds, newCapacity);
+      fromScopes = Arrays.copyOf(fromScopes, newCapacity);
+      toSnapshotIds = Arrays.copyOf(toSnapshotIds, newCapacity);
+      toResourceIds = Arrays.copyOf(toResourceIds, newCapacity);
+      toScopes = Arrays.copyOf(toScopes, newCapacity);
+      weights = Arrays.copyOf(weights, newCapacity);
+      usages = Arrays.copyOf(usages, newCapacity);
+      parentIndexes = Arrays.copyOf(parentIndexes, newCapacity);
+      parentIds = Arrays.copyOf(parentIds, newCapacity);
+    }
+  }
+
+  private void clearBuffer() {
+    Arrays.fill(dependencies, 0, size, null);
+    Arrays.fill(parentIds, 0, size, null);
+    indexesByDependency.clear();
+    size = 0;
+  }
+
+  int bufferSize() {
+    return size;
   }
 }
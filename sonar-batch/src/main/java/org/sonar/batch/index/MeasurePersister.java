@@ -20,6 +20,7 @@
 package org.sonar.batch.index;
 
 import com.google.common.annotations.VisibleForTesting;
+import org.sonar.api.batch.DependsUpon;
 import org.sonar.api.database.model.MeasureMapper;
 import org.sonar.api.database.model.MeasureModel;
 import org.sonar.api.database.model.Snapshot;
@@ -37,6 +38,7 @@ import org.sonar.batch.scan.measure.MeasureCache;
 import org.sonar.core.persistence.DbSession;
 import org.sonar.core.persistence.MyBatis;
 
+@DependsUpon(ScanPersister.SNAPSHOTS)
 public final class MeasurePersister implements ScanPersister {
   private final MyBatis mybatis;
   private final RuleFinder ruleFinder;
@@ -54,7 +56,8 @@ public final class MeasurePersister implements ScanPersister {
   }
 
   @Override
-  public void persist() {
+  public int persist() {
+    int count = 0;
     DbSession session = mybatis.openSession(true);
     try {
       MeasureMapper mapper = session.getMapper(MeasureMapper.class);
@@ -68,10 +71,12 @@ public final class MeasurePersister implements ScanPersister {
           Snapshot snapshot = snapshotCache.get(effectiveKey);
           MeasureModel measureModel = model(measure).setSnapshotId(snapshot.getId());
           mapper.insert(measureModel);
+          count++;
         }
       }
 
       session.commit();
+      return count;
     } catch (Exception e) {
       throw new SonarException("Unable to save some measures", e);
     } finally {
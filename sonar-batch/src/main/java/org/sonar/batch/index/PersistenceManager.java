@@ -41,6 +41,11 @@ public interface PersistenceManager {
 
   void saveDependency(Project project, Dependency dependency, Dependency parentDependency);
 
+  /**
+   * Persists the dependencies saved since the last call, so that their ids are available.
+   */
+  void flushDependencies();
+
   void saveLink(Project project, ProjectLink link);
 
   void deleteLink(Project project, String key);
@@ -25,14 +25,14 @@ import com.google.common.collect.Maps;
 import org.sonar.api.BatchComponent;
 import org.sonar.api.resources.Resource;
 
-import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * @since 3.6
  */
 public class ResourceCache implements BatchComponent {
   // resource by component key
-  private final Map<String, Resource> resources = Maps.newHashMap();
+  private final ConcurrentMap<String, Resource> resources = Maps.newConcurrentMap();
 
   public Resource get(String componentKey) {
     return resources.get(componentKey);
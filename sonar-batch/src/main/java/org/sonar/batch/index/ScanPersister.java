@@ -21,8 +21,23 @@ package org.sonar.batch.index;
 
 import org.sonar.api.BatchComponent;
 
+/**
+ * Executed at the end of project scan, in the order declared with {@link org.sonar.api.batch.DependsUpon} and
+ * {@link org.sonar.api.batch.DependedUpon}. Persisters that do not depend upon each other can be executed concurrently,
+ * see {@link org.sonar.batch.phases.PersistersExecutor#PERSISTERS_PARALLELISM_PROPERTY}.
+ */
 public interface ScanPersister extends BatchComponent {
 
-  void persist();
+  /**
+   * Snapshots are inserted during the scan by {@link ResourcePersister}. Persisters that insert rows referencing snapshots
+   * depend upon this value, and a persister that would insert snapshots at the end of the scan must be annotated with
+   * <code>@DependedUpon(SNAPSHOTS)</code>.
+   */
+  String SNAPSHOTS = "snapshots";
+
+  /**
+   * @return the number of persisted rows
+   */
+  int persist();
 
 }
@@ -19,31 +19,101 @@
  */
 package org.sonar.batch.index;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import org.sonar.api.BatchComponent;
 import org.sonar.api.database.model.Snapshot;
 import org.sonar.api.resources.Library;
 
+import javax.annotation.CheckForNull;
+
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 /**
+ * Dictionary of the components of the analysis. Each effective key is interned to a dense int id, which
+ * indexes the snapshot and the resource id of the component.
+ * <p/>
+ * Components that are not part of the analysis (deleted files with open issues for example) can be registered
+ * with their resource id only.
+ * <p/>
  * Does not contains snapshots of {@link Library} as effectiveKey can be the same than a project.
  */
 public class SnapshotCache implements BatchComponent {
-  // snapshots by component key
-  private final Map<String, Snapshot> snapshots = Maps.newHashMap();
 
-  public Snapshot get(String componentKey) {
-    return snapshots.get(componentKey);
+  private static final int NO_RESOURCE_ID = -1;
+
+  // dense ids by component key
+  private final Map<String, Integer> idsByKey = Maps.newHashMap();
+  private final List<String> keys = Lists.newArrayList();
+  private final List<Snapshot> snapshots = Lists.newArrayList();
+  private int[] resourceIds = new int[256];
+
+  /**
+   * Returns the dense id of the component, registering its key if needed.
+   */
+  public synchronized int intern(String componentKey) {
+    Integer id = idsByKey.get(componentKey);
+    if (id == null) {
+      id = keys.size();
+      idsByKey.put(componentKey, id);
+      keys.add(componentKey);
+      snapshots.add(null);
+      if (id >= resourceIds.length) {
+        int oldLength = resourceIds.length;
+        resourceIds = Arrays.copyOf(resourceIds, oldLength * 2);
+        Arrays.fill(resourceIds, oldLength, resourceIds.length, NO_RESOURCE_ID);
+      } else {
+        resourceIds[id] = NO_RESOURCE_ID;
+      }
+    }
+    return id;
+  }
+
+  @CheckForNull
+  public synchronized Snapshot get(String componentKey) {
+    Integer id = idsByKey.get(componentKey);
+    return id != null ? snapshots.get(id) : null;
   }
 
-  public SnapshotCache put(String componentKey, Snapshot snapshot) {
-    snapshots.put(componentKey, snapshot);
+  public synchronized SnapshotCache put(String componentKey, Snapshot snapshot) {
+    int id = intern(componentKey);
+    snapshots.set(id, snapshot);
+    resourceIds[id] = snapshot.getResourceId() != null ? snapshot.getResourceId() : NO_RESOURCE_ID;
     return this;
   }
 
-  public Set<Map.Entry<String, Snapshot>> snapshots() {
-    return snapshots.entrySet();
+  /**
+   * Registers a component that has no snapshot in this analysis.
+   */
+  public synchronized SnapshotCache putResourceId(String componentKey, int resourceId) {
+    int id = intern(componentKey);
+    resourceIds[id] = resourceId;
+    return this;
+  }
+
+  /**
+   * Id of the component in the table PROJECTS, or null if the component is unknown.
+   */
+  @CheckForNull
+  public synchronized Integer resourceId(String componentKey) {
+    Integer id = idsByKey.get(componentKey);
+    if (id == null || resourceIds[id] == NO_RESOURCE_ID) {
+      return null;
+    }
+    return resourceIds[id];
+  }
+
+  public synchronized Set<Map.Entry<String, Snapshot>> snapshots() {
+    Map<String, Snapshot> result = Maps.newLinkedHashMap();
+    for (int id = 0; id < keys.size(); id++) {
+      Snapshot snapshot = snapshots.get(id);
+      if (snapshot != null) {
+        result.put(keys.get(id), snapshot);
+      }
+    }
+    return result.entrySet();
   }
 }
@@ -21,13 +21,14 @@ package org.sonar.batch.issue;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.sonar.api.issue.internal.DefaultIssue;
+import org.sonar.api.batch.DependsUpon;
 import org.sonar.batch.bootstrap.AnalysisMode;
 import org.sonar.batch.index.ScanPersister;
 
 /**
  * Executed at the end of project scan, when all the modules are completed.
  */
+@DependsUpon(ScanPersister.SNAPSHOTS)
 public class IssuePersister implements ScanPersister {
 
   private static final Logger LOG = LoggerFactory.getLogger(IssuePersister.class);
@@ -43,12 +44,12 @@ public class IssuePersister implements ScanPersister {
   }
 
   @Override
-  public void persist() {
+  public int persist() {
     if (analysisMode.isPreview()) {
       LOG.debug("IssuePersister skipped in preview mode");
-      return;
+      return 0;
     }
-    Iterable<DefaultIssue> issues = issueCache.all();
-    storage.save(issues);
+    // issues are streamed from the cache and counted by the storage
+    return storage.save(issueCache.all());
   }
 }
@@ -20,7 +20,6 @@
 package org.sonar.batch.issue;
 
 import org.sonar.api.BatchComponent;
-import org.sonar.api.database.model.Snapshot;
 import org.sonar.api.issue.internal.DefaultIssue;
 import org.sonar.api.rules.RuleFinder;
 import org.sonar.batch.ProjectTree;
@@ -36,6 +35,7 @@ public class ScanIssueStorage extends IssueStorage implements BatchComponent {
   private final SnapshotCache snapshotCache;
   private final ResourceDao resourceDao;
   private final ProjectTree projectTree;
+  private boolean componentsWithIssuesLoaded = false;
 
   public ScanIssueStorage(MyBatis mybatis, RuleFinder ruleFinder, SnapshotCache snapshotCache, ResourceDao resourceDao, ProjectTree projectTree) {
     super(mybatis, ruleFinder);
@@ -46,17 +46,32 @@ public class ScanIssueStorage extends IssueStorage implements BatchComponent {
 
   @Override
   protected long componentId(DefaultIssue issue) {
-    Snapshot snapshot = snapshotCache.get(issue.componentKey());
-    if (snapshot != null) {
-      return snapshot.getResourceId();
+    Integer resourceId = snapshotCache.resourceId(issue.componentKey());
+    if (resourceId == null && !componentsWithIssuesLoaded) {
+      // Component does not exist in cache (deleted file for example). All the components
+      // with open issues are loaded at once instead of requesting the db for each issue.
+      loadComponentsWithIssues();
+      resourceId = snapshotCache.resourceId(issue.componentKey());
     }
+    if (resourceId == null) {
+      // For example a manual issue created on a component that had no open issues
+      ResourceDto resourceDto = resourceDao.getResource(ResourceQuery.create().setKey(issue.componentKey()));
+      if (resourceDto == null) {
+        throw new IllegalStateException("Unknown component: " + issue.componentKey());
+      }
+      resourceId = resourceDto.getId().intValue();
+      snapshotCache.putResourceId(issue.componentKey(), resourceId);
+    }
+    return resourceId;
+  }
 
-    // Load from db when component does not exist in cache (deleted file for example)
-    ResourceDto resourceDto = resourceDao.getResource(ResourceQuery.create().setKey(issue.componentKey()));
-    if (resourceDto == null) {
-      throw new IllegalStateException("Unknown component: " + issue.componentKey());
+  private void loadComponentsWithIssues() {
+    for (ResourceDto resourceDto : resourceDao.getComponentsWithNonClosedIssues(projectTree.getRootProject().getId())) {
+      if (snapshotCache.resourceId(resourceDto.getKey()) == null) {
+        snapshotCache.putResourceId(resourceDto.getKey(), resourceDto.getId().intValue());
+      }
     }
-    return resourceDto.getId();
+    componentsWithIssuesLoaded = true;
   }
 
   @Override
@@ -21,21 +21,28 @@ package org.sonar.batch.phases;
 
 import org.sonar.api.batch.Decorator;
 import org.sonar.api.batch.events.DecoratorExecutionHandler;
+import org.sonar.api.resources.Resource;
 
 class DecoratorExecutionEvent extends AbstractPhaseEvent<DecoratorExecutionHandler>
     implements org.sonar.api.batch.events.DecoratorExecutionHandler.DecoratorExecutionEvent {
 
   private final Decorator decorator;
+  private final Resource resource;
 
-  DecoratorExecutionEvent(Decorator decorator, boolean start) {
+  DecoratorExecutionEvent(Decorator decorator, Resource resource, boolean start) {
     super(start);
     this.decorator = decorator;
+    this.resource = resource;
   }
 
   public Decorator getDecorator() {
     return decorator;
   }
 
+  public Resource getResource() {
+    return resource;
+  }
+
   @Override
   public void dispatch(DecoratorExecutionHandler handler) {
     handler.onDecoratorExecution(this);
@@ -81,9 +81,9 @@ public class DecoratorsExecutor implements BatchComponent {
 
   void executeDecorator(Decorator decorator, DefaultDecoratorContext context, Resource resource) {
     try {
-      eventBus.fireEvent(new DecoratorExecutionEvent(decorator, true));
+      eventBus.fireEvent(new DecoratorExecutionEvent(decorator, resource, true));
       decorator.decorate(resource, context);
-      eventBus.fireEvent(new DecoratorExecutionEvent(decorator, false));
+      eventBus.fireEvent(new DecoratorExecutionEvent(decorator, resource, false));
 
     } catch (MessageException e) {
       throw e;
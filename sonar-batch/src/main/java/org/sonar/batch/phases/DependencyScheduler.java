@@ -0,0 +1,180 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.batch.phases;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Executes each item, for example a sensor, as soon as the items it depends upon are completed, so that
+ * independent items are executed concurrently. Sequential items are executed alone, in the calling thread.
+ *
+ * @since 4.4
+ */
+class DependencyScheduler<T> {
+
+  interface Runner<T> {
+    void run(T item);
+  }
+
+  private final Map<T, Set<T>> predecessors;
+  private final Predicate<T> sequential;
+  private final Map<T, Long> durations = Maps.newConcurrentMap();
+
+  /**
+   * @param predecessors items to be executed before each item, in the order of execution of the sequential mode
+   * @param sequential items that must not be executed at the same time as other items
+   */
+  DependencyScheduler(Map<T, Set<T>> predecessors, Predicate<T> sequential) {
+    this.predecessors = predecessors;
+    this.sequential = sequential;
+  }
+
+  void execute(ExecutorService executor, Runner<T> runner) {
+    Map<T, Integer> remainingPredecessors = Maps.newHashMap();
+    Multimap<T, T> successors = ArrayListMultimap.create();
+    LinkedList<T> ready = Lists.newLinkedList();
+    for (Map.Entry<T, Set<T>> entry : predecessors.entrySet()) {
+      remainingPredecessors.put(entry.getKey(), entry.getValue().size());
+      for (T predecessor : entry.getValue()) {
+        successors.put(predecessor, entry.getKey());
+      }
+      if (entry.getValue().isEmpty()) {
+        ready.add(entry.getKey());
+      }
+    }
+
+    CompletionService<T> completionService = new ExecutorCompletionService<T>(executor);
+    int running = 0;
+    while (!ready.isEmpty() || running > 0) {
+      // a sequential item stops the submission of the next items until it is executed
+      while (!ready.isEmpty() && !sequential.apply(ready.getFirst())) {
+        completionService.submit(task(ready.removeFirst(), runner));
+        running++;
+      }
+      T completed;
+      if (running == 0) {
+        completed = ready.removeFirst();
+        call(task(completed, runner));
+      } else {
+        completed = take(completionService);
+        running--;
+      }
+      for (T successor : successors.get(completed)) {
+        int remaining = remainingPredecessors.get(successor) - 1;
+        remainingPredecessors.put(successor, remaining);
+        if (remaining == 0) {
+          ready.add(successor);
+        }
+      }
+    }
+  }
+
+  private Callable<T> task(final T item, final Runner<T> runner) {
+    return new Callable<T>() {
+      @Override
+      public T call() {
+        long start = System.currentTimeMillis();
+        runner.run(item);
+        durations.put(item, System.currentTimeMillis() - start);
+        return item;
+      }
+    };
+  }
+
+  private static <T> void call(Callable<T> task) {
+    try {
+      task.call();
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static <T> T take(CompletionService<T> completionService) {
+    try {
+      return completionService.take().get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for completion", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException("Fail to execute task", cause);
+    }
+  }
+
+  Map<T, Long> durations() {
+    return durations;
+  }
+
+  /**
+   * The chain of dependent items that has the longest total duration, which is the minimal duration
+   * of the execution whatever the number of threads.
+   */
+  static <T> List<T> criticalPath(Map<T, Set<T>> predecessors, Map<T, Long> durations) {
+    Map<T, Long> endTimes = Maps.newHashMap();
+    Map<T, T> previous = Maps.newHashMap();
+    T last = null;
+    for (Map.Entry<T, Set<T>> entry : predecessors.entrySet()) {
+      long start = 0L;
+      for (T predecessor : entry.getValue()) {
+        Long end = endTimes.get(predecessor);
+        if (end != null && end >= start) {
+          start = end;
+          previous.put(entry.getKey(), predecessor);
+        }
+      }
+      Long duration = durations.get(entry.getKey());
+      long end = start + (duration != null ? duration : 0L);
+      endTimes.put(entry.getKey(), end);
+      if (last == null || end > endTimes.get(last)) {
+        last = entry.getKey();
+      }
+    }
+
+    List<T> path = Lists.newArrayList();
+    for (T item = last; item != null; item = previous.get(item)) {
+      path.add(item);
+    }
+    Collections.reverse(path);
+    return path;
+  }
+}
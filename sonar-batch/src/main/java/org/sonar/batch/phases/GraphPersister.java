@@ -20,7 +20,8 @@
 package org.sonar.batch.phases;
 
 import com.tinkerpop.blueprints.Graph;
-import org.apache.commons.io.IOUtils;
+import org.apache.commons.codec.binary.Base64;
+import org.sonar.api.batch.DependsUpon;
 import org.sonar.api.component.Perspective;
 import org.sonar.batch.index.ScanPersister;
 import org.sonar.core.component.ComponentVertex;
@@ -28,20 +29,26 @@ import org.sonar.core.component.GraphPerspectiveBuilder;
 import org.sonar.core.component.PerspectiveBuilder;
 import org.sonar.core.component.ScanGraph;
 import org.sonar.core.graph.SubGraph;
-import org.sonar.core.graph.graphson.GraphsonMode;
-import org.sonar.core.graph.graphson.GraphsonWriter;
+import org.sonar.core.graph.binary.BinaryGraphWriter;
 import org.sonar.core.graph.jdbc.GraphDto;
 import org.sonar.core.graph.jdbc.GraphDtoMapper;
-import org.sonar.core.persistence.BatchSession;
 import org.sonar.core.persistence.DbSession;
 import org.sonar.core.persistence.MyBatis;
 
-import java.io.StringWriter;
-
+@DependsUpon(ScanPersister.SNAPSHOTS)
 public class GraphPersister implements ScanPersister {
+
+  /**
+   * Pending inserts are flushed when their data exceed this size, so that the batch of statements
+   * does not hold too much memory on projects with large test plans.
+   */
+  private static final int MAX_PENDING_DATA_SIZE = 16 * 1024 * 1024;
+
   private final MyBatis myBatis;
   private final ScanGraph projectGraph;
   private final GraphPerspectiveBuilder[] builders;
+  private final BinaryGraphWriter writer = new BinaryGraphWriter();
+  private int pendingDataSize = 0;
 
   public GraphPersister(MyBatis myBatis, ScanGraph projectGraph, GraphPerspectiveBuilder[] builders) {
     this.myBatis = myBatis;
@@ -49,54 +56,54 @@ public class GraphPersister implements ScanPersister {
     this.builders = builders;
   }
 
-  public void persist() {
+  public int persist() {
+    int count = 0;
     DbSession session = myBatis.openSession(true);
     GraphDtoMapper mapper = session.getMapper(GraphDtoMapper.class);
     try {
       for (ComponentVertex component : projectGraph.getComponents()) {
-        persistComponentGraph(mapper, component);
+        count += persistComponentGraph(session, mapper, component);
       }
       session.commit();
     } finally {
       session.close();
     }
+    return count;
   }
 
-  private void persistComponentGraph(GraphDtoMapper mapper, ComponentVertex component) {
+  private int persistComponentGraph(DbSession session, GraphDtoMapper mapper, ComponentVertex component) {
+    int count = 0;
     Long snapshotId = (Long) component.element().getProperty("sid");
     if (snapshotId != null) {
       for (PerspectiveBuilder builder : builders) {
         GraphPerspectiveBuilder graphPerspectiveBuilder = (GraphPerspectiveBuilder) builder;
         Perspective perspective = graphPerspectiveBuilder.getPerspectiveLoader().load(component);
         if (perspective != null) {
-          serializePerspectiveData(mapper, component, snapshotId, graphPerspectiveBuilder);
+          serializePerspectiveData(session, mapper, component, snapshotId, graphPerspectiveBuilder);
+          count++;
         }
       }
     }
+    return count;
   }
 
-  private void serializePerspectiveData(GraphDtoMapper mapper, ComponentVertex component, Long snapshotId,
+  private void serializePerspectiveData(DbSession session, GraphDtoMapper mapper, ComponentVertex component, Long snapshotId,
                                         GraphPerspectiveBuilder builder) {
     Graph subGraph = SubGraph.extract(component.element(), builder.path());
-    String data = write(subGraph);
+    String data = Base64.encodeBase64String(writer.write(subGraph));
     mapper.insert(new GraphDto()
       .setData(data)
-      .setFormat("graphson")
+      .setFormat(GraphDto.FORMAT_BINARY)
       .setPerspective(builder.getPerspectiveLoader().getPerspectiveKey())
       .setVersion(1)
       .setResourceId((Long) component.element().getProperty("rid"))
       .setSnapshotId(snapshotId)
       .setRootVertexId(component.element().getId().toString())
     );
-  }
-
-  private String write(Graph graph) {
-    StringWriter output = new StringWriter();
-    try {
-      new GraphsonWriter().write(graph, output, GraphsonMode.EXTENDED);
-      return output.toString();
-    } finally {
-      IOUtils.closeQuietly(output);
+    pendingDataSize += data.length();
+    if (pendingDataSize > MAX_PENDING_DATA_SIZE) {
+      session.commit();
+      pendingDataSize = 0;
     }
   }
 }
@@ -0,0 +1,57 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.batch.phases;
+
+import org.sonar.batch.events.PersisterExecutionHandler;
+import org.sonar.batch.index.ScanPersister;
+
+class PersisterExecutionEvent extends AbstractPhaseEvent<PersisterExecutionHandler>
+    implements PersisterExecutionHandler.PersisterExecutionEvent {
+
+  private final ScanPersister persister;
+  private final int rows;
+
+  PersisterExecutionEvent(ScanPersister persister, boolean start, int rows) {
+    super(start);
+    this.persister = persister;
+    this.rows = rows;
+  }
+
+  @Override
+  public ScanPersister getPersister() {
+    return persister;
+  }
+
+  @Override
+  public int rows() {
+    return rows;
+  }
+
+  @Override
+  public void dispatch(PersisterExecutionHandler handler) {
+    handler.onPersisterExecution(this);
+  }
+
+  @Override
+  public Class getType() {
+    return PersisterExecutionHandler.class;
+  }
+
+}
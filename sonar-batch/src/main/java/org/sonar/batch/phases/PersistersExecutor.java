@@ -0,0 +1,117 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.batch.phases;
+
+import com.google.common.base.Predicates;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.BatchComponent;
+import org.sonar.api.config.Settings;
+import org.sonar.batch.bootstrap.BatchExtensionDictionnary;
+import org.sonar.batch.events.BatchStepEvent;
+import org.sonar.batch.events.EventBus;
+import org.sonar.batch.index.ScanPersister;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Executes the {@link ScanPersister}s at the end of the scan of the root module, in the order declared by their
+ * annotations {@link org.sonar.api.batch.DependsUpon} and {@link org.sonar.api.batch.DependedUpon}. Persisters write
+ * to distinct tables, each one with its own session, so those that do not depend upon each other can optionally
+ * be executed concurrently.
+ *
+ * @since 4.4
+ */
+public class PersistersExecutor implements BatchComponent {
+
+  private static final Logger LOG = LoggerFactory.getLogger(PersistersExecutor.class);
+
+  /**
+   * Maximum number of persisters executed concurrently. Default value is 1, meaning that persisters are executed
+   * one after another.
+   */
+  public static final String PERSISTERS_PARALLELISM_PROPERTY = "sonar.batch.persistersParallelism";
+  static final int DEFAULT_PARALLELISM = 1;
+
+  private final ScanPersister[] persisters;
+  private final BatchExtensionDictionnary selector;
+  private final EventBus eventBus;
+  private final Settings settings;
+
+  public PersistersExecutor(ScanPersister[] persisters, BatchExtensionDictionnary selector, EventBus eventBus, Settings settings) {
+    this.persisters = persisters;
+    this.selector = selector;
+    this.eventBus = eventBus;
+    this.settings = settings;
+  }
+
+  public void execute() {
+    LOG.info("Store results in database");
+    String persistersStep = "Persisters";
+    eventBus.fireEvent(new BatchStepEvent(persistersStep, true));
+
+    int parallelism = parallelism();
+    if (parallelism > 1 && persisters.length > 1) {
+      executeConcurrently(parallelism);
+    } else {
+      for (ScanPersister persister : selector.sort(Arrays.asList(persisters))) {
+        execute(persister);
+      }
+    }
+
+    eventBus.fireEvent(new BatchStepEvent(persistersStep, false));
+  }
+
+  private int parallelism() {
+    if (settings.hasKey(PERSISTERS_PARALLELISM_PROPERTY)) {
+      return Math.max(1, settings.getInt(PERSISTERS_PARALLELISM_PROPERTY));
+    }
+    return DEFAULT_PARALLELISM;
+  }
+
+  private void executeConcurrently(int parallelism) {
+    Map<ScanPersister, Set<ScanPersister>> predecessors = selector.predecessors(Arrays.asList(persisters));
+    DependencyScheduler<ScanPersister> scheduler = new DependencyScheduler<ScanPersister>(predecessors, Predicates.<ScanPersister>alwaysFalse());
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, persisters.length),
+      new ThreadFactoryBuilder().setNameFormat("persister-%d").setDaemon(true).build());
+    try {
+      scheduler.execute(executor, new DependencyScheduler.Runner<ScanPersister>() {
+        @Override
+        public void run(ScanPersister persister) {
+          execute(persister);
+        }
+      });
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private void execute(ScanPersister persister) {
+    LOG.debug("Execute {}", persister.getClass().getName());
+    eventBus.fireEvent(new PersisterExecutionEvent(persister, true, 0));
+    int rows = persister.persist();
+    eventBus.fireEvent(new PersisterExecutionEvent(persister, false, rows));
+  }
+}
@@ -28,7 +28,6 @@ import org.sonar.batch.events.BatchStepEvent;
 import org.sonar.batch.events.EventBus;
 import org.sonar.batch.index.DefaultIndex;
 import org.sonar.batch.index.PersistenceManager;
-import org.sonar.batch.index.ScanPersister;
 import org.sonar.batch.issue.ignore.scanner.IssueExclusionsLoader;
 import org.sonar.batch.rule.QProfileVerifier;
 import org.sonar.batch.scan.filesystem.DefaultModuleFileSystem;
@@ -54,7 +53,7 @@ public final class PhaseExecutor {
   private final SensorContext sensorContext;
   private final DefaultIndex index;
   private final ProjectInitializer pi;
-  private final ScanPersister[] persisters;
+  private final PersistersExecutor persistersExecutor;
   private final FileSystemLogger fsLogger;
   private final JsonReport jsonReport;
   private final DefaultModuleFileSystem fs;
@@ -66,7 +65,7 @@ public final class PhaseExecutor {
     PostJobsExecutor postJobsExecutor, SensorsExecutor sensorsExecutor,
     PersistenceManager persistenceManager, SensorContext sensorContext, DefaultIndex index,
     EventBus eventBus, UpdateStatusJob updateStatusJob, ProjectInitializer pi,
-    ScanPersister[] persisters, FileSystemLogger fsLogger, JsonReport jsonReport, DefaultModuleFileSystem fs, QProfileVerifier profileVerifier,
+    PersistersExecutor persistersExecutor, FileSystemLogger fsLogger, JsonReport jsonReport, DefaultModuleFileSystem fs, QProfileVerifier profileVerifier,
     IssueExclusionsLoader issueExclusionsLoader) {
     this.phases = phases;
     this.decoratorsExecutor = decoratorsExecutor;
@@ -80,7 +79,7 @@ public final class PhaseExecutor {
     this.eventBus = eventBus;
     this.updateStatusJob = updateStatusJob;
     this.pi = pi;
-    this.persisters = persisters;
+    this.persistersExecutor = persistersExecutor;
     this.fsLogger = fsLogger;
     this.jsonReport = jsonReport;
     this.fs = fs;
@@ -92,15 +91,15 @@ public final class PhaseExecutor {
     MavenPluginsConfigurator mavenPluginsConfigurator, InitializersExecutor initializersExecutor,
     PostJobsExecutor postJobsExecutor, SensorsExecutor sensorsExecutor,
     PersistenceManager persistenceManager, SensorContext sensorContext, DefaultIndex index,
-    EventBus eventBus, ProjectInitializer pi, ScanPersister[] persisters, FileSystemLogger fsLogger, JsonReport jsonReport,
+    EventBus eventBus, ProjectInitializer pi, PersistersExecutor persistersExecutor, FileSystemLogger fsLogger, JsonReport jsonReport,
     DefaultModuleFileSystem fs, QProfileVerifier profileVerifier, IssueExclusionsLoader issueExclusionsLoader) {
     this(phases, decoratorsExecutor, mavenPluginsConfigurator, initializersExecutor, postJobsExecutor,
-      sensorsExecutor, persistenceManager, sensorContext, index, eventBus, null, pi, persisters, fsLogger, jsonReport, fs, profileVerifier, issueExclusionsLoader);
+      sensorsExecutor, persistenceManager, sensorContext, index, eventBus, null, pi, persistersExecutor, fsLogger, jsonReport, fs, profileVerifier, issueExclusionsLoader);
   }
 
   public static Collection<Class> getPhaseClasses() {
     return Lists.<Class>newArrayList(DecoratorsExecutor.class, MavenPluginsConfigurator.class,
-      PostJobsExecutor.class, SensorsExecutor.class,
+      PostJobsExecutor.class, SensorsExecutor.class, PersistersExecutor.class,
       InitializersExecutor.class, ProjectInitializer.class, UpdateStatusJob.class);
   }
 
@@ -127,6 +126,7 @@ public final class PhaseExecutor {
       issueExclusionsLoader.execute();
 
       sensorsExecutor.execute(sensorContext);
+      flushDependencies();
     }
 
     if (phases.isEnabled(Phases.Phase.DECORATOR)) {
@@ -136,7 +136,7 @@ public final class PhaseExecutor {
     if (module.isRoot()) {
       jsonReport.execute();
 
-      executePersisters();
+      persistersExecutor.execute();
       updateStatusJob();
       if (phases.isEnabled(Phases.Phase.POSTJOB)) {
         postJobsExecutor.execute(sensorContext);
@@ -146,18 +146,6 @@ public final class PhaseExecutor {
     eventBus.fireEvent(new ProjectAnalysisEvent(module, false));
   }
 
-  private void executePersisters() {
-    LOGGER.info("Store results in database");
-    String persistersStep = "Persisters";
-    eventBus.fireEvent(new BatchStepEvent(persistersStep, true));
-    for (ScanPersister persister : persisters) {
-      LOGGER.debug("Execute {}", persister.getClass().getName());
-      persister.persist();
-    }
-
-    eventBus.fireEvent(new BatchStepEvent(persistersStep, false));
-  }
-
   private void updateStatusJob() {
     if (updateStatusJob != null) {
       String stepName = "Update status job";
@@ -167,6 +155,13 @@ public final class PhaseExecutor {
     }
   }
 
+  private void flushDependencies() {
+    String stepName = "Persist dependencies";
+    eventBus.fireEvent(new BatchStepEvent(stepName, true));
+    persistenceManager.flushDependencies();
+    eventBus.fireEvent(new BatchStepEvent(stepName, false));
+  }
+
   private void executeInitializersPhase() {
     if (phases.isEnabled(Phases.Phase.INIT)) {
       initializersExecutor.execute();
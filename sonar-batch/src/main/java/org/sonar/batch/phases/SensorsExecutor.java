@@ -19,27 +19,58 @@
  */
 package org.sonar.batch.phases;
 
+import com.google.common.base.Predicate;
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.BatchComponent;
+import org.sonar.api.CoreProperties;
 import org.sonar.api.batch.Sensor;
 import org.sonar.api.batch.SensorContext;
+import org.sonar.api.batch.Sequential;
 import org.sonar.api.batch.maven.DependsUponMavenPlugin;
 import org.sonar.api.batch.maven.MavenPluginHandler;
+import org.sonar.api.config.Settings;
 import org.sonar.api.database.DatabaseSession;
 import org.sonar.api.resources.Project;
+import org.sonar.api.utils.AnnotationUtils;
 import org.sonar.api.utils.TimeProfiler;
 import org.sonar.batch.bootstrap.BatchExtensionDictionnary;
 import org.sonar.batch.events.EventBus;
 import org.sonar.batch.scan.filesystem.DefaultModuleFileSystem;
 import org.sonar.batch.scan.maven.MavenPluginExecutor;
 
+import javax.annotation.Nullable;
+
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class SensorsExecutor implements BatchComponent {
   private static final Logger LOG = LoggerFactory.getLogger(SensorsExecutor.class);
 
+  /**
+   * Maximum number of sensors executed concurrently on a module. Default value is 1, meaning that sensors
+   * are executed one after another. The sensors of core plugins that access the database are annotated
+   * with {@link Sequential}.
+   * @since 4.4
+   */
+  public static final String SENSORS_PARALLELISM_PROPERTY = "sonar.batch.sensorsParallelism";
+
+  /**
+   * Sensors annotated with {@link Sequential} or executing a Maven plugin are executed alone
+   */
+  static final Predicate<Sensor> SEQUENTIAL = new Predicate<Sensor>() {
+    @Override
+    public boolean apply(@Nullable Sensor sensor) {
+      return sensor instanceof DependsUponMavenPlugin || AnnotationUtils.getAnnotation(sensor, Sequential.class) != null;
+    }
+  };
+
   private MavenPluginExecutor mavenExecutor;
   private EventBus eventBus;
   private Project module;
@@ -47,9 +78,10 @@ public class SensorsExecutor implements BatchComponent {
   private BatchExtensionDictionnary selector;
   private final DatabaseSession session;
   private final SensorMatcher sensorMatcher;
+  private final Settings settings;
 
   public SensorsExecutor(BatchExtensionDictionnary selector, Project project, DefaultModuleFileSystem fs, MavenPluginExecutor mavenExecutor, EventBus eventBus,
-    DatabaseSession session, SensorMatcher sensorMatcher) {
+    DatabaseSession session, SensorMatcher sensorMatcher, Settings settings) {
     this.selector = selector;
     this.mavenExecutor = mavenExecutor;
     this.eventBus = eventBus;
@@ -57,22 +89,85 @@ public class SensorsExecutor implements BatchComponent {
     this.fs = fs;
     this.session = session;
     this.sensorMatcher = sensorMatcher;
+    this.settings = settings;
   }
 
   public void execute(SensorContext context) {
     Collection<Sensor> sensors = selector.select(Sensor.class, module, true, sensorMatcher);
     eventBus.fireEvent(new SensorsPhaseEvent(Lists.newArrayList(sensors), true));
 
-    for (Sensor sensor : sensors) {
-      // SONAR-2965 In case the sensor takes too much time we close the session to not face a timeout
-      session.commitAndClose();
+    int parallelism = sensorsParallelism();
+    if (parallelism > 1 && sensors.size() > 1) {
+      executeConcurrently(context, sensors, parallelism);
+    } else {
+      for (Sensor sensor : sensors) {
+        // SONAR-2965 In case the sensor takes too much time we close the session to not face a timeout
+        session.commitAndClose();
 
-      executeSensor(context, sensor);
+        executeSensor(context, sensor);
+      }
     }
 
     eventBus.fireEvent(new SensorsPhaseEvent(Lists.newArrayList(sensors), false));
   }
 
+  private int sensorsParallelism() {
+    if (settings.hasKey(SENSORS_PARALLELISM_PROPERTY)) {
+      return Math.max(1, settings.getInt(SENSORS_PARALLELISM_PROPERTY));
+    }
+    return 1;
+  }
+
+  private void executeConcurrently(final SensorContext context, Collection<Sensor> sensors, int parallelism) {
+    Map<Sensor, Set<Sensor>> predecessors = selector.predecessors(sensors);
+    DependencyScheduler<Sensor> scheduler = new DependencyScheduler<Sensor>(predecessors, SEQUENTIAL);
+    ExecutorService executor = Executors.newFixedThreadPool(parallelism,
+      new ThreadFactoryBuilder().setNameFormat("sensor-%d").setDaemon(true).build());
+    session.commitAndClose();
+    try {
+      scheduler.execute(executor, new DependencyScheduler.Runner<Sensor>() {
+        @Override
+        public void run(Sensor sensor) {
+          if (SEQUENTIAL.apply(sensor)) {
+            // executed alone, see SONAR-2965
+            session.commitAndClose();
+          }
+          executeSensor(context, sensor);
+        }
+      });
+    } finally {
+      executor.shutdownNow();
+    }
+    logCriticalPath(DependencyScheduler.criticalPath(predecessors, scheduler.durations()), scheduler.durations());
+  }
+
+  private void logCriticalPath(List<Sensor> path, Map<Sensor, Long> durations) {
+    StringBuilder sb = new StringBuilder();
+    long total = 0L;
+    for (Sensor sensor : path) {
+      if (sb.length() > 0) {
+        sb.append(" -> ");
+      }
+      long duration = durations.get(sensor);
+      sb.append(name(sensor)).append(" (").append(duration).append(" ms)");
+      total += duration;
+    }
+    String message = "Critical path of sensors: " + sb + ", total " + total + " ms";
+    if (settings.getBoolean(CoreProperties.PROFILING_LOG_PROPERTY)) {
+      LOG.info(message);
+    } else {
+      LOG.debug(message);
+    }
+  }
+
+  private static String name(Sensor sensor) {
+    String toString = sensor.toString();
+    if (toString == null || toString.startsWith(sensor.getClass().getName())) {
+      return sensor.getClass().getSimpleName();
+    }
+    return toString;
+  }
+
   private void executeSensor(SensorContext context, Sensor sensor) {
     eventBus.fireEvent(new SensorExecutionEvent(sensor, true));
     executeMavenPlugin(sensor);
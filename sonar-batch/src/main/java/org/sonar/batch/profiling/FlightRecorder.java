@@ -0,0 +1,268 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.batch.profiling;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Maps;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.picocontainer.Startable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.batch.Decorator;
+import org.sonar.api.batch.bootstrap.ProjectReactor;
+import org.sonar.api.batch.events.DecoratorExecutionHandler;
+import org.sonar.api.batch.events.DecoratorsPhaseHandler;
+import org.sonar.api.batch.events.ProjectAnalysisHandler;
+import org.sonar.api.batch.events.SensorExecutionHandler;
+import org.sonar.api.resources.Resource;
+import org.sonar.api.utils.text.JsonWriter;
+import org.sonar.batch.events.BatchStepHandler;
+import org.sonar.batch.events.PersisterExecutionHandler;
+import org.sonar.batch.index.Caches;
+
+import javax.annotation.Nullable;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Records the events of the analysis as JSON lines, so that two analyses can be compared. One line is written for each
+ * sensor, persister and batch step, for each decorated resource, for each decorator of a module and for each module.
+ * CPU time and allocated bytes of the thread are sampled at the beginning and at the end of each of them, except for
+ * the executions of decorators which are only timed. The wait time of persisters is the elapsed time minus the CPU
+ * time, mainly spent in database.
+ *
+ * @since 4.4
+ */
+public class FlightRecorder implements ProjectAnalysisHandler, SensorExecutionHandler, DecoratorExecutionHandler, DecoratorsPhaseHandler,
+  PersisterExecutionHandler, BatchStepHandler, Startable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(FlightRecorder.class);
+  static final String FILENAME = "profiling.jsonl";
+
+  private final File file;
+  private final Caches caches;
+  private Writer writer;
+
+  // values are inherited by the threads executing sensors concurrently
+  private final ThreadLocal<ModuleRecording> currentModule = new InheritableThreadLocal<ModuleRecording>();
+
+  public FlightRecorder(ProjectReactor reactor, Caches caches) {
+    this(new File(reactor.getRoot().getWorkDir(), FILENAME), caches);
+  }
+
+  @VisibleForTesting
+  FlightRecorder(File file, Caches caches) {
+    this.file = file;
+    this.caches = caches;
+  }
+
+  @Override
+  public void start() {
+    try {
+      writer = new BufferedWriter(new OutputStreamWriter(FileUtils.openOutputStream(file), "UTF-8"));
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to create profiling file " + file.getAbsolutePath(), e);
+    }
+    LOG.info("Record profiling of analysis in " + file.getAbsolutePath());
+  }
+
+  @Override
+  public synchronized void stop() {
+    IOUtils.closeQuietly(writer);
+    writer = null;
+  }
+
+  @Override
+  public void onProjectAnalysis(ProjectAnalysisEvent event) {
+    if (event.isStart()) {
+      currentModule.set(new ModuleRecording(event.getProject().getEffectiveKey()));
+    } else {
+      ModuleRecording module = currentModule.get();
+      ThreadUsage end = ThreadUsage.current();
+      Line line = new Line("module", module.key).usage(module.start, end);
+      line.json.prop("cacheHits", caches.bufferHits() - module.cacheHits);
+      line.json.prop("cacheMisses", caches.bufferMisses() - module.cacheMisses);
+      write(line);
+    }
+  }
+
+  @Override
+  public void onSensorExecution(SensorExecutionEvent event) {
+    ModuleRecording module = currentModule.get();
+    if (event.isStart()) {
+      module.starts.put(event.getSensor(), ThreadUsage.current());
+    } else {
+      ThreadUsage end = ThreadUsage.current();
+      write(new Line("sensor", module.key).name(event.getSensor()).usage(module.starts.remove(event.getSensor()), end));
+    }
+  }
+
+  @Override
+  public void onPersisterExecution(PersisterExecutionEvent event) {
+    ModuleRecording module = currentModule.get();
+    if (event.isStart()) {
+      module.starts.put(event.getPersister(), ThreadUsage.current());
+    } else {
+      ThreadUsage end = ThreadUsage.current();
+      ThreadUsage start = module.starts.remove(event.getPersister());
+      Line line = new Line("persister", module.key).name(event.getPersister()).usage(start, end);
+      Long cpuMicros = end.cpuMicros(start);
+      if (cpuMicros != null) {
+        line.json.prop("waitUs", Math.max(0L, end.elapsedMicros(start) - cpuMicros));
+      }
+      line.json.prop("rows", event.rows());
+      write(line);
+    }
+  }
+
+  @Override
+  public void onBatchStep(BatchStepEvent event) {
+    ModuleRecording module = currentModule.get();
+    if (event.isStart()) {
+      module.starts.put(event.stepName(), ThreadUsage.current());
+    } else {
+      ThreadUsage end = ThreadUsage.current();
+      write(new Line("step", module.key).name(event.stepName()).usage(module.starts.remove(event.stepName()), end));
+    }
+  }
+
+  @Override
+  public void onDecoratorsPhase(DecoratorsPhaseEvent event) {
+    ModuleRecording module = currentModule.get();
+    if (event.isEnd()) {
+      endResource(module);
+      for (Map.Entry<Decorator, long[]> entry : module.decorators.entrySet()) {
+        Line line = new Line("decorator", module.key).name(entry.getKey());
+        line.json.prop("timeUs", entry.getValue()[0] / 1000L);
+        line.json.prop("calls", entry.getValue()[1]);
+        write(line);
+      }
+      module.decorators.clear();
+    }
+  }
+
+  /**
+   * Decorators are executed on a resource after the other, so the usage of the thread is sampled only when
+   * starting the decoration of a new resource.
+   */
+  @Override
+  public void onDecoratorExecution(DecoratorExecutionEvent event) {
+    ModuleRecording module = currentModule.get();
+    if (event.isStart()) {
+      if (event.getResource() != module.resource) {
+        endResource(module);
+        module.resource = event.getResource();
+        module.resourceStart = ThreadUsage.current();
+      }
+      module.decoratorStart = System.nanoTime();
+    } else {
+      long nanos = System.nanoTime() - module.decoratorStart;
+      long[] total = module.decorators.get(event.getDecorator());
+      if (total == null) {
+        total = new long[2];
+        module.decorators.put(event.getDecorator(), total);
+      }
+      total[0] += nanos;
+      total[1]++;
+      if (nanos >= module.slowestNanos) {
+        module.slowestNanos = nanos;
+        module.slowest = event.getDecorator();
+      }
+    }
+  }
+
+  private void endResource(ModuleRecording module) {
+    if (module.resource != null) {
+      ThreadUsage end = ThreadUsage.current();
+      Line line = new Line("resource", module.key).usage(module.resourceStart, end);
+      line.json.prop("resource", module.resource.getEffectiveKey());
+      line.json.prop("slowestDecorator", PhaseProfiling.toStringOrSimpleName(module.slowest));
+      line.json.prop("slowestDecoratorUs", module.slowestNanos / 1000L);
+      write(line);
+      module.resource = null;
+      module.slowest = null;
+      module.slowestNanos = 0L;
+    }
+  }
+
+  private synchronized void write(Line line) {
+    line.json.endObject().close();
+    if (writer != null) {
+      try {
+        writer.append(line.buffer.toString()).append('\n');
+      } catch (IOException e) {
+        throw new IllegalStateException("Fail to write profiling file " + file.getAbsolutePath(), e);
+      }
+    }
+  }
+
+  private class ModuleRecording {
+    final String key;
+    final ThreadUsage start = ThreadUsage.current();
+    final long cacheHits;
+    final long cacheMisses;
+    // sensors and persisters can be executed concurrently
+    final Map<Object, ThreadUsage> starts = Collections.synchronizedMap(Maps.<Object, ThreadUsage>newHashMap());
+    // decorators are executed by a single thread. Values are the total time in nanoseconds and the number of calls.
+    final Map<Decorator, long[]> decorators = Maps.newLinkedHashMap();
+    Resource resource;
+    ThreadUsage resourceStart;
+    long decoratorStart;
+    Decorator slowest;
+    long slowestNanos;
+
+    ModuleRecording(String key) {
+      this.key = key;
+      this.cacheHits = caches.bufferHits();
+      this.cacheMisses = caches.bufferMisses();
+    }
+  }
+
+  private static class Line {
+    final StringWriter buffer = new StringWriter();
+    final JsonWriter json = JsonWriter.of(buffer);
+
+    Line(String event, String module) {
+      json.beginObject().prop("event", event).prop("module", module);
+    }
+
+    Line name(Object item) {
+      json.prop("name", item instanceof String ? (String) item : PhaseProfiling.toStringOrSimpleName(item));
+      return this;
+    }
+
+    Line usage(@Nullable ThreadUsage start, ThreadUsage end) {
+      if (start != null) {
+        json.prop("timeUs", end.elapsedMicros(start));
+        json.prop("cpuUs", end.cpuMicros(start));
+        json.prop("allocatedBytes", end.allocatedBytes(start));
+      }
+      return this;
+    }
+  }
+}
@@ -24,6 +24,7 @@ import org.sonar.api.utils.System2;
 public class ItemProfiling extends AbstractTimeProfiling {
 
   private final String itemName;
+  private long rows = 0L;
 
   public ItemProfiling(System2 system, String itemName) {
     super(system);
@@ -34,4 +35,29 @@ public class ItemProfiling extends AbstractTimeProfiling {
     return itemName;
   }
 
+  /**
+   * Number of rows processed by the item, for example persisted by a {@link org.sonar.batch.index.ScanPersister}
+   */
+  public long rows() {
+    return rows;
+  }
+
+  public ItemProfiling setRows(long rows) {
+    this.rows = rows;
+    return this;
+  }
+
+  public long rowsPerSecond() {
+    long time = totalTime();
+    return time > 0 ? (rows * 1000L / time) : rows;
+  }
+
+  @Override
+  protected void add(AbstractTimeProfiling other) {
+    super.add(other);
+    if (other instanceof ItemProfiling) {
+      rows += ((ItemProfiling) other).rows;
+    }
+  }
+
 }
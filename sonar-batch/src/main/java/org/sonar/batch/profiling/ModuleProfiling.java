@@ -36,6 +36,7 @@ public class ModuleProfiling extends AbstractTimeProfiling {
 
   private Map<Phases.Phase, PhaseProfiling> profilingPerPhase = new HashMap<Phases.Phase, PhaseProfiling>();
   private Map<String, ItemProfiling> profilingPerBatchStep = new LinkedHashMap<String, ItemProfiling>();
+  private Map<String, ItemProfiling> profilingPerPersister = new LinkedHashMap<String, ItemProfiling>();
   private final Project module;
 
   public ModuleProfiling(@CheckForNull Project module, System2 system) {
@@ -58,6 +59,14 @@ public class ModuleProfiling extends AbstractTimeProfiling {
     return profilingPerBatchStep.get(stepName);
   }
 
+  public ItemProfiling getProfilingPerPersister(String persisterName) {
+    return profilingPerPersister.get(persisterName);
+  }
+
+  public void addPersisterProfiling(String persisterName) {
+    profilingPerPersister.put(persisterName, new ItemProfiling(system(), persisterName));
+  }
+
   public void addPhaseProfiling(Phase phase) {
     profilingPerPhase.put(phase, PhaseProfiling.create(system(), phase));
   }
@@ -83,6 +92,13 @@ public class ModuleProfiling extends AbstractTimeProfiling {
         getProfilingPerPhase(phase).dump();
       }
     }
+    if (!profilingPerPersister.isEmpty()) {
+      println("");
+      println(" * Persisters execution time breakdown: ");
+      for (ItemProfiling itemProfiling : truncate(sortByDescendingTotalTime(profilingPerPersister).values())) {
+        println("   o " + itemProfiling.itemName() + " (" + itemProfiling.rows() + " rows, " + itemProfiling.rowsPerSecond() + " rows/s): ", percent, itemProfiling);
+      }
+    }
   }
 
   public void merge(ModuleProfiling other) {
@@ -99,6 +115,12 @@ public class ModuleProfiling extends AbstractTimeProfiling {
       }
       this.getProfilingPerBatchStep(entry.getKey()).add(entry.getValue());
     }
+    for (Map.Entry<String, ItemProfiling> entry : other.profilingPerPersister.entrySet()) {
+      if (!this.profilingPerPersister.containsKey(entry.getKey())) {
+        addPersisterProfiling(entry.getKey());
+      }
+      this.getProfilingPerPersister(entry.getKey()).add(entry.getValue());
+    }
   }
 
 }
@@ -30,6 +30,7 @@ import org.sonar.api.resources.Project;
 import org.sonar.api.utils.System2;
 import org.sonar.api.utils.TimeUtils;
 import org.sonar.batch.events.BatchStepHandler;
+import org.sonar.batch.events.PersisterExecutionHandler;
 import org.sonar.batch.phases.Phases;
 
 import javax.annotation.Nullable;
@@ -43,20 +44,22 @@ import static org.sonar.batch.profiling.AbstractTimeProfiling.sortByDescendingTo
 import static org.sonar.batch.profiling.AbstractTimeProfiling.truncate;
 
 public class PhasesSumUpTimeProfiler implements ProjectAnalysisHandler, SensorExecutionHandler, DecoratorExecutionHandler, PostJobExecutionHandler, DecoratorsPhaseHandler,
-  SensorsPhaseHandler, PostJobsPhaseHandler, MavenPhaseHandler, InitializersPhaseHandler, InitializerExecutionHandler, BatchStepHandler {
+  SensorsPhaseHandler, PostJobsPhaseHandler, MavenPhaseHandler, InitializersPhaseHandler, InitializerExecutionHandler, BatchStepHandler,
+  PersisterExecutionHandler {
 
   static final Logger LOG = LoggerFactory.getLogger(PhasesSumUpTimeProfiler.class);
   private static final int TEXT_RIGHT_PAD = 60;
   private static final int TIME_LEFT_PAD = 10;
 
+  // values are inherited by the threads executing sensors concurrently
   @VisibleForTesting
-  ModuleProfiling currentModuleProfiling;
+  final ThreadLocal<ModuleProfiling> currentModuleProfiling = new InheritableThreadLocal<ModuleProfiling>();
 
   @VisibleForTesting
   ModuleProfiling totalProfiling;
 
   private Map<Project, ModuleProfiling> modulesProfilings = new HashMap<Project, ModuleProfiling>();
-  private DecoratorsProfiler decoratorsProfiler;
+  private final ThreadLocal<DecoratorsProfiler> decoratorsProfiler = new InheritableThreadLocal<DecoratorsProfiler>();
 
   private final System2 system;
 
@@ -87,23 +90,27 @@ public class PhasesSumUpTimeProfiler implements ProjectAnalysisHandler, SensorEx
   public void onProjectAnalysis(ProjectAnalysisEvent event) {
     Project module = event.getProject();
     if (event.isStart()) {
-      decoratorsProfiler = new DecoratorsProfiler();
-      currentModuleProfiling = new ModuleProfiling(module, system);
+      decoratorsProfiler.set(new DecoratorsProfiler());
+      currentModuleProfiling.set(new ModuleProfiling(module, system));
     } else {
-      currentModuleProfiling.stop();
-      modulesProfilings.put(module, currentModuleProfiling);
-      long moduleTotalTime = currentModuleProfiling.totalTime();
-      println("");
-      println(" -------- Profiling of module " + module.getName() + ": " + TimeUtils.formatDuration(moduleTotalTime) + " --------");
-      println("");
-      currentModuleProfiling.dump();
-      println("");
-      println(" -------- End of profiling of module " + module.getName() + " --------");
-      println("");
-      totalProfiling.merge(currentModuleProfiling);
-      if (module.isRoot() && !module.getModules().isEmpty()) {
-        dumpTotalExecutionSummary();
-      }
+      endModule(module, currentModuleProfiling.get());
+    }
+  }
+
+  private synchronized void endModule(Project module, ModuleProfiling moduleProfiling) {
+    moduleProfiling.stop();
+    modulesProfilings.put(module, moduleProfiling);
+    long moduleTotalTime = moduleProfiling.totalTime();
+    println("");
+    println(" -------- Profiling of module " + module.getName() + ": " + TimeUtils.formatDuration(moduleTotalTime) + " --------");
+    println("");
+    moduleProfiling.dump();
+    println("");
+    println(" -------- End of profiling of module " + module.getName() + " --------");
+    println("");
+    totalProfiling.merge(moduleProfiling);
+    if (module.isRoot() && !module.getModules().isEmpty()) {
+      dumpTotalExecutionSummary();
     }
   }
 
@@ -127,14 +134,14 @@ public class PhasesSumUpTimeProfiler implements ProjectAnalysisHandler, SensorEx
 
   public void onSensorsPhase(SensorsPhaseEvent event) {
     if (event.isStart()) {
-      currentModuleProfiling.addPhaseProfiling(Phases.Phase.SENSOR);
+      currentModuleProfiling.get().addPhaseProfiling(Phases.Phase.SENSOR);
     } else {
-      currentModuleProfiling.getProfilingPerPhase(Phases.Phase.SENSOR).stop();
+      currentModuleProfiling.get().getProfilingPerPhase(Phases.Phase.SENSOR).stop();
     }
   }
 
-  public void onSensorExecution(SensorExecutionEvent event) {
-    PhaseProfiling profiling = currentModuleProfiling.getProfilingPerPhase(Phases.Phase.SENSOR);
+  public synchronized void onSensorExecution(SensorExecutionEvent event) {
+    PhaseProfiling profiling = currentModuleProfiling.get().getProfilingPerPhase(Phases.Phase.SENSOR);
     if (event.isStart()) {
       profiling.newItemProfiling(event.getSensor());
     } else {
@@ -143,39 +150,39 @@ public class PhasesSumUpTimeProfiler implements ProjectAnalysisHandler, SensorEx
   }
 
   public void onDecoratorExecution(DecoratorExecutionEvent event) {
-    PhaseProfiling profiling = currentModuleProfiling.getProfilingPerPhase(Phases.Phase.DECORATOR);
+    PhaseProfiling profiling = currentModuleProfiling.get().getProfilingPerPhase(Phases.Phase.DECORATOR);
     if (event.isStart()) {
       if (profiling.getProfilingPerItem(event.getDecorator()) == null) {
         profiling.newItemProfiling(event.getDecorator());
       }
-      decoratorsProfiler.start(event.getDecorator());
+      decoratorsProfiler.get().start(event.getDecorator());
     } else {
-      decoratorsProfiler.stop();
+      decoratorsProfiler.get().stop();
     }
   }
 
   public void onDecoratorsPhase(DecoratorsPhaseEvent event) {
     if (event.isStart()) {
-      currentModuleProfiling.addPhaseProfiling(Phases.Phase.DECORATOR);
+      currentModuleProfiling.get().addPhaseProfiling(Phases.Phase.DECORATOR);
     } else {
-      for (Decorator decorator : decoratorsProfiler.getDurations().keySet()) {
-        currentModuleProfiling.getProfilingPerPhase(Phases.Phase.DECORATOR)
-          .getProfilingPerItem(decorator).setTotalTime(decoratorsProfiler.getDurations().get(decorator));
+      for (Decorator decorator : decoratorsProfiler.get().getDurations().keySet()) {
+        currentModuleProfiling.get().getProfilingPerPhase(Phases.Phase.DECORATOR)
+          .getProfilingPerItem(decorator).setTotalTime(decoratorsProfiler.get().getDurations().get(decorator));
       }
-      currentModuleProfiling.getProfilingPerPhase(Phases.Phase.DECORATOR).stop();
+      currentModuleProfiling.get().getProfilingPerPhase(Phases.Phase.DECORATOR).stop();
     }
   }
 
   public void onPostJobsPhase(PostJobsPhaseEvent event) {
     if (event.isStart()) {
-      currentModuleProfiling.addPhaseProfiling(Phases.Phase.POSTJOB);
+      currentModuleProfiling.get().addPhaseProfiling(Phases.Phase.POSTJOB);
     } else {
-      currentModuleProfiling.getProfilingPerPhase(Phases.Phase.POSTJOB).stop();
+      currentModuleProfiling.get().getProfilingPerPhase(Phases.Phase.POSTJOB).stop();
     }
   }
 
   public void onPostJobExecution(PostJobExecutionEvent event) {
-    PhaseProfiling profiling = currentModuleProfiling.getProfilingPerPhase(Phases.Phase.POSTJOB);
+    PhaseProfiling profiling = currentModuleProfiling.get().getProfilingPerPhase(Phases.Phase.POSTJOB);
     if (event.isStart()) {
       profiling.newItemProfiling(event.getPostJob());
     } else {
@@ -186,24 +193,24 @@ public class PhasesSumUpTimeProfiler implements ProjectAnalysisHandler, SensorEx
   @Override
   public void onMavenPhase(MavenPhaseEvent event) {
     if (event.isStart()) {
-      currentModuleProfiling.addPhaseProfiling(Phases.Phase.MAVEN);
+      currentModuleProfiling.get().addPhaseProfiling(Phases.Phase.MAVEN);
     } else {
-      currentModuleProfiling.getProfilingPerPhase(Phases.Phase.MAVEN).stop();
+      currentModuleProfiling.get().getProfilingPerPhase(Phases.Phase.MAVEN).stop();
     }
   }
 
   @Override
   public void onInitializersPhase(InitializersPhaseEvent event) {
     if (event.isStart()) {
-      currentModuleProfiling.addPhaseProfiling(Phases.Phase.INIT);
+      currentModuleProfiling.get().addPhaseProfiling(Phases.Phase.INIT);
     } else {
-      currentModuleProfiling.getProfilingPerPhase(Phases.Phase.INIT).stop();
+      currentModuleProfiling.get().getProfilingPerPhase(Phases.Phase.INIT).stop();
     }
   }
 
   @Override
   public void onInitializerExecution(InitializerExecutionEvent event) {
-    PhaseProfiling profiling = currentModuleProfiling.getProfilingPerPhase(Phases.Phase.INIT);
+    PhaseProfiling profiling = currentModuleProfiling.get().getProfilingPerPhase(Phases.Phase.INIT);
     if (event.isStart()) {
       profiling.newItemProfiling(event.getInitializer());
     } else {
@@ -211,12 +218,27 @@ public class PhasesSumUpTimeProfiler implements ProjectAnalysisHandler, SensorEx
     }
   }
 
+  /**
+   * Synchronized as persisters can be executed concurrently
+   */
+  @Override
+  public synchronized void onPersisterExecution(PersisterExecutionEvent event) {
+    String persisterName = event.getPersister().getClass().getSimpleName();
+    if (event.isStart()) {
+      currentModuleProfiling.get().addPersisterProfiling(persisterName);
+    } else {
+      ItemProfiling profiling = currentModuleProfiling.get().getProfilingPerPersister(persisterName);
+      profiling.stop();
+      profiling.setRows(event.rows());
+    }
+  }
+
   @Override
   public void onBatchStep(BatchStepEvent event) {
     if (event.isStart()) {
-      currentModuleProfiling.addBatchStepProfiling(event.stepName());
+      currentModuleProfiling.get().addBatchStepProfiling(event.stepName());
     } else {
-      currentModuleProfiling.getProfilingPerBatchStep(event.stepName()).stop();
+      currentModuleProfiling.get().getProfilingPerBatchStep(event.stepName()).stop();
     }
   }
 
@@ -0,0 +1,97 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.batch.profiling;
+
+import javax.annotation.CheckForNull;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+
+/**
+ * Snapshot of the wall-clock time, the CPU time and the bytes allocated by the current thread. CPU time
+ * and allocations are not available on all JVMs.
+ *
+ * @since 4.4
+ */
+class ThreadUsage {
+
+  private static final ThreadMXBean BEAN = ManagementFactory.getThreadMXBean();
+  private static final boolean CPU_SUPPORTED = BEAN.isCurrentThreadCpuTimeSupported() && BEAN.isThreadCpuTimeEnabled();
+  private static final Method ALLOCATED_BYTES = allocatedBytesMethod();
+
+  final long nanos;
+  final long cpuNanos;
+  final long allocatedBytes;
+
+  private ThreadUsage(long nanos, long cpuNanos, long allocatedBytes) {
+    this.nanos = nanos;
+    this.cpuNanos = cpuNanos;
+    this.allocatedBytes = allocatedBytes;
+  }
+
+  static ThreadUsage current() {
+    return new ThreadUsage(System.nanoTime(), CPU_SUPPORTED ? BEAN.getCurrentThreadCpuTime() : -1L, allocatedBytes());
+  }
+
+  long elapsedMicros(ThreadUsage start) {
+    return (nanos - start.nanos) / 1000L;
+  }
+
+  @CheckForNull
+  Long cpuMicros(ThreadUsage start) {
+    return cpuNanos < 0L ? null : ((cpuNanos - start.cpuNanos) / 1000L);
+  }
+
+  @CheckForNull
+  Long allocatedBytes(ThreadUsage start) {
+    return allocatedBytes < 0L ? null : (allocatedBytes - start.allocatedBytes);
+  }
+
+  private static long allocatedBytes() {
+    if (ALLOCATED_BYTES != null) {
+      try {
+        return (Long) ALLOCATED_BYTES.invoke(BEAN, Thread.currentThread().getId());
+      } catch (Exception e) {
+        return -1L;
+      }
+    }
+    return -1L;
+  }
+
+  /**
+   * com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long), only available on HotSpot JVMs when
+   * allocated memory measurement is supported and enabled
+   */
+  @CheckForNull
+  private static Method allocatedBytesMethod() {
+    try {
+      Class<?> hotspotBean = Class.forName("com.sun.management.ThreadMXBean");
+      if (!hotspotBean.isInstance(BEAN)
+        || !(Boolean) hotspotBean.getMethod("isThreadAllocatedMemorySupported").invoke(BEAN)
+        || !(Boolean) hotspotBean.getMethod("isThreadAllocatedMemoryEnabled").invoke(BEAN)) {
+        return null;
+      }
+      return hotspotBean.getMethod("getThreadAllocatedBytes", long.class);
+    } catch (Exception e) {
+      return null;
+    }
+  }
+}
@@ -19,18 +19,19 @@
  */
 package org.sonar.batch.rule;
 
-import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Sets;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
 import org.picocontainer.injectors.ProviderAdapter;
 import org.sonar.api.batch.rule.ActiveRules;
 import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
 import org.sonar.api.batch.rule.internal.NewActiveRule;
-import org.sonar.api.rules.Rule;
-import org.sonar.api.rules.RuleFinder;
-import org.sonar.api.rules.RuleParam;
-import org.sonar.core.qualityprofile.db.ActiveRuleDao;
-import org.sonar.core.qualityprofile.db.ActiveRuleDto;
-import org.sonar.core.qualityprofile.db.ActiveRuleParamDto;
+import org.sonar.api.rule.RuleKey;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.sonar.batch.rule.RulesProvider.string;
 
 /**
  * Loads the rules that are activated on the Quality profiles
@@ -40,43 +41,30 @@ public class ActiveRulesProvider extends ProviderAdapter {
 
   private ActiveRules singleton = null;
 
-  public ActiveRules provide(ModuleQProfiles qProfiles, ActiveRuleDao dao, RuleFinder ruleFinder) {
+  public ActiveRules provide(ModuleQProfiles qProfiles, RulesBundle bundle) {
     if (singleton == null) {
-      singleton = load(qProfiles, dao, ruleFinder);
+      singleton = load(qProfiles, bundle);
     }
     return singleton;
   }
 
-  private ActiveRules load(ModuleQProfiles qProfiles, ActiveRuleDao dao, RuleFinder ruleFinder) {
-    ActiveRulesBuilder builder = new ActiveRulesBuilder();
+  private ActiveRules load(ModuleQProfiles qProfiles, RulesBundle bundle) {
+    Set<Integer> profileIds = Sets.newHashSet();
     for (ModuleQProfiles.QProfile qProfile : qProfiles.findAll()) {
-      ListMultimap<Integer, ActiveRuleParamDto> paramDtosByActiveRuleId = ArrayListMultimap.create();
-      for (ActiveRuleParamDto dto : dao.selectParamsByProfileId(qProfile.id())) {
-        paramDtosByActiveRuleId.put(dto.getActiveRuleId(), dto);
-      }
-
-      for (ActiveRuleDto activeDto : dao.selectByProfileId(qProfile.id())) {
-        Rule rule = ruleFinder.findById(activeDto.getRulId());
-        if (rule != null) {
-          NewActiveRule newActiveRule = builder.activate(rule.ruleKey());
-          newActiveRule.setSeverity(activeDto.getSeverityString());
-          if (rule.getParent() != null) {
-            newActiveRule.setInternalKey(rule.getParent().getConfigKey());
-          } else {
-            newActiveRule.setInternalKey(rule.getConfigKey());
-          }
+      profileIds.add(qProfile.id());
+    }
 
-          // load parameter values
-          for (ActiveRuleParamDto paramDto : paramDtosByActiveRuleId.get(activeDto.getId())) {
-            newActiveRule.setParam(paramDto.getKey(), paramDto.getValue());
-          }
+    ActiveRulesBuilder builder = new ActiveRulesBuilder();
+    for (JsonElement element : bundle.activeRules()) {
+      JsonObject activeRule = element.getAsJsonObject();
+      if (profileIds.contains(activeRule.get("profileId").getAsInt())) {
+        NewActiveRule newActiveRule = builder.activate(RuleKey.of(activeRule.get("repo").getAsString(), activeRule.get("key").getAsString()));
+        newActiveRule.setSeverity(string(activeRule, "severity"));
+        newActiveRule.setInternalKey(string(activeRule, "internalKey"));
 
-          // load default values
-          for (RuleParam param : rule.getParams()) {
-            if (!newActiveRule.params().containsKey(param.getKey())) {
-              newActiveRule.setParam(param.getKey(), param.getDefaultValue());
-            }
-          }
+        // values of parameters, including default values
+        for (Map.Entry<String, JsonElement> param : activeRule.getAsJsonObject("params").entrySet()) {
+          newActiveRule.setParam(param.getKey(), param.getValue().getAsString());
         }
       }
     }
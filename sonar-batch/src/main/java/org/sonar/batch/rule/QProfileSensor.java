@@ -22,6 +22,7 @@ package org.sonar.batch.rule;
 import com.google.common.collect.Iterables;
 import org.sonar.api.batch.Sensor;
 import org.sonar.api.batch.SensorContext;
+import org.sonar.api.batch.Sequential;
 import org.sonar.api.batch.fs.FileSystem;
 import org.sonar.api.measures.CoreMetrics;
 import org.sonar.api.measures.Measure;
@@ -31,6 +32,7 @@ import org.sonar.core.qualityprofile.db.QualityProfileDao;
 /**
  * Stores which Quality profiles have been used on the current module.
  */
+@Sequential
 public class QProfileSensor implements Sensor {
 
   private final ModuleQProfiles moduleQProfiles;
@@ -0,0 +1,101 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.batch.rule;
+
+import com.google.common.base.Charsets;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.BatchComponent;
+import org.sonar.api.utils.SonarException;
+import org.sonar.api.utils.TimeProfiler;
+import org.sonar.batch.bootstrap.ServerClient;
+import org.sonar.home.cache.FileCache;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Rules and active rules of all quality profiles, as published by server. The bundle is downloaded
+ * only when its hash changed since the previous analysis, otherwise it's loaded from the local file cache.
+ *
+ * @since 4.4
+ */
+public class RulesBundle implements BatchComponent {
+
+  private static final Logger LOG = LoggerFactory.getLogger(RulesBundle.class);
+
+  static final String HASH_URL = "/api/batch_bootstrap/rules_hash";
+  static final String CONTENT_URL = "/api/batch_bootstrap/rules";
+  static final String FILENAME = "rules.json.gz";
+
+  private final ServerClient server;
+  private final FileCache fileCache;
+  private JsonObject root = null;
+
+  public RulesBundle(ServerClient server, FileCache fileCache) {
+    this.server = server;
+    this.fileCache = fileCache;
+  }
+
+  public JsonArray rules() {
+    return load().getAsJsonArray("rules");
+  }
+
+  public JsonArray activeRules() {
+    return load().getAsJsonArray("activeRules");
+  }
+
+  private JsonObject load() {
+    if (root == null) {
+      TimeProfiler profiler = new TimeProfiler(LOG).start("Load rules");
+      String hash = StringUtils.trim(server.request(HASH_URL));
+      File file = fileCache.get(FILENAME, hash, new FileCache.Downloader() {
+        public void download(String filename, File toFile) throws IOException {
+          LOG.debug("Download rules to {}", toFile.getAbsolutePath());
+          server.download(CONTENT_URL, toFile);
+        }
+      });
+      root = parse(file);
+      profiler.stop();
+    }
+    return root;
+  }
+
+  private static JsonObject parse(File file) {
+    Reader reader = null;
+    try {
+      reader = new InputStreamReader(new GZIPInputStream(new FileInputStream(file)), Charsets.UTF_8);
+      return new JsonParser().parse(reader).getAsJsonObject();
+    } catch (IOException e) {
+      throw new SonarException("Fail to read rules from " + file, e);
+    } finally {
+      IOUtils.closeQuietly(reader);
+    }
+  }
+}
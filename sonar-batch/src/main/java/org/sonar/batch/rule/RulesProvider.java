@@ -20,15 +20,12 @@
 
 package org.sonar.batch.rule;
 
-import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.ListMultimap;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
 import org.picocontainer.injectors.ProviderAdapter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.sonar.api.batch.debt.DebtCharacteristic;
-import org.sonar.api.batch.debt.DebtModel;
 import org.sonar.api.batch.debt.DebtRemediationFunction;
-import org.sonar.api.batch.debt.internal.DefaultDebtModel;
 import org.sonar.api.batch.rule.Rules;
 import org.sonar.api.batch.rule.internal.NewRule;
 import org.sonar.api.batch.rule.internal.RulesBuilder;
@@ -36,16 +33,12 @@ import org.sonar.api.rule.RuleKey;
 import org.sonar.api.rule.RuleStatus;
 import org.sonar.api.utils.Durations;
 import org.sonar.api.utils.TimeProfiler;
-import org.sonar.core.rule.RuleDao;
-import org.sonar.core.rule.RuleDto;
-import org.sonar.core.rule.RuleParamDto;
 
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 
-import java.util.List;
-
 /**
- * Loads all enabled and non manual rules
+ * Loads all enabled and non manual rules from the bundle published by server. Descriptions of rules are not loaded.
  */
 public class RulesProvider extends ProviderAdapter {
 
@@ -53,83 +46,52 @@ public class RulesProvider extends ProviderAdapter {
 
   private Rules singleton = null;
 
-  public Rules provide(RuleDao ruleDao, DebtModel debtModel, Durations durations) {
+  public Rules provide(RulesBundle bundle, Durations durations) {
     if (singleton == null) {
       TimeProfiler profiler = new TimeProfiler(LOG).start("Loading rules");
-      singleton = load(ruleDao, (DefaultDebtModel) debtModel, durations);
+      singleton = load(bundle, durations);
       profiler.stop();
     }
     return singleton;
   }
 
-  private Rules load(RuleDao ruleDao, DefaultDebtModel debtModel, Durations durations) {
+  private Rules load(RulesBundle bundle, Durations durations) {
     RulesBuilder rulesBuilder = new RulesBuilder();
-
-    List<RuleParamDto> ruleParamDtos = ruleDao.selectParameters();
-    ListMultimap<Integer, RuleParamDto> paramDtosByRuleId = ArrayListMultimap.create();
-    for (RuleParamDto dto : ruleParamDtos) {
-      paramDtosByRuleId.put(dto.getRuleId(), dto);
-    }
-    for (RuleDto ruleDto : ruleDao.selectEnablesAndNonManual()) {
-      RuleKey ruleKey = RuleKey.of(ruleDto.getRepositoryKey(), ruleDto.getRuleKey());
+    for (JsonElement element : bundle.rules()) {
+      JsonObject rule = element.getAsJsonObject();
+      RuleKey ruleKey = RuleKey.of(rule.get("repo").getAsString(), rule.get("key").getAsString());
       NewRule newRule = rulesBuilder.add(ruleKey)
-        .setId(ruleDto.getId())
-        .setName(ruleDto.getName())
-        .setSeverity(ruleDto.getSeverityString())
-        .setDescription(ruleDto.getDescription())
-        .setStatus(RuleStatus.valueOf(ruleDto.getStatus()))
-        .setInternalKey(ruleDto.getConfigKey());
-
-      if (hasCharacteristic(ruleDto)) {
-        newRule.setDebtSubCharacteristic(effectiveCharacteristic(ruleDto, ruleKey, debtModel).key());
-        newRule.setDebtRemediationFunction(effectiveFunction(ruleDto, ruleKey, durations));
+        .setId(rule.get("id").getAsInt())
+        .setName(string(rule, "name"))
+        .setSeverity(string(rule, "severity"))
+        .setStatus(RuleStatus.valueOf(rule.get("status").getAsString()))
+        .setInternalKey(string(rule, "internalKey"));
+
+      String characteristic = string(rule, "debtChar");
+      if (characteristic != null) {
+        newRule.setDebtSubCharacteristic(characteristic);
+        newRule.setDebtRemediationFunction(createDebtRemediationFunction(rule.get("debtFn").getAsString(), string(rule, "debtCoef"), string(rule, "debtOffset"), durations));
       }
 
-      for (RuleParamDto ruleParamDto : paramDtosByRuleId.get(ruleDto.getId())) {
-        newRule.addParam(ruleParamDto.getName())
-          .setDescription(ruleParamDto.getDescription());
+      for (JsonElement paramElement : rule.getAsJsonArray("params")) {
+        JsonObject param = paramElement.getAsJsonObject();
+        newRule.addParam(param.get("key").getAsString())
+          .setDescription(string(param, "desc"));
       }
     }
     return rulesBuilder.build();
   }
 
-  private DebtCharacteristic effectiveCharacteristic(RuleDto ruleDto, RuleKey ruleKey, DefaultDebtModel debtModel) {
-    Integer subCharacteristicId = ruleDto.getSubCharacteristicId();
-    Integer defaultSubCharacteristicId = ruleDto.getDefaultSubCharacteristicId();
-    Integer effectiveSubCharacteristicId = subCharacteristicId != null ? subCharacteristicId : defaultSubCharacteristicId;
-    DebtCharacteristic subCharacteristic = debtModel.characteristicById(effectiveSubCharacteristicId);
-    if (subCharacteristic == null) {
-      throw new IllegalStateException(String.format("Sub characteristic id '%s' on rule '%s' has not been found", effectiveSubCharacteristicId, ruleKey));
-    }
-    return subCharacteristic;
-  }
-
-  private DebtRemediationFunction effectiveFunction(RuleDto ruleDto, RuleKey ruleKey, Durations durations) {
-    String function = ruleDto.getRemediationFunction();
-    String defaultFunction = ruleDto.getDefaultRemediationFunction();
-    if (function != null) {
-      return createDebtRemediationFunction(function, ruleDto.getRemediationCoefficient(), ruleDto.getRemediationOffset(), durations);
-    } else if (defaultFunction != null) {
-      return createDebtRemediationFunction(defaultFunction, ruleDto.getDefaultRemediationCoefficient(), ruleDto.getDefaultRemediationOffset(), durations);
-    } else {
-      throw new IllegalStateException(String.format("Remediation function should not be null on rule '%s'", ruleKey));
-    }
-  }
-
   private DebtRemediationFunction createDebtRemediationFunction(String function, @Nullable String factor, @Nullable String offset, Durations durations) {
     return DebtRemediationFunction.create(DebtRemediationFunction.Type.valueOf(function),
       factor != null ? durations.decode(factor) : null,
       offset != null ? durations.decode(offset) : null);
   }
 
-  /**
-   * Return true is the characteristic has not been overridden and a default characteristic is existing or
-   * if the characteristic has been overridden but is not disabled
-   */
-  private boolean hasCharacteristic(RuleDto ruleDto){
-    Integer subCharacteristicId = ruleDto.getSubCharacteristicId();
-    return (subCharacteristicId == null && ruleDto.getDefaultSubCharacteristicId() != null) ||
-      (subCharacteristicId != null && !RuleDto.DISABLED_CHARACTERISTIC_ID.equals(subCharacteristicId));
+  @CheckForNull
+  static String string(JsonObject json, String property) {
+    JsonElement element = json.get(property);
+    return element == null || element.isJsonNull() ? null : element.getAsString();
   }
 
 }
@@ -0,0 +1,81 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.batch.scan;
+
+import com.google.common.collect.Maps;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.sonar.api.BatchComponent;
+import org.sonar.api.resources.Project;
+import org.sonar.core.source.LineHashes;
+import org.sonar.core.source.SnapshotDataTypes;
+import org.sonar.core.source.db.SnapshotDataDao;
+import org.sonar.core.source.db.SnapshotDataDto;
+
+import javax.annotation.CheckForNull;
+
+import java.util.Map;
+
+/**
+ * Hashes of lines of the files of the module, as stored by the previous analysis. They are loaded
+ * in a single query on first request, instead of requesting the source of each file.
+ *
+ * @since 4.4
+ */
+public class LastLineHashes implements BatchComponent {
+
+  private final Project module;
+  private final SnapshotDataDao dao;
+  private Map<String, int[]> hashesByFileKey;
+
+  public LastLineHashes(Project module, SnapshotDataDao dao) {
+    this.module = module;
+    this.dao = dao;
+  }
+
+  /**
+   * Returns false if the previous analysis did not store line hashes, for example
+   * when the module was never analysed or was analysed by a version prior to 4.4.
+   */
+  public boolean isAvailable() {
+    return !hashesByFileKey().isEmpty();
+  }
+
+  @CheckForNull
+  public int[] getLineHashes(String fileKey) {
+    return hashesByFileKey().get(fileKey);
+  }
+
+  private Map<String, int[]> hashesByFileKey() {
+    if (hashesByFileKey == null) {
+      final Map<String, int[]> map = Maps.newHashMap();
+      dao.selectLastModuleFilesData(module.getKey(), SnapshotDataTypes.LINE_HASHES, new ResultHandler() {
+        @Override
+        public void handleResult(ResultContext context) {
+          SnapshotDataDto dto = (SnapshotDataDto) context.getResultObject();
+          // hashes are parsed as soon as loaded to not keep the large text data in memory
+          map.put(dto.getComponentKey(), LineHashes.parse(dto.getData()));
+        }
+      });
+      hashesByFileKey = map;
+    }
+    return hashesByFileKey;
+  }
+}
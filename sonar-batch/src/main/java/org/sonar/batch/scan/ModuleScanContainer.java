@@ -141,6 +141,7 @@ public class ModuleScanContainer extends ComponentContainer {
       // issues
       IssuableFactory.class,
       ModuleIssues.class,
+      LastLineHashes.class,
 
       // issue exclusions
       IssueInclusionPatternInitializer.class,
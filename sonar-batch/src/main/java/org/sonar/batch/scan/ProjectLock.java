@@ -22,12 +22,14 @@ package org.sonar.batch.scan;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.sonar.api.config.Settings;
 import org.sonar.api.i18n.I18n;
 import org.sonar.api.resources.Project;
 import org.sonar.api.utils.Semaphores;
 import org.sonar.api.utils.SonarException;
 import org.sonar.batch.ProjectTree;
 import org.sonar.batch.bootstrap.AnalysisMode;
+import org.sonar.core.persistence.SemaphoresImpl;
 
 import java.util.Locale;
 
@@ -35,16 +37,25 @@ public class ProjectLock {
 
   private static final Logger LOG = LoggerFactory.getLogger(ProjectLock.class);
 
-  private final Semaphores semaphores;
+  /**
+   * Maximum number of seconds to wait for the end of another analysis of the same project. Default value is 0,
+   * meaning that the analysis fails immediately if the project is already being analysed.
+   * @since 4.4
+   */
+  public static final String WAIT_TIMEOUT_PROPERTY = "sonar.batch.projectLockTimeout";
+
+  private final SemaphoresImpl semaphores;
   private final ProjectTree projectTree;
   private final AnalysisMode analysisMode;
   private final I18n i18n;
+  private final Settings settings;
 
-  public ProjectLock(Semaphores semaphores, ProjectTree projectTree, AnalysisMode analysisMode, I18n i18n) {
+  public ProjectLock(SemaphoresImpl semaphores, ProjectTree projectTree, AnalysisMode analysisMode, I18n i18n, Settings settings) {
     this.semaphores = semaphores;
     this.projectTree = projectTree;
     this.analysisMode = analysisMode;
     this.i18n = i18n;
+    this.settings = settings;
   }
 
   public void start() {
@@ -72,7 +83,11 @@ public class ProjectLock {
 
   private Semaphores.Semaphore acquire() {
     LOG.debug("Acquire semaphore on project : {}, with key {}", getProject(), getSemaphoreKey());
-    return semaphores.acquire(getSemaphoreKey(), 15, 10);
+    return semaphores.acquire(getSemaphoreKey(), 15, 10, waitTimeoutInMs());
+  }
+
+  private long waitTimeoutInMs() {
+    return Math.max(0L, settings.getLong(WAIT_TIMEOUT_PROPERTY)) * 1000L;
   }
 
   private void release() {
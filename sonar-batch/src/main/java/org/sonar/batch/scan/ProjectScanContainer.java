@@ -63,7 +63,9 @@ import org.sonar.batch.issue.IssueCache;
 import org.sonar.batch.issue.IssuePersister;
 import org.sonar.batch.issue.ScanIssueStorage;
 import org.sonar.batch.phases.GraphPersister;
+import org.sonar.batch.profiling.FlightRecorder;
 import org.sonar.batch.profiling.PhasesSumUpTimeProfiler;
+import org.sonar.batch.rule.RulesBundle;
 import org.sonar.batch.rule.RulesProvider;
 import org.sonar.batch.scan.filesystem.InputFileCache;
 import org.sonar.batch.scan.maven.FakeMavenPluginExecutor;
@@ -85,6 +87,7 @@ import org.sonar.core.test.TestablePerspectiveLoader;
 import org.sonar.core.user.DefaultUserFinder;
 
 public class ProjectScanContainer extends ComponentContainer {
+
   public ProjectScanContainer(ComponentContainer taskContainer) {
     super(taskContainer);
   }
@@ -99,6 +102,9 @@ public class ProjectScanContainer extends ComponentContainer {
     if (settings != null && settings.getBoolean(CoreProperties.PROFILING_LOG_PROPERTY)) {
       add(PhasesSumUpTimeProfiler.class);
     }
+    if (settings != null && settings.getBoolean(CoreProperties.PROFILING_RECORD_PROPERTY)) {
+      add(FlightRecorder.class);
+    }
   }
 
   private void projectBootstrap() {
@@ -184,6 +190,7 @@ public class ProjectScanContainer extends ComponentContainer {
       new DebtModelProvider(),
 
       // rules
+      RulesBundle.class,
       new RulesProvider(),
 
       // Differential periods
@@ -34,11 +34,16 @@ import org.sonar.api.resources.Languages;
 import org.sonar.api.resources.Project;
 import org.sonar.api.resources.Resource;
 import org.sonar.api.utils.SonarException;
+import org.sonar.batch.index.ComponentDataCache;
 import org.sonar.batch.index.ResourceKeyMigration;
 import org.sonar.batch.util.DeprecatedKeyUtils;
+import org.sonar.core.component.ComponentKeys;
+import org.sonar.core.source.LineHashes;
+import org.sonar.core.source.SnapshotDataTypes;
 
 /**
- * Index all files/directories of the module in SQ database and importing source code.
+ * Index all files/directories of the module in SQ database, importing source code and storing the
+ * hashes of lines used by issue tracking of next analysis.
  *
  * @since 4.2
  */
@@ -49,9 +54,12 @@ public class ComponentIndexer implements BatchComponent {
   private final SonarIndex sonarIndex;
   private final ResourceKeyMigration migration;
   private final Project module;
+  private final ComponentDataCache componentDataCache;
 
-  public ComponentIndexer(Project module, Languages languages, SonarIndex sonarIndex, Settings settings, ResourceKeyMigration migration) {
+  public ComponentIndexer(Project module, Languages languages, SonarIndex sonarIndex, Settings settings, ResourceKeyMigration migration,
+    ComponentDataCache componentDataCache) {
     this.module = module;
+    this.componentDataCache = componentDataCache;
     this.languages = languages;
     this.sonarIndex = sonarIndex;
     this.settings = settings;
@@ -92,6 +100,8 @@ public class ComponentIndexer implements BatchComponent {
       if (shouldImportSource) {
         sonarIndex.setSource(sonarFile, source);
       }
+      componentDataCache.setStringData(ComponentKeys.createEffectiveKey(module, sonarFile), SnapshotDataTypes.LINE_HASHES,
+        LineHashes.format(LineHashes.compute(source)));
     } catch (Exception e) {
       throw new SonarException("Unable to read and import the source file : '" + inputFile.absolutePath() + "' with the charset : '"
         + fs.encoding() + "'.", e);
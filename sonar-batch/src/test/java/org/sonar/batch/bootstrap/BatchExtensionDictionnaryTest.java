@@ -19,18 +19,27 @@
  */
 package org.sonar.batch.bootstrap;
 
+import com.google.common.collect.Sets;
 import org.junit.Test;
 import org.sonar.api.BatchExtension;
+import org.sonar.api.batch.DependedUpon;
+import org.sonar.api.batch.DependsUpon;
+import org.sonar.api.batch.Phase;
 import org.sonar.api.batch.Sensor;
 import org.sonar.api.batch.SensorContext;
 import org.sonar.api.platform.ComponentContainer;
 import org.sonar.api.resources.Project;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
 import static org.junit.internal.matchers.IsCollectionContaining.hasItem;
+import static org.junit.internal.matchers.IsCollectionContaining.hasItems;
 
 public class BatchExtensionDictionnaryTest {
 
@@ -58,6 +67,33 @@ public class BatchExtensionDictionnaryTest {
     assertEquals(1, sensors.size());
   }
 
+  @Test
+  public void should_compute_predecessors() {
+    Sensor pre = new PreSensor(), generator = new GeneratorSensor(), consumer = new ConsumerSensor(), independent = new FakeSensor();
+
+    BatchExtensionDictionnary selector = newSelector();
+    Map<Sensor, Set<Sensor>> predecessors = selector.predecessors(Arrays.asList(consumer, independent, generator, pre));
+
+    assertThat(predecessors.keySet(), hasItems(pre, generator, consumer, independent));
+    assertEquals(4, predecessors.size());
+    assertEquals(Collections.<Sensor>emptySet(), predecessors.get(pre));
+    assertEquals(Sets.newHashSet(pre), predecessors.get(generator));
+    assertEquals(Sets.newHashSet(pre), predecessors.get(independent));
+    assertEquals(Sets.newHashSet(pre, generator), predecessors.get(consumer));
+  }
+
+  @Phase(name = Phase.Name.PRE)
+  class PreSensor extends FakeSensor {
+  }
+
+  @DependedUpon("foo")
+  class GeneratorSensor extends FakeSensor {
+  }
+
+  @DependsUpon("foo")
+  class ConsumerSensor extends FakeSensor {
+  }
+
   class FakeSensor implements Sensor {
 
     public void analyse(Project project, SensorContext context) {
@@ -99,6 +99,18 @@ public class CachesTest {
     }
   }
 
+  @Test
+  public void should_count_buffer_hits() throws Exception {
+    caches.start();
+    Cache<Element> cache = caches.createCache("foo");
+    long hits = caches.bufferHits();
+    cache.put("key", new Element());
+    cache.get("key");
+
+    assertThat(caches.bufferHits()).isGreaterThan(hits);
+    assertThat(caches.bufferMisses()).isGreaterThanOrEqualTo(0L);
+  }
+
   static class Element implements Serializable {
 
   }
@@ -0,0 +1,109 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.batch.index;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sonar.api.database.model.Snapshot;
+import org.sonar.api.design.Dependency;
+import org.sonar.api.resources.Directory;
+import org.sonar.api.resources.File;
+import org.sonar.api.resources.Project;
+import org.sonar.api.resources.Resource;
+import org.sonar.core.persistence.AbstractDaoTestCase;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DependencyPersisterTest extends AbstractDaoTestCase {
+
+  Project project = new Project("foo");
+  Directory fromDir = new Directory("org/from");
+  Directory toDir = new Directory("org/to");
+  File fromFile = new File("org/from/Foo.java");
+  File toFile = new File("org/to/Bar.java");
+  ResourcePersister resourcePersister = mock(ResourcePersister.class);
+  DependencyPersister persister;
+
+  @Before
+  public void setUp() {
+    Snapshot projectSnapshot = snapshot(1, 100, "PRJ");
+    when(resourcePersister.getSnapshot(project)).thenReturn(projectSnapshot);
+    mockSnapshot(fromDir, snapshot(10, 110, "DIR"));
+    mockSnapshot(toDir, snapshot(20, 120, "DIR"));
+    mockSnapshot(fromFile, snapshot(11, 111, "FIL"));
+    mockSnapshot(toFile, snapshot(21, 121, "FIL"));
+    persister = new DependencyPersister(resourcePersister, getMyBatis());
+  }
+
+  @Test
+  public void should_insert_dependencies() {
+    setupData("empty");
+
+    Dependency dirDependency = new Dependency(fromDir, toDir).setUsage("USES").setWeight(1);
+    Dependency fileDependency = new Dependency(fromFile, toFile).setUsage("USES").setWeight(3).setParent(dirDependency);
+    persister.saveDependency(project, dirDependency, null);
+    persister.saveDependency(project, fileDependency, dirDependency);
+
+    // buffered until flush
+    assertThat(dirDependency.getId()).isNull();
+    assertThat(persister.bufferSize()).isEqualTo(2);
+
+    assertThat(persister.flush()).isEqualTo(2);
+
+    assertThat(dirDependency.getId()).isEqualTo(1L);
+    assertThat(fileDependency.getId()).isEqualTo(2L);
+    assertThat(persister.bufferSize()).isEqualTo(0);
+    checkTables("should_insert_dependencies", "dependencies");
+  }
+
+  @Test
+  public void should_reference_parent_flushed_previously() {
+    setupData("empty");
+
+    Dependency dirDependency = new Dependency(fromDir, toDir).setUsage("USES").setWeight(1);
+    persister.saveDependency(project, dirDependency, null);
+    persister.flush();
+
+    Dependency fileDependency = new Dependency(fromFile, toFile).setUsage("USES").setWeight(3).setParent(dirDependency);
+    persister.saveDependency(project, fileDependency, dirDependency);
+    assertThat(persister.persist()).isEqualTo(1);
+
+    checkTables("should_insert_dependencies", "dependencies");
+  }
+
+  @Test
+  public void should_not_fail_if_nothing_to_flush() {
+    assertThat(persister.flush()).isEqualTo(0);
+  }
+
+  private void mockSnapshot(Resource resource, Snapshot snapshot) {
+    when(resourcePersister.saveResource(project, resource)).thenReturn(snapshot);
+  }
+
+  private static Snapshot snapshot(int id, int resourceId, String scope) {
+    Snapshot snapshot = mock(Snapshot.class);
+    when(snapshot.getId()).thenReturn(id);
+    when(snapshot.getResourceId()).thenReturn(resourceId);
+    when(snapshot.getScope()).thenReturn(scope);
+    return snapshot;
+  }
+}
@@ -37,4 +37,40 @@ public class SnapshotCacheTest {
     assertThat(cache.get(componentKey)).isSameAs(snapshot);
     assertThat(cache.get("other")).isNull();
   }
+
+  @Test
+  public void should_intern_keys() throws Exception {
+    SnapshotCache cache = new SnapshotCache();
+    int id = cache.intern("org.apache.struts:struts-core");
+    assertThat(cache.intern("org.apache.struts:struts-core")).isEqualTo(id);
+    assertThat(cache.intern("org.apache.struts:struts-ui")).isEqualTo(id + 1);
+    assertThat(cache.get("org.apache.struts:struts-ui")).isNull();
+    assertThat(cache.resourceId("org.apache.struts:struts-ui")).isNull();
+  }
+
+  @Test
+  public void should_cache_resource_ids() throws Exception {
+    SnapshotCache cache = new SnapshotCache();
+    cache.put("org.apache.struts:struts-core", new Snapshot().setResourceId(10));
+    cache.putResourceId("org.apache.struts:struts-core:Deleted.java", 11);
+
+    assertThat(cache.resourceId("org.apache.struts:struts-core")).isEqualTo(10);
+    assertThat(cache.resourceId("org.apache.struts:struts-core:Deleted.java")).isEqualTo(11);
+    assertThat(cache.resourceId("other")).isNull();
+
+    // only components having a snapshot are returned
+    assertThat(cache.snapshots()).hasSize(1);
+    assertThat(cache.snapshots().iterator().next().getKey()).isEqualTo("org.apache.struts:struts-core");
+  }
+
+  @Test
+  public void should_grow() throws Exception {
+    SnapshotCache cache = new SnapshotCache();
+    for (int i = 0; i < 1000; i++) {
+      cache.putResourceId("key" + i, i);
+    }
+    for (int i = 0; i < 1000; i++) {
+      assertThat(cache.resourceId("key" + i)).isEqualTo(i);
+    }
+  }
 }
@@ -19,8 +19,12 @@
  */
 package org.sonar.batch.issue;
 
+import com.google.common.collect.Lists;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.sonar.api.issue.internal.DefaultIssue;
 import org.sonar.batch.bootstrap.AnalysisMode;
 import org.sonar.core.persistence.AbstractDaoTestCase;
@@ -28,6 +32,8 @@ import org.sonar.core.persistence.AbstractDaoTestCase;
 import java.util.Arrays;
 import java.util.List;
 
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -54,9 +60,19 @@ public class IssuePersisterTest extends AbstractDaoTestCase {
 
   @Test
   public void should_persist_all_issues() throws Exception {
-    persister.persist();
+    doAnswer(new Answer<Integer>() {
+      @Override
+      public Integer answer(InvocationOnMock invocation) throws Throwable {
+        // storage consumes the issues
+        assertThat(Lists.newArrayList((Iterable<DefaultIssue>) invocation.getArguments()[0])).isEqualTo(issues);
+        return 1;
+      }
+    }).when(storage).save(Matchers.<Iterable<DefaultIssue>>any());
+
+    int rows = persister.persist();
 
-    verify(storage, times(1)).save(issues);
+    verify(storage, times(1)).save(Matchers.<Iterable<DefaultIssue>>any());
+    assertThat(rows).isEqualTo(1);
   }
 
   @Test
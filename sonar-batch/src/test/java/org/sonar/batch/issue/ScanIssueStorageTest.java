@@ -45,8 +45,7 @@ import static org.mockito.Mockito.when;
 @RunWith(MockitoJUnitRunner.class)
 public class ScanIssueStorageTest extends AbstractDaoTestCase {
 
-  @Mock
-  SnapshotCache snapshotCache;
+  SnapshotCache snapshotCache = new SnapshotCache();
 
   @Mock
   ProjectTree projectTree;
@@ -60,7 +59,7 @@ public class ScanIssueStorageTest extends AbstractDaoTestCase {
 
   @Test
   public void should_load_component_id_from_cache() throws Exception {
-    when(snapshotCache.get("struts:Action.java")).thenReturn(new Snapshot().setResourceId(123));
+    snapshotCache.put("struts:Action.java", new Snapshot().setResourceId(123));
 
     long componentId = storage.componentId(new DefaultIssue().setComponentKey("struts:Action.java"));
 
@@ -70,17 +69,30 @@ public class ScanIssueStorageTest extends AbstractDaoTestCase {
   @Test
   public void should_load_component_id_from_db() throws Exception {
     setupData("should_load_component_id_from_db");
-    when(snapshotCache.get("struts:Action.java")).thenReturn(null);
+    when(projectTree.getRootProject()).thenReturn((Project) new Project("struts").setId(100));
 
     long componentId = storage.componentId(new DefaultIssue().setComponentKey("struts:Action.java"));
 
     assertThat(componentId).isEqualTo(123);
+    // all the components with open issues are loaded at once
+    assertThat(snapshotCache.resourceId("struts:Other.java")).isEqualTo(124);
+  }
+
+  @Test
+  public void should_load_component_id_from_db_if_component_has_no_open_issues() throws Exception {
+    setupData("should_load_component_id_from_db_if_component_has_no_open_issues");
+    when(projectTree.getRootProject()).thenReturn((Project) new Project("struts").setId(100));
+
+    long componentId = storage.componentId(new DefaultIssue().setComponentKey("struts:Action.java"));
+
+    assertThat(componentId).isEqualTo(123);
+    assertThat(snapshotCache.resourceId("struts:Action.java")).isEqualTo(123);
   }
 
   @Test
   public void should_fail_to_load_component_id_if_unknown_component() throws Exception {
     setupData("should_fail_to_load_component_id_if_unknown_component");
-    when(snapshotCache.get("struts:Action.java")).thenReturn(null);
+    when(projectTree.getRootProject()).thenReturn((Project) new Project("struts").setId(100));
 
     try {
       storage.componentId(new DefaultIssue().setComponentKey("struts:Action.java"));
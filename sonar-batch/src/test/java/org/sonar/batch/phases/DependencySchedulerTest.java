@@ -0,0 +1,186 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.batch.phases;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.junit.After;
+import org.junit.Test;
+import org.sonar.api.batch.Sensor;
+import org.sonar.api.batch.SensorContext;
+import org.sonar.api.batch.Sequential;
+import org.sonar.api.resources.Project;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+public class DependencySchedulerTest {
+
+  ExecutorService executor = Executors.newFixedThreadPool(4);
+
+  @After
+  public void stopExecutor() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void should_execute_independent_sensors_concurrently() {
+    final CountDownLatch latch = new CountDownLatch(2);
+    Sensor first = new FakeSensor("first");
+    Sensor second = new FakeSensor("second");
+    Map<Sensor, Set<Sensor>> predecessors = Maps.newLinkedHashMap();
+    predecessors.put(first, Collections.<Sensor>emptySet());
+    predecessors.put(second, Collections.<Sensor>emptySet());
+
+    new DependencyScheduler<Sensor>(predecessors, SensorsExecutor.SEQUENTIAL).execute(executor, new DependencyScheduler.Runner<Sensor>() {
+      @Override
+      public void run(Sensor sensor) {
+        latch.countDown();
+        try {
+          // fails if the other sensor is not executed at the same time
+          assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+          throw new IllegalStateException(e);
+        }
+      }
+    });
+  }
+
+  @Test
+  public void should_execute_sensors_after_their_predecessors() {
+    Sensor first = new FakeSensor("first");
+    Sensor second = new FakeSensor("second");
+    Sensor third = new FakeSensor("third");
+    Map<Sensor, Set<Sensor>> predecessors = Maps.newLinkedHashMap();
+    predecessors.put(first, Collections.<Sensor>emptySet());
+    predecessors.put(second, Sets.newHashSet(first));
+    predecessors.put(third, Sets.newHashSet(first, second));
+
+    final List<Sensor> executed = Collections.synchronizedList(Lists.<Sensor>newArrayList());
+    new DependencyScheduler<Sensor>(predecessors, SensorsExecutor.SEQUENTIAL).execute(executor, new DependencyScheduler.Runner<Sensor>() {
+      @Override
+      public void run(Sensor sensor) {
+        executed.add(sensor);
+      }
+    });
+
+    assertThat(executed).containsExactly(first, second, third);
+  }
+
+  @Test
+  public void should_execute_sequential_sensors_alone() {
+    Map<Sensor, Set<Sensor>> predecessors = Maps.newLinkedHashMap();
+    for (int i = 0; i < 10; i++) {
+      Sensor sensor = i % 3 == 0 ? new SequentialSensor("sequential" + i) : new FakeSensor("sensor" + i);
+      predecessors.put(sensor, Collections.<Sensor>emptySet());
+    }
+
+    final AtomicInteger running = new AtomicInteger();
+    final AtomicInteger executed = new AtomicInteger();
+    new DependencyScheduler<Sensor>(predecessors, SensorsExecutor.SEQUENTIAL).execute(executor, new DependencyScheduler.Runner<Sensor>() {
+      @Override
+      public void run(Sensor sensor) {
+        int concurrent = running.incrementAndGet();
+        if (SensorsExecutor.SEQUENTIAL.apply(sensor)) {
+          assertThat(concurrent).isEqualTo(1);
+        }
+        executed.incrementAndGet();
+        running.decrementAndGet();
+      }
+    });
+
+    assertThat(executed.get()).isEqualTo(10);
+  }
+
+  @Test
+  public void should_propagate_failure() {
+    Sensor sensor = new FakeSensor("failing");
+    Map<Sensor, Set<Sensor>> predecessors = Maps.newLinkedHashMap();
+    predecessors.put(sensor, Collections.<Sensor>emptySet());
+    predecessors.put(new FakeSensor("other"), Collections.<Sensor>emptySet());
+
+    try {
+      new DependencyScheduler<Sensor>(predecessors, SensorsExecutor.SEQUENTIAL).execute(executor, new DependencyScheduler.Runner<Sensor>() {
+        @Override
+        public void run(Sensor sensor) {
+          throw new IllegalStateException("Fail to execute " + sensor);
+        }
+      });
+      fail();
+    } catch (IllegalStateException e) {
+      assertThat(e.getMessage()).startsWith("Fail to execute ");
+    }
+  }
+
+  @Test
+  public void should_compute_critical_path() {
+    Sensor scm = new FakeSensor("scm");
+    Sensor java = new FakeSensor("java");
+    Sensor coverage = new FakeSensor("coverage");
+    Sensor cpd = new FakeSensor("cpd");
+    Map<Sensor, Set<Sensor>> predecessors = Maps.newLinkedHashMap();
+    predecessors.put(scm, Collections.<Sensor>emptySet());
+    predecessors.put(java, Collections.<Sensor>emptySet());
+    predecessors.put(coverage, Sets.newHashSet(java));
+    predecessors.put(cpd, Sets.newHashSet(java));
+    Map<Sensor, Long> durations = ImmutableMap.of(scm, 500L, java, 300L, coverage, 100L, cpd, 250L);
+
+    assertThat(DependencyScheduler.criticalPath(predecessors, durations)).containsExactly(java, cpd);
+  }
+
+  static class FakeSensor implements Sensor {
+    private final String name;
+
+    FakeSensor(String name) {
+      this.name = name;
+    }
+
+    public void analyse(Project project, SensorContext context) {
+    }
+
+    public boolean shouldExecuteOnProject(Project project) {
+      return true;
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+
+  @Sequential
+  static class SequentialSensor extends FakeSensor {
+    SequentialSensor(String name) {
+      super(name);
+    }
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.batch.phases;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.sonar.api.config.Settings;
+import org.sonar.batch.bootstrap.BatchExtensionDictionnary;
+import org.sonar.batch.events.EventBus;
+import org.sonar.batch.index.ScanPersister;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+import static org.mockito.Matchers.isA;
+import static org.mockito.Matchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+public class PersistersExecutorTest {
+
+  BatchExtensionDictionnary selector = mock(BatchExtensionDictionnary.class);
+  EventBus eventBus = mock(EventBus.class);
+  ScanPersister persister1 = mock(ScanPersister.class);
+  ScanPersister persister2 = mock(ScanPersister.class);
+
+  @Test
+  public void should_execute_persisters_sequentially_by_default() {
+    when(selector.sort(anyCollection())).thenReturn(Arrays.asList(persister2, persister1));
+
+    new PersistersExecutor(new ScanPersister[] {persister1, persister2}, selector, eventBus, new Settings()).execute();
+
+    InOrder inOrder = inOrder(persister1, persister2);
+    inOrder.verify(persister2).persist();
+    inOrder.verify(persister1).persist();
+    verify(eventBus, times(4)).fireEvent(isA(PersisterExecutionEvent.class));
+    verify(selector, never()).predecessors(anyCollection());
+  }
+
+  @Test
+  public void should_execute_persisters_concurrently() {
+    when(selector.predecessors(anyCollection())).thenReturn(ImmutableMap.<ScanPersister, Set<ScanPersister>>of(
+      persister1, Collections.<ScanPersister>emptySet(),
+      persister2, Collections.singleton(persister1)));
+    Settings settings = new Settings().setProperty(PersistersExecutor.PERSISTERS_PARALLELISM_PROPERTY, 4);
+
+    new PersistersExecutor(new ScanPersister[] {persister1, persister2}, selector, eventBus, settings).execute();
+
+    verify(persister1).persist();
+    verify(persister2).persist();
+    verify(eventBus, times(4)).fireEvent(isA(PersisterExecutionEvent.class));
+  }
+}
@@ -0,0 +1,157 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.batch.profiling;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.Decorator;
+import org.sonar.api.batch.Sensor;
+import org.sonar.api.batch.events.DecoratorExecutionHandler.DecoratorExecutionEvent;
+import org.sonar.api.batch.events.DecoratorsPhaseHandler.DecoratorsPhaseEvent;
+import org.sonar.api.batch.events.ProjectAnalysisHandler.ProjectAnalysisEvent;
+import org.sonar.api.batch.events.SensorExecutionHandler.SensorExecutionEvent;
+import org.sonar.api.resources.Project;
+import org.sonar.api.resources.Resource;
+import org.sonar.batch.events.BatchStepEvent;
+import org.sonar.batch.events.PersisterExecutionHandler.PersisterExecutionEvent;
+import org.sonar.batch.index.Caches;
+import org.sonar.batch.index.ScanPersister;
+
+import java.io.File;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class FlightRecorderTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  Caches caches = mock(Caches.class);
+  File file;
+  FlightRecorder recorder;
+
+  @Before
+  public void before() throws Exception {
+    file = new File(temp.newFolder(), FlightRecorder.FILENAME);
+    recorder = new FlightRecorder(file, caches);
+  }
+
+  @Test
+  public void should_record_events_as_json_lines() throws Exception {
+    Project project = new Project("struts");
+    Sensor sensor = mock(Sensor.class);
+    ScanPersister persister = mock(ScanPersister.class);
+    Decorator decorator = mock(Decorator.class);
+    Resource file1 = new org.sonar.api.resources.File("src/Foo.java").setEffectiveKey("struts:src/Foo.java");
+    Resource file2 = new org.sonar.api.resources.File("src/Bar.java").setEffectiveKey("struts:src/Bar.java");
+    when(caches.bufferHits()).thenReturn(10L, 25L);
+    when(caches.bufferMisses()).thenReturn(2L, 3L);
+
+    recorder.start();
+    recorder.onProjectAnalysis(projectEvent(project, true));
+    recorder.onSensorExecution(sensorEvent(sensor, true));
+    recorder.onSensorExecution(sensorEvent(sensor, false));
+    recorder.onBatchStep(new BatchStepEvent("Persist dependencies", true));
+    recorder.onBatchStep(new BatchStepEvent("Persist dependencies", false));
+    recorder.onDecoratorExecution(decoratorEvent(decorator, file1, true));
+    recorder.onDecoratorExecution(decoratorEvent(decorator, file1, false));
+    recorder.onDecoratorExecution(decoratorEvent(decorator, file2, true));
+    recorder.onDecoratorExecution(decoratorEvent(decorator, file2, false));
+    recorder.onDecoratorsPhase(decoratorsEvent(false));
+    recorder.onPersisterExecution(persisterEvent(persister, true, 0));
+    recorder.onPersisterExecution(persisterEvent(persister, false, 42));
+    recorder.onProjectAnalysis(projectEvent(project, false));
+    recorder.stop();
+
+    List<String> lines = Files.readLines(file, Charsets.UTF_8);
+    assertThat(lines).hasSize(7);
+    assertThat(lines.get(0)).startsWith("{\"event\":\"sensor\",\"module\":\"struts\",\"name\":\"").contains("\"timeUs\":");
+    assertThat(lines.get(1)).startsWith("{\"event\":\"step\",\"module\":\"struts\",\"name\":\"Persist dependencies\",\"timeUs\":");
+    assertThat(lines.get(2)).startsWith("{\"event\":\"resource\",\"module\":\"struts\",\"timeUs\":").contains("\"resource\":\"struts:src/Foo.java\"");
+    assertThat(lines.get(3)).contains("\"resource\":\"struts:src/Bar.java\"");
+    assertThat(lines.get(4)).startsWith("{\"event\":\"decorator\",\"module\":\"struts\",\"name\":\"").contains("\"calls\":2}");
+    assertThat(lines.get(5)).startsWith("{\"event\":\"persister\",\"module\":\"struts\",\"name\":\"").contains("\"rows\":42}");
+    assertThat(lines.get(6)).startsWith("{\"event\":\"module\",\"module\":\"struts\",\"timeUs\":").endsWith("\"cacheHits\":15,\"cacheMisses\":1}");
+  }
+
+  @Test
+  public void should_measure_current_thread() {
+    ThreadUsage start = ThreadUsage.current();
+    byte[][] garbage = new byte[100][];
+    for (int i = 0; i < garbage.length; i++) {
+      garbage[i] = new byte[1024];
+    }
+    ThreadUsage end = ThreadUsage.current();
+
+    assertThat(end.elapsedMicros(start)).isGreaterThanOrEqualTo(0L);
+    Long allocated = end.allocatedBytes(start);
+    if (allocated != null) {
+      assertThat(allocated).isGreaterThanOrEqualTo(100 * 1024L);
+    }
+  }
+
+  private static ProjectAnalysisEvent projectEvent(Project project, boolean start) {
+    ProjectAnalysisEvent event = mock(ProjectAnalysisEvent.class);
+    when(event.getProject()).thenReturn(project);
+    when(event.isStart()).thenReturn(start);
+    when(event.isEnd()).thenReturn(!start);
+    return event;
+  }
+
+  private static SensorExecutionEvent sensorEvent(Sensor sensor, boolean start) {
+    SensorExecutionEvent event = mock(SensorExecutionEvent.class);
+    when(event.getSensor()).thenReturn(sensor);
+    when(event.isStart()).thenReturn(start);
+    when(event.isEnd()).thenReturn(!start);
+    return event;
+  }
+
+  private static DecoratorExecutionEvent decoratorEvent(Decorator decorator, Resource resource, boolean start) {
+    DecoratorExecutionEvent event = mock(DecoratorExecutionEvent.class);
+    when(event.getDecorator()).thenReturn(decorator);
+    when(event.getResource()).thenReturn(resource);
+    when(event.isStart()).thenReturn(start);
+    when(event.isEnd()).thenReturn(!start);
+    return event;
+  }
+
+  private static DecoratorsPhaseEvent decoratorsEvent(boolean start) {
+    DecoratorsPhaseEvent event = mock(DecoratorsPhaseEvent.class);
+    when(event.isStart()).thenReturn(start);
+    when(event.isEnd()).thenReturn(!start);
+    return event;
+  }
+
+  private static PersisterExecutionEvent persisterEvent(ScanPersister persister, boolean start, int rows) {
+    PersisterExecutionEvent event = mock(PersisterExecutionEvent.class);
+    when(event.getPersister()).thenReturn(persister);
+    when(event.rows()).thenReturn(rows);
+    when(event.isStart()).thenReturn(start);
+    when(event.isEnd()).thenReturn(!start);
+    return event;
+  }
+}
@@ -44,6 +44,8 @@ import org.sonar.api.resources.Project;
 import org.sonar.api.resources.Resource;
 import org.sonar.api.utils.System2;
 import org.sonar.batch.events.BatchStepEvent;
+import org.sonar.batch.events.PersisterExecutionHandler;
+import org.sonar.batch.index.ScanPersister;
 import org.sonar.batch.phases.Phases.Phase;
 
 import java.util.Arrays;
@@ -73,12 +75,12 @@ public class PhasesSumUpTimeProfilerTest {
 
     fakeAnalysis(profiler, project);
 
-    assertThat(profiler.currentModuleProfiling.getProfilingPerPhase(Phase.MAVEN).totalTime()).isEqualTo(4L);
-    assertThat(profiler.currentModuleProfiling.getProfilingPerPhase(Phase.INIT).getProfilingPerItem(new FakeInitializer()).totalTime()).isEqualTo(7L);
-    assertThat(profiler.currentModuleProfiling.getProfilingPerPhase(Phase.SENSOR).getProfilingPerItem(new FakeSensor()).totalTime()).isEqualTo(10L);
-    assertThat(profiler.currentModuleProfiling.getProfilingPerPhase(Phase.DECORATOR).getProfilingPerItem(new FakeDecorator1()).totalTime()).isEqualTo(20L);
-    assertThat(profiler.currentModuleProfiling.getProfilingPerPhase(Phase.POSTJOB).getProfilingPerItem(new FakePostJob()).totalTime()).isEqualTo(30L);
-    assertThat(profiler.currentModuleProfiling.getProfilingPerBatchStep("Free memory").totalTime()).isEqualTo(9L);
+    assertThat(profiler.currentModuleProfiling.get().getProfilingPerPhase(Phase.MAVEN).totalTime()).isEqualTo(4L);
+    assertThat(profiler.currentModuleProfiling.get().getProfilingPerPhase(Phase.INIT).getProfilingPerItem(new FakeInitializer()).totalTime()).isEqualTo(7L);
+    assertThat(profiler.currentModuleProfiling.get().getProfilingPerPhase(Phase.SENSOR).getProfilingPerItem(new FakeSensor()).totalTime()).isEqualTo(10L);
+    assertThat(profiler.currentModuleProfiling.get().getProfilingPerPhase(Phase.DECORATOR).getProfilingPerItem(new FakeDecorator1()).totalTime()).isEqualTo(20L);
+    assertThat(profiler.currentModuleProfiling.get().getProfilingPerPhase(Phase.POSTJOB).getProfilingPerItem(new FakePostJob()).totalTime()).isEqualTo(30L);
+    assertThat(profiler.currentModuleProfiling.get().getProfilingPerBatchStep("Free memory").totalTime()).isEqualTo(9L);
 
   }
 
@@ -93,12 +95,12 @@ public class PhasesSumUpTimeProfilerTest {
     fakeAnalysis(profiler, moduleB);
     fakeAnalysis(profiler, project);
 
-    assertThat(profiler.currentModuleProfiling.getProfilingPerPhase(Phase.MAVEN).totalTime()).isEqualTo(4L);
-    assertThat(profiler.currentModuleProfiling.getProfilingPerPhase(Phase.INIT).getProfilingPerItem(new FakeInitializer()).totalTime()).isEqualTo(7L);
-    assertThat(profiler.currentModuleProfiling.getProfilingPerPhase(Phase.SENSOR).getProfilingPerItem(new FakeSensor()).totalTime()).isEqualTo(10L);
-    assertThat(profiler.currentModuleProfiling.getProfilingPerPhase(Phase.DECORATOR).getProfilingPerItem(new FakeDecorator1()).totalTime()).isEqualTo(20L);
-    assertThat(profiler.currentModuleProfiling.getProfilingPerPhase(Phase.DECORATOR).getProfilingPerItem(new FakeDecorator2()).totalTime()).isEqualTo(10L);
-    assertThat(profiler.currentModuleProfiling.getProfilingPerPhase(Phase.POSTJOB).getProfilingPerItem(new FakePostJob()).totalTime()).isEqualTo(30L);
+    assertThat(profiler.currentModuleProfiling.get().getProfilingPerPhase(Phase.MAVEN).totalTime()).isEqualTo(4L);
+    assertThat(profiler.currentModuleProfiling.get().getProfilingPerPhase(Phase.INIT).getProfilingPerItem(new FakeInitializer()).totalTime()).isEqualTo(7L);
+    assertThat(profiler.currentModuleProfiling.get().getProfilingPerPhase(Phase.SENSOR).getProfilingPerItem(new FakeSensor()).totalTime()).isEqualTo(10L);
+    assertThat(profiler.currentModuleProfiling.get().getProfilingPerPhase(Phase.DECORATOR).getProfilingPerItem(new FakeDecorator1()).totalTime()).isEqualTo(20L);
+    assertThat(profiler.currentModuleProfiling.get().getProfilingPerPhase(Phase.DECORATOR).getProfilingPerItem(new FakeDecorator2()).totalTime()).isEqualTo(10L);
+    assertThat(profiler.currentModuleProfiling.get().getProfilingPerPhase(Phase.POSTJOB).getProfilingPerItem(new FakePostJob()).totalTime()).isEqualTo(30L);
 
     assertThat(profiler.totalProfiling.getProfilingPerPhase(Phase.MAVEN).totalTime()).isEqualTo(12L);
     assertThat(profiler.totalProfiling.getProfilingPerPhase(Phase.INIT).getProfilingPerItem(new FakeInitializer()).totalTime()).isEqualTo(21L);
@@ -108,6 +110,24 @@ public class PhasesSumUpTimeProfilerTest {
     assertThat(profiler.totalProfiling.getProfilingPerPhase(Phase.POSTJOB).getProfilingPerItem(new FakePostJob()).totalTime()).isEqualTo(90L);
   }
 
+  @Test
+  public void testPersisters() {
+    final Project project = mockProject("project", true);
+    when(project.getModules()).thenReturn(Collections.<Project>emptyList());
+    ScanPersister persister = new FakePersister();
+
+    profiler.onProjectAnalysis(projectEvent(project, true));
+    profiler.onPersisterExecution(persisterEvent(persister, true, 0));
+    clock.sleep(20);
+    profiler.onPersisterExecution(persisterEvent(persister, false, 50));
+
+    ItemProfiling profiling = profiler.currentModuleProfiling.get().getProfilingPerPersister("FakePersister");
+    assertThat(profiling.totalTime()).isEqualTo(20L);
+    assertThat(profiling.rows()).isEqualTo(50L);
+    assertThat(profiling.rowsPerSecond()).isEqualTo(2500L);
+    profiler.onProjectAnalysis(projectEvent(project, false));
+  }
+
   @Test
   public void testDisplayTimings() {
     AbstractTimeProfiling profiling = new AbstractTimeProfiling(System2.INSTANCE) {
@@ -243,6 +263,31 @@ public class PhasesSumUpTimeProfilerTest {
     profiler.onPostJobsPhase(postJobsEvent(false));
   }
 
+  private PersisterExecutionHandler.PersisterExecutionEvent persisterEvent(final ScanPersister persister, final boolean start, final int rows) {
+    return new PersisterExecutionHandler.PersisterExecutionEvent() {
+
+      @Override
+      public boolean isStart() {
+        return start;
+      }
+
+      @Override
+      public boolean isEnd() {
+        return !start;
+      }
+
+      @Override
+      public ScanPersister getPersister() {
+        return persister;
+      }
+
+      @Override
+      public int rows() {
+        return rows;
+      }
+    };
+  }
+
   private SensorExecutionEvent sensorEvent(final Sensor sensor, final boolean start) {
     return new SensorExecutionHandler.SensorExecutionEvent() {
 
@@ -300,6 +345,11 @@ public class PhasesSumUpTimeProfilerTest {
       public Decorator getDecorator() {
         return decorator;
       }
+
+      @Override
+      public Resource getResource() {
+        return null;
+      }
     };
   }
 
@@ -486,4 +536,12 @@ public class PhasesSumUpTimeProfilerTest {
     public void executeOn(Project project, SensorContext context) {
     }
   }
+
+  public class FakePersister implements ScanPersister {
+    @Override
+    public int persist() {
+      return 0;
+    }
+  }
+
 }
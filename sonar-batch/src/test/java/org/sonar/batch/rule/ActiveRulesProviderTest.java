@@ -19,17 +19,12 @@
  */
 package org.sonar.batch.rule;
 
-import org.junit.Before;
+import com.google.gson.JsonParser;
 import org.junit.Test;
 import org.sonar.api.batch.rule.ActiveRule;
 import org.sonar.api.batch.rule.ActiveRules;
 import org.sonar.api.rule.RuleKey;
 import org.sonar.api.rule.Severity;
-import org.sonar.api.rules.Rule;
-import org.sonar.api.rules.RuleFinder;
-import org.sonar.core.persistence.AbstractDaoTestCase;
-import org.sonar.core.qualityprofile.db.ActiveRuleDao;
-import org.sonar.core.qualityprofile.db.QualityProfileDao;
 
 import java.util.Arrays;
 
@@ -37,33 +32,28 @@ import static org.fest.assertions.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
-public class ActiveRulesProviderTest extends AbstractDaoTestCase {
+public class ActiveRulesProviderTest {
 
   ModuleQProfiles qProfiles = mock(ModuleQProfiles.class);
-  RuleFinder ruleFinder = mock(RuleFinder.class);
-
-  @Before
-  public void init_rules() {
-    Rule squidRule = new Rule().setRepositoryKey("squid").setKey("S0001");
-    squidRule.createParameter("min").setDefaultValue("12");
-    when(ruleFinder.findById(10)).thenReturn(squidRule);
-    when(ruleFinder.findById(100)).thenReturn(new Rule().setRepositoryKey("phpunit").setKey("P1"));
-  }
+  RulesBundle bundle = mock(RulesBundle.class);
 
   @Test
   public void build_active_rules() throws Exception {
-    setupData("shared");
-    QualityProfileDao profileDao = new QualityProfileDao(getMyBatis());
     when(qProfiles.findAll()).thenReturn(Arrays.asList(
+      new ModuleQProfiles.QProfile(2, "Java Two", "java", 20),
+      new ModuleQProfiles.QProfile(3, "Php One", "php", 30)
+    ));
+    when(bundle.activeRules()).thenReturn(new JsonParser().parse("[" +
       // 1 rule is enabled on java with severity INFO
-      new ModuleQProfiles.QProfile(profileDao.selectById(2)),
+      "{\"profileId\": 2, \"repo\": \"squid\", \"key\": \"S0001\", \"severity\": \"INFO\", \"params\": {\"max\": \"20\", \"format\": \"html\", \"min\": \"12\"}}," +
       // 1 rule is enabled on php with severity BLOCKER
-      new ModuleQProfiles.QProfile(profileDao.selectById(3))
-    ));
+      "{\"profileId\": 3, \"repo\": \"phpunit\", \"key\": \"P1\", \"severity\": \"BLOCKER\", \"internalKey\": \"PhpUnit/P1\", \"params\": {}}," +
+      // profile is not used by module
+      "{\"profileId\": 1, \"repo\": \"squid\", \"key\": \"S0002\", \"severity\": \"MAJOR\", \"params\": {}}" +
+      "]").getAsJsonArray());
 
     ActiveRulesProvider provider = new ActiveRulesProvider();
-    ActiveRuleDao activeRuleDao = new ActiveRuleDao(getMyBatis());
-    ActiveRules activeRules = provider.provide(qProfiles, activeRuleDao, ruleFinder);
+    ActiveRules activeRules = provider.provide(qProfiles, bundle);
 
     assertThat(activeRules.findAll()).hasSize(2);
     assertThat(activeRules.findByRepository("squid")).hasSize(1);
@@ -72,7 +62,6 @@ public class ActiveRulesProviderTest extends AbstractDaoTestCase {
     ActiveRule squidRule = activeRules.find(RuleKey.of("squid", "S0001"));
     assertThat(squidRule.severity()).isEqualTo(Severity.INFO);
     assertThat(squidRule.internalKey()).isNull();
-    // "max" and "format" parameters are set in db, "min" is not set but has a default value
     assertThat(squidRule.params()).hasSize(3);
     assertThat(squidRule.param("min")).isEqualTo("12");
     assertThat(squidRule.param("max")).isEqualTo("20");
@@ -80,6 +69,7 @@ public class ActiveRulesProviderTest extends AbstractDaoTestCase {
 
     ActiveRule phpRule = activeRules.find(RuleKey.of("phpunit", "P1"));
     assertThat(phpRule.severity()).isEqualTo(Severity.BLOCKER);
+    assertThat(phpRule.internalKey()).isEqualTo("PhpUnit/P1");
     assertThat(phpRule.params()).isEmpty();
   }
 }
@@ -0,0 +1,88 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.batch.rule;
+
+import com.google.common.base.Charsets;
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+import org.sonar.batch.bootstrap.ServerClient;
+import org.sonar.home.cache.FileCache;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class RulesBundleTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  ServerClient server = mock(ServerClient.class);
+  FileCache fileCache = mock(FileCache.class);
+  File file;
+
+  @Before
+  public void setUp() throws Exception {
+    file = temp.newFile();
+    OutputStream output = new GZIPOutputStream(new FileOutputStream(file));
+    try {
+      IOUtils.write("{\"rules\": [{\"id\": 1}], \"activeRules\": [{\"profileId\": 2}, {\"profileId\": 3}]}", output, Charsets.UTF_8.name());
+    } finally {
+      IOUtils.closeQuietly(output);
+    }
+    when(server.request(RulesBundle.HASH_URL)).thenReturn("abcde\n");
+    when(fileCache.get(eq(RulesBundle.FILENAME), eq("abcde"), any(FileCache.Downloader.class))).thenReturn(file);
+  }
+
+  @Test
+  public void load_bundle_from_cache() throws Exception {
+    RulesBundle bundle = new RulesBundle(server, fileCache);
+
+    assertThat(bundle.rules().size()).isEqualTo(1);
+    assertThat(bundle.activeRules().size()).isEqualTo(2);
+
+    // hash is requested only once
+    verify(server, times(1)).request(RulesBundle.HASH_URL);
+  }
+
+  @Test
+  public void download_bundle_when_not_in_cache() throws Exception {
+    new RulesBundle(server, fileCache).rules();
+
+    ArgumentCaptor<FileCache.Downloader> downloader = ArgumentCaptor.forClass(FileCache.Downloader.class);
+    verify(fileCache).get(eq(RulesBundle.FILENAME), eq("abcde"), downloader.capture());
+    File toFile = new File(temp.newFolder(), RulesBundle.FILENAME);
+    downloader.getValue().download(RulesBundle.FILENAME, toFile);
+    verify(server).download(RulesBundle.CONTENT_URL, toFile);
+  }
+}
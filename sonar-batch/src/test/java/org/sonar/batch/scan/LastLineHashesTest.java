@@ -0,0 +1,80 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.batch.scan;
+
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.sonar.api.resources.Project;
+import org.sonar.core.source.SnapshotDataTypes;
+import org.sonar.core.source.db.SnapshotDataDao;
+import org.sonar.core.source.db.SnapshotDataDto;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class LastLineHashesTest {
+
+  SnapshotDataDao dao = mock(SnapshotDataDao.class);
+  LastLineHashes lastLineHashes = new LastLineHashes(new Project("struts"), dao);
+
+  @Test
+  public void load_hashes_of_all_files_at_once() {
+    doAnswer(new Answer() {
+      @Override
+      public Object answer(InvocationOnMock invocation) {
+        ResultHandler handler = (ResultHandler) invocation.getArguments()[2];
+        handler.handleResult(context("struts:Foo.java", "a,-b"));
+        handler.handleResult(context("struts:Bar.java", ""));
+        return null;
+      }
+    }).when(dao).selectLastModuleFilesData(eq("struts"), eq(SnapshotDataTypes.LINE_HASHES), any(ResultHandler.class));
+
+    assertThat(lastLineHashes.isAvailable()).isTrue();
+    assertThat(lastLineHashes.getLineHashes("struts:Foo.java")).isEqualTo(new int[] {10, -11});
+    assertThat(lastLineHashes.getLineHashes("struts:Bar.java")).isEmpty();
+    assertThat(lastLineHashes.getLineHashes("struts:Other.java")).isNull();
+
+    verify(dao, times(1)).selectLastModuleFilesData(eq("struts"), eq(SnapshotDataTypes.LINE_HASHES), any(ResultHandler.class));
+  }
+
+  @Test
+  public void not_available_if_no_hashes() {
+    assertThat(lastLineHashes.isAvailable()).isFalse();
+    assertThat(lastLineHashes.getLineHashes("struts:Foo.java")).isNull();
+  }
+
+  private static ResultContext context(String fileKey, String data) {
+    SnapshotDataDto dto = new SnapshotDataDto();
+    dto.setComponentKey(fileKey);
+    dto.setData(data);
+    ResultContext context = mock(ResultContext.class);
+    when(context.getResultObject()).thenReturn(dto);
+    return context;
+  }
+}
@@ -21,18 +21,21 @@ package org.sonar.batch.scan;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.sonar.api.config.Settings;
 import org.sonar.api.i18n.I18n;
 import org.sonar.api.resources.Project;
 import org.sonar.api.utils.Semaphores;
 import org.sonar.api.utils.SonarException;
 import org.sonar.batch.ProjectTree;
 import org.sonar.batch.bootstrap.AnalysisMode;
+import org.sonar.core.persistence.SemaphoresImpl;
 
 import java.util.Locale;
 
 import static org.fest.assertions.Assertions.assertThat;
 import static org.fest.assertions.Fail.fail;
 import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.*;
@@ -40,9 +43,10 @@ import static org.mockito.Mockito.*;
 public class ProjectLockTest {
 
   ProjectLock projectLock;
-  Semaphores semaphores = mock(Semaphores.class);
+  SemaphoresImpl semaphores = mock(SemaphoresImpl.class);
   ProjectTree projectTree = mock(ProjectTree.class);
   I18n i18n = mock(I18n.class);
+  Settings settings = new Settings();
   Project project;
   private AnalysisMode mode;
 
@@ -53,20 +57,29 @@ public class ProjectLockTest {
     project = new Project("my-project-key");
     when(projectTree.getRootProject()).thenReturn(project);
 
-    projectLock = new ProjectLock(semaphores, projectTree, mode, i18n);
+    projectLock = new ProjectLock(semaphores, projectTree, mode, i18n, settings);
   }
 
   @Test
   public void shouldAcquireSemaphore() {
-    when(semaphores.acquire(anyString(), anyInt(), anyInt())).thenReturn(new Semaphores.Semaphore().setLocked(true));
+    when(semaphores.acquire(anyString(), anyInt(), anyInt(), anyLong())).thenReturn(new Semaphores.Semaphore().setLocked(true));
     projectLock.start();
 
-    verify(semaphores).acquire("batch-my-project-key", 15, 10);
+    verify(semaphores).acquire("batch-my-project-key", 15, 10, 0L);
+  }
+
+  @Test
+  public void shouldWaitForSemaphore() {
+    settings.setProperty(ProjectLock.WAIT_TIMEOUT_PROPERTY, 30);
+    when(semaphores.acquire(anyString(), anyInt(), anyInt(), anyLong())).thenReturn(new Semaphores.Semaphore().setLocked(true));
+    projectLock.start();
+
+    verify(semaphores).acquire("batch-my-project-key", 15, 10, 30000L);
   }
 
   @Test
   public void shouldNotAcquireSemaphoreIfTheProjectIsAlreadyBeenAnalysing() {
-    when(semaphores.acquire(anyString(), anyInt(), anyInt())).thenReturn(new Semaphores.Semaphore().setLocked(false).setDurationSinceLocked(1234L));
+    when(semaphores.acquire(anyString(), anyInt(), anyInt(), anyLong())).thenReturn(new Semaphores.Semaphore().setLocked(false).setDurationSinceLocked(1234L));
     try {
     projectLock.start();
       fail();
@@ -40,15 +40,21 @@ import org.sonar.api.resources.Languages;
 import org.sonar.api.resources.Project;
 import org.sonar.api.resources.Qualifiers;
 import org.sonar.api.resources.Resource;
+import org.sonar.batch.index.ComponentDataCache;
 import org.sonar.batch.index.ResourceKeyMigration;
+import org.sonar.core.source.LineHashes;
+import org.sonar.core.source.SnapshotDataTypes;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.Charset;
 
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.argThat;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 public class ComponentIndexerTest {
@@ -58,6 +64,7 @@ public class ComponentIndexerTest {
   File baseDir;
   DefaultFileSystem fs = new DefaultFileSystem();
   SonarIndex sonarIndex;
+  ComponentDataCache componentDataCache;
   AbstractLanguage cobolLanguage;
   Project project;
   Settings settings;
@@ -69,6 +76,7 @@ public class ComponentIndexerTest {
   public void prepare() throws IOException {
     baseDir = temp.newFolder();
     sonarIndex = mock(SonarIndex.class);
+    componentDataCache = mock(ComponentDataCache.class);
     project = mock(Project.class);
     settings = new Settings();
     cobolLanguage = new AbstractLanguage("cobol") {
@@ -88,7 +96,7 @@ public class ComponentIndexerTest {
     fs.add(newInputFile("src/main/java2/foo/bar/Foo.java", "", "foo/bar/Foo.java", "java", false));
     fs.add(newInputFile("src/test/java/foo/bar/FooTest.java", "", "foo/bar/FooTest.java", "java", true));
     Languages languages = new Languages(Java.INSTANCE);
-    ComponentIndexer indexer = new ComponentIndexer(project, languages, sonarIndex, settings, mock(ResourceKeyMigration.class));
+    ComponentIndexer indexer = new ComponentIndexer(project, languages, sonarIndex, settings, mock(ResourceKeyMigration.class), componentDataCache);
     indexer.execute(fs);
 
     verify(sonarIndex).index(org.sonar.api.resources.File.create("src/main/java/foo/bar/Foo.java", "foo/bar/Foo.java", Java.INSTANCE, false));
@@ -111,7 +119,7 @@ public class ComponentIndexerTest {
     fs.add(newInputFile("src/test/foo/bar/FooTest.cbl", "", "foo/bar/FooTest.cbl", "cobol", true));
 
     Languages languages = new Languages(cobolLanguage);
-    ComponentIndexer indexer = new ComponentIndexer(project, languages, sonarIndex, settings, mock(ResourceKeyMigration.class));
+    ComponentIndexer indexer = new ComponentIndexer(project, languages, sonarIndex, settings, mock(ResourceKeyMigration.class), componentDataCache);
     indexer.execute(fs);
 
     verify(sonarIndex).index(org.sonar.api.resources.File.create("/src/foo/bar/Foo.cbl", "foo/bar/Foo.cbl", cobolLanguage, false));
@@ -125,7 +133,7 @@ public class ComponentIndexerTest {
 
     fs.add(newInputFile("src/main/java/foo/bar/Foo.java", "sample code", "foo/bar/Foo.java", "java", false));
     Languages languages = new Languages(Java.INSTANCE);
-    ComponentIndexer indexer = new ComponentIndexer(project, languages, sonarIndex, settings, mock(ResourceKeyMigration.class));
+    ComponentIndexer indexer = new ComponentIndexer(project, languages, sonarIndex, settings, mock(ResourceKeyMigration.class), componentDataCache);
     indexer.execute(fs);
 
     Resource sonarFile = org.sonar.api.resources.File.create("src/main/java/foo/bar/Foo.java", "foo/bar/Foo.java", Java.INSTANCE, false);
@@ -133,6 +141,21 @@ public class ComponentIndexerTest {
     verify(sonarIndex).setSource(sonarFile, "sample code");
   }
 
+  @Test
+  public void should_store_line_hashes_even_if_sources_are_not_imported() throws IOException {
+    settings.setProperty(CoreProperties.CORE_IMPORT_SOURCES_PROPERTY, "false");
+    project = new Project("struts");
+
+    fs.add(newInputFile("src/main/java/foo/bar/Foo.java", "sample\ncode", "foo/bar/Foo.java", "java", false));
+    Languages languages = new Languages(Java.INSTANCE);
+    ComponentIndexer indexer = new ComponentIndexer(project, languages, sonarIndex, settings, mock(ResourceKeyMigration.class), componentDataCache);
+    indexer.execute(fs);
+
+    verify(componentDataCache).setStringData("struts:src/main/java/foo/bar/Foo.java", SnapshotDataTypes.LINE_HASHES,
+      LineHashes.format(LineHashes.compute("sample\ncode")));
+    verify(sonarIndex, never()).setSource(any(Resource.class), anyString());
+  }
+
   @Test
   public void should_use_mac_roman_charset_for_reading_source_files() throws Exception {
     String encoding = "MacRoman";
@@ -164,7 +187,7 @@ public class ComponentIndexerTest {
       .setPathRelativeToSourceDir("foo/bar/Foo.java")
       .setLanguage("java"));
     Languages languages = new Languages(Java.INSTANCE);
-    ComponentIndexer indexer = new ComponentIndexer(project, languages, sonarIndex, settings, mock(ResourceKeyMigration.class));
+    ComponentIndexer indexer = new ComponentIndexer(project, languages, sonarIndex, settings, mock(ResourceKeyMigration.class), componentDataCache);
     indexer.execute(fs);
 
     Resource sonarFile = org.sonar.api.resources.File.create("src/main/java/foo/bar/Foo.java", "foo/bar/Foo.java", Java.INSTANCE, false);
@@ -189,7 +212,7 @@ public class ComponentIndexerTest {
       .setPathRelativeToSourceDir("foo/bar/Foo.java")
       .setLanguage("java"));
     Languages languages = new Languages(Java.INSTANCE);
-    ComponentIndexer indexer = new ComponentIndexer(project, languages, sonarIndex, settings, mock(ResourceKeyMigration.class));
+    ComponentIndexer indexer = new ComponentIndexer(project, languages, sonarIndex, settings, mock(ResourceKeyMigration.class), componentDataCache);
     indexer.execute(fs);
 
     Resource sonarFile = org.sonar.api.resources.File.create("/src/main/java/foo/bar/Foo.java", "foo/bar/Foo.java", Java.INSTANCE, false);
@@ -24,6 +24,7 @@ import java.util.concurrent.CountDownLatch;
 public abstract class QueueAction implements Runnable {
 
   private CountDownLatch latch;
+  private long enqueuedAt;
 
   public QueueAction(CountDownLatch latch){
     this.latch = latch;
@@ -37,13 +38,35 @@ public abstract class QueueAction implements Runnable {
     this.latch = latch;
   }
 
+  /**
+   * Date, in milliseconds, when the action has been added to the queue. Used to measure the lag of the queue.
+   */
+  public long getEnqueuedAt() {
+    return enqueuedAt;
+  }
+
+  public void setEnqueuedAt(long enqueuedAt) {
+    this.enqueuedAt = enqueuedAt;
+  }
+
   public abstract void doExecute();
 
+  /**
+   * Releases the callers waiting for this action. To be called when the action has been executed
+   * without {@link #run()}, for example when grouped with other actions.
+   */
+  public void done() {
+    if (latch != null) {
+      latch.countDown();
+    }
+  }
+
   @Override
   public void run(){
-    this.doExecute();
-    if(latch != null){
-      latch.countDown();
+    try {
+      this.doExecute();
+    } finally {
+      this.done();
     }
   }
 }
@@ -54,7 +54,7 @@ public class ScanGraph extends BeanGraph implements BatchComponent {
     return wrap(vertex, ComponentVertex.class);
   }
 
-  public ComponentVertex getComponent(String key) {
+  public synchronized ComponentVertex getComponent(String key) {
     Vertex vertex = GraphUtil.single(getUnderlyingGraph().getVertices("key", key));
     return vertex != null ? wrapComponent(vertex) : null;
   }
@@ -68,7 +68,7 @@ public class ScanGraph extends BeanGraph implements BatchComponent {
     return new BeanIterable<ComponentVertex>(this, ComponentVertex.class, componentVertices);
   }
 
-  public ComponentVertex addComponent(Component component) {
+  public synchronized ComponentVertex addComponent(Component component) {
     Vertex vertex = getUnderlyingGraph().addVertex(null);
     getUnderlyingGraph().addEdge(null, componentsRoot, vertex, COMPONENT);
     ComponentVertex wrapper = wrap(vertex, ComponentVertex.class);
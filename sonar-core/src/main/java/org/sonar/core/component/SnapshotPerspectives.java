@@ -19,10 +19,22 @@
  */
 package org.sonar.core.component;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
 import com.google.common.collect.Maps;
 import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+import org.apache.commons.codec.binary.Base64;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.sonar.api.ServerComponent;
 import org.sonar.api.component.Perspective;
+import org.sonar.api.utils.TimeProfiler;
+import org.sonar.core.graph.binary.BinaryGraphReader;
 import org.sonar.core.graph.graphson.GraphsonReader;
 import org.sonar.core.graph.jdbc.GraphDao;
 import org.sonar.core.graph.jdbc.GraphDto;
@@ -32,10 +44,23 @@ import javax.annotation.CheckForNull;
 import java.io.StringReader;
 import java.util.Map;
 
+/**
+ * Loads the perspectives persisted by batch. Decoded graphs are kept in a LRU cache. Entries are keyed by snapshot id
+ * and perspective, so they never have to be invalidated: a new analysis creates new snapshots.
+ * <p/>
+ * A decoded graph of a large project can take several megabytes, so only a few graphs are kept. Hit rate
+ * is displayed on the System Info page through {@link #stats()}.
+ */
 public class SnapshotPerspectives implements ServerComponent {
 
+  private static final Logger LOG = LoggerFactory.getLogger(SnapshotPerspectives.class);
+
+  @VisibleForTesting
+  static final int MAX_SIZE = 20;
+
   private final GraphDao dao;
   private final Map<Class<?>, GraphPerspectiveLoader<?>> loaders = Maps.newHashMap();
+  private final Cache<Key, Optional<SnapshotGraph>> graphs;
 
   public SnapshotPerspectives(GraphDao dao, GraphPerspectiveLoader[] loaders) {
     this.dao = dao;
@@ -43,45 +68,91 @@ public class SnapshotPerspectives implements ServerComponent {
       // TODO check duplications
       this.loaders.put(loader.getPerspectiveClass(), loader);
     }
+    this.graphs = CacheBuilder.newBuilder()
+      .maximumSize(MAX_SIZE)
+      .build(new CacheLoader<Key, Optional<SnapshotGraph>>() {
+        @Override
+        public Optional<SnapshotGraph> load(Key key) {
+          GraphDto graphDto = SnapshotPerspectives.this.dao.selectBySnapshot(key.perspectiveKey, key.snapshotId);
+          return graphDto != null ? Optional.of(read(graphDto)) : Optional.<SnapshotGraph>absent();
+        }
+      });
   }
 
   @CheckForNull
   public <T extends Perspective> T as(Class<T> perspectiveClass, String componentKey) {
-    GraphPerspectiveLoader<T> builder = (GraphPerspectiveLoader<T>) loaders.get(perspectiveClass);
-    if (builder == null) {
-      throw new IllegalStateException();
-    }
-    GraphDto graphDto = dao.selectByComponent(builder.getPerspectiveKey(), componentKey);
-    return doAs(builder, graphDto);
+    GraphPerspectiveLoader<T> builder = loader(perspectiveClass);
+    Long snapshotId = dao.selectSnapshotIdByComponent(builder.getPerspectiveKey(), componentKey);
+    return snapshotId != null ? doAs(builder, snapshotId) : null;
   }
 
   @CheckForNull
   public <T extends Perspective> T as(Class<T> perspectiveClass, long snapshotId) {
+    return doAs(loader(perspectiveClass), snapshotId);
+  }
+
+  public CacheStats stats() {
+    return graphs.stats();
+  }
+
+  private <T extends Perspective> GraphPerspectiveLoader<T> loader(Class<T> perspectiveClass) {
     GraphPerspectiveLoader<T> builder = (GraphPerspectiveLoader<T>) loaders.get(perspectiveClass);
     if (builder == null) {
       throw new IllegalStateException();
     }
-    GraphDto graphDto = dao.selectBySnapshot(builder.getPerspectiveKey(), snapshotId);
-    return doAs(builder, graphDto);
+    return builder;
   }
 
-  private <T extends Perspective> T doAs(GraphPerspectiveLoader<T> loader, GraphDto graphDto) {
+  private <T extends Perspective> T doAs(GraphPerspectiveLoader<T> loader, long snapshotId) {
     T result = null;
-    if (graphDto != null) {
-      SnapshotGraph graph = read(graphDto.getData(), graphDto.getRootVertexId());
-      result = loader.load(graph.wrap(graph.getComponentRoot(), ComponentVertex.class));
+    Optional<SnapshotGraph> graph = graphs.getUnchecked(new Key(loader.getPerspectiveKey(), snapshotId));
+    if (graph.isPresent()) {
+      result = loader.load(graph.get().wrap(graph.get().getComponentRoot(), ComponentVertex.class));
     }
     return result;
   }
 
-  private SnapshotGraph read(String data, String rootVertexId) {
-    StringReader input = new StringReader(data);
+  private static SnapshotGraph read(GraphDto graphDto) {
+    TimeProfiler profiler = new TimeProfiler(LOG).setLevelToDebug().start("Decode " + graphDto.getPerspective() + " of snapshot " + graphDto.getSnapshotId());
     try {
       TinkerGraph graph = new TinkerGraph();
-      new GraphsonReader().read(input, graph);
-      return new SnapshotGraph(graph, rootVertexId);
+      if (GraphDto.FORMAT_BINARY.equals(graphDto.getFormat())) {
+        new BinaryGraphReader().read(Base64.decodeBase64(graphDto.getData()), graph);
+      } else {
+        new GraphsonReader().read(new StringReader(graphDto.getData()), graph);
+      }
+      return new SnapshotGraph(graph, graphDto.getRootVertexId());
     } catch (Exception e) {
       throw new IllegalStateException(e);
+    } finally {
+      profiler.stop();
+    }
+  }
+
+  private static class Key {
+    private final String perspectiveKey;
+    private final long snapshotId;
+
+    Key(String perspectiveKey, long snapshotId) {
+      this.perspectiveKey = perspectiveKey;
+      this.snapshotId = snapshotId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Key key = (Key) o;
+      return snapshotId == key.snapshotId && perspectiveKey.equals(key.perspectiveKey);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(perspectiveKey, snapshotId);
     }
   }
 }
@@ -19,11 +19,21 @@
  */
 package org.sonar.core.dependency;
 
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
 public final class DependencyDto {
   private Long id;
   private Long fromSnapshotId;
+  private Long fromResourceId;
+  private String fromScope;
   private Long toSnapshotId;
+  private Long toResourceId;
+  private String toScope;
   private String usage;
+  private Integer weight;
+  private Long projectSnapshotId;
+  private Long parentDependencyId;
 
   public Long getId() {
     return id;
@@ -60,4 +70,71 @@ public final class DependencyDto {
     this.usage = usage;
     return this;
   }
+
+  public Long getFromResourceId() {
+    return fromResourceId;
+  }
+
+  public DependencyDto setFromResourceId(Long fromResourceId) {
+    this.fromResourceId = fromResourceId;
+    return this;
+  }
+
+  @CheckForNull
+  public String getFromScope() {
+    return fromScope;
+  }
+
+  public DependencyDto setFromScope(@Nullable String fromScope) {
+    this.fromScope = fromScope;
+    return this;
+  }
+
+  public Long getToResourceId() {
+    return toResourceId;
+  }
+
+  public DependencyDto setToResourceId(Long toResourceId) {
+    this.toResourceId = toResourceId;
+    return this;
+  }
+
+  @CheckForNull
+  public String getToScope() {
+    return toScope;
+  }
+
+  public DependencyDto setToScope(@Nullable String toScope) {
+    this.toScope = toScope;
+    return this;
+  }
+
+  @CheckForNull
+  public Integer getWeight() {
+    return weight;
+  }
+
+  public DependencyDto setWeight(@Nullable Integer weight) {
+    this.weight = weight;
+    return this;
+  }
+
+  public Long getProjectSnapshotId() {
+    return projectSnapshotId;
+  }
+
+  public DependencyDto setProjectSnapshotId(Long projectSnapshotId) {
+    this.projectSnapshotId = projectSnapshotId;
+    return this;
+  }
+
+  @CheckForNull
+  public Long getParentDependencyId() {
+    return parentDependencyId;
+  }
+
+  public DependencyDto setParentDependencyId(@Nullable Long parentDependencyId) {
+    this.parentDependencyId = parentDependencyId;
+    return this;
+  }
 }
@@ -21,6 +21,16 @@ package org.sonar.core.dependency;
 
 import org.apache.ibatis.session.ResultHandler;
 
+import java.util.List;
+
 public interface DependencyMapper {
   void selectAll(ResultHandler handler);
+
+  /**
+   * Does not return the generated id, so that it can be executed in batch mode.
+   * Ids are loaded afterwards with {@link #selectByProjectSnapshot(long)}.
+   */
+  void insert(DependencyDto dependency);
+
+  List<DependencyDto> selectByProjectSnapshot(long projectSnapshotId);
 }
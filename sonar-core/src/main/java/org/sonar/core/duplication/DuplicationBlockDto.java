@@ -0,0 +1,103 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.duplication;
+
+/**
+ * Block of a duplication group detected on a file. A group is made of at least two blocks, which can
+ * belong to the file itself or to other files, possibly of other projects.
+ *
+ * @since 4.4
+ */
+public final class DuplicationBlockDto {
+
+  private Long id;
+  private Integer snapshotId;
+  private int groupIndex;
+  private String componentKey;
+  private int startLine;
+  private int endLine;
+
+  public Long getId() {
+    return id;
+  }
+
+  public DuplicationBlockDto setId(Long id) {
+    this.id = id;
+    return this;
+  }
+
+  /**
+   * Snapshot of the file on which the duplication group has been detected
+   */
+  public Integer getSnapshotId() {
+    return snapshotId;
+  }
+
+  public DuplicationBlockDto setSnapshotId(Integer snapshotId) {
+    this.snapshotId = snapshotId;
+    return this;
+  }
+
+  /**
+   * Index of the group among the groups detected on the same file
+   */
+  public int getGroupIndex() {
+    return groupIndex;
+  }
+
+  public DuplicationBlockDto setGroupIndex(int groupIndex) {
+    this.groupIndex = groupIndex;
+    return this;
+  }
+
+  /**
+   * Key of the file containing the block
+   */
+  public String getComponentKey() {
+    return componentKey;
+  }
+
+  public DuplicationBlockDto setComponentKey(String componentKey) {
+    this.componentKey = componentKey;
+    return this;
+  }
+
+  public int getStartLine() {
+    return startLine;
+  }
+
+  public DuplicationBlockDto setStartLine(int startLine) {
+    this.startLine = startLine;
+    return this;
+  }
+
+  public int getEndLine() {
+    return endLine;
+  }
+
+  public DuplicationBlockDto setEndLine(int endLine) {
+    this.endLine = endLine;
+    return this;
+  }
+
+  public int getLines() {
+    return endLine - startLine + 1;
+  }
+}
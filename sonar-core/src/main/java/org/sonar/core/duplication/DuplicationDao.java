@@ -19,6 +19,7 @@
  */
 package org.sonar.core.duplication;
 
+import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.session.SqlSession;
 import org.sonar.api.BatchComponent;
 import org.sonar.api.ServerComponent;
@@ -64,4 +65,67 @@ public class DuplicationDao implements BatchComponent, ServerComponent {
     }
   }
 
+  /**
+   * Insert the blocks of the duplication groups detected on files.
+   *
+   * @since 4.4
+   */
+  public void insertBlocks(Collection<DuplicationBlockDto> blocks) {
+    DbSession session = mybatis.openSession(true);
+    try {
+      DuplicationMapper mapper = session.getMapper(DuplicationMapper.class);
+      for (DuplicationBlockDto block : blocks) {
+        mapper.insertBlock(block);
+      }
+      session.commit();
+
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+  }
+
+  /**
+   * Blocks of the duplication groups detected on a file, ordered by group.
+   *
+   * @since 4.4
+   */
+  public List<DuplicationBlockDto> selectBlocks(int snapshotId) {
+    SqlSession session = mybatis.openSession(false);
+    try {
+      return session.getMapper(DuplicationMapper.class).selectBlocks(snapshotId);
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+  }
+
+  /**
+   * Keys of the files which share at least one duplicated block with the given file, as
+   * detected by the last analysis of their project.
+   *
+   * @since 4.4
+   */
+  public List<String> selectDuplicatingFileKeys(String fileKey) {
+    SqlSession session = mybatis.openSession(false);
+    try {
+      return session.getMapper(DuplicationMapper.class).selectDuplicatingFileKeys(fileKey);
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+  }
+
+  /**
+   * Duplication groups of the last analysis of a project, sorted by decreasing number of duplicated lines.
+   * Note that a group involving several files of the project is returned once per file.
+   *
+   * @since 4.4
+   */
+  public List<DuplicationGroupDto> selectLargestGroups(String projectKey, int limit) {
+    SqlSession session = mybatis.openSession(false);
+    try {
+      return session.getMapper(DuplicationMapper.class).selectLargestGroups(projectKey, new RowBounds(0, limit));
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+  }
+
 }
@@ -0,0 +1,88 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.duplication;
+
+/**
+ * Summary of a duplication group, as returned by {@link DuplicationDao#selectLargestGroups(String, int)}.
+ *
+ * @since 4.4
+ */
+public final class DuplicationGroupDto {
+
+  private Integer snapshotId;
+  private String fileKey;
+  private int groupIndex;
+  private int blocks;
+  private int lines;
+
+  public Integer getSnapshotId() {
+    return snapshotId;
+  }
+
+  public DuplicationGroupDto setSnapshotId(Integer snapshotId) {
+    this.snapshotId = snapshotId;
+    return this;
+  }
+
+  /**
+   * Key of the file on which the group has been detected
+   */
+  public String getFileKey() {
+    return fileKey;
+  }
+
+  public DuplicationGroupDto setFileKey(String fileKey) {
+    this.fileKey = fileKey;
+    return this;
+  }
+
+  public int getGroupIndex() {
+    return groupIndex;
+  }
+
+  public DuplicationGroupDto setGroupIndex(int groupIndex) {
+    this.groupIndex = groupIndex;
+    return this;
+  }
+
+  /**
+   * Number of duplicated blocks
+   */
+  public int getBlocks() {
+    return blocks;
+  }
+
+  public DuplicationGroupDto setBlocks(int blocks) {
+    this.blocks = blocks;
+    return this;
+  }
+
+  /**
+   * Total number of lines of the duplicated blocks
+   */
+  public int getLines() {
+    return lines;
+  }
+
+  public DuplicationGroupDto setLines(int lines) {
+    this.lines = lines;
+    return this;
+  }
+}
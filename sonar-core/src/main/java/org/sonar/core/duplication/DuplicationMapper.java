@@ -20,6 +20,7 @@
 package org.sonar.core.duplication;
 
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.session.RowBounds;
 
 import java.util.List;
 
@@ -32,5 +33,13 @@ public interface DuplicationMapper {
 
   void batchInsert(DuplicationUnitDto unit);
 
+  void insertBlock(DuplicationBlockDto block);
+
+  List<DuplicationBlockDto> selectBlocks(@Param("snapshotId") int snapshotId);
+
+  List<String> selectDuplicatingFileKeys(@Param("componentKey") String componentKey);
+
+  List<DuplicationGroupDto> selectLargestGroups(@Param("projectKey") String projectKey, RowBounds rowBounds);
+
 }
 
@@ -0,0 +1,184 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.graph.binary;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.Vertex;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.InflaterInputStream;
+
+import static org.sonar.core.graph.binary.BinaryGraphTokens.*;
+
+/**
+ * Reads the graphs written by {@link BinaryGraphWriter}
+ *
+ * @since 4.4
+ */
+public class BinaryGraphReader {
+
+  public Graph read(byte[] data, Graph toGraph) {
+    DataInputStream input = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(data)));
+    try {
+      new Decoder(input).readGraph(toGraph);
+      return toGraph;
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to decode graph", e);
+    }
+  }
+
+  private static class Decoder {
+    private final DataInputStream input;
+    private final List<String> strings = Lists.newArrayList();
+
+    Decoder(DataInputStream input) {
+      this.input = input;
+    }
+
+    void readGraph(Graph graph) throws IOException {
+      int version = input.readUnsignedByte();
+      if (version != VERSION) {
+        throw new IllegalStateException("Unsupported version of binary graph: " + version);
+      }
+
+      int vertices = readVarInt();
+      for (int i = 0; i < vertices; i++) {
+        Vertex vertex = graph.addVertex(readString());
+        readProperties(vertex);
+      }
+
+      int edges = readVarInt();
+      for (int i = 0; i < edges; i++) {
+        String id = readString();
+        Vertex out = graph.getVertex(readString());
+        Vertex in = graph.getVertex(readString());
+        readProperties(graph.addEdge(id, out, in, readString()));
+      }
+    }
+
+    private void readProperties(Element element) throws IOException {
+      int size = readVarInt();
+      for (int i = 0; i < size; i++) {
+        String key = readString();
+        element.setProperty(key, readValue());
+      }
+    }
+
+    private Object readValue() throws IOException {
+      int type = input.readUnsignedByte();
+      switch (type) {
+        case TYPE_NULL:
+          return null;
+        case TYPE_FALSE:
+          return Boolean.FALSE;
+        case TYPE_TRUE:
+          return Boolean.TRUE;
+        case TYPE_INTEGER:
+          return (int) unZigZag(readVarLong());
+        case TYPE_LONG:
+          return unZigZag(readVarLong());
+        case TYPE_FLOAT:
+          return input.readFloat();
+        case TYPE_DOUBLE:
+          return input.readDouble();
+        case TYPE_STRING:
+          return readString();
+        case TYPE_LIST:
+          return readList();
+        case TYPE_MAP:
+          return readMap();
+        case TYPE_INTEGER_LIST:
+          return readIntegerList();
+        default:
+          throw new IllegalStateException("Unknown type of property value: " + type);
+      }
+    }
+
+    private List<Object> readList() throws IOException {
+      int size = readVarInt();
+      List<Object> list = Lists.newArrayListWithCapacity(size);
+      for (int i = 0; i < size; i++) {
+        list.add(readValue());
+      }
+      return list;
+    }
+
+    private Map<String, Object> readMap() throws IOException {
+      int size = readVarInt();
+      Map<String, Object> map = Maps.newHashMap();
+      for (int i = 0; i < size; i++) {
+        String key = readString();
+        map.put(key, readValue());
+      }
+      return map;
+    }
+
+    private List<Integer> readIntegerList() throws IOException {
+      int size = readVarInt();
+      List<Integer> list = Lists.newArrayListWithCapacity(size);
+      long previous = 0L;
+      for (int i = 0; i < size; i++) {
+        previous += unZigZag(readVarLong());
+        list.add((int) previous);
+      }
+      return list;
+    }
+
+    private String readString() throws IOException {
+      int ref = readVarInt();
+      if (ref != NEW_STRING) {
+        return strings.get(ref - 1);
+      }
+      byte[] bytes = new byte[readVarInt()];
+      input.readFully(bytes);
+      String s = new String(bytes, Charsets.UTF_8);
+      strings.add(s);
+      return s;
+    }
+
+    private int readVarInt() throws IOException {
+      return (int) readVarLong();
+    }
+
+    private long readVarLong() throws IOException {
+      long result = 0L;
+      int shift = 0;
+      int b;
+      do {
+        b = input.readUnsignedByte();
+        result |= (long) (b & 0x7F) << shift;
+        shift += 7;
+      } while ((b & 0x80) != 0);
+      return result;
+    }
+
+    private static long unZigZag(long l) {
+      return (l >>> 1) ^ -(l & 1);
+    }
+  }
+}
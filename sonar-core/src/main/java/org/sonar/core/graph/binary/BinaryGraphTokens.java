@@ -0,0 +1,43 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.graph.binary;
+
+class BinaryGraphTokens {
+  private BinaryGraphTokens() {
+  }
+
+  static final int VERSION = 1;
+
+  // the string is written inline, other values are references to previously written strings
+  static final int NEW_STRING = 0;
+
+  static final int TYPE_NULL = 0;
+  static final int TYPE_FALSE = 1;
+  static final int TYPE_TRUE = 2;
+  static final int TYPE_INTEGER = 3;
+  static final int TYPE_LONG = 4;
+  static final int TYPE_FLOAT = 5;
+  static final int TYPE_DOUBLE = 6;
+  static final int TYPE_STRING = 7;
+  static final int TYPE_LIST = 8;
+  static final int TYPE_MAP = 9;
+  // list of integers, written as deltas between consecutive values
+  static final int TYPE_INTEGER_LIST = 10;
+}
@@ -0,0 +1,193 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.graph.binary;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.Vertex;
+
+import javax.annotation.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+
+import static org.sonar.core.graph.binary.BinaryGraphTokens.*;
+
+/**
+ * Compact alternative to {@link org.sonar.core.graph.graphson.GraphsonWriter}. Each distinct string (ids, labels,
+ * property keys and values) is written only once, numbers are variable-length and lists of integers, like
+ * covered lines, are delta-encoded. The whole content is deflated.
+ *
+ * @since 4.4
+ */
+public class BinaryGraphWriter {
+
+  public byte[] write(Graph graph) {
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream output = new DataOutputStream(new DeflaterOutputStream(bytes));
+      new Encoder(output).writeGraph(graph);
+      output.close();
+      return bytes.toByteArray();
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to encode graph", e);
+    }
+  }
+
+  private static class Encoder {
+    private final DataOutputStream output;
+    private final Map<String, Integer> stringRefs = Maps.newHashMap();
+
+    Encoder(DataOutputStream output) {
+      this.output = output;
+    }
+
+    void writeGraph(Graph graph) throws IOException {
+      output.writeByte(VERSION);
+
+      List<Vertex> vertices = Lists.newArrayList(graph.getVertices());
+      writeVarInt(vertices.size());
+      for (Vertex vertex : vertices) {
+        writeString(vertex.getId().toString());
+        writeProperties(vertex);
+      }
+
+      List<Edge> edges = Lists.newArrayList(graph.getEdges());
+      writeVarInt(edges.size());
+      for (Edge edge : edges) {
+        writeString(edge.getId().toString());
+        writeString(edge.getVertex(Direction.OUT).getId().toString());
+        writeString(edge.getVertex(Direction.IN).getId().toString());
+        writeString(edge.getLabel());
+        writeProperties(edge);
+      }
+    }
+
+    private void writeProperties(Element element) throws IOException {
+      writeVarInt(element.getPropertyKeys().size());
+      for (String key : element.getPropertyKeys()) {
+        writeString(key);
+        writeValue(element.getProperty(key));
+      }
+    }
+
+    private void writeValue(@Nullable Object value) throws IOException {
+      if (value == null) {
+        output.writeByte(TYPE_NULL);
+      } else if (value instanceof Boolean) {
+        output.writeByte((Boolean) value ? TYPE_TRUE : TYPE_FALSE);
+      } else if (value instanceof Integer) {
+        output.writeByte(TYPE_INTEGER);
+        writeVarLong(zigZag((Integer) value));
+      } else if (value instanceof Long) {
+        output.writeByte(TYPE_LONG);
+        writeVarLong(zigZag((Long) value));
+      } else if (value instanceof Float) {
+        output.writeByte(TYPE_FLOAT);
+        output.writeFloat((Float) value);
+      } else if (value instanceof Double) {
+        output.writeByte(TYPE_DOUBLE);
+        output.writeDouble((Double) value);
+      } else if (value instanceof String) {
+        output.writeByte(TYPE_STRING);
+        writeString((String) value);
+      } else if (value instanceof List) {
+        writeList((List<?>) value);
+      } else if (value instanceof Map) {
+        Map<?, ?> map = (Map<?, ?>) value;
+        output.writeByte(TYPE_MAP);
+        writeVarInt(map.size());
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+          writeString(entry.getKey().toString());
+          writeValue(entry.getValue());
+        }
+      } else {
+        throw new IllegalArgumentException("Unsupported type of property value: " + value.getClass());
+      }
+    }
+
+    private void writeList(List<?> list) throws IOException {
+      if (isIntegerList(list)) {
+        output.writeByte(TYPE_INTEGER_LIST);
+        writeVarInt(list.size());
+        long previous = 0L;
+        for (Object item : list) {
+          int current = (Integer) item;
+          writeVarLong(zigZag(current - previous));
+          previous = current;
+        }
+      } else {
+        output.writeByte(TYPE_LIST);
+        writeVarInt(list.size());
+        for (Object item : list) {
+          writeValue(item);
+        }
+      }
+    }
+
+    private static boolean isIntegerList(List<?> list) {
+      for (Object item : list) {
+        if (!(item instanceof Integer)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private void writeString(String s) throws IOException {
+      Integer ref = stringRefs.get(s);
+      if (ref != null) {
+        writeVarInt(ref);
+      } else {
+        writeVarInt(NEW_STRING);
+        byte[] bytes = s.getBytes(Charsets.UTF_8);
+        writeVarInt(bytes.length);
+        output.write(bytes);
+        stringRefs.put(s, stringRefs.size() + 1);
+      }
+    }
+
+    private void writeVarInt(int i) throws IOException {
+      writeVarLong(i);
+    }
+
+    private void writeVarLong(long l) throws IOException {
+      long value = l;
+      while ((value & ~0x7FL) != 0L) {
+        output.writeByte((int) ((value & 0x7F) | 0x80));
+        value >>>= 7;
+      }
+      output.writeByte((int) value);
+    }
+
+    private static long zigZag(long l) {
+      return (l << 1) ^ (l >> 63);
+    }
+  }
+}
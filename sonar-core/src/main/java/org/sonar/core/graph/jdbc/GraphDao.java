@@ -22,6 +22,8 @@ package org.sonar.core.graph.jdbc;
 import org.sonar.core.persistence.DbSession;
 import org.sonar.core.persistence.MyBatis;
 
+import javax.annotation.CheckForNull;
+
 public class GraphDao {
   private final MyBatis mybatis;
 
@@ -50,4 +52,21 @@ public class GraphDao {
       MyBatis.closeQuietly(session);
     }
   }
+
+  /**
+   * Id of the last snapshot of the given component, if it has the given perspective
+   *
+   * @since 4.4
+   */
+  @CheckForNull
+  public Long selectSnapshotIdByComponent(String perspectiveKey, String componentKey) {
+    DbSession session = mybatis.openSession(false);
+    try {
+      GraphDtoMapper mapper = session.getMapper(GraphDtoMapper.class);
+      return mapper.selectSnapshotIdByComponent(perspectiveKey, componentKey);
+
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+  }
 }
@@ -20,6 +20,16 @@
 package org.sonar.core.graph.jdbc;
 
 public class GraphDto {
+
+  public static final String FORMAT_GRAPHSON = "graphson";
+
+  /**
+   * Base64 of the bytes written by {@link org.sonar.core.graph.binary.BinaryGraphWriter}
+   *
+   * @since 4.4
+   */
+  public static final String FORMAT_BINARY = "binary";
+
   private long id;
   private long resourceId;
   private long snapshotId;
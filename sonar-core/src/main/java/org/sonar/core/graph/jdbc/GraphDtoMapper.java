@@ -21,10 +21,15 @@ package org.sonar.core.graph.jdbc;
 
 import org.apache.ibatis.annotations.Param;
 
+import javax.annotation.CheckForNull;
+
 public interface GraphDtoMapper {
   void insert(GraphDto graph);
 
   GraphDto selectBySnapshot(@Param("perspective") String perspectiveKey, @Param("sid") long snapshotId);
 
   GraphDto selectByComponent(@Param("perspective") String perspectiveKey, @Param("key") String componentKey);
+
+  @CheckForNull
+  Long selectSnapshotIdByComponent(@Param("perspective") String perspectiveKey, @Param("key") String componentKey);
 }
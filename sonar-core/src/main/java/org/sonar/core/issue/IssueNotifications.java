@@ -38,6 +38,7 @@ import org.sonar.api.utils.DateUtils;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import java.io.Serializable;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -74,6 +75,25 @@ public class IssueNotifications implements BatchComponent, ServerComponent {
     return sendChanges(issues, context, queryResult.project(issue), queryResult.component(issue));
   }
 
+  /**
+   * Notifies the changes of issues loaded by the same query. The notifications are scheduled at once.
+   *
+   * @since 4.4
+   */
+  public List<Notification> sendChanges(Collection<DefaultIssue> issues, IssueChangeContext context, IssueQueryResult queryResult) {
+    List<Notification> notifications = Lists.newArrayList();
+    for (DefaultIssue issue : issues) {
+      Notification notification = createChangeNotification(issue, context, queryResult.rule(issue), queryResult.project(issue), queryResult.component(issue), null);
+      if (notification != null) {
+        notifications.add(notification);
+      }
+    }
+    if (!notifications.isEmpty()) {
+      notificationsManager.scheduleForSending(notifications);
+    }
+    return notifications;
+  }
+
   @CheckForNull
   public List<Notification> sendChanges(Map<DefaultIssue, Rule> issues, IssueChangeContext context, Component project, @Nullable Component component) {
     List<Notification> notifications = Lists.newArrayList();
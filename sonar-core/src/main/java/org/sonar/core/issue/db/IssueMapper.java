@@ -25,6 +25,7 @@ import org.sonar.api.issue.IssueQuery;
 import javax.annotation.Nullable;
 
 import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
 public interface IssueMapper {
@@ -52,4 +53,9 @@ public interface IssueMapper {
   int update(IssueDto issue);
 
   int updateIfBeforeSelectedDate(IssueDto issue);
+
+  /**
+   * Keys, among the given ones, of the issues whose update date is the given date
+   */
+  List<String> selectKeysUpdatedAt(@Param("keys") Collection<String> keys, @Param("updatedAt") Date updatedAt);
 }
@@ -19,8 +19,13 @@
  */
 package org.sonar.core.issue.db;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
-import org.apache.ibatis.session.SqlSession;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.apache.ibatis.executor.BatchResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.sonar.api.issue.Issue;
 import org.sonar.api.issue.IssueComment;
 import org.sonar.api.issue.internal.DefaultIssue;
@@ -32,9 +37,12 @@ import org.sonar.core.persistence.BatchSession;
 import org.sonar.core.persistence.DbSession;
 import org.sonar.core.persistence.MyBatis;
 
+import java.sql.Statement;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Save issues into database. It is executed :
@@ -47,6 +55,8 @@ import java.util.List;
  */
 public abstract class IssueStorage {
 
+  private static final Logger LOG = LoggerFactory.getLogger(IssueStorage.class);
+
   private final MyBatis mybatis;
   private final RuleFinder ruleFinder;
   private final UpdateConflictResolver conflictResolver = new UpdateConflictResolver();
@@ -60,16 +70,29 @@ public abstract class IssueStorage {
     save(Arrays.asList(issue));
   }
 
-  public void save(Iterable<DefaultIssue> issues) {
-    // Batch session can not be used for updates. It does not return the number of updated rows,
-    // required for detecting conflicts.
+  /**
+   * @return the number of inserted or updated issues
+   */
+  public int save(Iterable<DefaultIssue> issues) {
+    long start = System.currentTimeMillis();
     Date now = new Date();
-    List<DefaultIssue> toBeUpdated = batchInsert(issues, now);
-    update(toBeUpdated, now);
+    List<DefaultIssue> toBeUpdated = Lists.newArrayList();
+    int inserted = batchInsert(issues, toBeUpdated, now);
+    int conflicts = update(toBeUpdated, now);
+    int total = inserted + toBeUpdated.size();
+    if (LOG.isDebugEnabled()) {
+      long duration = System.currentTimeMillis() - start;
+      LOG.debug(String.format("%d issues inserted, %d updated (%d conflicts) in %d ms (%d issues/s)",
+        inserted, toBeUpdated.size(), conflicts, duration, duration > 0 ? (total * 1000L / duration) : total));
+    }
+    return total;
   }
 
-  private List<DefaultIssue> batchInsert(Iterable<DefaultIssue> issues, Date now) {
-    List<DefaultIssue> toBeUpdated = Lists.newArrayList();
+  /**
+   * Inserts the new issues and collects the changed ones into <code>toBeUpdated</code>.
+   * Statements are flushed by the batch session every {@link BatchSession#MAX_BATCH_SIZE} rows.
+   */
+  private int batchInsert(Iterable<DefaultIssue> issues, List<DefaultIssue> toBeUpdated, Date now) {
     DbSession batchSession = mybatis.openSession(true);
     int count = 0;
     IssueMapper issueMapper = batchSession.getMapper(IssueMapper.class);
@@ -79,9 +102,6 @@ public abstract class IssueStorage {
         if (issue.isNew()) {
           insert(issueMapper, now, issue);
           insertChanges(issueChangeMapper, issue);
-          if (count > BatchSession.MAX_BATCH_SIZE) {
-            batchSession.commit();
-          }
           count++;
         } else if (issue.isChanged()) {
           toBeUpdated.add(issue);
@@ -91,7 +111,7 @@ public abstract class IssueStorage {
     } finally {
       MyBatis.closeQuietly(batchSession);
     }
-    return toBeUpdated;
+    return count;
   }
 
   private void insert(IssueMapper issueMapper, Date now, DefaultIssue issue) {
@@ -102,37 +122,93 @@ public abstract class IssueStorage {
     issueMapper.insert(dto);
   }
 
-  private void update(List<DefaultIssue> toBeUpdated, Date now) {
-    if (!toBeUpdated.isEmpty()) {
-      SqlSession session = mybatis.openSession(false);
-      try {
-        IssueMapper issueMapper = session.getMapper(IssueMapper.class);
-        IssueChangeMapper issueChangeMapper = session.getMapper(IssueChangeMapper.class);
-        for (DefaultIssue issue : toBeUpdated) {
-          update(issueMapper, now, issue);
-          insertChanges(issueChangeMapper, issue);
+  /**
+   * Updates are executed in JDBC batches. Each batch is flushed before reaching the auto-commit threshold of
+   * the batch session, so that the update counts of <code>updateIfBeforeSelectedDate</code> can be read
+   * in order to detect conflicts. When the driver does not report the update counts, the issues of the batch
+   * are verified with a single select. Only the conflicting issues are then resolved row by row.
+   *
+   * @return the number of conflicts
+   */
+  private int update(List<DefaultIssue> toBeUpdated, Date now) {
+    if (toBeUpdated.isEmpty()) {
+      return 0;
+    }
+    List<DefaultIssue> conflicts = Lists.newArrayList();
+    DbSession session = mybatis.openSession(true);
+    try {
+      IssueMapper issueMapper = session.getMapper(IssueMapper.class);
+      IssueChangeMapper issueChangeMapper = session.getMapper(IssueChangeMapper.class);
+      for (List<DefaultIssue> partition : Lists.partition(toBeUpdated, BatchSession.MAX_BATCH_SIZE - 1)) {
+        Map<String, DefaultIssue> conditionalUpdates = Maps.newHashMap();
+        for (DefaultIssue issue : partition) {
+          if (update(issueMapper, now, issue)) {
+            conditionalUpdates.put(issue.key(), issue);
+          }
         }
-        session.commit();
-      } finally {
-        MyBatis.closeQuietly(session);
+        List<String> unknownKeys = Lists.newArrayList();
+        conflicts.addAll(conflicts(session.flushStatements(), conditionalUpdates, unknownKeys));
+        if (!unknownKeys.isEmpty()) {
+          Set<String> updatedKeys = Sets.newHashSet(issueMapper.selectKeysUpdatedAt(unknownKeys, now));
+          for (String key : unknownKeys) {
+            if (!updatedKeys.contains(key)) {
+              conflicts.add(conditionalUpdates.get(key));
+            }
+          }
+        }
+      }
+      for (DefaultIssue issue : conflicts) {
+        // End-user and scan changed the issue at the same time.
+        // See https://jira.codehaus.org/browse/SONAR-4309
+        conflictResolver.resolve(issue, issueMapper);
       }
+      for (DefaultIssue issue : toBeUpdated) {
+        insertChanges(issueChangeMapper, issue);
+      }
+      session.commit();
+    } finally {
+      MyBatis.closeQuietly(session);
     }
+    return conflicts.size();
   }
 
-  private void update(IssueMapper issueMapper, Date now, DefaultIssue issue) {
+  /**
+   * @return true if the update must be verified for conflicts
+   */
+  private boolean update(IssueMapper issueMapper, Date now, DefaultIssue issue) {
     IssueDto dto = IssueDto.toDtoForUpdate(issue, projectId(issue), now);
     if (Issue.STATUS_CLOSED.equals(issue.status()) || issue.selectedAt() == null) {
       // Issue is closed by scan or changed by end-user
       issueMapper.update(dto);
+      return false;
+    }
+    issueMapper.updateIfBeforeSelectedDate(dto);
+    return true;
+  }
 
-    } else {
-      int count = issueMapper.updateIfBeforeSelectedDate(dto);
-      if (count == 0) {
-        // End-user and scan changed the issue at the same time.
-        // See https://jira.codehaus.org/browse/SONAR-4309
-        conflictResolver.resolve(issue, issueMapper);
+  /**
+   * Issues whose conditional update was not applied. Some drivers, like Oracle, return {@link Statement#SUCCESS_NO_INFO}
+   * for the statements of a batch. The keys of these issues are added to <code>unknownKeys</code> so that the caller
+   * can check in database whether the update was applied.
+   */
+  @VisibleForTesting
+  static List<DefaultIssue> conflicts(List<BatchResult> results, Map<String, DefaultIssue> conditionalUpdates, List<String> unknownKeys) {
+    List<DefaultIssue> conflicts = Lists.newArrayList();
+    for (BatchResult result : results) {
+      if (result.getMappedStatement().getId().endsWith(".updateIfBeforeSelectedDate")) {
+        int[] counts = result.getUpdateCounts();
+        List<Object> dtos = result.getParameterObjects();
+        for (int i = 0; i < counts.length; i++) {
+          String key = ((IssueDto) dtos.get(i)).getKee();
+          if (counts[i] == 0) {
+            conflicts.add(conditionalUpdates.get(key));
+          } else if (counts[i] == Statement.SUCCESS_NO_INFO) {
+            unknownKeys.add(key);
+          }
+        }
       }
     }
+    return conflicts;
   }
 
   private void insertChanges(IssueChangeMapper mapper, DefaultIssue issue) {
@@ -34,14 +34,21 @@ import java.util.List;
 
 public class MeasureFilterExecutor implements ServerComponent {
 
+  /**
+   * Logged instead of the SQL request when the filter is executed by {@link MeasureFilterIndex}
+   */
+  static final String IN_MEMORY_INDEX = "<in-memory index>";
+
   private MyBatis mybatis;
   private Database database;
   private ResourceDao resourceDao;
+  private MeasureFilterIndex index;
 
-  public MeasureFilterExecutor(MyBatis mybatis, Database database, ResourceDao resourceDao) {
+  public MeasureFilterExecutor(MyBatis mybatis, Database database, ResourceDao resourceDao, MeasureFilterIndex index) {
     this.mybatis = mybatis;
     this.database = database;
     this.resourceDao = resourceDao;
+    this.index = index;
   }
 
   public List<MeasureFilterRow> execute(MeasureFilter filter, MeasureFilterContext context) throws SQLException {
@@ -56,13 +63,16 @@ public class MeasureFilterExecutor implements ServerComponent {
       session = mybatis.openSession(false);
       prepareContext(context, filter, session);
 
-      if (isValid(filter, context)) {
+      if (!isValid(filter, context)) {
+        rows = Collections.emptyList();
+      } else if (MeasureFilterIndex.supports(filter, context)) {
+        context.setSql(IN_MEMORY_INDEX);
+        rows = index.execute(filter);
+      } else {
         MeasureFilterSql sql = new MeasureFilterSql(database, filter, context);
         context.setSql(sql.sql());
         connection = session.getConnection();
         rows = sql.execute(connection);
-      } else {
-        rows = Collections.emptyList();
       }
     } finally {
       MyBatis.closeQuietly(session);
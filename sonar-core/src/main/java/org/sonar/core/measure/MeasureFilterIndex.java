@@ -0,0 +1,495 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.measure;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.time.DateUtils;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.SqlSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.picocontainer.Startable;
+import org.sonar.api.ServerComponent;
+import org.sonar.api.resources.Qualifiers;
+import org.sonar.api.utils.System2;
+import org.sonar.core.measure.db.IndexedComponentDto;
+import org.sonar.core.measure.db.IndexedMeasureDto;
+import org.sonar.core.measure.db.MeasureFilterIndexMapper;
+import org.sonar.core.persistence.MyBatis;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * In-memory index of the last snapshots of top-level components (projects and views) and of their measures. It answers
+ * the measure filters on these components, for example the list of all projects, without requesting the database.
+ * Measures are stored in primitive arrays sorted by metric id.
+ * <p/>
+ * The index is loaded on first use and is entirely reloaded every hour in background, the previous index being
+ * used until the new one is loaded. The component of a project is refreshed with {@link #refresh(long)} when its
+ * analysis is completed, and removed with {@link #remove(long)} when it is deleted. {@link #supports(MeasureFilter, MeasureFilterContext)}
+ * returns false for the filters that must be executed in SQL, for example on variations or on favourites.
+ *
+ * @since 4.4
+ */
+public class MeasureFilterIndex implements ServerComponent, Startable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MeasureFilterIndex.class);
+
+  @VisibleForTesting
+  static final long MAX_AGE_MS = 60L * 60 * 1000;
+
+  private static final Set<String> INDEXED_QUALIFIERS = ImmutableSet.of(Qualifiers.PROJECT, Qualifiers.VIEW);
+
+  private final MyBatis mybatis;
+  private final System2 system;
+  private final ExecutorService reloadExecutor;
+  private final AtomicBoolean reloading = new AtomicBoolean(false);
+
+  // components by resource id. Null when not loaded.
+  private volatile ConcurrentNavigableMap<Long, Component> components = null;
+  private volatile long loadedAt = 0L;
+  // projects refreshed or removed while the index is reloaded. Guarded by this.
+  private final Set<Long> changedProjectIds = Sets.newHashSet();
+
+  public MeasureFilterIndex(MyBatis mybatis, System2 system) {
+    this(mybatis, system, Executors.newSingleThreadExecutor(new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread thread = new Thread(r, "Measure filter index reload");
+        thread.setDaemon(true);
+        return thread;
+      }
+    }));
+  }
+
+  @VisibleForTesting
+  MeasureFilterIndex(MyBatis mybatis, System2 system, ExecutorService reloadExecutor) {
+    this.mybatis = mybatis;
+    this.system = system;
+    this.reloadExecutor = reloadExecutor;
+  }
+
+  @Override
+  public void start() {
+    // nothing to do
+  }
+
+  @Override
+  public void stop() {
+    reloadExecutor.shutdownNow();
+  }
+
+  static boolean supports(MeasureFilter filter, MeasureFilterContext context) {
+    if (filter.getBaseResourceKey() != null || context.getBaseSnapshot() != null || filter.isOnFavourites()
+      || StringUtils.isNotBlank(filter.getResourceName())) {
+      return false;
+    }
+    List<String> qualifiers = filter.getResourceQualifiers();
+    if (qualifiers.isEmpty() || !INDEXED_QUALIFIERS.containsAll(qualifiers)) {
+      return false;
+    }
+    for (MeasureFilterCondition condition : filter.getMeasureConditions()) {
+      if (condition.period() != null) {
+        return false;
+      }
+      if (condition.textValue() != null && (condition.operator() != MeasureFilterCondition.Operator.IN || parseInValues(condition.textValue()) == null)) {
+        return false;
+      }
+    }
+    return !(filter.sort().onMeasures() && filter.sort().period() != null);
+  }
+
+  /**
+   * Executes a filter accepted by {@link #supports(MeasureFilter, MeasureFilterContext)}
+   */
+  List<MeasureFilterRow> execute(MeasureFilter filter) {
+    Matcher matcher = new Matcher(filter);
+    List<MeasureFilterRow> rows = Lists.newArrayList();
+    for (Component component : components()) {
+      if (matcher.matches(component)) {
+        rows.add(component.toRow(filter.sort()));
+      }
+    }
+    return MeasureFilterSql.newRowProcessor(filter.sort()).sort(rows, filter.sort().isAsc());
+  }
+
+  /**
+   * Reloads the last snapshot of the given project, for example when its analysis is completed. Does nothing
+   * if the index is not loaded yet.
+   */
+  public synchronized void refresh(long projectId) {
+    if (components == null) {
+      return;
+    }
+    try {
+      Map<Long, Component> loaded = load(projectId);
+      components.remove(projectId);
+      components.putAll(loaded);
+      changedProjectIds.add(projectId);
+    } catch (RuntimeException e) {
+      LOG.warn("Fail to refresh the measure filter index of project " + projectId + ". Index will be reloaded.", e);
+      components = null;
+    }
+  }
+
+  /**
+   * Removes a project, for example when it is deleted. Does nothing if the index is not loaded yet.
+   */
+  public synchronized void remove(long projectId) {
+    if (components != null) {
+      components.remove(projectId);
+      changedProjectIds.add(projectId);
+    }
+  }
+
+  @VisibleForTesting
+  int size() {
+    ConcurrentNavigableMap<Long, Component> current = components;
+    return current == null ? 0 : current.size();
+  }
+
+  private Collection<Component> components() {
+    ConcurrentNavigableMap<Long, Component> current = components;
+    if (current == null) {
+      current = loadIfNeeded();
+    } else if (system.now() - loadedAt > MAX_AGE_MS) {
+      scheduleReload();
+    }
+    return current.values();
+  }
+
+  /**
+   * First load, executed by the calling thread as there is no previous index to use
+   */
+  private synchronized ConcurrentNavigableMap<Long, Component> loadIfNeeded() {
+    // another thread may have loaded the index in the meantime
+    if (components == null) {
+      reload();
+    }
+    return components;
+  }
+
+  private void scheduleReload() {
+    if (reloading.compareAndSet(false, true)) {
+      try {
+        reloadExecutor.execute(new Runnable() {
+          @Override
+          public void run() {
+            try {
+              reload();
+            } catch (RuntimeException e) {
+              LOG.warn("Fail to reload the measure filter index. Previous index is kept.", e);
+            } finally {
+              reloading.set(false);
+            }
+          }
+        });
+      } catch (RejectedExecutionException e) {
+        // server is stopping
+        reloading.set(false);
+      }
+    }
+  }
+
+  /**
+   * The components are loaded without lock, so that the index can be refreshed in the meantime. The projects refreshed
+   * or removed during the load are then copied from the previous index.
+   */
+  private void reload() {
+    synchronized (this) {
+      changedProjectIds.clear();
+    }
+    long start = system.now();
+    ConcurrentNavigableMap<Long, Component> reloaded = new ConcurrentSkipListMap<Long, Component>(load(null));
+    synchronized (this) {
+      ConcurrentNavigableMap<Long, Component> previous = components;
+      if (previous != null) {
+        for (Long projectId : changedProjectIds) {
+          Component component = previous.get(projectId);
+          if (component == null) {
+            reloaded.remove(projectId);
+          } else {
+            reloaded.put(projectId, component);
+          }
+        }
+      }
+      changedProjectIds.clear();
+      components = reloaded;
+      loadedAt = system.now();
+    }
+    LOG.debug(String.format("Measure filter index loaded in %d ms (%d components)", loadedAt - start, reloaded.size()));
+  }
+
+  private Map<Long, Component> load(@Nullable Long projectId) {
+    SqlSession session = mybatis.openSession(false);
+    try {
+      final Map<Long, ComponentBuilder> buildersBySnapshotId = Maps.newHashMap();
+      for (IndexedComponentDto dto : session.getMapper(MeasureFilterIndexMapper.class).selectComponents(projectId)) {
+        buildersBySnapshotId.put(dto.getSnapshotId(), new ComponentBuilder(dto));
+      }
+      Map<String, Object> params = Maps.newHashMap();
+      params.put("projectId", projectId);
+      session.select("org.sonar.core.measure.db.MeasureFilterIndexMapper.selectMeasures", params, new ResultHandler() {
+        @Override
+        public void handleResult(ResultContext context) {
+          IndexedMeasureDto dto = (IndexedMeasureDto) context.getResultObject();
+          ComponentBuilder builder = buildersBySnapshotId.get(dto.getSnapshotId());
+          if (builder != null) {
+            builder.measures.add(dto);
+          }
+        }
+      });
+
+      Map<Long, Component> result = Maps.newHashMap();
+      for (ComponentBuilder builder : buildersBySnapshotId.values()) {
+        Component component = builder.build();
+        result.put(component.dto.getResourceId(), component);
+      }
+      return result;
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+  }
+
+  /**
+   * Parses the SQL list of values given to the operator IN, for example <code>('OK', 'WARN')</code>
+   */
+  @CheckForNull
+  @VisibleForTesting
+  static Set<String> parseInValues(String sqlList) {
+    String list = sqlList.trim();
+    if (!list.startsWith("(") || !list.endsWith(")")) {
+      return null;
+    }
+    Set<String> values = Sets.newHashSet();
+    for (String token : StringUtils.split(list.substring(1, list.length() - 1), ',')) {
+      String value = token.trim();
+      if (value.length() < 2 || !value.startsWith("'") || !value.endsWith("'") || value.substring(1, value.length() - 1).contains("'")) {
+        return null;
+      }
+      values.add(value.substring(1, value.length() - 1));
+    }
+    return values;
+  }
+
+  private static class Matcher {
+    private final MeasureFilter filter;
+    private final String upperKey;
+    private final Date fromDate;
+    private final Date toDate;
+    private final List<Set<String>> inValues = Lists.newArrayList();
+
+    Matcher(MeasureFilter filter) {
+      this.filter = filter;
+      this.upperKey = StringUtils.isNotBlank(filter.getResourceKey()) ? StringUtils.upperCase(filter.getResourceKey()) : null;
+      // dates are given to SQL requests as java.sql.Date, so the time is ignored
+      this.fromDate = filter.getFromDate() != null ? DateUtils.truncate(filter.getFromDate(), Calendar.DATE) : null;
+      this.toDate = filter.getToDate() != null ? DateUtils.truncate(filter.getToDate(), Calendar.DATE) : null;
+      for (MeasureFilterCondition condition : filter.getMeasureConditions()) {
+        inValues.add(condition.textValue() != null ? parseInValues(condition.textValue()) : null);
+      }
+    }
+
+    boolean matches(Component component) {
+      IndexedComponentDto dto = component.dto;
+      if (!filter.getResourceQualifiers().contains(dto.getQualifier())
+        || (!filter.getResourceScopes().isEmpty() && !filter.getResourceScopes().contains(dto.getScope()))) {
+        return false;
+      }
+      if ((fromDate != null && dto.getSnapshotDate().before(fromDate)) || (toDate != null && dto.getSnapshotDate().after(toDate))) {
+        return false;
+      }
+      if (upperKey != null && !StringUtils.upperCase(dto.getKee()).contains(upperKey)) {
+        return false;
+      }
+      for (int i = 0; i < filter.getMeasureConditions().size(); i++) {
+        if (!matches(component, filter.getMeasureConditions().get(i), inValues.get(i))) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private static boolean matches(Component component, MeasureFilterCondition condition, @Nullable Set<String> inValues) {
+      int index = component.indexOf(condition.metric().getId());
+      if (index < 0) {
+        return false;
+      }
+      if (inValues != null) {
+        String text = component.textValue(index);
+        return text != null && inValues.contains(text);
+      }
+      double value = component.values[index];
+      if (Double.isNaN(value)) {
+        return false;
+      }
+      int compare = Double.compare(value, condition.value());
+      switch (condition.operator()) {
+        case EQUALS:
+          return compare == 0;
+        case GREATER:
+          return compare > 0;
+        case GREATER_OR_EQUALS:
+          return compare >= 0;
+        case LESS:
+          return compare < 0;
+        case LESS_OR_EQUALS:
+          return compare <= 0;
+        default:
+          return false;
+      }
+    }
+  }
+
+  private static class ComponentBuilder {
+    private final IndexedComponentDto dto;
+    private final List<IndexedMeasureDto> measures = Lists.newArrayList();
+
+    ComponentBuilder(IndexedComponentDto dto) {
+      this.dto = dto;
+    }
+
+    Component build() {
+      Collections.sort(measures, new Comparator<IndexedMeasureDto>() {
+        @Override
+        public int compare(IndexedMeasureDto m1, IndexedMeasureDto m2) {
+          return m1.getMetricId() < m2.getMetricId() ? -1 : (m1.getMetricId() == m2.getMetricId() ? 0 : 1);
+        }
+      });
+      int[] metricIds = new int[measures.size()];
+      double[] values = new double[measures.size()];
+      String[] textValues = null;
+      for (int i = 0; i < measures.size(); i++) {
+        IndexedMeasureDto measure = measures.get(i);
+        metricIds[i] = measure.getMetricId();
+        values[i] = measure.getValue() != null ? measure.getValue() : Double.NaN;
+        if (measure.getTextValue() != null) {
+          if (textValues == null) {
+            textValues = new String[measures.size()];
+          }
+          textValues[i] = measure.getTextValue();
+        }
+      }
+      return new Component(dto, metricIds, values, textValues);
+    }
+  }
+
+  private static class Component {
+    private final IndexedComponentDto dto;
+    private final int[] metricIds;
+    // NaN if null
+    private final double[] values;
+    // null if no text values
+    private final String[] textValues;
+
+    Component(IndexedComponentDto dto, int[] metricIds, double[] values, @Nullable String[] textValues) {
+      this.dto = dto;
+      this.metricIds = metricIds;
+      this.values = values;
+      this.textValues = textValues;
+    }
+
+    int indexOf(int metricId) {
+      return Arrays.binarySearch(metricIds, metricId);
+    }
+
+    @CheckForNull
+    String textValue(int index) {
+      return textValues != null ? textValues[index] : null;
+    }
+
+    MeasureFilterRow toRow(MeasureFilterSort sort) {
+      MeasureFilterRow row = new MeasureFilterRow(dto.getSnapshotId(), dto.getResourceId(), dto.getRootProjectId());
+      switch (sort.field()) {
+        case KEY:
+          row.setSortText(dto.getKee());
+          break;
+        case NAME:
+          row.setSortText(dto.getLongName());
+          break;
+        case SHORT_NAME:
+          row.setSortText(dto.getName());
+          break;
+        case DESCRIPTION:
+          row.setSortText(dto.getDescription());
+          break;
+        case VERSION:
+          row.setSortText(dto.getVersion());
+          break;
+        case LANGUAGE:
+          row.setSortText(dto.getLanguage());
+          break;
+        case DATE:
+          row.setSortDate(toTimestamp(dto.getSnapshotDate()));
+          break;
+        case PROJECT_CREATION_DATE:
+          row.setSortDate(toTimestamp(dto.getCreatedAt()));
+          break;
+        case METRIC:
+          setSortMeasure(row, sort);
+          break;
+        default:
+          throw new IllegalArgumentException("Unsupported sorting: " + sort.field());
+      }
+      return row;
+    }
+
+    private void setSortMeasure(MeasureFilterRow row, MeasureFilterSort sort) {
+      int index = indexOf(sort.metric().getId());
+      if (sort.isOnNumericMeasure()) {
+        if (index >= 0 && !Double.isNaN(values[index])) {
+          row.setSortDouble(values[index]);
+        }
+      } else {
+        row.setSortText(index >= 0 ? textValue(index) : null);
+      }
+    }
+
+    @CheckForNull
+    private static Timestamp toTimestamp(@Nullable Date date) {
+      return date != null ? new Timestamp(date.getTime()) : null;
+    }
+  }
+}
@@ -186,22 +186,27 @@ class MeasureFilterSql {
 
   List<MeasureFilterRow> process(ResultSet rs) throws SQLException {
     List<MeasureFilterRow> rows = Lists.newArrayList();
+    RowProcessor rowProcessor = newRowProcessor(filter.sort());
+
+    while (rs.next()) {
+      rows.add(rowProcessor.fetch(rs));
+    }
+
+    return rowProcessor.sort(rows, filter.sort().isAsc());
+  }
+
+  static RowProcessor newRowProcessor(MeasureFilterSort sort) {
     RowProcessor rowProcessor;
-    if (filter.sort().isOnNumericMeasure()) {
+    if (sort.isOnNumericMeasure()) {
       rowProcessor = new NumericSortRowProcessor();
-    } else if (filter.sort().isOnDate()) {
+    } else if (sort.isOnDate()) {
       rowProcessor = new DateSortRowProcessor();
-    } else if (filter.sort().isOnAlert()) {
+    } else if (sort.isOnAlert()) {
       rowProcessor = new AlertSortRowProcessor();
     } else {
       rowProcessor = new TextSortRowProcessor();
     }
-
-    while (rs.next()) {
-      rows.add(rowProcessor.fetch(rs));
-    }
-
-    return rowProcessor.sort(rows, filter.sort().isAsc());
+    return rowProcessor;
   }
 
   private static void appendInStatement(List<String> values, StringBuilder to) {
@@ -0,0 +1,302 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.measure;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Preconditions;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * History of a measure : the values of a metric on the successive analyses of a component, sorted by date.
+ * <p/>
+ * The series is stored in a compact binary form (see {@link #encode()}) : a version byte, the number of points,
+ * then for each point the difference in milliseconds with the date of the previous point, a byte of flags
+ * and the values. Integral values, the most frequent ones, are stored as variable-length integers.
+ *
+ * @since 4.4
+ */
+public final class MeasureSeries {
+
+  private static final byte VERSION = 1;
+  private static final int HAS_VALUE = 1;
+  private static final int INTEGRAL_VALUE = 2;
+  private static final int HAS_TEXT = 4;
+  private static final double MAX_INTEGRAL_VALUE = 1e15;
+  private static final long NEGATIVE_ZERO = Double.doubleToRawLongBits(-0.0);
+
+  private long[] dates;
+  private double[] values;
+  private byte[] flags;
+  private String[] texts;
+  private int size = 0;
+
+  public MeasureSeries() {
+    this(8);
+  }
+
+  private MeasureSeries(int capacity) {
+    dates = new long[capacity];
+    values = new double[capacity];
+    flags = new byte[capacity];
+    texts = new String[capacity];
+  }
+
+  /**
+   * Adds a point at the end of the series. The value of the last point is replaced if it has the same date.
+   *
+   * @throws IllegalArgumentException if the date is before the date of the last point
+   */
+  public MeasureSeries add(long date, @Nullable Double value, @Nullable String text) {
+    int index = size;
+    if (size > 0) {
+      Preconditions.checkArgument(date >= dates[size - 1], "Points must be added in chronological order");
+      if (date == dates[size - 1]) {
+        index = size - 1;
+      }
+    }
+    if (index == size) {
+      ensureCapacity(size + 1);
+      size++;
+    }
+    int flag = 0;
+    if (value != null) {
+      flag |= HAS_VALUE;
+      if (isIntegral(value)) {
+        flag |= INTEGRAL_VALUE;
+      }
+    }
+    if (text != null) {
+      flag |= HAS_TEXT;
+    }
+    dates[index] = date;
+    values[index] = value != null ? value : 0.0;
+    flags[index] = (byte) flag;
+    texts[index] = text;
+    return this;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public long date(int index) {
+    checkIndex(index);
+    return dates[index];
+  }
+
+  @CheckForNull
+  public Double value(int index) {
+    checkIndex(index);
+    return (flags[index] & HAS_VALUE) != 0 ? values[index] : null;
+  }
+
+  @CheckForNull
+  public String textValue(int index) {
+    checkIndex(index);
+    return texts[index];
+  }
+
+  @CheckForNull
+  public Long lastDate() {
+    return size > 0 ? dates[size - 1] : null;
+  }
+
+  /**
+   * Points between the two dates, both inclusive.
+   */
+  public MeasureSeries between(@Nullable Long from, @Nullable Long to) {
+    int start = from != null ? lowerBound(from) : 0;
+    int end = to != null ? lowerBound(to + 1) : size;
+    MeasureSeries result = new MeasureSeries(Math.max(end - start, 1));
+    for (int i = start; i < end; i++) {
+      result.copy(this, i);
+    }
+    return result;
+  }
+
+  /**
+   * Points whose date is not one of the given dates
+   */
+  public MeasureSeries without(Set<Long> excludedDates) {
+    MeasureSeries result = new MeasureSeries(Math.max(size, 1));
+    for (int i = 0; i < size; i++) {
+      if (!excludedDates.contains(dates[i])) {
+        result.copy(this, i);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Reduces the series to at most <code>maxPoints</code> points. The period between <code>from</code> and <code>to</code>
+   * is split into <code>maxPoints</code> buckets of the same duration and only the last point of each bucket is kept.
+   * Series sharing the same bounds are downsampled on the same dates.
+   */
+  public MeasureSeries downsample(long from, long to, int maxPoints) {
+    Preconditions.checkArgument(maxPoints > 0, "Max number of points must be positive: " + maxPoints);
+    if (size <= maxPoints) {
+      return this;
+    }
+    double bucketDuration = (to - from + 1.0) / maxPoints;
+    MeasureSeries result = new MeasureSeries(maxPoints);
+    for (int i = 0; i < size; i++) {
+      boolean lastOfBucket = i == size - 1 || bucket(dates[i], from, bucketDuration) != bucket(dates[i + 1], from, bucketDuration);
+      if (lastOfBucket) {
+        result.copy(this, i);
+      }
+    }
+    return result;
+  }
+
+  public byte[] encode() {
+    ByteArrayOutputStream output = new ByteArrayOutputStream(16 + size * 4);
+    output.write(VERSION);
+    writeVarLong(output, size);
+    long previousDate = 0L;
+    for (int i = 0; i < size; i++) {
+      writeVarLong(output, dates[i] - previousDate);
+      previousDate = dates[i];
+      output.write(flags[i]);
+      if ((flags[i] & INTEGRAL_VALUE) != 0) {
+        writeVarLong(output, zigZag((long) values[i]));
+      } else if ((flags[i] & HAS_VALUE) != 0) {
+        long bits = Double.doubleToRawLongBits(values[i]);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+          output.write((int) (bits >>> shift));
+        }
+      }
+      if (texts[i] != null) {
+        byte[] bytes = texts[i].getBytes(Charsets.UTF_8);
+        writeVarLong(output, bytes.length);
+        output.write(bytes, 0, bytes.length);
+      }
+    }
+    return output.toByteArray();
+  }
+
+  public static MeasureSeries decode(byte[] data) {
+    ByteBuffer buffer = ByteBuffer.wrap(data);
+    byte version = buffer.get();
+    Preconditions.checkArgument(version == VERSION, "Unsupported version of measure series: " + version);
+    int count = (int) readVarLong(buffer);
+    MeasureSeries series = new MeasureSeries(Math.max(count, 1));
+    long date = 0L;
+    for (int i = 0; i < count; i++) {
+      date += readVarLong(buffer);
+      byte flag = buffer.get();
+      double value = 0.0;
+      if ((flag & INTEGRAL_VALUE) != 0) {
+        value = unZigZag(readVarLong(buffer));
+      } else if ((flag & HAS_VALUE) != 0) {
+        value = buffer.getDouble();
+      }
+      String text = null;
+      if ((flag & HAS_TEXT) != 0) {
+        byte[] bytes = new byte[(int) readVarLong(buffer)];
+        buffer.get(bytes);
+        text = new String(bytes, Charsets.UTF_8);
+      }
+      series.dates[i] = date;
+      series.values[i] = value;
+      series.flags[i] = flag;
+      series.texts[i] = text;
+    }
+    series.size = count;
+    return series;
+  }
+
+  private void copy(MeasureSeries from, int index) {
+    ensureCapacity(size + 1);
+    dates[size] = from.dates[index];
+    values[size] = from.values[index];
+    flags[size] = from.flags[index];
+    texts[size] = from.texts[index];
+    size++;
+  }
+
+  private int lowerBound(long date) {
+    int index = Arrays.binarySearch(dates, 0, size, date);
+    return index >= 0 ? index : (-index - 1);
+  }
+
+  private static long bucket(long date, long from, double bucketDuration) {
+    return (long) ((date - from) / bucketDuration);
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity > dates.length) {
+      int newCapacity = Math.max(capacity, dates.length * 2);
+      dates = Arrays.copyOf(dates, newCapacity);
+      values = Arrays.copyOf(values, newCapacity);
+      flags = Arrays.copyOf(flags, newCapacity);
+      texts = Arrays.copyOf(texts, newCapacity);
+    }
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+    }
+  }
+
+  private static boolean isIntegral(double value) {
+    return value == Math.rint(value) && Math.abs(value) < MAX_INTEGRAL_VALUE && Double.doubleToRawLongBits(value) != NEGATIVE_ZERO;
+  }
+
+  private static long zigZag(long l) {
+    return (l << 1) ^ (l >> 63);
+  }
+
+  private static long unZigZag(long l) {
+    return (l >>> 1) ^ -(l & 1);
+  }
+
+  private static void writeVarLong(ByteArrayOutputStream output, long value) {
+    long l = value;
+    while ((l & ~0x7FL) != 0) {
+      output.write((int) ((l & 0x7F) | 0x80));
+      l >>>= 7;
+    }
+    output.write((int) l);
+  }
+
+  private static long readVarLong(ByteBuffer buffer) {
+    long result = 0L;
+    int shift = 0;
+    byte b;
+    do {
+      b = buffer.get();
+      result |= (long) (b & 0x7F) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+    return result;
+  }
+}
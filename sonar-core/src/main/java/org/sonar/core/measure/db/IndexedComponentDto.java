@@ -0,0 +1,170 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.measure.db;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+import java.util.Date;
+
+/**
+ * Last snapshot of a top-level component, as loaded by {@link MeasureFilterIndexMapper}
+ *
+ * @since 4.4
+ */
+public class IndexedComponentDto {
+
+  private long snapshotId;
+  private long resourceId;
+  private long rootProjectId;
+  private String scope;
+  private String qualifier;
+  private String kee;
+  private String name;
+  private String longName;
+  private String description;
+  private String language;
+  private String version;
+  private Date snapshotDate;
+  private Date createdAt;
+
+  public long getSnapshotId() {
+    return snapshotId;
+  }
+
+  public IndexedComponentDto setSnapshotId(long snapshotId) {
+    this.snapshotId = snapshotId;
+    return this;
+  }
+
+  public long getResourceId() {
+    return resourceId;
+  }
+
+  public IndexedComponentDto setResourceId(long resourceId) {
+    this.resourceId = resourceId;
+    return this;
+  }
+
+  public long getRootProjectId() {
+    return rootProjectId;
+  }
+
+  public IndexedComponentDto setRootProjectId(long rootProjectId) {
+    this.rootProjectId = rootProjectId;
+    return this;
+  }
+
+  public String getScope() {
+    return scope;
+  }
+
+  public IndexedComponentDto setScope(String scope) {
+    this.scope = scope;
+    return this;
+  }
+
+  public String getQualifier() {
+    return qualifier;
+  }
+
+  public IndexedComponentDto setQualifier(String qualifier) {
+    this.qualifier = qualifier;
+    return this;
+  }
+
+  public String getKee() {
+    return kee;
+  }
+
+  public IndexedComponentDto setKee(String kee) {
+    this.kee = kee;
+    return this;
+  }
+
+  @CheckForNull
+  public String getName() {
+    return name;
+  }
+
+  public IndexedComponentDto setName(@Nullable String name) {
+    this.name = name;
+    return this;
+  }
+
+  @CheckForNull
+  public String getLongName() {
+    return longName;
+  }
+
+  public IndexedComponentDto setLongName(@Nullable String longName) {
+    this.longName = longName;
+    return this;
+  }
+
+  @CheckForNull
+  public String getDescription() {
+    return description;
+  }
+
+  public IndexedComponentDto setDescription(@Nullable String description) {
+    this.description = description;
+    return this;
+  }
+
+  @CheckForNull
+  public String getLanguage() {
+    return language;
+  }
+
+  public IndexedComponentDto setLanguage(@Nullable String language) {
+    this.language = language;
+    return this;
+  }
+
+  @CheckForNull
+  public String getVersion() {
+    return version;
+  }
+
+  public IndexedComponentDto setVersion(@Nullable String version) {
+    this.version = version;
+    return this;
+  }
+
+  public Date getSnapshotDate() {
+    return snapshotDate;
+  }
+
+  public IndexedComponentDto setSnapshotDate(Date snapshotDate) {
+    this.snapshotDate = snapshotDate;
+    return this;
+  }
+
+  @CheckForNull
+  public Date getCreatedAt() {
+    return createdAt;
+  }
+
+  public IndexedComponentDto setCreatedAt(@Nullable Date createdAt) {
+    this.createdAt = createdAt;
+    return this;
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.measure.db;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+/**
+ * Measure of the last snapshot of a top-level component, as loaded by {@link MeasureFilterIndexMapper}.
+ * Measures on rules, characteristics or developers are not loaded.
+ *
+ * @since 4.4
+ */
+public class IndexedMeasureDto {
+
+  private long snapshotId;
+  private int metricId;
+  private Double value;
+  private String textValue;
+
+  public long getSnapshotId() {
+    return snapshotId;
+  }
+
+  public IndexedMeasureDto setSnapshotId(long snapshotId) {
+    this.snapshotId = snapshotId;
+    return this;
+  }
+
+  public int getMetricId() {
+    return metricId;
+  }
+
+  public IndexedMeasureDto setMetricId(int metricId) {
+    this.metricId = metricId;
+    return this;
+  }
+
+  @CheckForNull
+  public Double getValue() {
+    return value;
+  }
+
+  public IndexedMeasureDto setValue(@Nullable Double value) {
+    this.value = value;
+    return this;
+  }
+
+  @CheckForNull
+  public String getTextValue() {
+    return textValue;
+  }
+
+  public IndexedMeasureDto setTextValue(@Nullable String textValue) {
+    this.textValue = textValue;
+    return this;
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.measure.db;
+
+import com.google.common.collect.Maps;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.SqlSession;
+import org.sonar.api.ServerComponent;
+import org.sonar.core.persistence.MyBatis;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @since 4.4
+ */
+public class MeasureSeriesDao implements ServerComponent {
+
+  private final MyBatis mybatis;
+
+  public MeasureSeriesDao(MyBatis mybatis) {
+    this.mybatis = mybatis;
+  }
+
+  public List<MeasureSeriesDto> selectByResource(long resourceId) {
+    SqlSession session = mybatis.openSession(false);
+    try {
+      return selectByResource(resourceId, session);
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+  }
+
+  public List<MeasureSeriesDto> selectByResource(long resourceId, SqlSession session) {
+    return session.getMapper(MeasureSeriesMapper.class).selectByResource(resourceId);
+  }
+
+  /**
+   * Date of the last processed snapshot of the given resource, null if the resource has never been analysed.
+   */
+  @CheckForNull
+  public Date selectLastSnapshotDate(long resourceId) {
+    SqlSession session = mybatis.openSession(false);
+    try {
+      return session.getMapper(MeasureSeriesMapper.class).selectLastSnapshotDate(resourceId);
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+  }
+
+  /**
+   * Ids of the project and of the modules of the last analysis of the given root project
+   */
+  public List<Long> selectProjectIds(long rootProjectId) {
+    SqlSession session = mybatis.openSession(false);
+    try {
+      return session.getMapper(MeasureSeriesMapper.class).selectProjectIds(rootProjectId);
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+  }
+
+  /**
+   * Streams the measures of the processed snapshots of the resource, sorted by snapshot date. The handler receives
+   * instances of {@link MeasureSeriesPointDto}.
+   *
+   * @param after if not null, only the snapshots created after this date are loaded
+   */
+  public void selectPoints(long resourceId, @Nullable Date after, ResultHandler handler, SqlSession session) {
+    Map<String, Object> params = Maps.newHashMap();
+    params.put("resourceId", resourceId);
+    params.put("after", after);
+    session.select("org.sonar.core.measure.db.MeasureSeriesMapper.selectPoints", params, handler);
+  }
+
+  public void insert(MeasureSeriesDto dto, SqlSession session) {
+    session.getMapper(MeasureSeriesMapper.class).insert(dto);
+  }
+
+  public void update(MeasureSeriesDto dto, SqlSession session) {
+    session.getMapper(MeasureSeriesMapper.class).update(dto);
+  }
+}
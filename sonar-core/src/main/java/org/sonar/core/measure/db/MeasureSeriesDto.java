@@ -0,0 +1,114 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.measure.db;
+
+import org.sonar.core.measure.MeasureSeries;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+import java.util.Date;
+
+/**
+ * Row of the table MEASURE_SERIES : the encoded history of a metric on a component.
+ *
+ * @since 4.4
+ */
+public class MeasureSeriesDto {
+
+  private Long id;
+  private long resourceId;
+  private int metricId;
+  private Integer characteristicId;
+  private Date lastDate;
+  private byte[] data;
+
+  public Long getId() {
+    return id;
+  }
+
+  public MeasureSeriesDto setId(Long id) {
+    this.id = id;
+    return this;
+  }
+
+  public long getResourceId() {
+    return resourceId;
+  }
+
+  public MeasureSeriesDto setResourceId(long resourceId) {
+    this.resourceId = resourceId;
+    return this;
+  }
+
+  public int getMetricId() {
+    return metricId;
+  }
+
+  public MeasureSeriesDto setMetricId(int metricId) {
+    this.metricId = metricId;
+    return this;
+  }
+
+  @CheckForNull
+  public Integer getCharacteristicId() {
+    return characteristicId;
+  }
+
+  public MeasureSeriesDto setCharacteristicId(@Nullable Integer characteristicId) {
+    this.characteristicId = characteristicId;
+    return this;
+  }
+
+  /**
+   * Date of the last point of the series
+   */
+  public Date getLastDate() {
+    return lastDate;
+  }
+
+  public MeasureSeriesDto setLastDate(Date lastDate) {
+    this.lastDate = lastDate;
+    return this;
+  }
+
+  @CheckForNull
+  public byte[] getData() {
+    return data;
+  }
+
+  public MeasureSeriesDto setData(@Nullable byte[] data) {
+    this.data = data;
+    return this;
+  }
+
+  public MeasureSeries getSeries() {
+    return data != null ? MeasureSeries.decode(data) : new MeasureSeries();
+  }
+
+  /**
+   * Encodes the series. It must not be empty.
+   */
+  public MeasureSeriesDto setSeries(MeasureSeries series) {
+    this.data = series.encode();
+    this.lastDate = new Date(series.lastDate());
+    return this;
+  }
+}
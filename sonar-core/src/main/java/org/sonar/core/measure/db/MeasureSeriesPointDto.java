@@ -0,0 +1,104 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.measure.db;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+import java.util.Date;
+
+/**
+ * Measure of a processed snapshot, as loaded by {@link MeasureSeriesMapper} to be appended to a {@link MeasureSeriesDto}.
+ * Measures on rules, rule priorities or developers are not loaded.
+ *
+ * @since 4.4
+ */
+public class MeasureSeriesPointDto {
+
+  private int metricId;
+  private Integer characteristicId;
+  private Date date;
+  private Double value;
+  private String textValue;
+  private boolean deleteHistoricalData;
+
+  public int getMetricId() {
+    return metricId;
+  }
+
+  public MeasureSeriesPointDto setMetricId(int metricId) {
+    this.metricId = metricId;
+    return this;
+  }
+
+  @CheckForNull
+  public Integer getCharacteristicId() {
+    return characteristicId;
+  }
+
+  public MeasureSeriesPointDto setCharacteristicId(@Nullable Integer characteristicId) {
+    this.characteristicId = characteristicId;
+    return this;
+  }
+
+  /**
+   * Date of the snapshot
+   */
+  public Date getDate() {
+    return date;
+  }
+
+  public MeasureSeriesPointDto setDate(Date date) {
+    this.date = date;
+    return this;
+  }
+
+  @CheckForNull
+  public Double getValue() {
+    return value;
+  }
+
+  public MeasureSeriesPointDto setValue(@Nullable Double value) {
+    this.value = value;
+    return this;
+  }
+
+  @CheckForNull
+  public String getTextValue() {
+    return textValue;
+  }
+
+  public MeasureSeriesPointDto setTextValue(@Nullable String textValue) {
+    this.textValue = textValue;
+    return this;
+  }
+
+  /**
+   * Measures of metrics flagged with "delete historical data" are kept on the last snapshot only
+   */
+  public boolean isDeleteHistoricalData() {
+    return deleteHistoricalData;
+  }
+
+  public MeasureSeriesPointDto setDeleteHistoricalData(@Nullable Boolean b) {
+    this.deleteHistoricalData = Boolean.TRUE.equals(b);
+    return this;
+  }
+}
@@ -27,6 +27,7 @@ import org.sonar.core.graph.jdbc.GraphDao;
 import org.sonar.core.issue.db.*;
 import org.sonar.core.measure.db.MeasureDataDao;
 import org.sonar.core.measure.db.MeasureFilterDao;
+import org.sonar.core.measure.db.MeasureSeriesDao;
 import org.sonar.core.notification.db.NotificationQueueDao;
 import org.sonar.core.permission.PermissionDao;
 import org.sonar.core.permission.PermissionTemplateDao;
@@ -74,6 +75,7 @@ public final class DaoUtils {
       LoadedTemplateDao.class,
       MeasureDataDao.class,
       MeasureFilterDao.class,
+      MeasureSeriesDao.class,
       NotificationQueueDao.class,
       PermissionDao.class,
       PermissionTemplateDao.class,
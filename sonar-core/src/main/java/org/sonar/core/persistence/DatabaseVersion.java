@@ -33,7 +33,7 @@ import java.util.List;
  */
 public class DatabaseVersion implements BatchComponent, ServerComponent {
 
-  public static final int LAST_VERSION = 531;
+  public static final int LAST_VERSION = 533;
 
   public static enum Status {
     UP_TO_DATE, REQUIRES_UPGRADE, REQUIRES_DOWNGRADE, FRESH_INSTALL
@@ -55,6 +55,7 @@ public class DatabaseVersion implements BatchComponent, ServerComponent {
     "characteristics",
     "dashboards",
     "dependencies",
+    "duplication_blocks",
     "duplications_index",
     "events",
     "graphs",
@@ -69,6 +70,7 @@ public class DatabaseVersion implements BatchComponent, ServerComponent {
     "manual_measures",
     "measure_filters",
     "measure_filter_favourites",
+    "measure_series",
     "metrics",
     "notifications",
     "permission_templates",
@@ -52,6 +52,8 @@ import org.sonar.core.dependency.DependencyDto;
 import org.sonar.core.dependency.DependencyMapper;
 import org.sonar.core.dependency.ResourceSnapshotDto;
 import org.sonar.core.dependency.ResourceSnapshotMapper;
+import org.sonar.core.duplication.DuplicationBlockDto;
+import org.sonar.core.duplication.DuplicationGroupDto;
 import org.sonar.core.duplication.DuplicationMapper;
 import org.sonar.core.duplication.DuplicationUnitDto;
 import org.sonar.core.graph.jdbc.GraphDto;
@@ -69,9 +71,15 @@ import org.sonar.core.issue.db.IssueFilterFavouriteMapper;
 import org.sonar.core.issue.db.IssueFilterMapper;
 import org.sonar.core.issue.db.IssueMapper;
 import org.sonar.core.issue.db.IssueStatsMapper;
+import org.sonar.core.measure.db.IndexedComponentDto;
+import org.sonar.core.measure.db.IndexedMeasureDto;
 import org.sonar.core.measure.db.MeasureDataDto;
 import org.sonar.core.measure.db.MeasureDataMapper;
 import org.sonar.core.measure.db.MeasureFilterDto;
+import org.sonar.core.measure.db.MeasureFilterIndexMapper;
+import org.sonar.core.measure.db.MeasureSeriesDto;
+import org.sonar.core.measure.db.MeasureSeriesMapper;
+import org.sonar.core.measure.db.MeasureSeriesPointDto;
 import org.sonar.core.measure.db.MeasureFilterMapper;
 import org.sonar.core.notification.db.NotificationQueueDto;
 import org.sonar.core.notification.db.NotificationQueueMapper;
@@ -110,6 +118,7 @@ import org.sonar.core.rule.RuleTagDto;
 import org.sonar.core.rule.RuleTagMapper;
 import org.sonar.core.source.db.SnapshotDataDto;
 import org.sonar.core.source.db.SnapshotDataMapper;
+import org.sonar.core.source.db.SnapshotSourceDto;
 import org.sonar.core.source.db.SnapshotSourceMapper;
 import org.sonar.core.technicaldebt.db.CharacteristicDto;
 import org.sonar.core.technicaldebt.db.CharacteristicMapper;
@@ -160,6 +169,8 @@ public class MyBatis implements BatchComponent, ServerComponent {
     loadAlias(conf, "Component", ComponentDto.class);
     loadAlias(conf, "Dashboard", DashboardDto.class);
     loadAlias(conf, "Dependency", DependencyDto.class);
+    loadAlias(conf, "DuplicationBlock", DuplicationBlockDto.class);
+    loadAlias(conf, "DuplicationGroup", DuplicationGroupDto.class);
     loadAlias(conf, "DuplicationUnit", DuplicationUnitDto.class);
     loadAlias(conf, "Graph", GraphDto.class);
     loadAlias(conf, "Group", GroupDto.class);
@@ -189,11 +200,16 @@ public class MyBatis implements BatchComponent, ServerComponent {
     loadAlias(conf, "WidgetProperty", WidgetPropertyDto.class);
     loadAlias(conf, "MeasureModel", MeasureModel.class);
     loadAlias(conf, "MeasureData", MeasureDataDto.class);
+    loadAlias(conf, "IndexedComponent", IndexedComponentDto.class);
+    loadAlias(conf, "IndexedMeasure", IndexedMeasureDto.class);
+    loadAlias(conf, "MeasureSeries", MeasureSeriesDto.class);
+    loadAlias(conf, "MeasureSeriesPoint", MeasureSeriesPointDto.class);
     loadAlias(conf, "Issue", IssueDto.class);
     loadAlias(conf, "IssueChange", IssueChangeDto.class);
     loadAlias(conf, "IssueFilter", IssueFilterDto.class);
     loadAlias(conf, "IssueFilterFavourite", IssueFilterFavouriteDto.class);
     loadAlias(conf, "SnapshotData", SnapshotDataDto.class);
+    loadAlias(conf, "SnapshotSource", SnapshotSourceDto.class);
     loadAlias(conf, "ActionPlanIssue", ActionPlanDto.class);
     loadAlias(conf, "ActionPlanStats", ActionPlanStatsDto.class);
     loadAlias(conf, "PermissionTemplate", PermissionTemplateDto.class);
@@ -222,7 +238,7 @@ public class MyBatis implements BatchComponent, ServerComponent {
       MeasureMapper.class, SnapshotDataMapper.class, SnapshotSourceMapper.class, ActionPlanMapper.class, ActionPlanStatsMapper.class,
       NotificationQueueMapper.class, CharacteristicMapper.class, RuleTagMapper.class,
       GroupMembershipMapper.class, QualityProfileMapper.class, ActiveRuleMapper.class,
-      MeasureDataMapper.class, QualityGateMapper.class, QualityGateConditionMapper.class, ComponentMapper.class, ProjectQgateAssociationMapper.class,
+      MeasureDataMapper.class, MeasureFilterIndexMapper.class, MeasureSeriesMapper.class, QualityGateMapper.class, QualityGateConditionMapper.class, ComponentMapper.class, ProjectQgateAssociationMapper.class,
       RequirementMapper.class
     };
     loadMappers(conf, mappers);
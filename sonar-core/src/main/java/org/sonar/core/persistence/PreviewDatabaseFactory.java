@@ -42,6 +42,7 @@ public class PreviewDatabaseFactory implements ServerComponent {
   private static final String SONAR = "sonar";
   private static final String USER = SONAR;
   private static final String PASSWORD = SONAR;
+  private static final String HASH_DATA_TYPES = "('" + SnapshotDataTypes.FILE_HASHES + "','" + SnapshotDataTypes.LINE_HASHES + "')";
 
   private final Database database;
   private final Profiling profiling;
@@ -105,7 +106,7 @@ public class PreviewDatabaseFactory implements ServerComponent {
         // All snapshots of root_project for alerts on differential periods
         .append("SELECT * FROM snapshots WHERE project_id=")
         .append(projectId)
-        // Plus all last snapshots of all modules having hash data for partial analysis
+        // Plus all last snapshots of all modules and files having hash data for partial analysis and issue tracking
         .append(" UNION SELECT snap.* FROM snapshots snap")
         .append(" INNER JOIN (")
         .append(projectQuery(projectId, true))
@@ -113,7 +114,7 @@ public class PreviewDatabaseFactory implements ServerComponent {
         .append(" ON snap.project_id=res.id")
         .append(" INNER JOIN snapshot_data data")
         .append(" ON snap.id=data.snapshot_id")
-        .append(" AND data.data_type='").append(SnapshotDataTypes.FILE_HASHES).append("'")
+        .append(" AND data.data_type IN ").append(HASH_DATA_TYPES)
         .append(" AND snap.islast=").append(database.getDialect().getTrueSqlValue());
       template.copyTable(source, dest, "snapshots", snapshotQuery.toString());
 
@@ -126,7 +127,7 @@ public class PreviewDatabaseFactory implements ServerComponent {
         .append(projectQuery(projectId, true))
         .append(") res")
         .append(" ON data.resource_id=res.id")
-        .append(" AND data.data_type='").append(SnapshotDataTypes.FILE_HASHES).append("'");
+        .append(" AND data.data_type IN ").append(HASH_DATA_TYPES);
       template.copyTable(source, dest, "snapshot_data", snapshotDataQuery.toString());
 
       // All measures of snapshots of root project for alerts on differential periods
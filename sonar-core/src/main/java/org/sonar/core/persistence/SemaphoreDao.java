@@ -21,11 +21,14 @@ package org.sonar.core.persistence;
 
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
 import org.apache.commons.lang.time.DateUtils;
 import org.apache.ibatis.session.SqlSession;
 import org.sonar.api.utils.Semaphores;
 
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 
 /**
  * @since 3.4
@@ -33,6 +36,7 @@ import java.util.Date;
 public class SemaphoreDao {
 
   private static final String SEMAPHORE_NAME_MUST_NOT_BE_EMPTY = "Semaphore name must not be empty";
+  private static final int MAX_NAMES_PER_QUERY = 1000;
   private final MyBatis mybatis;
 
   public SemaphoreDao(MyBatis mybatis) {
@@ -92,6 +96,27 @@ public class SemaphoreDao {
     }
   }
 
+  /**
+   * Updates several semaphores with a single statement per chunk of {@value #MAX_NAMES_PER_QUERY} names.
+   *
+   * @since 4.4
+   */
+  public void update(Collection<String> names) {
+    if (names.isEmpty()) {
+      return;
+    }
+    SqlSession session = mybatis.openSession(false);
+    try {
+      SemaphoreMapper mapper = session.getMapper(SemaphoreMapper.class);
+      for (List<String> partition : Lists.partition(Lists.newArrayList(names), MAX_NAMES_PER_QUERY)) {
+        mapper.updateAll(partition);
+      }
+      session.commit();
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+  }
+
   public void release(String name) {
     Preconditions.checkArgument(!Strings.isNullOrEmpty(name), SEMAPHORE_NAME_MUST_NOT_BE_EMPTY);
     SqlSession session = mybatis.openSession(false);
@@ -21,6 +21,7 @@ package org.sonar.core.persistence;
 
 import org.apache.ibatis.annotations.Param;
 
+import java.util.Collection;
 import java.util.Date;
 
 public interface SemaphoreMapper {
@@ -36,4 +37,6 @@ public interface SemaphoreMapper {
   SemaphoreDto selectSemaphore(@Param("name") String name);
 
   void update(String name);
+
+  void updateAll(@Param("names") Collection<String> names);
 }
@@ -19,61 +19,139 @@
  */
 package org.sonar.core.persistence;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.ServerComponent;
 import org.sonar.api.task.TaskComponent;
 import org.sonar.api.utils.Semaphores;
 
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 /**
+ * Keeps alive the semaphores held by the current process. A single scheduler is shared by all the semaphores : they are
+ * grouped by update period and each group is refreshed with a single request.
+ *
  * @since 3.5
  */
 public class SemaphoreUpdater implements TaskComponent, ServerComponent {
 
   private static final Logger LOG = LoggerFactory.getLogger(SemaphoreUpdater.class);
 
-  private SemaphoreDao dao;
+  private final SemaphoreDao dao;
 
-  private Map<String, ScheduledExecutorService> handlers = Maps.newHashMap();
+  private final Map<Integer, Set<String>> namesByPeriod = Maps.newHashMap();
+  private final Map<Integer, ScheduledFuture<?>> heartbeats = Maps.newHashMap();
+  private ScheduledExecutorService scheduler;
+  private volatile long lastHeartbeatDurationInMs = 0L;
 
   public SemaphoreUpdater(SemaphoreDao dao) {
     this.dao = dao;
   }
 
-  public void scheduleForUpdate(final Semaphores.Semaphore semaphore, int updatePeriodInSeconds) {
-    ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
-    Runnable updater = new Runnable() {
-      public void run() {
-        try {
-          LOG.debug("Updating semaphore " + semaphore.getName());
-          dao.update(semaphore);
-        } catch (Exception e) {
-          LOG.error("Unable to update semaphore", e);
-        }
+  public synchronized void scheduleForUpdate(Semaphores.Semaphore semaphore, int updatePeriodInSeconds) {
+    String name = semaphore.getName();
+    stopUpdate(name);
+
+    Set<String> names = namesByPeriod.get(updatePeriodInSeconds);
+    if (names == null) {
+      names = Sets.newLinkedHashSet();
+      namesByPeriod.put(updatePeriodInSeconds, names);
+      heartbeats.put(updatePeriodInSeconds, scheduler().scheduleWithFixedDelay(
+        new Heartbeat(updatePeriodInSeconds), updatePeriodInSeconds, updatePeriodInSeconds, TimeUnit.SECONDS));
+    }
+    names.add(name);
+  }
 
+  public synchronized void stopUpdate(String name) {
+    Iterator<Map.Entry<Integer, Set<String>>> it = namesByPeriod.entrySet().iterator();
+    while (it.hasNext()) {
+      Map.Entry<Integer, Set<String>> entry = it.next();
+      if (entry.getValue().remove(name) && entry.getValue().isEmpty()) {
+        it.remove();
+        heartbeats.remove(entry.getKey()).cancel(false);
       }
-    };
-    scheduler.scheduleWithFixedDelay(updater, updatePeriodInSeconds, updatePeriodInSeconds, TimeUnit.SECONDS);
-    handlers.put(semaphore.getName(), scheduler);
+    }
+    if (heartbeats.isEmpty()) {
+      shutdownScheduler();
+    }
   }
 
-  public void stopUpdate(final String name) {
-    if (handlers.containsKey(name)) {
-      handlers.get(name).shutdown();
+  /**
+   * Number of semaphores currently kept alive
+   */
+  public synchronized int heldCount() {
+    int count = 0;
+    for (Set<String> names : namesByPeriod.values()) {
+      count += names.size();
+    }
+    return count;
+  }
+
+  /**
+   * Duration of the latest refresh of a group of semaphores
+   */
+  public long lastHeartbeatDurationInMs() {
+    return lastHeartbeatDurationInMs;
+  }
+
+  public synchronized void stop() {
+    namesByPeriod.clear();
+    for (ScheduledFuture<?> heartbeat : heartbeats.values()) {
+      heartbeat.cancel(false);
+    }
+    heartbeats.clear();
+    shutdownScheduler();
+  }
+
+  private synchronized List<String> names(int updatePeriodInSeconds) {
+    Set<String> names = namesByPeriod.get(updatePeriodInSeconds);
+    return names == null ? Lists.<String>newArrayList() : Lists.newArrayList(names);
+  }
+
+  private ScheduledExecutorService scheduler() {
+    if (scheduler == null) {
+      scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+        .setNameFormat("semaphore-updater-%d")
+        .setDaemon(true)
+        .build());
+    }
+    return scheduler;
+  }
+
+  private void shutdownScheduler() {
+    if (scheduler != null) {
+      scheduler.shutdown();
+      scheduler = null;
+    }
+  }
+
+  private class Heartbeat implements Runnable {
+    private final int updatePeriodInSeconds;
+
+    Heartbeat(int updatePeriodInSeconds) {
+      this.updatePeriodInSeconds = updatePeriodInSeconds;
+    }
+
+    public void run() {
       try {
-        if (!handlers.get(name).awaitTermination(1, TimeUnit.SECONDS)) {
-          LOG.error("Unable to cancel semaphore updater in 1 second");
-        }
-      } catch (InterruptedException e) {
-        LOG.error("Unable to cancel semaphore updater", e);
-      } finally {
-        handlers.remove(name);
+        List<String> names = names(updatePeriodInSeconds);
+        long start = System.currentTimeMillis();
+        dao.update(names);
+        lastHeartbeatDurationInMs = System.currentTimeMillis() - start;
+        LOG.debug("Updated {} semaphore(s) in {} ms", names.size(), lastHeartbeatDurationInMs);
+      } catch (Exception e) {
+        LOG.error("Unable to update semaphores", e);
       }
     }
   }
@@ -26,6 +26,9 @@ import org.sonar.api.utils.Semaphores;
  */
 public class SemaphoresImpl implements Semaphores {
 
+  static final long INITIAL_BACKOFF_IN_MS = 100L;
+  static final long MAX_BACKOFF_IN_MS = 5000L;
+
   private SemaphoreDao dao;
   private SemaphoreUpdater updater;
 
@@ -36,7 +39,37 @@ public class SemaphoresImpl implements Semaphores {
 
   public Semaphore acquire(String name, int maxAgeInSeconds, int updatePeriodInSeconds) {
     Semaphore semaphore = dao.acquire(name, maxAgeInSeconds);
-    updater.scheduleForUpdate(semaphore, updatePeriodInSeconds);
+    if (semaphore.isLocked()) {
+      updater.scheduleForUpdate(semaphore, updatePeriodInSeconds);
+    }
+    return semaphore;
+  }
+
+  /**
+   * Same as {@link #acquire(String, int, int)} but, while the semaphore is locked by another process, retries with
+   * an exponential backoff until the lock is acquired or until the timeout is reached. Not part of the API
+   * {@link Semaphores}, so that other implementations of this interface are not broken.
+   *
+   * @param timeoutInMs the max duration in milliseconds to wait for the lock. Zero means no wait.
+   * @return the semaphore, whatever its status (locked or unlocked). Can't be null.
+   * @since 4.4
+   */
+  public Semaphore acquire(String name, int maxAgeInSeconds, int updatePeriodInSeconds, long timeoutInMs) {
+    long deadline = System.currentTimeMillis() + timeoutInMs;
+    long backoff = INITIAL_BACKOFF_IN_MS;
+    Semaphore semaphore = acquire(name, maxAgeInSeconds, updatePeriodInSeconds);
+    long remaining = deadline - System.currentTimeMillis();
+    while (!semaphore.isLocked() && remaining > 0) {
+      try {
+        Thread.sleep(Math.min(backoff, remaining));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return semaphore;
+      }
+      backoff = Math.min(backoff * 2, MAX_BACKOFF_IN_MS);
+      semaphore = acquire(name, maxAgeInSeconds, updatePeriodInSeconds);
+      remaining = deadline - System.currentTimeMillis();
+    }
     return semaphore;
   }
 
@@ -19,12 +19,18 @@
  */
 package org.sonar.core.preview;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Sets;
 import com.google.common.io.Files;
 import org.apache.commons.io.FileUtils;
 import org.apache.ibatis.session.SqlSession;
+import org.picocontainer.Startable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.sonar.api.Properties;
+import org.sonar.api.Property;
 import org.sonar.api.ServerExtension;
+import org.sonar.api.config.Settings;
 import org.sonar.api.platform.ServerFileSystem;
 import org.sonar.api.utils.SonarException;
 import org.sonar.core.persistence.MyBatis;
@@ -34,86 +40,193 @@ import org.sonar.core.properties.PropertyDto;
 import org.sonar.core.resource.ResourceDao;
 import org.sonar.core.resource.ResourceDto;
 
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
+ * Cache of the H2 databases used by preview analyses.
+ * <p/>
+ * When the database of a project is outdated, callers keep on getting it while a new one is generated in background.
+ * Callers are blocked only when no database has been generated yet for the project. Generations of different projects
+ * do not block each other.
+ *
  * @since 3.7.1
  */
-public class PreviewCache implements ServerExtension {
+@Properties({
+  @Property(
+    key = PreviewCache.SONAR_PREVIEW_CACHE_MAX_SIZE_KEY,
+    defaultValue = "" + PreviewCache.DEFAULT_MAX_SIZE_IN_MB,
+    name = "Maximum disk usage of preview databases, in MB",
+    project = false,
+    global = false)
+})
+public class PreviewCache implements ServerExtension, Startable {
 
   private static final Logger LOG = LoggerFactory.getLogger(PreviewCache.class);
 
   public static final String SONAR_PREVIEW_CACHE_LAST_UPDATE_KEY = "sonar.dryRun.cache.lastUpdate";
+  public static final String SONAR_PREVIEW_CACHE_MAX_SIZE_KEY = "sonar.preview.cache.maxSizeInMb";
+  static final long DEFAULT_MAX_SIZE_IN_MB = 1024L;
 
   private MyBatis mybatis;
 
   private ServerFileSystem serverFileSystem;
   private PropertiesDao propertiesDao;
   private ResourceDao resourceDao;
+  private final long maxSizeInBytes;
 
-  private Map<Long, ReadWriteLock> lockPerProject = new HashMap<Long, ReadWriteLock>();
-  private Map<Long, Long> lastTimestampPerProject = new HashMap<Long, Long>();
+  private final ConcurrentMap<Long, Lock> lockPerProject = new ConcurrentHashMap<Long, Lock>();
+  // guards the reads of database files against their deletion
+  private final ConcurrentMap<Long, ReadWriteLock> filesLockPerProject = new ConcurrentHashMap<Long, ReadWriteLock>();
+  private final ConcurrentMap<Long, Long> lastTimestampPerProject = new ConcurrentHashMap<Long, Long>();
+  private final ConcurrentMap<Long, Long> lastAccessPerProject = new ConcurrentHashMap<Long, Long>();
+  private final Set<Long> regeneratingProjects = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+  private final ExecutorService regenerationExecutor;
 
   private PreviewDatabaseFactory previewDatabaseFactory;
 
-  public PreviewCache(MyBatis mybatis, ServerFileSystem serverFileSystem, PropertiesDao propertiesDao, ResourceDao resourceDao, PreviewDatabaseFactory previewDatabaseFactory) {
+  public PreviewCache(MyBatis mybatis, ServerFileSystem serverFileSystem, PropertiesDao propertiesDao, ResourceDao resourceDao, PreviewDatabaseFactory previewDatabaseFactory,
+                      Settings settings) {
+    this(mybatis, serverFileSystem, propertiesDao, resourceDao, previewDatabaseFactory, settings, Executors.newSingleThreadExecutor(new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread thread = new Thread(r, "Preview database generation");
+        thread.setDaemon(true);
+        return thread;
+      }
+    }));
+  }
+
+  @VisibleForTesting
+  PreviewCache(MyBatis mybatis, ServerFileSystem serverFileSystem, PropertiesDao propertiesDao, ResourceDao resourceDao, PreviewDatabaseFactory previewDatabaseFactory,
+               Settings settings, ExecutorService regenerationExecutor) {
     this.mybatis = mybatis;
     this.serverFileSystem = serverFileSystem;
     this.propertiesDao = propertiesDao;
     this.resourceDao = resourceDao;
     this.previewDatabaseFactory = previewDatabaseFactory;
+    this.regenerationExecutor = regenerationExecutor;
+    long maxSizeInMb = settings.hasKey(SONAR_PREVIEW_CACHE_MAX_SIZE_KEY) ? settings.getLong(SONAR_PREVIEW_CACHE_MAX_SIZE_KEY) : DEFAULT_MAX_SIZE_IN_MB;
+    this.maxSizeInBytes = maxSizeInMb * FileUtils.ONE_MB;
+  }
+
+  @Override
+  public void start() {
+    // nothing to do
+  }
+
+  @Override
+  public void stop() {
+    regenerationExecutor.shutdownNow();
   }
 
   public byte[] getDatabaseForPreview(@Nullable Long projectId) {
     long notNullProjectId = projectId != null ? projectId.longValue() : 0L;
-    ReadWriteLock rwl = getLock(notNullProjectId);
-    try {
-      rwl.readLock().lock();
-      if (!isCacheValid(projectId)) {
-        // upgrade lock manually
-        // must unlock first to obtain writelock
-        rwl.readLock().unlock();
-        rwl.writeLock().lock();
-        // recheck
-        if (!isCacheValid(projectId)) {
-          generateNewDB(projectId);
-        }
-        // downgrade lock
-        // reacquire read without giving up write lock
-        rwl.readLock().lock();
-        // unlock write, still hold read
-        rwl.writeLock().unlock();
-      }
-      File dbFile = new File(getCacheLocation(projectId), lastTimestampPerProject.get(notNullProjectId) + PreviewDatabaseFactory.H2_FILE_SUFFIX);
-      return fileToByte(dbFile);
-    } finally {
-      rwl.readLock().unlock();
+    lastAccessPerProject.put(notNullProjectId, System.currentTimeMillis());
+
+    File dbFile = getCachedDatabase(projectId);
+    byte[] content = dbFile != null ? readDatabase(notNullProjectId, dbFile) : null;
+    if (content == null) {
+      // Nothing to serve yet, or the database has just been removed, the caller has to wait for the generation
+      return generateAndRead(projectId);
     }
+
+    if (!isValid(projectId, lastTimestampPerProject.get(notNullProjectId))) {
+      // Stale database is served while a new one is generated
+      scheduleRegeneration(projectId);
+    }
+    return content;
   }
 
-  private boolean isCacheValid(@Nullable Long projectId) {
+  @CheckForNull
+  private File getCachedDatabase(@Nullable Long projectId) {
     long notNullProjectId = projectId != null ? projectId.longValue() : 0L;
     Long lastTimestampInCache = lastTimestampPerProject.get(notNullProjectId);
     LOG.debug("Timestamp of last cached DB is {}", lastTimestampInCache);
-    if (lastTimestampInCache != null && isValid(projectId, lastTimestampInCache.longValue())) {
-      File dbFile = new File(getCacheLocation(projectId), lastTimestampInCache + PreviewDatabaseFactory.H2_FILE_SUFFIX);
+    if (lastTimestampInCache != null) {
+      File dbFile = getDatabaseFile(projectId, lastTimestampInCache);
       LOG.debug("Look for existence of cached DB at {}", dbFile);
       if (dbFile.exists()) {
         LOG.debug("Found cached DB at {}", dbFile);
-        return true;
+        return dbFile;
+      }
+    }
+    return null;
+  }
+
+  private File getDatabaseFile(@Nullable Long projectId, long timestamp) {
+    return new File(getCacheLocation(projectId), timestamp + PreviewDatabaseFactory.H2_FILE_SUFFIX);
+  }
+
+  private void scheduleRegeneration(@Nullable final Long projectId) {
+    final long notNullProjectId = projectId != null ? projectId.longValue() : 0L;
+    if (regeneratingProjects.add(notNullProjectId)) {
+      regenerationExecutor.execute(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            generateIfNeeded(projectId, true);
+          } catch (Exception e) {
+            LOG.error("Unable to generate preview database of project [id=" + projectId + "]", e);
+          } finally {
+            regeneratingProjects.remove(notNullProjectId);
+          }
+        }
+      });
+    }
+  }
+
+  /**
+   * Generates a new database if the cached one is missing or outdated. Generations are serialized per project.
+   */
+  private File generateIfNeeded(@Nullable Long projectId, boolean onlyIfOutdated) {
+    long notNullProjectId = projectId != null ? projectId.longValue() : 0L;
+    Lock lock = getLock(notNullProjectId);
+    lock.lock();
+    try {
+      // recheck, another thread may have generated it
+      File dbFile = getCachedDatabase(projectId);
+      if (dbFile != null && (!onlyIfOutdated || isValid(projectId, lastTimestampPerProject.get(notNullProjectId)))) {
+        return dbFile;
       }
+      return generateNewDB(projectId);
+    } finally {
+      lock.unlock();
     }
-    return false;
   }
 
-  private void generateNewDB(@Nullable Long projectId) {
+  private byte[] generateAndRead(@Nullable Long projectId) {
+    long notNullProjectId = projectId != null ? projectId.longValue() : 0L;
+    Lock lock = getLock(notNullProjectId);
+    lock.lock();
+    try {
+      File dbFile = generateIfNeeded(projectId, false);
+      byte[] content = readDatabase(notNullProjectId, dbFile);
+      if (content == null) {
+        throw new SonarException("Preview database has been removed before being read: " + dbFile);
+      }
+      return content;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private File generateNewDB(@Nullable Long projectId) {
     if (projectId != null) {
       LOG.debug("Generate new preview database for project [id={}]", projectId);
     } else {
@@ -122,25 +235,129 @@ public class PreviewCache implements ServerExtension {
     long notNullProjectId = projectId != null ? projectId.longValue() : 0L;
     long newTimestamp = System.currentTimeMillis();
     File cacheLocation = getCacheLocation(projectId);
-    FileUtils.deleteQuietly(cacheLocation);
     File dbFile = previewDatabaseFactory.createNewDatabaseForDryRun(projectId, cacheLocation, String.valueOf(newTimestamp));
     LOG.debug("Cached DB at {}", dbFile);
-    lastTimestampPerProject.put(notNullProjectId, newTimestamp);
+    Long previousTimestamp = lastTimestampPerProject.put(notNullProjectId, newTimestamp);
+    deleteOldDatabases(projectId, newTimestamp, previousTimestamp);
+    capDiskUsage(notNullProjectId);
+    return dbFile;
+  }
+
+  /**
+   * Keeps the new database and the previous one, which may still be read by some callers
+   */
+  private void deleteOldDatabases(@Nullable Long projectId, long newTimestamp, @Nullable Long previousTimestamp) {
+    File[] files = getCacheLocation(projectId).listFiles();
+    if (files == null) {
+      return;
+    }
+    Lock lock = getFilesLock(projectId != null ? projectId.longValue() : 0L).writeLock();
+    lock.lock();
+    try {
+      for (File file : files) {
+        String name = file.getName();
+        if (!name.startsWith(newTimestamp + ".") && (previousTimestamp == null || !name.startsWith(previousTimestamp + "."))) {
+          FileUtils.deleteQuietly(file);
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Removes the databases of the least recently used projects while the cache is bigger than the allowed size.
+   */
+  private synchronized void capDiskUsage(long generatedProjectId) {
+    File root = getRootCacheLocation();
+    long size = root.exists() ? FileUtils.sizeOfDirectory(root) : 0L;
+    Set<Long> busyProjects = Sets.newHashSet(generatedProjectId);
+    while (size > maxSizeInBytes) {
+      Long leastRecentlyUsed = null;
+      long oldestAccess = Long.MAX_VALUE;
+      for (Map.Entry<Long, Long> entry : lastTimestampPerProject.entrySet()) {
+        Long projectId = entry.getKey();
+        Long lastAccess = lastAccessPerProject.get(projectId);
+        long access = lastAccess != null ? lastAccess : 0L;
+        if (!busyProjects.contains(projectId) && access < oldestAccess) {
+          oldestAccess = access;
+          leastRecentlyUsed = projectId;
+        }
+      }
+      if (leastRecentlyUsed == null) {
+        return;
+      }
+      // the database of a project being generated or read by a waiting caller is kept
+      Lock generationLock = getLock(leastRecentlyUsed);
+      if (generationLock.tryLock()) {
+        try {
+          removeDatabases(leastRecentlyUsed);
+        } finally {
+          generationLock.unlock();
+        }
+        size = FileUtils.sizeOfDirectory(root);
+      } else {
+        busyProjects.add(leastRecentlyUsed);
+      }
+    }
   }
 
-  private byte[] fileToByte(File dbFile) {
+  private void removeDatabases(long notNullProjectId) {
+    LOG.debug("Remove preview database of project [id={}] to limit disk usage", notNullProjectId);
+    lastTimestampPerProject.remove(notNullProjectId);
+    lastAccessPerProject.remove(notNullProjectId);
+    Lock lock = getFilesLock(notNullProjectId).writeLock();
+    lock.lock();
     try {
+      FileUtils.deleteQuietly(getCacheLocation(notNullProjectId != 0L ? notNullProjectId : null));
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Reads the database while holding the read lock of the project, so that it can't be deleted meanwhile.
+   *
+   * @return null if the database has been deleted
+   */
+  @CheckForNull
+  private byte[] readDatabase(long notNullProjectId, File dbFile) {
+    Lock lock = getFilesLock(notNullProjectId).readLock();
+    lock.lock();
+    try {
+      if (!dbFile.exists()) {
+        return null;
+      }
       return Files.toByteArray(dbFile);
     } catch (IOException e) {
       throw new SonarException("Unable to create h2 database file", e);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private ReadWriteLock getFilesLock(long notNullProjectId) {
+    ReadWriteLock lock = filesLockPerProject.get(notNullProjectId);
+    if (lock == null) {
+      ReadWriteLock newLock = new ReentrantReadWriteLock();
+      lock = filesLockPerProject.putIfAbsent(notNullProjectId, newLock);
+      if (lock == null) {
+        lock = newLock;
+      }
     }
+    return lock;
   }
 
-  private synchronized ReadWriteLock getLock(long notNullProjectId) {
-    if (!lockPerProject.containsKey(notNullProjectId)) {
-      lockPerProject.put(notNullProjectId, new ReentrantReadWriteLock(true));
+  private Lock getLock(long notNullProjectId) {
+    Lock lock = lockPerProject.get(notNullProjectId);
+    if (lock == null) {
+      Lock newLock = new ReentrantLock();
+      lock = lockPerProject.putIfAbsent(notNullProjectId, newLock);
+      if (lock == null) {
+        lock = newLock;
+      }
     }
-    return lockPerProject.get(notNullProjectId);
+    return lock;
   }
 
   private File getRootCacheLocation() {
@@ -151,7 +368,10 @@ public class PreviewCache implements ServerExtension {
     return new File(getRootCacheLocation(), projectId != null ? projectId.toString() : "default");
   }
 
-  private boolean isValid(@Nullable Long projectId, long lastTimestampInCache) {
+  private boolean isValid(@Nullable Long projectId, @Nullable Long lastTimestampInCache) {
+    if (lastTimestampInCache == null) {
+      return false;
+    }
     long globalTimestamp = getModificationTimestamp(null);
     if (globalTimestamp > lastTimestampInCache) {
       return false;
@@ -165,6 +385,15 @@ public class PreviewCache implements ServerExtension {
     return true;
   }
 
+  /**
+   * Timestamp of the last modification of global data like rules and quality profiles, or 0 if none was reported yet.
+   *
+   * @since 4.4
+   */
+  public long getGlobalModificationTimestamp() {
+    return getModificationTimestamp(null);
+  }
+
   private long getModificationTimestamp(@Nullable Long projectId) {
     if (projectId == null) {
       PropertyDto dto = propertiesDao.selectGlobalProperty(SONAR_PREVIEW_CACHE_LAST_UPDATE_KEY);
@@ -187,6 +416,7 @@ public class PreviewCache implements ServerExtension {
 
   public void cleanAll() {
     // Delete folder where preview DBs are stored
+    lastTimestampPerProject.clear();
     FileUtils.deleteQuietly(getRootCacheLocation());
     // Delete all lastUpdate properties to force generation of new DB
     propertiesDao.deleteAllProperties(SONAR_PREVIEW_CACHE_LAST_UPDATE_KEY);
@@ -21,9 +21,15 @@ package org.sonar.core.purge;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import org.apache.ibatis.session.SqlSession;
+import org.sonar.core.measure.MeasureSeries;
+import org.sonar.core.measure.db.MeasureSeriesDto;
+import org.sonar.core.measure.db.MeasureSeriesMapper;
 
+import java.util.Date;
 import java.util.List;
+import java.util.Set;
 
 class PurgeCommands {
 
@@ -173,6 +179,13 @@ class PurgeCommands {
     session.commit();
     profiler.stop();
 
+    profiler.start("deleteSnapshotMeasureSeries (measure_series)");
+    for (List<Long> partSnapshotIds : snapshotIdsPartition) {
+      deleteMeasureSeriesPoints(partSnapshotIds);
+    }
+    session.commit();
+    profiler.stop();
+
     profiler.start("deleteSnapshotMeasures (project_measures)");
     for (List<Long> partSnapshotIds : snapshotIdsPartition) {
       purgeMapper.deleteSnapshotMeasures(partSnapshotIds);
@@ -229,6 +242,29 @@ class PurgeCommands {
     profiler.stop();
   }
 
+  /**
+   * Removes the points of the deleted snapshots from the measure series of projects and modules. The other points are
+   * kept, so that series do not have to be rebuilt from all the past measures.
+   */
+  private void deleteMeasureSeriesPoints(List<Long> snapshotIds) {
+    MeasureSeriesMapper seriesMapper = session.getMapper(MeasureSeriesMapper.class);
+    for (Long resourceId : purgeMapper.selectProjectIdsOfSnapshots(snapshotIds)) {
+      Set<Long> dates = Sets.newHashSet();
+      for (Date date : purgeMapper.selectSnapshotDates(resourceId, snapshotIds)) {
+        dates.add(date.getTime());
+      }
+      for (MeasureSeriesDto dto : seriesMapper.selectByResource(resourceId)) {
+        MeasureSeries series = dto.getSeries();
+        MeasureSeries remaining = series.without(dates);
+        if (remaining.isEmpty()) {
+          seriesMapper.delete(dto.getId());
+        } else if (remaining.size() < series.size()) {
+          seriesMapper.update(dto.setSeries(remaining));
+        }
+      }
+    }
+  }
+
   private void deleteSnapshotData(final List<List<Long>> snapshotIdsPartition) {
     profiler.start("deleteSnapshotData (snapshot_data)");
     for (List<Long> partSnapshotIds : snapshotIdsPartition) {
@@ -263,6 +299,13 @@ class PurgeCommands {
     }
     session.commit();
     profiler.stop();
+
+    profiler.start("deleteSnapshotDuplicationBlocks (duplication_blocks)");
+    for (List<Long> partSnapshotIds : snapshotIdsPartition) {
+      purgeMapper.deleteSnapshotDuplicationBlocks(partSnapshotIds);
+    }
+    session.commit();
+    profiler.stop();
   }
 
   private void deleteSnapshotDependencies(final List<List<Long>> snapshotIdsPartition) {
@@ -44,6 +44,8 @@ public interface PurgeMapper {
 
   void deleteSnapshotDuplications(@Param("snapshotIds") List<Long> snapshotIds);
 
+  void deleteSnapshotDuplicationBlocks(@Param("snapshotIds") List<Long> snapshotIds);
+
   void deleteSnapshotEvents(@Param("snapshotIds") List<Long> snapshotIds);
 
   void deleteSnapshotMeasures(@Param("snapshotIds") List<Long> snapshotIds);
@@ -54,6 +56,10 @@ public interface PurgeMapper {
 
   void deleteSnapshotData(@Param("snapshotIds") List<Long> snapshotIds);
 
+  List<Long> selectProjectIdsOfSnapshots(@Param("snapshotIds") List<Long> snapshotIds);
+
+  List<Date> selectSnapshotDates(@Param("resourceId") long resourceId, @Param("snapshotIds") List<Long> snapshotIds);
+
   List<Long> selectMetricIdsWithoutHistoricalData();
 
   void deleteSnapshotWastedMeasures(@Param("snapshotIds") List<Long> snapshotIds, @Param("mids") List<Long> metricIds);
@@ -110,6 +110,19 @@ public class ResourceDao {
     return session.getMapper(ResourceMapper.class).selectLastSnapshotByResourceId(resourceId);
   }
 
+  /**
+   * Components, enabled or not, having some issues that are not closed yet on the given root project.
+   * @since 4.4
+   */
+  public List<ResourceDto> getComponentsWithNonClosedIssues(long rootProjectId) {
+    SqlSession session = mybatis.openSession(false);
+    try {
+      return session.getMapper(ResourceMapper.class).selectComponentsWithNonClosedIssues(rootProjectId);
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+  }
+
   public List<ResourceDto> getDescendantProjects(long projectId) {
     SqlSession session = mybatis.openSession(false);
     try {
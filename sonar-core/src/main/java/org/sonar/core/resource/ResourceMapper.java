@@ -82,6 +82,11 @@ public interface ResourceMapper {
 
   ResourceDto selectProvisionedProject(@Param("key") String key);
 
+  /**
+   * @since 4.4
+   */
+  List<ResourceDto> selectComponentsWithNonClosedIssues(@Param("rootProjectId") long rootProjectId);
+
   void insert(ResourceDto resource);
 
   void update(ResourceDto resource);
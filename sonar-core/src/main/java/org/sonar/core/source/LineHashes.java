@@ -0,0 +1,101 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.source;
+
+import com.google.common.collect.Lists;
+import org.apache.commons.lang.StringUtils;
+
+import java.util.List;
+
+/**
+ * Hashes of the lines of a source file, as used by issue tracking to match lines
+ * between two analyses. Whitespaces are ignored. Lines are split after each '\n',
+ * so a source ending with a line feed has no trailing empty line.
+ *
+ * @since 4.4
+ */
+public final class LineHashes {
+
+  private static final char SEPARATOR = ',';
+  private static final int RADIX = 36;
+
+  private LineHashes() {
+    // only static methods
+  }
+
+  public static int[] compute(String source) {
+    List<Integer> hashes = Lists.newArrayList();
+    int start = 0;
+    int length = source.length();
+    while (start < length) {
+      int end = source.indexOf('\n', start);
+      end = end < 0 ? length : end + 1;
+      hashes.add(hash(source, start, end));
+      start = end;
+    }
+    int[] result = new int[hashes.size()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = hashes.get(i);
+    }
+    return result;
+  }
+
+  /**
+   * Hash of the region [start, end[ of content, whitespaces being ignored.
+   */
+  public static int hash(CharSequence content, int start, int end) {
+    int hash = 5381;
+    for (int i = start; i < end; i++) {
+      char c = content.charAt(i);
+      if (!Character.isWhitespace(c)) {
+        hash = ((hash << 5) + hash) + (c & 0xff);
+      }
+    }
+    return hash;
+  }
+
+  public static String format(int[] hashes) {
+    StringBuilder sb = new StringBuilder(hashes.length * 7);
+    for (int i = 0; i < hashes.length; i++) {
+      if (i > 0) {
+        sb.append(SEPARATOR);
+      }
+      sb.append(Integer.toString(hashes[i], RADIX));
+    }
+    return sb.toString();
+  }
+
+  public static int[] parse(String data) {
+    if (data.isEmpty()) {
+      return new int[0];
+    }
+    int[] hashes = new int[StringUtils.countMatches(data, String.valueOf(SEPARATOR)) + 1];
+    int start = 0;
+    for (int i = 0; i < hashes.length; i++) {
+      int end = data.indexOf(SEPARATOR, start);
+      if (end < 0) {
+        end = data.length();
+      }
+      hashes[i] = Integer.parseInt(data.substring(start, end), RADIX);
+      start = end + 1;
+    }
+    return hashes;
+  }
+}
@@ -30,4 +30,11 @@ public interface SnapshotDataTypes {
    * @since 4.0
    */
   String FILE_HASHES = "file_hashes";
+
+  /**
+   * Comma-separated hashes of the lines of a file, whitespaces being ignored. Stored on files.
+   * @see LineHashes
+   * @since 4.4
+   */
+  String LINE_HASHES = "line_hashes";
 }
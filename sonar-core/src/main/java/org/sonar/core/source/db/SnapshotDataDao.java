@@ -20,6 +20,8 @@
 
 package org.sonar.core.source.db;
 
+import com.google.common.collect.ImmutableMap;
+import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.SqlSession;
 import org.sonar.api.BatchComponent;
 import org.sonar.api.ServerComponent;
@@ -27,6 +29,7 @@ import org.sonar.core.persistence.MyBatis;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @since 3.6
@@ -64,6 +67,22 @@ public class SnapshotDataDao implements BatchComponent, ServerComponent {
     return mapper.selectSnapshotDataByComponentKey(componentKey, dataTypes);
   }
 
+  /**
+   * Streams the data of the given type of the last snapshots of all the files of a module
+   * in a single query. The field {@link SnapshotDataDto#getComponentKey()} is loaded.
+   *
+   * @since 4.4
+   */
+  public void selectLastModuleFilesData(String moduleKey, String dataType, ResultHandler handler) {
+    SqlSession session = mybatis.openSession(false);
+    try {
+      Map<String, String> params = ImmutableMap.of("moduleKey", moduleKey, "dataType", dataType);
+      session.select("org.sonar.core.source.db.SnapshotDataMapper.selectLastModuleFilesData", params, handler);
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+  }
+
   void insert(SnapshotDataDto snapshotData) {
     SqlSession session = mybatis.openSession(false);
     try {
@@ -30,6 +30,7 @@ public class SnapshotDataDto {
   private long resourceId;
   private String data;
   private String dataType;
+  private String componentKey;
 
   public long getSnapshotId() {
     return snapshotId;
@@ -70,4 +71,16 @@ public class SnapshotDataDto {
   public void setDataType(String dataType) {
     this.dataType = dataType;
   }
+
+  /**
+   * Only loaded by the queries on several components
+   * @since 4.4
+   */
+  public String getComponentKey() {
+    return componentKey;
+  }
+
+  public void setComponentKey(String componentKey) {
+    this.componentKey = componentKey;
+  }
 }
@@ -20,6 +20,7 @@
 
 package org.sonar.core.source.db;
 
+import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.SqlSession;
 import org.sonar.api.ServerComponent;
 import org.sonar.core.persistence.MyBatis;
@@ -66,4 +67,15 @@ public class SnapshotSourceDao implements ServerComponent {
     }
   }
 
+  /**
+   * Streams the sources of all the files attached to the last snapshot of the given root project.
+   */
+  public void selectLastSnapshotSourcesByRootProjectId(long rootProjectId, ResultHandler handler) {
+    SqlSession session = mybatis.openSession(false);
+    try {
+      session.select("org.sonar.core.source.db.SnapshotSourceMapper.selectLastSnapshotSourcesByRootProjectId", rootProjectId, handler);
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+  }
 }
@@ -0,0 +1,59 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.source.db;
+
+/**
+ * Source of a file attached to the last snapshot of its project, with the language required to colorize it.
+ *
+ * @since 4.4
+ */
+public class SnapshotSourceDto {
+
+  private long snapshotId;
+  private String language;
+  private String data;
+
+  public long getSnapshotId() {
+    return snapshotId;
+  }
+
+  public SnapshotSourceDto setSnapshotId(long snapshotId) {
+    this.snapshotId = snapshotId;
+    return this;
+  }
+
+  public String getLanguage() {
+    return language;
+  }
+
+  public SnapshotSourceDto setLanguage(String language) {
+    this.language = language;
+    return this;
+  }
+
+  public String getData() {
+    return data;
+  }
+
+  public SnapshotSourceDto setData(String data) {
+    this.data = data;
+    return this;
+  }
+}
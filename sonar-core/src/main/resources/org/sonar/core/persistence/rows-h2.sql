@@ -227,6 +227,8 @@ INSERT INTO SCHEMA_MIGRATIONS(VERSION) VALUES ('525');
 INSERT INTO SCHEMA_MIGRATIONS(VERSION) VALUES ('526');
 INSERT INTO SCHEMA_MIGRATIONS(VERSION) VALUES ('530');
 INSERT INTO SCHEMA_MIGRATIONS(VERSION) VALUES ('531');
+INSERT INTO SCHEMA_MIGRATIONS(VERSION) VALUES ('532');
+INSERT INTO SCHEMA_MIGRATIONS(VERSION) VALUES ('533');
 
 INSERT INTO USERS(ID, LOGIN, NAME, EMAIL, CRYPTED_PASSWORD, SALT, CREATED_AT, UPDATED_AT, REMEMBER_TOKEN, REMEMBER_TOKEN_EXPIRES_AT) VALUES (1, 'admin', 'Administrator', '', 'a373a0e667abb2604c1fd571eb4ad47fe8cc0878', '48bc4b0d93179b5103fd3885ea9119498e9d161b', '2011-09-26 22:27:48.0', '2011-09-26 22:27:48.0', null, null);
 ALTER TABLE USERS ALTER COLUMN ID RESTART WITH 2;
@@ -0,0 +1,108 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.component;
+
+import com.google.common.collect.Iterables;
+import com.tinkerpop.blueprints.Graph;
+import org.apache.commons.codec.binary.Base64;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonar.api.component.mock.MockSourceFile;
+import org.sonar.api.test.MutableTestPlan;
+import org.sonar.core.graph.SubGraph;
+import org.sonar.core.graph.binary.BinaryGraphWriter;
+import org.sonar.core.graph.graphson.GraphsonMode;
+import org.sonar.core.graph.graphson.GraphsonWriter;
+import org.sonar.core.graph.jdbc.GraphDao;
+import org.sonar.core.graph.jdbc.GraphDto;
+import org.sonar.core.test.TestPlanBuilder;
+import org.sonar.core.test.TestPlanPerspectiveLoader;
+
+import java.io.StringWriter;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SnapshotPerspectivesTest {
+
+  GraphDao dao = mock(GraphDao.class);
+  SnapshotPerspectives perspectives;
+  Graph testPlanGraph;
+  String rootVertexId;
+
+  @Before
+  public void setUp() throws Exception {
+    ScanGraph graph = ScanGraph.create();
+    TestPlanPerspectiveLoader loader = new TestPlanPerspectiveLoader();
+    TestPlanBuilder builder = new TestPlanBuilder(graph, loader);
+    ComponentVertex file = graph.addComponent(MockSourceFile.createMain("org.foo.BarTest"));
+    builder.create(file).addTestCase("should_pass").setDurationInMs(12L);
+    testPlanGraph = SubGraph.extract(file.element(), builder.path());
+    rootVertexId = file.element().getId().toString();
+
+    perspectives = new SnapshotPerspectives(dao, new GraphPerspectiveLoader[] {loader});
+  }
+
+  @Test
+  public void load_binary_perspective() throws Exception {
+    when(dao.selectBySnapshot("testplan", 11L)).thenReturn(new GraphDto().setSnapshotId(11L).setPerspective("testplan").setRootVertexId(rootVertexId)
+      .setFormat(GraphDto.FORMAT_BINARY).setData(Base64.encodeBase64String(new BinaryGraphWriter().write(testPlanGraph))));
+
+    MutableTestPlan testPlan = perspectives.as(MutableTestPlan.class, 11L);
+
+    assertThat(Iterables.size(testPlan.testCases())).isEqualTo(1);
+    assertThat(Iterables.getOnlyElement(testPlan.testCasesByName("should_pass")).durationInMs()).isEqualTo(12L);
+  }
+
+  @Test
+  public void load_graphson_perspective() throws Exception {
+    StringWriter graphson = new StringWriter();
+    new GraphsonWriter().write(testPlanGraph, graphson, GraphsonMode.EXTENDED);
+    when(dao.selectBySnapshot("testplan", 11L)).thenReturn(new GraphDto().setSnapshotId(11L).setPerspective("testplan").setRootVertexId(rootVertexId)
+      .setFormat(GraphDto.FORMAT_GRAPHSON).setData(graphson.toString()));
+
+    MutableTestPlan testPlan = perspectives.as(MutableTestPlan.class, 11L);
+
+    assertThat(Iterables.getOnlyElement(testPlan.testCasesByName("should_pass")).durationInMs()).isEqualTo(12L);
+  }
+
+  @Test
+  public void decode_graph_once() throws Exception {
+    when(dao.selectSnapshotIdByComponent("testplan", "org.foo.BarTest")).thenReturn(11L);
+    when(dao.selectBySnapshot("testplan", 11L)).thenReturn(new GraphDto().setSnapshotId(11L).setPerspective("testplan").setRootVertexId(rootVertexId)
+      .setFormat(GraphDto.FORMAT_BINARY).setData(Base64.encodeBase64String(new BinaryGraphWriter().write(testPlanGraph))));
+
+    assertThat(perspectives.as(MutableTestPlan.class, 11L)).isNotNull();
+    assertThat(perspectives.as(MutableTestPlan.class, "org.foo.BarTest")).isNotNull();
+
+    verify(dao, times(1)).selectBySnapshot("testplan", 11L);
+    assertThat(perspectives.stats().loadCount()).isEqualTo(1L);
+    assertThat(perspectives.stats().hitCount()).isEqualTo(1L);
+  }
+
+  @Test
+  public void missing_perspective() throws Exception {
+    assertThat(perspectives.as(MutableTestPlan.class, 11L)).isNull();
+    assertThat(perspectives.as(MutableTestPlan.class, "org.foo.BarTest")).isNull();
+  }
+}
@@ -57,4 +57,29 @@ public class DependencyMapperTest extends AbstractDaoTestCase {
     assertThat(dep.getToSnapshotId()).isEqualTo(1001L);
     assertThat(dep.getUsage()).isEqualTo("compile");
   }
+
+  @Test
+  public void should_insert_and_select_by_project_snapshot() {
+    setupData("fixture");
+
+    SqlSession session = getMyBatis().openSession();
+    try {
+      DependencyMapper mapper = session.getMapper(DependencyMapper.class);
+      mapper.insert(new DependencyDto().setProjectSnapshotId(3000L)
+        .setFromSnapshotId(3001L).setFromResourceId(301L).setFromScope("PRJ")
+        .setToSnapshotId(3002L).setToResourceId(302L).setToScope("PRJ")
+        .setUsage("USES").setWeight(2).setParentDependencyId(1L));
+      session.commit();
+
+      List<DependencyDto> dependencies = mapper.selectByProjectSnapshot(3000L);
+      assertThat(dependencies).hasSize(1);
+      assertThat(dependencies.get(0).getId()).isNotNull();
+      assertThat(dependencies.get(0).getFromSnapshotId()).isEqualTo(3001L);
+      assertThat(dependencies.get(0).getToSnapshotId()).isEqualTo(3002L);
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+    checkTable("should_insert", "dependencies", "from_snapshot_id", "from_resource_id", "from_scope", "to_snapshot_id", "to_resource_id",
+      "to_scope", "dep_weight", "dep_usage", "project_snapshot_id", "parent_dependency_id");
+  }
 }
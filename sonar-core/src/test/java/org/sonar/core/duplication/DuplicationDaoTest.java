@@ -66,4 +66,62 @@ public class DuplicationDaoTest extends AbstractDaoTestCase {
     checkTables("shouldInsert", "duplications_index");
   }
 
+  @Test
+  public void insert_blocks() throws Exception {
+    dao.insertBlocks(Arrays.asList(
+      new DuplicationBlockDto().setSnapshotId(11).setGroupIndex(0).setComponentKey("prj:Foo").setStartLine(1).setEndLine(10),
+      new DuplicationBlockDto().setSnapshotId(11).setGroupIndex(0).setComponentKey("prj:Bar").setStartLine(5).setEndLine(14)));
+
+    checkTables("insert_blocks", "duplication_blocks");
+  }
+
+  @Test
+  public void select_blocks() throws Exception {
+    setupData("blocks");
+
+    List<DuplicationBlockDto> blocks = dao.selectBlocks(11);
+    assertThat(blocks.size(), is(4));
+    DuplicationBlockDto block = blocks.get(1);
+    assertThat(block.getSnapshotId(), is(11));
+    assertThat(block.getGroupIndex(), is(0));
+    assertThat(block.getComponentKey(), is("prj:Bar"));
+    assertThat(block.getStartLine(), is(5));
+    assertThat(block.getEndLine(), is(14));
+    assertThat(block.getLines(), is(10));
+    assertThat(blocks.get(2).getGroupIndex(), is(1));
+
+    assertThat(dao.selectBlocks(999).isEmpty(), is(true));
+  }
+
+  @Test
+  public void select_duplicating_file_keys() throws Exception {
+    setupData("blocks");
+
+    // old analyses are ignored
+    assertThat(dao.selectDuplicatingFileKeys("prj:Foo"), is(Arrays.asList("other:Baz", "prj:Bar")));
+    assertThat(dao.selectDuplicatingFileKeys("other:Baz"), is(Arrays.<String>asList()));
+    assertThat(dao.selectDuplicatingFileKeys("prj:Old").isEmpty(), is(true));
+  }
+
+  @Test
+  public void select_largest_groups() throws Exception {
+    setupData("blocks");
+
+    List<DuplicationGroupDto> groups = dao.selectLargestGroups("prj", 10);
+    assertThat(groups.size(), is(3));
+
+    DuplicationGroupDto largest = groups.get(0);
+    assertThat(largest.getSnapshotId(), is(11));
+    assertThat(largest.getFileKey(), is("prj:Foo"));
+    assertThat(largest.getGroupIndex(), is(1));
+    assertThat(largest.getBlocks(), is(2));
+    assertThat(largest.getLines(), is(60));
+    assertThat(groups.get(1).getFileKey(), is("prj:Bar"));
+    assertThat(groups.get(2).getFileKey(), is("prj:Foo"));
+
+    assertThat(dao.selectLargestGroups("prj", 1).size(), is(1));
+    assertThat(dao.selectLargestGroups("other", 10).size(), is(1));
+    assertThat(dao.selectLargestGroups("unknown", 10).isEmpty(), is(true));
+  }
+
 }
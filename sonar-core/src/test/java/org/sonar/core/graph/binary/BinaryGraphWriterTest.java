@@ -0,0 +1,115 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.graph.binary;
+
+import com.google.common.collect.ImmutableMap;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraphFactory;
+import org.junit.Test;
+import org.sonar.core.graph.graphson.GraphsonMode;
+import org.sonar.core.graph.graphson.GraphsonWriter;
+
+import java.io.StringWriter;
+import java.util.Arrays;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class BinaryGraphWriterTest {
+
+  @Test
+  public void write_and_read_graph() throws Exception {
+    Graph graph = TinkerGraphFactory.createTinkerGraph();
+
+    Graph copy = new BinaryGraphReader().read(new BinaryGraphWriter().write(graph), new TinkerGraph());
+
+    assertThat(copy.getVertices()).hasSize(6);
+    assertThat(copy.getEdges()).hasSize(6);
+    Vertex marko = copy.getVertex("1");
+    assertThat(marko.getProperty("name")).isEqualTo("marko");
+    assertThat(marko.getProperty("age")).isEqualTo(29);
+    Edge knows = copy.getEdge("7");
+    assertThat(knows.getLabel()).isEqualTo("knows");
+    assertThat(knows.getProperty("weight")).isEqualTo(0.5f);
+    assertThat(knows.getVertex(Direction.OUT).getId()).isEqualTo("1");
+    assertThat(knows.getVertex(Direction.IN).getId()).isEqualTo("2");
+  }
+
+  @Test
+  public void write_and_read_property_types() throws Exception {
+    TinkerGraph graph = new TinkerGraph();
+    Vertex test = graph.addVertex("1");
+    test.setProperty("name", "should_pass");
+    test.setProperty("dur", 12L);
+    test.setProperty("negative", -3L);
+    test.setProperty("ok", true);
+    test.setProperty("ratio", 0.25d);
+    test.setProperty("map", ImmutableMap.of("foo", "bar"));
+    test.setProperty("mixed", Arrays.asList("foo", 3, null));
+    Vertex testable = graph.addVertex("2");
+    Edge covers = graph.addEdge("3", test, testable, "covers");
+    covers.setProperty("lines", Arrays.asList(10, 11, 12, 5, 1000000));
+    covers.setProperty("empty", Arrays.asList());
+
+    Graph copy = new BinaryGraphReader().read(new BinaryGraphWriter().write(graph), new TinkerGraph());
+
+    Vertex testCopy = copy.getVertex("1");
+    assertThat(testCopy.getProperty("name")).isEqualTo("should_pass");
+    assertThat(testCopy.getProperty("dur")).isEqualTo(12L);
+    assertThat(testCopy.getProperty("negative")).isEqualTo(-3L);
+    assertThat(testCopy.getProperty("ok")).isEqualTo(true);
+    assertThat(testCopy.getProperty("ratio")).isEqualTo(0.25d);
+    assertThat(testCopy.getProperty("map")).isEqualTo(ImmutableMap.of("foo", "bar"));
+    assertThat(testCopy.getProperty("mixed")).isEqualTo(Arrays.asList("foo", 3, null));
+    Edge coversCopy = copy.getEdge("3");
+    assertThat(coversCopy.getProperty("lines")).isEqualTo(Arrays.asList(10, 11, 12, 5, 1000000));
+    assertThat(coversCopy.getProperty("empty")).isEqualTo(Arrays.asList());
+  }
+
+  @Test
+  public void be_more_compact_than_graphson() throws Exception {
+    TinkerGraph graph = new TinkerGraph();
+    Vertex testable = graph.addVertex(null);
+    for (int i = 0; i < 100; i++) {
+      Vertex test = graph.addVertex(null);
+      test.setProperty("name", "test" + i);
+      test.setProperty("status", "ok");
+      test.setProperty("dur", (long) i);
+      graph.addEdge(null, test, testable, "covers").setProperty("lines", Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 9, 10));
+    }
+    StringWriter graphson = new StringWriter();
+    new GraphsonWriter().write(graph, graphson, GraphsonMode.EXTENDED);
+
+    byte[] binary = new BinaryGraphWriter().write(graph);
+
+    assertThat(binary.length * 10).isLessThan(graphson.toString().length());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void fail_on_unsupported_property_type() throws Exception {
+    TinkerGraph graph = new TinkerGraph();
+    graph.addVertex("1").setProperty("foo", new Object());
+
+    new BinaryGraphWriter().write(graph);
+  }
+}
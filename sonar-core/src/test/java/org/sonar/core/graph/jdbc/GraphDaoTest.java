@@ -76,4 +76,11 @@ public class GraphDaoTest extends AbstractDaoTestCase {
   public void select_by_missing_component() {
     assertThat(dao.selectByComponent("testplan", "org.other:unknown")).isNull();
   }
+
+  @Test
+  public void select_snapshot_id_by_component() {
+    assertThat(dao.selectSnapshotIdByComponent("testplan", "org.apache.struts:struts")).isEqualTo(11L);
+    assertThat(dao.selectSnapshotIdByComponent("duplicable", "org.apache.struts:struts")).isNull();
+    assertThat(dao.selectSnapshotIdByComponent("testplan", "org.other:unknown")).isNull();
+  }
 }
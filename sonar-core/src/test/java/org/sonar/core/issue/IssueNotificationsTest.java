@@ -38,6 +38,7 @@ import org.sonar.core.component.ResourceComponent;
 
 import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 
 import static org.fest.assertions.Assertions.assertThat;
 import static org.mockito.Matchers.eq;
@@ -165,4 +166,29 @@ public class IssueNotificationsTest {
     assertThat(notification).isNull();
     Mockito.verifyZeroInteractions(manager);
   }
+
+  @Test
+  public void should_send_changes_of_issues_at_once() throws Exception {
+    IssueChangeContext context = IssueChangeContext.createUser(new Date(), "charlie");
+    DefaultIssue changed = new DefaultIssue()
+      .setKey("ABCDE")
+      .setFieldChange(context, "severity", "MINOR", "MAJOR")
+      .setSendNotifications(true)
+      .setComponentKey("struts:Action")
+      .setProjectKey("struts");
+    DefaultIssue notNotified = new DefaultIssue()
+      .setKey("FGHIJ")
+      .setComponentKey("struts:Action")
+      .setProjectKey("struts");
+    DefaultIssueQueryResult queryResult = new DefaultIssueQueryResult(Arrays.<Issue>asList(changed, notNotified));
+    queryResult.addProjects(Arrays.<Component>asList(new Project("struts")));
+
+    List<Notification> notifications = issueNotifications.sendChanges(Arrays.asList(changed, notNotified), context, queryResult);
+
+    assertThat(notifications).hasSize(1);
+    assertThat(notifications.get(0).getFieldValue("key")).isEqualTo("ABCDE");
+    assertThat(notifications.get(0).getFieldValue("changeAuthor")).isEqualTo("charlie");
+    assertThat(notifications.get(0).getFieldValue("new.severity")).isEqualTo("MAJOR");
+    Mockito.verify(manager).scheduleForSending(eq(notifications));
+  }
 }
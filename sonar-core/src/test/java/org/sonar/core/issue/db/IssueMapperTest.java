@@ -27,6 +27,8 @@ import org.sonar.api.utils.DateUtils;
 import org.sonar.core.persistence.AbstractDaoTestCase;
 import org.sonar.core.persistence.MyBatis;
 
+import java.util.Arrays;
+
 import static org.fest.assertions.Assertions.assertThat;
 
 public class IssueMapperTest extends AbstractDaoTestCase {
@@ -188,4 +190,12 @@ public class IssueMapperTest extends AbstractDaoTestCase {
 
     checkTables("updateBeforeSelectedDate_with_conflict", new String[]{"id"}, "issues");
   }
+
+  @Test
+  public void select_keys_updated_at() throws Exception {
+    setupData("testUpdate");
+
+    assertThat(mapper.selectKeysUpdatedAt(Arrays.asList("ABCDE", "UNKNOWN"), DateUtils.parseDate("2009-01-01"))).containsOnly("ABCDE");
+    assertThat(mapper.selectKeysUpdatedAt(Arrays.asList("ABCDE"), DateUtils.parseDate("2013-05-22"))).isEmpty();
+  }
 }
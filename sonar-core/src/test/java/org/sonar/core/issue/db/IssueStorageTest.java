@@ -19,6 +19,13 @@
  */
 package org.sonar.core.issue.db;
 
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
 import org.junit.Test;
 import org.sonar.api.issue.internal.DefaultIssue;
 import org.sonar.api.issue.internal.DefaultIssueComment;
@@ -32,8 +39,14 @@ import org.sonar.api.utils.Duration;
 import org.sonar.core.persistence.AbstractDaoTestCase;
 import org.sonar.core.persistence.MyBatis;
 
+import java.sql.Statement;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.fest.assertions.Assertions.assertThat;
 
 public class IssueStorageTest extends AbstractDaoTestCase {
 
@@ -147,6 +160,62 @@ public class IssueStorageTest extends AbstractDaoTestCase {
     checkTables("should_resolve_conflicts_on_updates", new String[]{"id", "created_at", "updated_at", "issue_change_creation_date"}, "issues");
   }
 
+  @Test
+  public void should_resolve_only_conflicting_updates_of_batch() throws Exception {
+    setupData("should_resolve_only_conflicting_updates_of_batch");
+
+    FakeSaver saver = new FakeSaver(getMyBatis(), new FakeRuleFinder());
+
+    // issue in database has been updated in 2013, after the loading by scan
+    DefaultIssue conflicting = newIssueToUpdate("ABCDE", DateUtils.parseDate("2005-01-01"));
+    // issue in database has been updated in 2013, before the loading by scan
+    DefaultIssue notConflicting = newIssueToUpdate("FGHIJ", DateUtils.parseDate("2014-01-01"));
+
+    saver.save(Arrays.asList(conflicting, notConflicting));
+
+    checkTables("should_resolve_only_conflicting_updates_of_batch", new String[]{"id", "created_at", "updated_at", "issue_change_creation_date"}, "issues");
+  }
+
+  @Test
+  public void separate_unknown_update_counts_from_conflicts() throws Exception {
+    Configuration conf = new Configuration();
+    MappedStatement statement = new MappedStatement.Builder(conf, "org.sonar.core.issue.db.IssueMapper.updateIfBeforeSelectedDate",
+      new StaticSqlSource(conf, "update issues"), SqlCommandType.UPDATE).build();
+    BatchResult result = new BatchResult(statement, "update issues");
+    Map<String, DefaultIssue> conditionalUpdates = Maps.newHashMap();
+    for (String key : Arrays.asList("UPDATED", "CONFLICT", "UNKNOWN")) {
+      conditionalUpdates.put(key, new DefaultIssue().setKey(key));
+      result.addParameterObject(new IssueDto().setKee(key));
+    }
+    // Oracle returns Statement.SUCCESS_NO_INFO (-2) for the statements of a batch
+    result.setUpdateCounts(new int[] {1, 0, Statement.SUCCESS_NO_INFO});
+
+    List<String> unknownKeys = Lists.newArrayList();
+    List<DefaultIssue> conflicts = IssueStorage.conflicts(Arrays.asList(result), conditionalUpdates, unknownKeys);
+
+    assertThat(conflicts).containsOnly(conditionalUpdates.get("CONFLICT"));
+    assertThat(unknownKeys).containsOnly("UNKNOWN");
+  }
+
+  private DefaultIssue newIssueToUpdate(String key, Date selectedAt) {
+    return new DefaultIssue()
+      .setKey(key)
+      .setNew(false)
+      .setChanged(true)
+      .setCreationDate(DateUtils.parseDate("2005-05-12"))
+      .setUpdateDate(DateUtils.parseDate("2013-05-18"))
+      .setRuleKey(RuleKey.of("squid", "AvoidCycles"))
+      .setComponentKey("struts:Action")
+      .setSelectedAt(selectedAt)
+      .setLine(444)
+      .setSeverity("BLOCKER")
+      .setChecksum("FFFFF")
+      .setAttribute("JIRA", "http://jira.com")
+      .setAssignee("looser")
+      .setResolution(null)
+      .setStatus("REOPEN");
+  }
+
   static class FakeSaver extends IssueStorage {
     protected FakeSaver(MyBatis mybatis, RuleFinder ruleFinder) {
       super(mybatis, ruleFinder);
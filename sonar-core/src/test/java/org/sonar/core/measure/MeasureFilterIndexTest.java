@@ -0,0 +1,205 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.measure;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonar.api.measures.CoreMetrics;
+import org.sonar.api.measures.Metric;
+import org.sonar.api.utils.DateUtils;
+import org.sonar.api.utils.System2;
+import org.sonar.core.persistence.AbstractDaoTestCase;
+import org.sonar.core.resource.SnapshotDto;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class MeasureFilterIndexTest extends AbstractDaoTestCase {
+
+  private static final Metric LINES = new Metric.Builder("lines", "Lines", Metric.ValueType.INT).create().setId(1);
+  private static final Metric ALERT = new Metric.Builder(CoreMetrics.ALERT_STATUS_KEY, "Alert", Metric.ValueType.LEVEL).create().setId(2);
+
+  System2 system = mock(System2.class);
+  MeasureFilterIndex index;
+
+  @Before
+  public void setUp() {
+    when(system.now()).thenReturn(1000L);
+    index = new MeasureFilterIndex(getMyBatis(), system, MoreExecutors.sameThreadExecutor());
+  }
+
+  @Test
+  public void should_index_last_snapshots_of_top_level_components() {
+    setupData("shared");
+
+    List<MeasureFilterRow> rows = index.execute(projects().setSortOnMetric(LINES).setSortAsc(false));
+
+    assertThat(index.size()).isEqualTo(2);
+    assertThat(rows).hasSize(2);
+    assertThat(rows.get(0).getSnapshotId()).isEqualTo(20L);
+    assertThat(rows.get(0).getResourceId()).isEqualTo(3L);
+    assertThat(rows.get(0).getResourceRootId()).isEqualTo(3L);
+    assertThat(rows.get(1).getSnapshotId()).isEqualTo(11L);
+  }
+
+  @Test
+  public void should_filter_on_measures() {
+    setupData("shared");
+
+    assertSnapshotIds(index.execute(projects().addCondition(new MeasureFilterCondition(LINES, MeasureFilterCondition.Operator.GREATER, 500.0))), 20L);
+    assertSnapshotIds(index.execute(projects().addCondition(new MeasureFilterCondition(LINES, MeasureFilterCondition.Operator.GREATER_OR_EQUALS, 500.0))), 11L, 20L);
+    assertSnapshotIds(index.execute(projects().addCondition(new MeasureFilterCondition(LINES, MeasureFilterCondition.Operator.EQUALS, 900.0))), 20L);
+    assertSnapshotIds(index.execute(projects().addCondition(new MeasureFilterCondition(ALERT, MeasureFilterCondition.Operator.IN, "('WARN', 'ERROR')"))), 11L);
+  }
+
+  @Test
+  public void should_filter_on_resource_key_and_dates() {
+    setupData("shared");
+
+    assertSnapshotIds(index.execute(projects().setResourceKey("StRu")), 11L);
+    assertSnapshotIds(index.execute(projects().setFromDate(DateUtils.parseDate("2012-01-01"))), 20L);
+    assertSnapshotIds(index.execute(projects().setToDate(DateUtils.parseDate("2012-01-01"))), 11L);
+  }
+
+  @Test
+  public void should_refresh_project() throws Exception {
+    setupData("shared");
+    index.execute(projects());
+
+    newAnalysisOfStrutsAndDeletionOfSonar();
+    index.refresh(1L);
+
+    // the other projects are not reloaded
+    assertThat(index.size()).isEqualTo(2);
+    assertSnapshotIds(index.execute(projects().addCondition(new MeasureFilterCondition(LINES, MeasureFilterCondition.Operator.GREATER, 950.0))), 30L);
+  }
+
+  @Test
+  public void should_not_refresh_if_not_loaded() {
+    setupData("shared");
+    index.refresh(1L);
+
+    assertThat(index.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void should_reload_when_too_old() throws Exception {
+    setupData("shared");
+    index.execute(projects());
+    assertThat(index.size()).isEqualTo(2);
+
+    newAnalysisOfStrutsAndDeletionOfSonar();
+    when(system.now()).thenReturn(1000L + MeasureFilterIndex.MAX_AGE_MS + 1);
+
+    // the previous index is used while the new one is loaded
+    assertSnapshotIds(index.execute(projects()), 11L, 20L);
+    assertSnapshotIds(index.execute(projects()), 30L);
+    assertThat(index.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void should_reload_only_once_at_a_time() throws Exception {
+    setupData("shared");
+    ExecutorService executor = mock(ExecutorService.class);
+    index = new MeasureFilterIndex(getMyBatis(), system, executor);
+    index.execute(projects());
+
+    when(system.now()).thenReturn(1000L + MeasureFilterIndex.MAX_AGE_MS + 1);
+    assertSnapshotIds(index.execute(projects()), 11L, 20L);
+    assertSnapshotIds(index.execute(projects()), 11L, 20L);
+
+    // reload is in progress
+    verify(executor, times(1)).execute(any(Runnable.class));
+  }
+
+  @Test
+  public void should_remove_deleted_project() {
+    setupData("shared");
+    index.execute(projects());
+
+    index.remove(3L);
+
+    assertThat(index.size()).isEqualTo(1);
+    assertSnapshotIds(index.execute(projects()), 11L);
+  }
+
+  @Test
+  public void should_support_filters_on_top_level_components() {
+    MeasureFilterContext context = new MeasureFilterContext();
+    assertThat(MeasureFilterIndex.supports(projects(), context)).isTrue();
+    assertThat(MeasureFilterIndex.supports(projects().setSortOnMetric(LINES), context)).isTrue();
+    assertThat(MeasureFilterIndex.supports(new MeasureFilter().setResourceQualifiers(Arrays.asList("TRK", "VW")), context)).isTrue();
+
+    assertThat(MeasureFilterIndex.supports(new MeasureFilter().setResourceQualifiers(Arrays.asList("TRK", "FIL")), context)).isFalse();
+    assertThat(MeasureFilterIndex.supports(new MeasureFilter(), context)).isFalse();
+    assertThat(MeasureFilterIndex.supports(projects().setUserFavourites(true), context)).isFalse();
+    assertThat(MeasureFilterIndex.supports(projects().setResourceName("struts"), context)).isFalse();
+    assertThat(MeasureFilterIndex.supports(projects().setSortOnMetric(LINES).setSortOnPeriod(1), context)).isFalse();
+    assertThat(MeasureFilterIndex.supports(projects().addCondition(new MeasureFilterCondition(LINES, MeasureFilterCondition.Operator.GREATER, 1.0).setPeriod(1)), context)).isFalse();
+    assertThat(MeasureFilterIndex.supports(projects().addCondition(new MeasureFilterCondition(ALERT, MeasureFilterCondition.Operator.EQUALS, "OK")), context)).isFalse();
+
+    MeasureFilterContext contextWithBase = new MeasureFilterContext();
+    contextWithBase.setBaseSnapshot(new SnapshotDto());
+    assertThat(MeasureFilterIndex.supports(projects(), contextWithBase)).isFalse();
+  }
+
+  @Test
+  public void should_parse_sql_list_of_values() {
+    assertThat(MeasureFilterIndex.parseInValues("('OK', 'ERROR')")).containsOnly("OK", "ERROR");
+    assertThat(MeasureFilterIndex.parseInValues("('OK')")).containsOnly("OK");
+    assertThat(MeasureFilterIndex.parseInValues("'OK'")).isNull();
+    assertThat(MeasureFilterIndex.parseInValues("(OK)")).isNull();
+    assertThat(MeasureFilterIndex.parseInValues("('O'K')")).isNull();
+  }
+
+  private void newAnalysisOfStrutsAndDeletionOfSonar() throws SQLException {
+    setupData("new_analysis");
+    Connection connection = getConnection();
+    try {
+      connection.createStatement().executeUpdate("UPDATE snapshots SET islast=false WHERE id=11");
+      connection.createStatement().executeUpdate("DELETE FROM snapshots WHERE id=20");
+      connection.commit();
+    } finally {
+      connection.close();
+    }
+  }
+
+  private static MeasureFilter projects() {
+    return new MeasureFilter().setResourceQualifiers(Arrays.asList("TRK"));
+  }
+
+  private static void assertSnapshotIds(List<MeasureFilterRow> rows, Long... snapshotIds) {
+    assertThat(rows).hasSize(snapshotIds.length);
+    for (int i = 0; i < snapshotIds.length; i++) {
+      assertThat(rows.get(i).getSnapshotId()).isEqualTo(snapshotIds[i]);
+    }
+  }
+}
@@ -0,0 +1,146 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.measure;
+
+import com.google.common.collect.Sets;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Fail.fail;
+
+public class MeasureSeriesTest {
+
+  @Test
+  public void add_points() {
+    MeasureSeries series = new MeasureSeries();
+    assertThat(series.isEmpty()).isTrue();
+    assertThat(series.lastDate()).isNull();
+
+    series.add(1000L, 12.0, null).add(2000L, null, "OK").add(3000L, 3.14, "B");
+
+    assertThat(series.size()).isEqualTo(3);
+    assertThat(series.lastDate()).isEqualTo(3000L);
+    assertThat(series.date(1)).isEqualTo(2000L);
+    assertThat(series.value(0)).isEqualTo(12.0);
+    assertThat(series.textValue(0)).isNull();
+    assertThat(series.value(1)).isNull();
+    assertThat(series.textValue(1)).isEqualTo("OK");
+    assertThat(series.value(2)).isEqualTo(3.14);
+    assertThat(series.textValue(2)).isEqualTo("B");
+  }
+
+  @Test
+  public void replace_last_point_with_same_date() {
+    MeasureSeries series = new MeasureSeries().add(1000L, 12.0, null).add(1000L, 13.0, null);
+
+    assertThat(series.size()).isEqualTo(1);
+    assertThat(series.value(0)).isEqualTo(13.0);
+  }
+
+  @Test
+  public void fail_to_add_point_before_last_one() {
+    MeasureSeries series = new MeasureSeries().add(2000L, 12.0, null);
+    try {
+      series.add(1000L, 13.0, null);
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertThat(e).hasMessage("Points must be added in chronological order");
+    }
+  }
+
+  @Test
+  public void remove_points_of_given_dates() {
+    MeasureSeries series = new MeasureSeries().add(1000L, 12.0, null).add(2000L, null, "OK").add(3000L, 3.14, "B");
+
+    MeasureSeries result = series.without(Sets.newHashSet(1000L, 3000L, 4000L));
+
+    assertThat(result.size()).isEqualTo(1);
+    assertThat(result.date(0)).isEqualTo(2000L);
+    assertThat(result.textValue(0)).isEqualTo("OK");
+    assertThat(series.size()).isEqualTo(3);
+    assertThat(series.without(Sets.newHashSet(1000L, 2000L, 3000L)).isEmpty()).isTrue();
+  }
+
+  @Test
+  public void encode_and_decode() {
+    MeasureSeries series = new MeasureSeries()
+      .add(1300000000000L, 12.0, null)
+      .add(1300000060000L, -5.0, null)
+      .add(1300000120000L, 0.1, null)
+      .add(1300000180000L, null, "été")
+      .add(1300000240000L, 2.0, "A")
+      .add(1300000300000L, -0.0, null)
+      .add(1300000360000L, 1e20, null)
+      .add(1300000420000L, null, null);
+
+    MeasureSeries decoded = MeasureSeries.decode(series.encode());
+
+    assertThat(decoded.size()).isEqualTo(8);
+    for (int i = 0; i < series.size(); i++) {
+      assertThat(decoded.date(i)).isEqualTo(series.date(i));
+      assertThat(decoded.value(i)).isEqualTo(series.value(i));
+      assertThat(decoded.textValue(i)).isEqualTo(series.textValue(i));
+    }
+  }
+
+  @Test
+  public void encode_integral_values_compactly() {
+    MeasureSeries series = new MeasureSeries();
+    for (int i = 0; i < 100; i++) {
+      series.add(1300000000000L + i * 86400000L, 15000.0 + i, null);
+    }
+
+    // 8 bytes per point instead of 17 : 4 bytes for the delta of date, 1 byte for flags and 3 bytes for value
+    assertThat(series.encode().length).isLessThan(100 * 9);
+    assertThat(MeasureSeries.decode(series.encode()).value(99)).isEqualTo(15099.0);
+  }
+
+  @Test
+  public void decode_empty_series() {
+    assertThat(MeasureSeries.decode(new MeasureSeries().encode()).isEmpty()).isTrue();
+  }
+
+  @Test
+  public void between_dates() {
+    MeasureSeries series = new MeasureSeries().add(1000L, 1.0, null).add(2000L, 2.0, null).add(3000L, 3.0, null);
+
+    assertThat(series.between(null, null).size()).isEqualTo(3);
+    assertThat(series.between(2000L, null).size()).isEqualTo(2);
+    assertThat(series.between(1500L, 2000L).size()).isEqualTo(1);
+    assertThat(series.between(1500L, 2000L).value(0)).isEqualTo(2.0);
+    assertThat(series.between(null, 999L).isEmpty()).isTrue();
+  }
+
+  @Test
+  public void downsample_keeps_last_point_of_each_bucket() {
+    MeasureSeries series = new MeasureSeries();
+    for (int i = 0; i < 10; i++) {
+      series.add(i * 100L, (double) i, null);
+    }
+
+    MeasureSeries downsampled = series.downsample(0L, 999L, 2);
+
+    assertThat(downsampled.size()).isEqualTo(2);
+    assertThat(downsampled.date(0)).isEqualTo(400L);
+    assertThat(downsampled.value(1)).isEqualTo(9.0);
+
+    assertThat(series.downsample(0L, 999L, 10)).isSameAs(series);
+  }
+}
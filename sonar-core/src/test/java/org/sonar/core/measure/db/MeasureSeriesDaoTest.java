@@ -0,0 +1,153 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.measure.db;
+
+import com.google.common.collect.Lists;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.SqlSession;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonar.api.utils.DateUtils;
+import org.sonar.core.measure.MeasureSeries;
+import org.sonar.core.persistence.AbstractDaoTestCase;
+import org.sonar.core.persistence.MyBatis;
+
+import javax.annotation.Nullable;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class MeasureSeriesDaoTest extends AbstractDaoTestCase {
+
+  MeasureSeriesDao dao;
+
+  @Before
+  public void createDao() {
+    dao = new MeasureSeriesDao(getMyBatis());
+    setupData("shared");
+  }
+
+  @Test
+  public void select_by_resource() {
+    List<MeasureSeriesDto> series = dao.selectByResource(1L);
+    assertThat(series).hasSize(1);
+    assertThat(series.get(0).getId()).isEqualTo(1L);
+    assertThat(series.get(0).getMetricId()).isEqualTo(1);
+    assertThat(series.get(0).getCharacteristicId()).isNull();
+    assertThat(series.get(0).getLastDate()).isEqualTo(DateUtils.parseDate("2010-12-20"));
+
+    assertThat(dao.selectByResource(2L)).isEmpty();
+  }
+
+  @Test
+  public void select_last_snapshot_date() {
+    assertThat(dao.selectLastSnapshotDate(1L)).isEqualTo(DateUtils.parseDate("2011-12-20"));
+    assertThat(dao.selectLastSnapshotDate(999L)).isNull();
+  }
+
+  @Test
+  public void select_project_ids() {
+    assertThat(dao.selectProjectIds(1L)).containsOnly(1L, 2L);
+    assertThat(dao.selectProjectIds(999L)).isEmpty();
+  }
+
+  @Test
+  public void select_points_of_processed_snapshots() {
+    List<MeasureSeriesPointDto> points = selectPoints(null);
+
+    assertThat(points).hasSize(4);
+    assertThat(points.get(0).getDate()).isEqualTo(DateUtils.parseDate("2010-12-20"));
+    assertThat(points.get(0).getValue()).isEqualTo(50.0);
+    assertThat(points.get(0).isDeleteHistoricalData()).isFalse();
+
+    MeasureSeriesPointDto distribution = null;
+    MeasureSeriesPointDto characteristic = null;
+    for (MeasureSeriesPointDto point : points) {
+      if (point.getMetricId() == 2) {
+        distribution = point;
+      } else if (point.getCharacteristicId() != null) {
+        characteristic = point;
+      }
+    }
+    assertThat(distribution.getTextValue()).isEqualTo("java=500");
+    assertThat(distribution.getValue()).isNull();
+    assertThat(distribution.isDeleteHistoricalData()).isTrue();
+    assertThat(characteristic.getCharacteristicId()).isEqualTo(7);
+    assertThat(characteristic.getValue()).isEqualTo(20.0);
+  }
+
+  @Test
+  public void select_points_after_date() {
+    List<MeasureSeriesPointDto> points = selectPoints(DateUtils.parseDate("2010-12-20"));
+
+    assertThat(points).hasSize(3);
+    for (MeasureSeriesPointDto point : points) {
+      assertThat(point.getDate()).isEqualTo(DateUtils.parseDate("2011-12-20"));
+    }
+  }
+
+  @Test
+  public void insert_and_update() {
+    MeasureSeriesDto dto = new MeasureSeriesDto()
+      .setResourceId(2L)
+      .setMetricId(1)
+      .setCharacteristicId(7)
+      .setSeries(new MeasureSeries().add(1000L, 12.0, null));
+    SqlSession session = getMyBatis().openSession();
+    try {
+      dao.insert(dto, session);
+      session.commit();
+
+      assertThat(dto.getId()).isNotNull();
+      dto.setSeries(dto.getSeries().add(2000L, 13.0, null));
+      dao.update(dto, session);
+      session.commit();
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+
+    List<MeasureSeriesDto> series = dao.selectByResource(2L);
+    assertThat(series).hasSize(1);
+    assertThat(series.get(0).getCharacteristicId()).isEqualTo(7);
+    assertThat(series.get(0).getLastDate().getTime()).isEqualTo(2000L);
+    MeasureSeries points = series.get(0).getSeries();
+    assertThat(points.size()).isEqualTo(2);
+    assertThat(points.value(1)).isEqualTo(13.0);
+  }
+
+  private List<MeasureSeriesPointDto> selectPoints(@Nullable Date after) {
+    final List<MeasureSeriesPointDto> points = Lists.newArrayList();
+    SqlSession session = getMyBatis().openSession();
+    try {
+      dao.selectPoints(1L, after, new ResultHandler() {
+        @Override
+        public void handleResult(ResultContext context) {
+          points.add((MeasureSeriesPointDto) context.getResultObject());
+        }
+      }, session);
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+    return points;
+  }
+}
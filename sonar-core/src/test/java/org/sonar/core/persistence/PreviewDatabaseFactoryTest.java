@@ -113,8 +113,8 @@ public class PreviewDatabaseFactoryTest extends AbstractDaoTestCase {
     dataSource = createDatabase(database);
     assertThat(rowCount("issues")).isEqualTo(1);
     assertThat(rowCount("projects")).isEqualTo(4);
-    assertThat(rowCount("snapshots")).isEqualTo(4);
-    assertThat(rowCount("snapshot_data")).isEqualTo(2);
+    assertThat(rowCount("snapshots")).isEqualTo(5);
+    assertThat(rowCount("snapshot_data")).isEqualTo(3);
     assertThat(rowCount("project_measures")).isEqualTo(4);
   }
 
@@ -127,7 +127,7 @@ public class PreviewDatabaseFactoryTest extends AbstractDaoTestCase {
     dataSource = createDatabase(database);
     assertThat(rowCount("issues")).isEqualTo(1);
     assertThat(rowCount("projects")).isEqualTo(2);
-    assertThat(rowCount("snapshots")).isEqualTo(2);
+    assertThat(rowCount("snapshots")).isEqualTo(3);
     assertThat(rowCount("project_measures")).isEqualTo(4);
   }
 
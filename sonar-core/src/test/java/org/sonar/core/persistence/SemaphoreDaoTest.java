@@ -27,6 +27,8 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.sonar.api.utils.Semaphores;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.CyclicBarrier;
@@ -90,6 +92,27 @@ public class SemaphoreDaoTest extends AbstractDaoTestCase {
     assertThat(selectSemaphore("foo")).isNull();
   }
 
+  @Test
+  public void update_several_semaphores() throws Exception {
+    dao.acquire("foo", 60);
+    dao.acquire("bar", 60);
+    dao.acquire("other", 60);
+    SemaphoreDto other = selectSemaphore("other");
+
+    Thread.sleep(1000);
+
+    dao.update(Arrays.asList("foo", "bar"));
+
+    SemaphoreDto foo = selectSemaphore("foo");
+    assertThat(foo.getCreatedAt().getTime()).isLessThan(foo.getUpdatedAt().getTime());
+    SemaphoreDto bar = selectSemaphore("bar");
+    assertThat(bar.getCreatedAt().getTime()).isLessThan(bar.getUpdatedAt().getTime());
+    assertThat(selectSemaphore("other").getUpdatedAt().getTime()).isEqualTo(other.getUpdatedAt().getTime());
+
+    // nothing to update
+    dao.update(Collections.<String>emptyList());
+  }
+
   @Test
   public void create_and_acquire_and_update_semaphore() throws Exception {
     Semaphores.Semaphore lock = dao.acquire("foo", 60);
@@ -25,6 +25,10 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.sonar.api.utils.Semaphores;
 
+import java.util.Arrays;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Matchers.anyCollectionOf;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -51,7 +55,46 @@ public class SemaphoreUpdaterTest extends AbstractDaoTestCase {
 
     Thread.sleep(2000);
 
-    verify(dao, atLeastOnce()).update(semaphore);
+    verify(dao, atLeastOnce()).update(Arrays.asList("foo"));
+    assertThat(updater.heldCount()).isEqualTo(1);
+    assertThat(updater.lastHeartbeatDurationInMs()).isGreaterThanOrEqualTo(0L);
+  }
+
+  @Test
+  public void should_update_semaphores_of_same_period_at_once() throws Exception {
+    updater.scheduleForUpdate(new Semaphores.Semaphore().setName("foo"), 1);
+    updater.scheduleForUpdate(new Semaphores.Semaphore().setName("bar"), 1);
+    assertThat(updater.heldCount()).isEqualTo(2);
+
+    Thread.sleep(1500);
+
+    verify(dao, atLeastOnce()).update(Arrays.asList("foo", "bar"));
+    verify(dao, never()).update(Arrays.asList("foo"));
+    verify(dao, never()).update(Arrays.asList("bar"));
+  }
+
+  @Test
+  public void should_keep_updating_other_semaphores_after_cancel() throws Exception {
+    updater.scheduleForUpdate(new Semaphores.Semaphore().setName("foo"), 1);
+    updater.scheduleForUpdate(new Semaphores.Semaphore().setName("bar"), 1);
+    updater.stopUpdate("foo");
+    assertThat(updater.heldCount()).isEqualTo(1);
+
+    Thread.sleep(1500);
+
+    verify(dao, atLeastOnce()).update(Arrays.asList("bar"));
+  }
+
+  @Test
+  public void should_stop_all_updates() throws Exception {
+    updater.scheduleForUpdate(new Semaphores.Semaphore().setName("foo"), 1);
+    updater.scheduleForUpdate(new Semaphores.Semaphore().setName("bar"), 2);
+    updater.stop();
+    assertThat(updater.heldCount()).isEqualTo(0);
+
+    Thread.sleep(1500);
+
+    verify(dao, never()).update(anyCollectionOf(String.class));
   }
 
   @Test
@@ -62,7 +105,8 @@ public class SemaphoreUpdaterTest extends AbstractDaoTestCase {
 
     Thread.sleep(2000);
 
-    verify(dao, never()).update(semaphore);
+    verify(dao, never()).update(anyCollectionOf(String.class));
+    assertThat(updater.heldCount()).isEqualTo(0);
   }
 
   @Test
@@ -22,9 +22,13 @@ package org.sonar.core.persistence;
 import org.junit.Test;
 import org.sonar.api.utils.Semaphores;
 
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -48,4 +52,54 @@ public class SemaphoresImplTest {
     impl.release("do-xxx");
     verify(dao).release("do-xxx");
   }
+
+  @Test
+  public void should_not_keep_alive_semaphore_locked_by_another_process() {
+    SemaphoreDao dao = mock(SemaphoreDao.class);
+    SemaphoreUpdater updater = mock(SemaphoreUpdater.class);
+    when(dao.acquire(anyString(), anyInt())).thenReturn(new Semaphores.Semaphore().setLocked(false));
+
+    new SemaphoresImpl(dao, updater).acquire("do-xxx", 50000, 10);
+
+    verify(updater, never()).scheduleForUpdate(any(Semaphores.Semaphore.class), anyInt());
+  }
+
+  @Test
+  public void should_wait_for_semaphore() {
+    SemaphoreDao dao = mock(SemaphoreDao.class);
+    SemaphoreUpdater updater = mock(SemaphoreUpdater.class);
+    Semaphores.Semaphore locked = new Semaphores.Semaphore().setLocked(true);
+    when(dao.acquire(anyString(), anyInt())).thenReturn(new Semaphores.Semaphore().setLocked(false), new Semaphores.Semaphore().setLocked(false), locked);
+
+    Semaphores.Semaphore semaphore = new SemaphoresImpl(dao, updater).acquire("do-xxx", 50000, 10, 10000L);
+
+    assertThat(semaphore).isSameAs(locked);
+    verify(dao, times(3)).acquire("do-xxx", 50000);
+    verify(updater).scheduleForUpdate(locked, 10);
+  }
+
+  @Test
+  public void should_give_up_waiting_for_semaphore_after_timeout() {
+    SemaphoreDao dao = mock(SemaphoreDao.class);
+    SemaphoreUpdater updater = mock(SemaphoreUpdater.class);
+    when(dao.acquire(anyString(), anyInt())).thenReturn(new Semaphores.Semaphore().setLocked(false));
+
+    long start = System.currentTimeMillis();
+    Semaphores.Semaphore semaphore = new SemaphoresImpl(dao, updater).acquire("do-xxx", 50000, 10, 500L);
+
+    assertThat(semaphore.isLocked()).isFalse();
+    assertThat(System.currentTimeMillis() - start).isGreaterThanOrEqualTo(500L);
+    verify(updater, never()).scheduleForUpdate(any(Semaphores.Semaphore.class), anyInt());
+  }
+
+  @Test
+  public void should_not_wait_if_no_timeout() {
+    SemaphoreDao dao = mock(SemaphoreDao.class);
+    SemaphoreUpdater updater = mock(SemaphoreUpdater.class);
+    when(dao.acquire(anyString(), anyInt())).thenReturn(new Semaphores.Semaphore().setLocked(false));
+
+    new SemaphoresImpl(dao, updater).acquire("do-xxx", 50000, 10, 0L);
+
+    verify(dao, times(1)).acquire("do-xxx", 50000);
+  }
 }
@@ -19,6 +19,8 @@
  */
 package org.sonar.core.preview;
 
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.MoreExecutors;
 import org.apache.commons.io.FileUtils;
 import org.junit.Before;
 import org.junit.Rule;
@@ -27,6 +29,7 @@ import org.junit.rules.TemporaryFolder;
 import org.mockito.ArgumentCaptor;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
+import org.sonar.api.config.Settings;
 import org.sonar.api.platform.ServerFileSystem;
 import org.sonar.core.persistence.DbSession;
 import org.sonar.core.persistence.MyBatis;
@@ -38,6 +41,11 @@ import org.sonar.core.resource.ResourceDto;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.fest.assertions.Assertions.assertThat;
 import static org.mockito.Matchers.any;
@@ -68,6 +76,8 @@ public class PreviewCacheTest {
 
   private File dryRunCacheLocation;
 
+  private Settings settings = new Settings();
+
   @Before
   public void prepare() throws IOException {
     myBatis = mock(MyBatis.class);
@@ -82,7 +92,8 @@ public class PreviewCacheTest {
     when(serverFileSystem.getTempDir()).thenReturn(tempLocation);
     dryRunCacheLocation = new File(tempLocation, "dryRun");
 
-    dryRunCache = new PreviewCache(myBatis, serverFileSystem, propertiesDao, resourceDao, dryRunDatabaseFactory);
+    // regenerations are executed synchronously in order to make tests deterministic
+    dryRunCache = new PreviewCache(myBatis, serverFileSystem, propertiesDao, resourceDao, dryRunDatabaseFactory, settings, MoreExecutors.sameThreadExecutor());
   }
 
   @Test
@@ -150,6 +161,10 @@ public class PreviewCacheTest {
     Thread.sleep(100);
     when(propertiesDao.selectGlobalProperty(PreviewCache.SONAR_PREVIEW_CACHE_LAST_UPDATE_KEY)).thenReturn(new PropertyDto().setValue("" + System.currentTimeMillis()));
 
+    // stale database is served while the new one is generated
+    dbContent = dryRunCache.getDatabaseForPreview(null);
+    assertThat(new String(dbContent)).isEqualTo("fake db content 1");
+
     dbContent = dryRunCache.getDatabaseForPreview(null);
     assertThat(new String(dbContent)).isEqualTo("fake db content 2");
 
@@ -184,12 +199,91 @@ public class PreviewCacheTest {
     Thread.sleep(100);
     when(propertiesDao.selectProjectProperty(123L, PreviewCache.SONAR_PREVIEW_CACHE_LAST_UPDATE_KEY)).thenReturn(new PropertyDto().setValue("" + System.currentTimeMillis()));
 
+    // stale database is served while the new one is generated
+    dbContent = dryRunCache.getDatabaseForPreview(123L);
+    assertThat(new String(dbContent)).isEqualTo("fake db content 1");
+
     dbContent = dryRunCache.getDatabaseForPreview(123L);
     assertThat(new String(dbContent)).isEqualTo("fake db content 2");
 
     verify(dryRunDatabaseFactory, times(2)).createNewDatabaseForDryRun(anyLong(), any(File.class), anyString());
   }
 
+  @Test
+  public void keep_only_new_and_previous_databases() throws Exception {
+    when(dryRunDatabaseFactory.createNewDatabaseForDryRun(isNull(Long.class), any(File.class), anyString())).thenAnswer(new Answer<File>() {
+      public File answer(InvocationOnMock invocation) throws IOException {
+        Object[] args = invocation.getArguments();
+        File dbFile = new File(new File(dryRunCacheLocation, "default"), (String) args[2] + ".h2.db");
+        FileUtils.write(dbFile, "fake db content");
+        return dbFile;
+      }
+    });
+
+    for (int i = 0; i < 3; i++) {
+      Thread.sleep(10);
+      when(propertiesDao.selectGlobalProperty(PreviewCache.SONAR_PREVIEW_CACHE_LAST_UPDATE_KEY)).thenReturn(new PropertyDto().setValue("" + System.currentTimeMillis()));
+      Thread.sleep(10);
+      dryRunCache.getDatabaseForPreview(null);
+    }
+
+    verify(dryRunDatabaseFactory, times(3)).createNewDatabaseForDryRun(anyLong(), any(File.class), anyString());
+    assertThat(new File(dryRunCacheLocation, "default").listFiles()).hasSize(2);
+  }
+
+  @Test
+  public void remove_least_recently_used_databases_when_cache_is_full() throws Exception {
+    settings.setProperty(PreviewCache.SONAR_PREVIEW_CACHE_MAX_SIZE_KEY, 1L);
+    dryRunCache = new PreviewCache(myBatis, serverFileSystem, propertiesDao, resourceDao, dryRunDatabaseFactory, settings, MoreExecutors.sameThreadExecutor());
+    when(dryRunDatabaseFactory.createNewDatabaseForDryRun(anyLong(), any(File.class), anyString())).thenAnswer(new Answer<File>() {
+      public File answer(InvocationOnMock invocation) throws IOException {
+        Object[] args = invocation.getArguments();
+        File dbFile = new File((File) args[1], (String) args[2] + ".h2.db");
+        // 600Kb
+        FileUtils.writeByteArrayToFile(dbFile, new byte[600 * 1024]);
+        return dbFile;
+      }
+    });
+    when(resourceDao.getRootProjectByComponentId(anyLong())).thenReturn(new ResourceDto().setId(1L));
+
+    dryRunCache.getDatabaseForPreview(1L);
+    dryRunCache.getDatabaseForPreview(2L);
+
+    assertThat(dryRunCache.getCacheLocation(1L)).doesNotExist();
+    assertThat(dryRunCache.getCacheLocation(2L)).exists();
+  }
+
+  @Test
+  public void read_databases_while_other_projects_remove_them() throws Exception {
+    settings.setProperty(PreviewCache.SONAR_PREVIEW_CACHE_MAX_SIZE_KEY, 1L);
+    dryRunCache = new PreviewCache(myBatis, serverFileSystem, propertiesDao, resourceDao, dryRunDatabaseFactory, settings, MoreExecutors.sameThreadExecutor());
+    when(dryRunDatabaseFactory.createNewDatabaseForDryRun(anyLong(), any(File.class), anyString())).thenAnswer(new Answer<File>() {
+      public File answer(InvocationOnMock invocation) throws IOException {
+        Object[] args = invocation.getArguments();
+        File dbFile = new File((File) args[1], (String) args[2] + ".h2.db");
+        // 600Kb, so that each generation removes the database of the other project
+        FileUtils.writeByteArrayToFile(dbFile, new byte[600 * 1024]);
+        return dbFile;
+      }
+    });
+    when(resourceDao.getRootProjectByComponentId(anyLong())).thenReturn(new ResourceDto().setId(1L));
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    List<Future<byte[]>> results = Lists.newArrayList();
+    for (int i = 0; i < 40; i++) {
+      final long projectId = 1L + (i % 2);
+      results.add(executor.submit(new Callable<byte[]>() {
+        public byte[] call() {
+          return dryRunCache.getDatabaseForPreview(projectId);
+        }
+      }));
+    }
+    for (Future<byte[]> result : results) {
+      assertThat(result.get()).hasSize(600 * 1024);
+    }
+    executor.shutdown();
+  }
+
   @Test
   public void test_get_cache_location() throws Exception {
     File tempFolder = temp.newFolder();
@@ -22,13 +22,18 @@ package org.sonar.core.purge;
 import org.apache.ibatis.session.SqlSession;
 import org.junit.Before;
 import org.junit.Test;
+import org.sonar.core.measure.MeasureSeries;
+import org.sonar.core.measure.db.MeasureSeriesDto;
+import org.sonar.core.measure.db.MeasureSeriesMapper;
 import org.sonar.core.persistence.AbstractDaoTestCase;
 import org.sonar.core.persistence.MyBatis;
 
+import java.sql.Timestamp;
 import java.util.Arrays;
 import java.util.List;
 
 import static com.google.common.collect.Lists.newArrayList;
+import static org.fest.assertions.Assertions.assertThat;
 
 public class PurgeCommandsTest extends AbstractDaoTestCase {
 
@@ -53,7 +58,34 @@ public class PurgeCommandsTest extends AbstractDaoTestCase {
       MyBatis.closeQuietly(session);
     }
     checkTables("shouldDeleteSnapshot",
-      "snapshots", "project_measures", "snapshot_sources", "duplications_index", "events", "dependencies", "snapshot_data");
+      "snapshots", "project_measures", "snapshot_sources", "duplications_index", "duplication_blocks", "events", "dependencies", "snapshot_data",
+      "measure_series");
+  }
+
+  @Test
+  public void delete_only_points_of_deleted_snapshots_from_measure_series() {
+    setupData("shouldDeleteSnapshot");
+    long deletedSnapshotDate = Timestamp.valueOf("2008-12-02 13:58:00").getTime();
+
+    SqlSession session = getMyBatis().openSession();
+    try {
+      MeasureSeriesMapper mapper = session.getMapper(MeasureSeriesMapper.class);
+      MeasureSeriesDto dto = new MeasureSeriesDto().setResourceId(5L).setMetricId(2)
+        .setSeries(new MeasureSeries().add(deletedSnapshotDate, 10.0, null).add(deletedSnapshotDate + 1000L, 20.0, null));
+      mapper.insert(dto);
+      session.commit();
+
+      new PurgeCommands(session, profiler).deleteSnapshots(PurgeSnapshotQuery.create().setId(5L));
+
+      List<MeasureSeriesDto> remaining = mapper.selectByResource(5L);
+      assertThat(remaining).hasSize(1);
+      MeasureSeries series = remaining.get(0).getSeries();
+      assertThat(series.size()).isEqualTo(1);
+      assertThat(series.value(0)).isEqualTo(20.0);
+      assertThat(mapper.selectByResource(1L)).hasSize(1);
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
   }
 
   /**
@@ -431,6 +431,16 @@ public class ResourceDaoTest extends AbstractDaoTestCase {
     assertThat(dao.selectProvisionedProject("unknown")).isNull();
   }
 
+  @Test
+  public void get_components_with_non_closed_issues() {
+    setupData("get_components_with_non_closed_issues");
+
+    List<ResourceDto> components = dao.getComponentsWithNonClosedIssues(1L);
+    assertThat(components).onProperty("key").containsOnly("org.struts:struts:org.struts.Action", "org.struts:struts:org.struts.Deleted");
+
+    assertThat(dao.getComponentsWithNonClosedIssues(999L)).isEmpty();
+  }
+
   private List<String> getKeys(final List<Component> components) {
     return newArrayList(Iterables.transform(components, new Function<Component, String>() {
       @Override
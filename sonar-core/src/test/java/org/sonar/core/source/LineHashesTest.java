@@ -0,0 +1,61 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.source;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class LineHashesTest {
+
+  @Test
+  public void compute_one_hash_per_line() {
+    int[] hashes = LineHashes.compute("foo\nbar\n\nbaz");
+
+    assertThat(hashes).hasSize(4);
+    assertThat(hashes[0]).isNotEqualTo(hashes[1]);
+    assertThat(hashes[2]).isEqualTo(LineHashes.hash("", 0, 0));
+  }
+
+  @Test
+  public void last_line_feed_does_not_start_new_line() {
+    assertThat(LineHashes.compute("foo\n")).hasSize(1);
+    assertThat(LineHashes.compute("")).isEmpty();
+  }
+
+  @Test
+  public void ignore_whitespaces() {
+    int[] hashes = LineHashes.compute("  foo  bar\nfoobar\r\n\tfoo bar");
+
+    assertThat(hashes[0]).isEqualTo(hashes[1]);
+    assertThat(hashes[1]).isEqualTo(hashes[2]);
+  }
+
+  @Test
+  public void format_and_parse() {
+    int[] hashes = {0, -12345, Integer.MAX_VALUE, Integer.MIN_VALUE, 42};
+
+    String data = LineHashes.format(hashes);
+
+    assertThat(data).isEqualTo("0,-9ix,zik0zj,-zik0zk,16");
+    assertThat(LineHashes.parse(data)).isEqualTo(hashes);
+    assertThat(LineHashes.parse(LineHashes.format(new int[0]))).isEmpty();
+  }
+}
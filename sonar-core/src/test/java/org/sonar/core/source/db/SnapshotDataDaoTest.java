@@ -22,10 +22,13 @@ package org.sonar.core.source.db;
 
 import com.google.common.collect.Lists;
 import org.junit.Before;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
 import org.junit.Test;
 import org.sonar.core.persistence.AbstractDaoTestCase;
 
 import java.util.Collection;
+import java.util.List;
 
 import static org.fest.assertions.Assertions.assertThat;
 
@@ -77,4 +80,21 @@ public class SnapshotDataDaoTest extends AbstractDaoTestCase {
     assertThat(data).onProperty("dataType").containsOnly("highlight_syntax", "symbol");
     assertThat(data).onProperty("data").containsOnly("0,10,k;", "20,25,20,35,45;");
   }
+
+  @Test
+  public void select_last_data_of_module_files() throws Exception {
+    setupData("last_module_files_data");
+    final List<SnapshotDataDto> data = Lists.newArrayList();
+
+    dao.selectLastModuleFilesData("struts-core", "line_hashes", new ResultHandler() {
+      @Override
+      public void handleResult(ResultContext context) {
+        data.add((SnapshotDataDto) context.getResultObject());
+      }
+    });
+
+    assertThat(data).onProperty("componentKey").containsOnly("struts-core:Action.java", "struts-core:Form.java");
+    assertThat(data).onProperty("data").containsOnly("3,4", "5");
+    assertThat(data).onProperty("dataType").containsOnly("line_hashes");
+  }
 }
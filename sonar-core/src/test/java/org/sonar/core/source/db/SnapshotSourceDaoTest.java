@@ -20,10 +20,15 @@
 
 package org.sonar.core.source.db;
 
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
 import org.junit.Before;
 import org.junit.Test;
 import org.sonar.core.persistence.AbstractDaoTestCase;
 
+import java.util.List;
+
+import static com.google.common.collect.Lists.newArrayList;
 import static org.fest.assertions.Assertions.assertThat;
 
 public class SnapshotSourceDaoTest extends AbstractDaoTestCase {
@@ -49,4 +54,20 @@ public class SnapshotSourceDaoTest extends AbstractDaoTestCase {
 
     assertThat(snapshotSource).isEqualTo("public class Foo {public Foo(){}}");
   }
+
+  @Test
+  public void select_last_snapshot_sources_by_root_project_id() throws Exception {
+    final List<SnapshotSourceDto> sources = newArrayList();
+    dao.selectLastSnapshotSourcesByRootProjectId(100L, new ResultHandler() {
+      @Override
+      public void handleResult(ResultContext context) {
+        sources.add((SnapshotSourceDto) context.getResultObject());
+      }
+    });
+
+    assertThat(sources).hasSize(1);
+    assertThat(sources.get(0).getSnapshotId()).isEqualTo(11L);
+    assertThat(sources.get(0).getLanguage()).isEqualTo("java");
+    assertThat(sources.get(0).getData()).isEqualTo("public class Foo {public Foo(){}}");
+  }
 }
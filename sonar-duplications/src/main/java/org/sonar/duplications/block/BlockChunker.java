@@ -21,6 +21,7 @@ package org.sonar.duplications.block;
 
 import com.google.common.collect.Lists;
 import org.sonar.duplications.statement.Statement;
+import org.sonar.duplications.statement.StatementBuffer;
 
 import java.util.Collections;
 import java.util.List;
@@ -100,6 +101,58 @@ public class BlockChunker {
     return blocks;
   }
 
+  /**
+   * Same as {@link #chunk(String, List)} for statements stored in a {@link StatementBuffer}. Blocks have the same hashes.
+   *
+   * @since 4.4
+   */
+  public List<Block> chunk(String resourceId, StatementBuffer statements) {
+    // indexes of the statements, where sequences of statements with the same value are reduced to their first and last statements
+    int[] filtered = new int[statements.size()];
+    int count = 0;
+    int i = 0;
+    while (i < statements.size()) {
+      int j = i + 1;
+      while (j < statements.size() && statements.hasSameValue(j, i)) {
+        j++;
+      }
+      filtered[count] = i;
+      count++;
+      if (i < j - 1) {
+        filtered[count] = j - 1;
+        count++;
+      }
+      i = j;
+    }
+
+    if (count < blockSize) {
+      return Collections.emptyList();
+    }
+    List<Block> blocks = Lists.newArrayListWithCapacity(count - blockSize + 1);
+    long hash = 0;
+    int first = 0;
+    int last = 0;
+    for (; last < blockSize - 1; last++) {
+      hash = hash * PRIME_BASE + statements.getValueHash(filtered[last]);
+    }
+    Block.Builder blockBuilder = Block.builder().setResourceId(resourceId);
+    for (; last < count; last++, first++) {
+      int firstStatement = filtered[first];
+      int lastStatement = filtered[last];
+      // add last statement to hash
+      hash = hash * PRIME_BASE + statements.getValueHash(lastStatement);
+      // create block
+      Block block = blockBuilder.setBlockHash(new ByteArray(hash))
+          .setIndexInFile(first)
+          .setLines(statements.getStartLine(firstStatement), statements.getEndLine(lastStatement))
+          .build();
+      blocks.add(block);
+      // remove first statement from hash
+      hash -= power * statements.getValueHash(firstStatement);
+    }
+    return blocks;
+  }
+
   public int getBlockSize() {
     return blockSize;
   }
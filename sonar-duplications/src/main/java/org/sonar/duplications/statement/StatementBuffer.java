@@ -0,0 +1,178 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.duplications.statement;
+
+import org.sonar.duplications.token.Token;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Statements of a file stored in primitive arrays, as an alternative to a list of {@link Statement}.
+ * The buffer is intended to be reused for all the files of an analysis by calling {@link #clear()},
+ * so that chunking a file does not allocate an object and a string for each statement.
+ * <p/>
+ * {@link #getValueHash(int)} is equal to the hash code of {@link Statement#getValue()}, so that
+ * {@link org.sonar.duplications.block.BlockChunker} produces the same blocks from both representations.
+ * <p/>
+ * Only the statements are allocation-free. The input is still a {@link org.sonar.duplications.token.TokenQueue}
+ * produced by {@link org.sonar.duplications.token.TokenChunker}, which allocates a {@link Token} per lexeme, so
+ * the memory allocated to chunk a file remains proportional to its number of tokens.
+ * <p/>
+ * This class is not thread-safe.
+ *
+ * @since 4.4
+ */
+public final class StatementBuffer {
+
+  private static final int DEFAULT_CAPACITY = 256;
+
+  private int size = 0;
+  private int[] startLines = new int[DEFAULT_CAPACITY];
+  private int[] endLines = new int[DEFAULT_CAPACITY];
+  private int[] hashes = new int[DEFAULT_CAPACITY];
+  // value of statement i is stored in chars, from valueEnds[i - 1] (or 0) to valueEnds[i] (exclusive)
+  private int[] valueEnds = new int[DEFAULT_CAPACITY];
+  private char[] chars = new char[DEFAULT_CAPACITY * 16];
+
+  /**
+   * Removes all the statements. Allocated memory is kept for the next file.
+   */
+  public StatementBuffer clear() {
+    size = 0;
+    return this;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public StatementBuffer add(int startLine, int endLine, String value) {
+    int start = startAdd();
+    int end = appendValue(start, value);
+    endAdd(startLine, endLine, start, end);
+    return this;
+  }
+
+  /**
+   * Equivalent of {@link Statement#Statement(List)}
+   */
+  void add(List<Token> tokens) {
+    if (tokens.isEmpty()) {
+      throw new IllegalArgumentException("A statement can't be initialized with an empty list of tokens");
+    }
+    int start = startAdd();
+    int end = start;
+    for (Token token : tokens) {
+      end = appendValue(end, token.getValue());
+    }
+    endAdd(tokens.get(0).getLine(), tokens.get(tokens.size() - 1).getLine(), start, end);
+  }
+
+  public int getStartLine(int index) {
+    checkIndex(index);
+    return startLines[index];
+  }
+
+  public int getEndLine(int index) {
+    checkIndex(index);
+    return endLines[index];
+  }
+
+  /**
+   * Same value as <code>getValue(index).hashCode()</code>, without building the string.
+   */
+  public int getValueHash(int index) {
+    checkIndex(index);
+    return hashes[index];
+  }
+
+  public boolean hasSameValue(int index, int otherIndex) {
+    checkIndex(index);
+    checkIndex(otherIndex);
+    if (hashes[index] != hashes[otherIndex]) {
+      return false;
+    }
+    int start = valueStart(index);
+    int otherStart = valueStart(otherIndex);
+    int length = valueEnds[index] - start;
+    if (length != valueEnds[otherIndex] - otherStart) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (chars[start + i] != chars[otherStart + i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Builds the value of a statement. Should be used for debugging purposes only.
+   */
+  public String getValue(int index) {
+    checkIndex(index);
+    int start = valueStart(index);
+    return new String(chars, start, valueEnds[index] - start);
+  }
+
+  private int startAdd() {
+    if (size == startLines.length) {
+      int capacity = size * 2;
+      startLines = Arrays.copyOf(startLines, capacity);
+      endLines = Arrays.copyOf(endLines, capacity);
+      hashes = Arrays.copyOf(hashes, capacity);
+      valueEnds = Arrays.copyOf(valueEnds, capacity);
+    }
+    return size == 0 ? 0 : valueEnds[size - 1];
+  }
+
+  private int appendValue(int offset, String value) {
+    int length = value.length();
+    if (offset + length > chars.length) {
+      chars = Arrays.copyOf(chars, Math.max(chars.length * 2, offset + length));
+    }
+    value.getChars(0, length, chars, offset);
+    return offset + length;
+  }
+
+  private void endAdd(int startLine, int endLine, int valueStart, int valueEnd) {
+    // same algorithm as String#hashCode()
+    int hash = 0;
+    for (int i = valueStart; i < valueEnd; i++) {
+      hash = 31 * hash + chars[i];
+    }
+    startLines[size] = startLine;
+    endLines[size] = endLine;
+    hashes[size] = hash;
+    valueEnds[size] = valueEnd;
+    size++;
+  }
+
+  private int valueStart(int index) {
+    return index == 0 ? 0 : valueEnds[index - 1];
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+    }
+  }
+}
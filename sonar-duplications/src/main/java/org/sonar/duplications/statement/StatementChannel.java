@@ -30,6 +30,8 @@ public final class StatementChannel {
 
   private final TokenMatcher[] tokenMatchers;
   private final boolean blackHole;
+  // reused between calls, as most of the attempts to match tokens fail
+  private final List<Token> matchedTokenList = new ArrayList<Token>();
 
   public static StatementChannel create(TokenMatcher... tokenMatchers) {
     return new StatementChannel(false, tokenMatchers);
@@ -48,14 +50,9 @@ public final class StatementChannel {
   }
 
   public boolean consume(TokenQueue tokenQueue, List<Statement> output) {
-    List<Token> matchedTokenList = new ArrayList<Token>();
-    for (TokenMatcher tokenMatcher : tokenMatchers) {
-      if (!tokenMatcher.matchToken(tokenQueue, matchedTokenList)) {
-        tokenQueue.pushForward(matchedTokenList);
-        return false;
-      }
+    if (!match(tokenQueue)) {
+      return false;
     }
-
     // all matchers were successful, so now build the statement
     // matchedTokenList.size() check is for case with ForgiveLastTokenMatcher
     if (!blackHole && !matchedTokenList.isEmpty()) {
@@ -64,4 +61,28 @@ public final class StatementChannel {
     return true;
   }
 
+  /**
+   * @since 4.4
+   */
+  public boolean consume(TokenQueue tokenQueue, StatementBuffer output) {
+    if (!match(tokenQueue)) {
+      return false;
+    }
+    if (!blackHole && !matchedTokenList.isEmpty()) {
+      output.add(matchedTokenList);
+    }
+    return true;
+  }
+
+  private boolean match(TokenQueue tokenQueue) {
+    matchedTokenList.clear();
+    for (TokenMatcher tokenMatcher : tokenMatchers) {
+      if (!tokenMatcher.matchToken(tokenQueue, matchedTokenList)) {
+        tokenQueue.pushForward(matchedTokenList);
+        return false;
+      }
+    }
+    return true;
+  }
+
 }
@@ -51,6 +51,21 @@ public final class StatementChunker {
     }
   }
 
+  /**
+   * Same as {@link #chunk(TokenQueue)}, but statements are appended to the given buffer, which is not cleared.
+   * No object is allocated per statement, but the tokens of the queue are still allocated by the
+   * {@link org.sonar.duplications.token.TokenChunker}.
+   *
+   * @since 4.4
+   */
+  public void chunk(TokenQueue tokenQueue, StatementBuffer output) {
+    try {
+      channelDispatcher.consume(tokenQueue, output);
+    } catch (Exception e) {
+      throw new DuplicationsException("Unable to build statement from token : " + tokenQueue.peek(), e);
+    }
+  }
+
   /**
    * Note that order is important, e.g.
    * <code>statement(token(A)).ignore(token(A))</code> for the input sequence "A" will produce statement, whereas
@@ -28,9 +28,16 @@ import org.sonar.channel.CodeReader;
 
 class TokenChannel extends Channel<TokenQueue> {
 
+  /**
+   * Size of the cache of token values, must be a power of two
+   */
+  private static final int VALUES_CACHE_SIZE = 1024;
+
   private final StringBuilder tmpBuilder = new StringBuilder();
   private final Matcher matcher;
   private String normalizationValue;
+  // the same identifiers and keywords are used again and again, so their values are shared instead of creating a string for each token
+  private final String[] valuesCache = new String[VALUES_CACHE_SIZE];
 
   public TokenChannel(String regex) {
     matcher = Pattern.compile(regex).matcher("");
@@ -49,7 +56,7 @@ class TokenChannel extends Channel<TokenQueue> {
       if (normalizationValue != null) {
         output.add(new Token(normalizationValue, previousCursor.getLine(), previousCursor.getColumn()));
       } else {
-        output.add(new Token(tmpBuilder.toString(), previousCursor.getLine(), previousCursor.getColumn()));
+        output.add(new Token(value(tmpBuilder), previousCursor.getLine(), previousCursor.getColumn()));
       }
       // Godin: note that other channels use method delete in order to do the same thing
       tmpBuilder.setLength(0);
@@ -58,4 +65,19 @@ class TokenChannel extends Channel<TokenQueue> {
     return false;
   }
 
+  private String value(StringBuilder chars) {
+    // same algorithm as String#hashCode()
+    int hash = 0;
+    for (int i = 0; i < chars.length(); i++) {
+      hash = 31 * hash + chars.charAt(i);
+    }
+    int index = (hash ^ (hash >>> 16)) & (VALUES_CACHE_SIZE - 1);
+    String value = valuesCache[index];
+    if (value == null || value.hashCode() != hash || !value.contentEquals(chars)) {
+      value = chars.toString();
+      valuesCache[index] = value;
+    }
+    return value;
+  }
+
 }
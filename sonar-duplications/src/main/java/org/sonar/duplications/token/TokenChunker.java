@@ -42,6 +42,10 @@ public final class TokenChunker {
     return chunk(new StringReader(sourceCode));
   }
 
+  /**
+   * A {@link Token} is allocated for each lexeme. Token values are shared when possible, but there is no
+   * allocation-free path at token level.
+   */
   public TokenQueue chunk(Reader reader) {
     CodeReader code = new CodeReader(reader);
     TokenQueue queue = new TokenQueue();
@@ -19,9 +19,9 @@
  */
 package org.sonar.duplications.token;
 
+import java.util.ArrayDeque;
 import java.util.Deque;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
 
@@ -30,11 +30,11 @@ public class TokenQueue implements Iterable<Token> {
   private final Deque<Token> tokenQueue;
 
   public TokenQueue(List<Token> tokenList) {
-    tokenQueue = new LinkedList<Token>(tokenList);
+    tokenQueue = new ArrayDeque<Token>(tokenList);
   }
 
   public TokenQueue() {
-    tokenQueue = new LinkedList<Token>();
+    tokenQueue = new ArrayDeque<Token>();
   }
 
   /**
@@ -27,6 +27,7 @@ import java.util.List;
 
 import org.junit.Test;
 import org.sonar.duplications.statement.Statement;
+import org.sonar.duplications.statement.StatementBuffer;
 
 public class BlockChunkerTest extends BlockChunkerTestCase {
 
@@ -52,6 +53,26 @@ public class BlockChunkerTest extends BlockChunkerTestCase {
     assertThat(blocks.get(2).getBlockHash().toString(), is("fffffec45c0aad80"));
   }
 
+  @Test
+  public void should_build_same_blocks_from_buffer() {
+    List<Statement> statements = createStatementsFromStrings("1", "2", "2", "2", "3", "1", "2", "4", "4", "5");
+    StatementBuffer buffer = new StatementBuffer();
+    for (Statement statement : statements) {
+      buffer.add(statement.getStartLine(), statement.getEndLine(), statement.getValue());
+    }
+    BlockChunker blockChunker = createChunkerWithBlockSize(3);
+
+    List<Block> expected = blockChunker.chunk("resource", statements);
+    List<Block> blocks = blockChunker.chunk("resource", buffer);
+
+    assertThat(blocks.size(), is(expected.size()));
+    for (int i = 0; i < expected.size(); i++) {
+      // hash, index and lines
+      assertThat(blocks.get(i), equalTo(expected.get(i)));
+    }
+    assertThat(blockChunker.chunk("resource", new StatementBuffer()).isEmpty(), is(true));
+  }
+
   private ByteArray hash(String... statements) {
     long hash = 0;
     for (String statement : statements) {
@@ -0,0 +1,147 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.duplications.java;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
+import org.sonar.duplications.DuplicationsException;
+import org.sonar.duplications.block.Block;
+import org.sonar.duplications.block.BlockChunker;
+import org.sonar.duplications.statement.Statement;
+import org.sonar.duplications.statement.StatementBuffer;
+import org.sonar.duplications.statement.StatementChunker;
+import org.sonar.duplications.token.TokenChunker;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.List;
+
+/**
+ * Compares the chunking of Java files into blocks with lists of {@link Statement} and with a reused {@link StatementBuffer}.
+ * It is not executed during build. Usage, from the module directory once tests are compiled :
+ * <pre>
+ * java -cp target/classes:target/test-classes:&lt;dependencies&gt; org.sonar.duplications.java.JavaChunkersBenchmark [directory of Java sources] [iterations]
+ * </pre>
+ * The corpus defaults to the sources of the SonarQube repository. Time and, on HotSpot JVMs, allocated bytes are
+ * reported for each iteration after a warm-up of the same number of iterations.
+ * <p/>
+ * Both variants use the same {@link TokenChunker}, which allocates a token per lexeme, so only the representation
+ * of statements is compared. This is a plain main class, not a JMH benchmark.
+ */
+public class JavaChunkersBenchmark {
+
+  private static final int BLOCK_SIZE = 10;
+
+  private final TokenChunker tokenChunker = JavaTokenProducer.build();
+  private final StatementChunker statementChunker = JavaStatementBuilder.build();
+  private final BlockChunker blockChunker = new BlockChunker(BLOCK_SIZE);
+  private final StatementBuffer buffer = new StatementBuffer();
+  private final List<String> sources = Lists.newArrayList();
+
+  JavaChunkersBenchmark(List<String> candidates) {
+    for (String source : candidates) {
+      try {
+        statementChunker.chunk(tokenChunker.chunk(source));
+        sources.add(source);
+      } catch (DuplicationsException e) {
+        // test files with syntax errors
+      }
+    }
+  }
+
+  public static void main(String[] args) throws IOException {
+    File dir = new File(args.length > 0 ? args[0] : "..");
+    int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+    List<String> sources = Lists.newArrayList();
+    loadSources(dir, sources);
+    JavaChunkersBenchmark benchmark = new JavaChunkersBenchmark(sources);
+    System.out.println(String.format("Corpus: %d files", benchmark.sources.size()));
+
+    for (int i = 0; i < iterations; i++) {
+      benchmark.withStatements();
+      benchmark.withBuffer();
+    }
+    for (int i = 0; i < iterations; i++) {
+      benchmark.measure("statements", true);
+      benchmark.measure("buffer", false);
+    }
+  }
+
+  long withStatements() {
+    long blocks = 0;
+    for (String source : sources) {
+      List<Statement> statements = statementChunker.chunk(tokenChunker.chunk(source));
+      List<Block> fileBlocks = blockChunker.chunk("file", statements);
+      blocks += fileBlocks.size();
+    }
+    return blocks;
+  }
+
+  long withBuffer() {
+    long blocks = 0;
+    for (String source : sources) {
+      statementChunker.chunk(tokenChunker.chunk(source), buffer.clear());
+      List<Block> fileBlocks = blockChunker.chunk("file", buffer);
+      blocks += fileBlocks.size();
+    }
+    return blocks;
+  }
+
+  private void measure(String name, boolean withStatements) {
+    long allocatedBefore = allocatedBytes();
+    long start = System.nanoTime();
+    long blocks = withStatements ? withStatements() : withBuffer();
+    long durationMs = (System.nanoTime() - start) / 1000000L;
+    long allocatedAfter = allocatedBytes();
+    String allocated = allocatedBefore < 0 ? "n/a" : ((allocatedAfter - allocatedBefore) / (1024 * 1024)) + " MB";
+    System.out.println(String.format("%-10s %6d ms, %s allocated, %d blocks", name, durationMs, allocated, blocks));
+  }
+
+  private static void loadSources(File dir, List<String> sources) throws IOException {
+    File[] files = dir.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        if (file.isDirectory()) {
+          loadSources(file, sources);
+        } else if (file.getName().endsWith(".java")) {
+          sources.add(Files.toString(file, Charsets.UTF_8));
+        }
+      }
+    }
+  }
+
+  /**
+   * Bytes allocated by the current thread, or -1 if not supported by the JVM
+   */
+  private static long allocatedBytes() {
+    ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    try {
+      Method method = bean.getClass().getMethod("getThreadAllocatedBytes", long.class);
+      method.setAccessible(true);
+      return (Long) method.invoke(bean, Thread.currentThread().getId());
+    } catch (Exception e) {
+      return -1L;
+    }
+  }
+}
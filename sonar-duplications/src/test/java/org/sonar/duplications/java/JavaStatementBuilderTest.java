@@ -24,6 +24,7 @@ import org.apache.commons.io.IOUtils;
 import org.junit.Test;
 import org.sonar.duplications.DuplicationsTestUtil;
 import org.sonar.duplications.statement.Statement;
+import org.sonar.duplications.statement.StatementBuffer;
 import org.sonar.duplications.statement.StatementChunker;
 import org.sonar.duplications.token.TokenChunker;
 
@@ -324,6 +325,30 @@ public class JavaStatementBuilderTest {
     assertThat(chunk(DuplicationsTestUtil.findFile("/java/RequestUtils.java")).size()).isGreaterThan(0);
   }
 
+  @Test
+  public void should_fill_buffer_with_same_statements() {
+    File file = DuplicationsTestUtil.findFile("/java/MessageResources.java");
+    List<Statement> statements = chunk(file);
+
+    StatementBuffer buffer = new StatementBuffer();
+    Reader reader = null;
+    try {
+      reader = new InputStreamReader(new FileInputStream(file), Charsets.UTF_8);
+      statementChunker.chunk(tokenChunker.chunk(reader), buffer);
+    } catch (FileNotFoundException e) {
+      throw new RuntimeException(e);
+    } finally {
+      IOUtils.closeQuietly(reader);
+    }
+
+    assertThat(buffer.size()).isEqualTo(statements.size());
+    for (int i = 0; i < statements.size(); i++) {
+      assertThat(buffer.getValue(i)).isEqualTo(statements.get(i).getValue());
+      assertThat(buffer.getStartLine(i)).isEqualTo(statements.get(i).getStartLine());
+      assertThat(buffer.getEndLine(i)).isEqualTo(statements.get(i).getEndLine());
+    }
+  }
+
   private List<Statement> chunk(File file) {
     Reader reader = null;
     try {
@@ -0,0 +1,98 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.duplications.statement;
+
+import org.junit.Test;
+import org.sonar.duplications.token.Token;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class StatementBufferTest {
+
+  @Test
+  public void add_statements() {
+    StatementBuffer buffer = new StatementBuffer().add(1, 2, "foo()").add(3, 3, "bar()");
+
+    assertThat(buffer.size()).isEqualTo(2);
+    assertThat(buffer.getStartLine(0)).isEqualTo(1);
+    assertThat(buffer.getEndLine(0)).isEqualTo(2);
+    assertThat(buffer.getValue(0)).isEqualTo("foo()");
+    assertThat(buffer.getStartLine(1)).isEqualTo(3);
+    assertThat(buffer.getValue(1)).isEqualTo("bar()");
+  }
+
+  @Test
+  public void add_statement_from_tokens() {
+    StatementBuffer buffer = new StatementBuffer();
+    buffer.add(Arrays.asList(new Token("a", 1, 1), new Token("b", 2, 1)));
+
+    assertThat(buffer.getValue(0)).isEqualTo("ab");
+    assertThat(buffer.getStartLine(0)).isEqualTo(1);
+    assertThat(buffer.getEndLine(0)).isEqualTo(2);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void should_not_accept_empty_list_of_tokens() {
+    new StatementBuffer().add(new ArrayList<Token>());
+  }
+
+  @Test
+  public void hash_is_the_hash_code_of_value() {
+    StatementBuffer buffer = new StatementBuffer().add(1, 1, "").add(1, 1, "if(a==b)").add(1, 1, "été");
+
+    assertThat(buffer.getValueHash(0)).isEqualTo("".hashCode());
+    assertThat(buffer.getValueHash(1)).isEqualTo("if(a==b)".hashCode());
+    assertThat(buffer.getValueHash(2)).isEqualTo("été".hashCode());
+  }
+
+  @Test
+  public void compare_values() {
+    // "Aa" and "BB" have the same hash code
+    StatementBuffer buffer = new StatementBuffer().add(1, 1, "Aa").add(2, 2, "BB").add(3, 3, "Aa").add(4, 4, "A");
+
+    assertThat(buffer.hasSameValue(0, 2)).isTrue();
+    assertThat(buffer.hasSameValue(0, 1)).isFalse();
+    assertThat(buffer.hasSameValue(0, 3)).isFalse();
+  }
+
+  @Test
+  public void grow_and_clear() {
+    StatementBuffer buffer = new StatementBuffer();
+    for (int i = 0; i < 10000; i++) {
+      buffer.add(i, i, "statement" + i);
+    }
+    assertThat(buffer.size()).isEqualTo(10000);
+    assertThat(buffer.getValue(9999)).isEqualTo("statement9999");
+    assertThat(buffer.getStartLine(9999)).isEqualTo(9999);
+
+    buffer.clear();
+    assertThat(buffer.size()).isEqualTo(0);
+    buffer.add(1, 1, "foo");
+    assertThat(buffer.getValue(0)).isEqualTo("foo");
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void fail_on_bad_index() {
+    new StatementBuffer().add(1, 1, "foo").clear().getValue(0);
+  }
+}
@@ -465,6 +465,16 @@ public interface CoreProperties {
    */
   String PROFILING_LOG_PROPERTY = "sonar.showProfiling";
 
+  /**
+   * Records timings, CPU and allocations of the analysis as JSON lines in the file profiling.jsonl of the working directory.
+   * Hits and misses of the persistent cache recorded on modules are read from counters shared by the whole analysis:
+   * they are the differences between the start and the end of the module, so they include the activity of the
+   * modules analyzed concurrently.
+   *
+   * @since 4.4
+   */
+  String PROFILING_RECORD_PROPERTY = "sonar.profiling.record";
+
   /**
    * @deprecated replaced in v3.4 by properties specific to languages, for example sonar.java.coveragePlugin
    * See http://jira.codehaus.org/browse/SONARJAVA-39 for more details.
@@ -64,8 +64,10 @@ public class ComponentContainer implements BatchComponent, ServerComponent {
    */
   protected ComponentContainer(ComponentContainer parent) {
     this.parent = parent;
-    this.pico = parent.pico.makeChildContainer();
-    this.parent.child = this;
+    synchronized (parent) {
+      this.pico = parent.pico.makeChildContainer();
+      this.parent.child = this;
+    }
     this.propertyDefinitions = parent.propertyDefinitions;
     this.componentKeys = new ComponentKeys();
     addSingleton(this);
@@ -130,7 +132,7 @@ public class ComponentContainer implements BatchComponent, ServerComponent {
     } finally {
       removeChild();
       if (parent != null) {
-        parent.removeChild();
+        parent.removeChild(this);
       }
     }
     return this;
@@ -206,7 +208,7 @@ public class ComponentContainer implements BatchComponent, ServerComponent {
     return pico.getComponents(tClass);
   }
 
-  public ComponentContainer removeChild() {
+  public synchronized ComponentContainer removeChild() {
     if (child != null) {
       pico.removeChildContainer(child.pico);
       child = null;
@@ -214,6 +216,17 @@ public class ComponentContainer implements BatchComponent, ServerComponent {
     return this;
   }
 
+  /**
+   * Children can be created and stopped concurrently.
+   * Only the given child is removed, even if a sibling has been created in the meantime.
+   */
+  private synchronized void removeChild(ComponentContainer container) {
+    pico.removeChildContainer(container.pico);
+    if (child == container) {
+      child = null;
+    }
+  }
+
   public ComponentContainer createChild() {
     return new ComponentContainer(this);
   }
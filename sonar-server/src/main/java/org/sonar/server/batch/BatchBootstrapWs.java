@@ -0,0 +1,99 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.batch;
+
+import org.apache.commons.io.IOUtils;
+import org.sonar.api.server.ws.Request;
+import org.sonar.api.server.ws.RequestHandler;
+import org.sonar.api.server.ws.Response;
+import org.sonar.api.server.ws.WebService;
+import org.sonar.core.permission.GlobalPermissions;
+import org.sonar.server.exceptions.ForbiddenException;
+import org.sonar.server.user.UserSession;
+
+import java.io.IOException;
+
+/**
+ * Data loaded by batch when starting an analysis
+ *
+ * @since 4.4
+ */
+public class BatchBootstrapWs implements WebService {
+
+  private final RulesBundle rulesBundle;
+
+  public BatchBootstrapWs(RulesBundle rulesBundle) {
+    this.rulesBundle = rulesBundle;
+  }
+
+  @Override
+  public void define(Context context) {
+    NewController controller = context.createController("api/batch_bootstrap")
+      .setSince("4.4");
+
+    controller.createAction("rules_hash")
+      .setInternal(true)
+      .setDescription("MD5 hash of the current rules bundle. It changes each time rules or quality profiles are modified")
+      .setHandler(new RequestHandler() {
+        @Override
+        public void handle(Request request, Response response) {
+          rulesHash(response);
+        }
+      });
+    controller.createAction("rules")
+      .setInternal(true)
+      .setDescription("Download the gzipped JSON bundle of rules and active rules")
+      .setHandler(new RequestHandler() {
+        @Override
+        public void handle(Request request, Response response) {
+          rules(response);
+        }
+      });
+
+    controller.done();
+  }
+
+  private void rulesHash(Response response) {
+    checkPermission();
+    try {
+      response.stream().setMediaType("text/plain");
+      IOUtils.write(rulesBundle.hash(), response.stream().output());
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to send hash of rules bundle", e);
+    }
+  }
+
+  private void rules(Response response) {
+    checkPermission();
+    try {
+      response.stream().setMediaType("application/x-gzip");
+      IOUtils.write(rulesBundle.content(), response.stream().output());
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to send rules bundle", e);
+    }
+  }
+
+  private static void checkPermission() {
+    UserSession userSession = UserSession.get();
+    if (!userSession.hasGlobalPermission(GlobalPermissions.SCAN_EXECUTION) && !userSession.hasGlobalPermission(GlobalPermissions.DRY_RUN_EXECUTION)) {
+      throw new ForbiddenException("Insufficient privileges");
+    }
+  }
+}
@@ -0,0 +1,231 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.batch;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Maps;
+import org.apache.ibatis.session.SqlSession;
+import org.sonar.api.ServerComponent;
+import org.sonar.api.utils.text.JsonWriter;
+import org.sonar.core.persistence.MyBatis;
+import org.sonar.core.preview.PreviewCache;
+import org.sonar.core.qualityprofile.db.ActiveRuleDao;
+import org.sonar.core.qualityprofile.db.ActiveRuleDto;
+import org.sonar.core.qualityprofile.db.ActiveRuleParamDto;
+import org.sonar.core.rule.RuleDao;
+import org.sonar.core.rule.RuleDto;
+import org.sonar.core.rule.RuleParamDto;
+import org.sonar.core.technicaldebt.db.CharacteristicDao;
+import org.sonar.core.technicaldebt.db.CharacteristicDto;
+import org.sonar.home.cache.FileHashes;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Rules and active rules required by batch, serialized as a single gzipped JSON document. Rule descriptions
+ * are not included.
+ * <p/>
+ * The bundle is built once and kept in memory until rules or quality profiles are modified, which is
+ * tracked by the global modification timestamp of {@link PreviewCache}. Its MD5 hash is the version used
+ * by batch to cache it locally.
+ *
+ * @since 4.4
+ */
+public class RulesBundle implements ServerComponent {
+
+  private final MyBatis myBatis;
+  private final RuleDao ruleDao;
+  private final ActiveRuleDao activeRuleDao;
+  private final CharacteristicDao characteristicDao;
+  private final PreviewCache dryRunCache;
+
+  private Bundle bundle = null;
+
+  public RulesBundle(MyBatis myBatis, RuleDao ruleDao, ActiveRuleDao activeRuleDao, CharacteristicDao characteristicDao, PreviewCache dryRunCache) {
+    this.myBatis = myBatis;
+    this.ruleDao = ruleDao;
+    this.activeRuleDao = activeRuleDao;
+    this.characteristicDao = characteristicDao;
+    this.dryRunCache = dryRunCache;
+  }
+
+  /**
+   * MD5 hash of the gzipped content
+   */
+  public String hash() {
+    return get().hash;
+  }
+
+  /**
+   * Gzipped JSON content
+   */
+  public byte[] content() {
+    return get().content;
+  }
+
+  private synchronized Bundle get() {
+    long version = dryRunCache.getGlobalModificationTimestamp();
+    if (bundle == null || bundle.version != version) {
+      bundle = build(version);
+    }
+    return bundle;
+  }
+
+  private Bundle build(long version) {
+    SqlSession session = myBatis.openSession(false);
+    try {
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      JsonWriter json = JsonWriter.of(new OutputStreamWriter(new GZIPOutputStream(output), Charsets.UTF_8));
+      json.beginObject();
+      ListMultimap<Integer, RuleParamDto> paramsByRuleId = ArrayListMultimap.create();
+      for (RuleParamDto param : ruleDao.selectParameters(session)) {
+        paramsByRuleId.put(param.getRuleId(), param);
+      }
+      Map<Integer, RuleDto> rulesById = writeRules(json, paramsByRuleId, session);
+      writeActiveRules(json, rulesById, paramsByRuleId, session);
+      json.endObject().close();
+
+      byte[] content = output.toByteArray();
+      return new Bundle(version, content, new FileHashes().of(new ByteArrayInputStream(content)));
+
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to build rules bundle", e);
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+  }
+
+  private Map<Integer, RuleDto> writeRules(JsonWriter json, ListMultimap<Integer, RuleParamDto> paramsByRuleId, SqlSession session) {
+    Map<Integer, String> characteristicKeysById = Maps.newHashMap();
+    for (CharacteristicDto characteristic : characteristicDao.selectEnabledCharacteristics(session)) {
+      characteristicKeysById.put(characteristic.getId(), characteristic.getKey());
+    }
+
+    Map<Integer, RuleDto> rulesById = Maps.newHashMap();
+    json.name("rules").beginArray();
+    for (RuleDto rule : ruleDao.selectEnablesAndNonManual(session)) {
+      rulesById.put(rule.getId(), rule);
+      json.beginObject()
+        .prop("id", rule.getId())
+        .prop("repo", rule.getRepositoryKey())
+        .prop("key", rule.getRuleKey())
+        .prop("name", rule.getName())
+        .prop("severity", rule.getSeverityString())
+        .prop("status", rule.getStatus())
+        .prop("internalKey", rule.getConfigKey());
+      if (hasCharacteristic(rule)) {
+        writeDebt(json, rule, characteristicKeysById);
+      }
+      json.name("params").beginArray();
+      for (RuleParamDto param : paramsByRuleId.get(rule.getId())) {
+        json.beginObject()
+          .prop("key", param.getName())
+          .prop("desc", param.getDescription())
+          .endObject();
+      }
+      json.endArray().endObject();
+    }
+    json.endArray();
+    return rulesById;
+  }
+
+  private void writeDebt(JsonWriter json, RuleDto rule, Map<Integer, String> characteristicKeysById) {
+    Integer characteristicId = rule.getSubCharacteristicId() != null ? rule.getSubCharacteristicId() : rule.getDefaultSubCharacteristicId();
+    String characteristicKey = characteristicKeysById.get(characteristicId);
+    if (characteristicKey == null) {
+      throw new IllegalStateException(String.format("Sub characteristic id '%s' on rule '%s' has not been found", characteristicId, rule.getKey()));
+    }
+    json.prop("debtChar", characteristicKey);
+    if (rule.getRemediationFunction() != null) {
+      json.prop("debtFn", rule.getRemediationFunction())
+        .prop("debtCoef", rule.getRemediationCoefficient())
+        .prop("debtOffset", rule.getRemediationOffset());
+    } else if (rule.getDefaultRemediationFunction() != null) {
+      json.prop("debtFn", rule.getDefaultRemediationFunction())
+        .prop("debtCoef", rule.getDefaultRemediationCoefficient())
+        .prop("debtOffset", rule.getDefaultRemediationOffset());
+    } else {
+      throw new IllegalStateException(String.format("Remediation function should not be null on rule '%s'", rule.getKey()));
+    }
+  }
+
+  private void writeActiveRules(JsonWriter json, Map<Integer, RuleDto> rulesById, ListMultimap<Integer, RuleParamDto> paramsByRuleId, SqlSession session) {
+    ListMultimap<Integer, ActiveRuleParamDto> paramsByActiveRuleId = ArrayListMultimap.create();
+    for (ActiveRuleParamDto param : activeRuleDao.selectAllParams(session)) {
+      paramsByActiveRuleId.put(param.getActiveRuleId(), param);
+    }
+
+    json.name("activeRules").beginArray();
+    for (ActiveRuleDto activeRule : activeRuleDao.selectAll(session)) {
+      RuleDto rule = rulesById.get(activeRule.getRulId());
+      if (rule != null) {
+        RuleDto template = rule.getParentId() != null ? rulesById.get(rule.getParentId()) : null;
+        json.beginObject()
+          .prop("profileId", activeRule.getProfileId())
+          .prop("repo", rule.getRepositoryKey())
+          .prop("key", rule.getRuleKey())
+          .prop("severity", activeRule.getSeverityString())
+          .prop("internalKey", template != null ? template.getConfigKey() : rule.getConfigKey());
+        json.name("params").beginObject();
+        Map<String, String> values = Maps.newLinkedHashMap();
+        for (RuleParamDto param : paramsByRuleId.get(rule.getId())) {
+          values.put(param.getName(), param.getDefaultValue());
+        }
+        for (ActiveRuleParamDto param : paramsByActiveRuleId.get(activeRule.getId())) {
+          values.put(param.getKey(), param.getValue());
+        }
+        for (Map.Entry<String, String> value : values.entrySet()) {
+          json.prop(value.getKey(), value.getValue());
+        }
+        json.endObject().endObject();
+      }
+    }
+    json.endArray();
+  }
+
+  /**
+   * Return true is the characteristic has not been overridden and a default characteristic is existing or
+   * if the characteristic has been overridden but is not disabled
+   */
+  private static boolean hasCharacteristic(RuleDto rule) {
+    Integer subCharacteristicId = rule.getSubCharacteristicId();
+    return (subCharacteristicId == null && rule.getDefaultSubCharacteristicId() != null) ||
+      (subCharacteristicId != null && !RuleDto.DISABLED_CHARACTERISTIC_ID.equals(subCharacteristicId));
+  }
+
+  private static class Bundle {
+    private final long version;
+    private final byte[] content;
+    private final String hash;
+
+    private Bundle(long version, byte[] content, String hash) {
+      this.version = version;
+      this.content = content;
+      this.hash = hash;
+    }
+  }
+}
@@ -19,6 +19,7 @@
  */
 package org.sonar.server.cluster;
 
+import com.google.common.annotations.VisibleForTesting;
 import org.sonar.api.ServerComponent;
 import org.sonar.core.cluster.QueueAction;
 import org.sonar.core.cluster.WorkQueue;
@@ -28,21 +29,34 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Bounded queue of the actions to be executed by {@link LocalQueueWorker}. Callers are blocked
+ * while the queue is full, so that producers can not go faster than the indexing.
+ */
 public class LocalNonBlockingWorkQueue extends LinkedBlockingQueue<Runnable>
   implements ServerComponent, WorkQueue {
 
+  @VisibleForTesting
+  static final int CAPACITY = 10000;
+
+  private static final long OFFER_TIMEOUT_IN_SECONDS = 60L;
+  private static final long WAIT_FOR_EXECUTION_IN_MS = 1500L;
 
   public LocalNonBlockingWorkQueue() {
-    super();
+    this(CAPACITY);
+  }
+
+  @VisibleForTesting
+  LocalNonBlockingWorkQueue(int capacity) {
+    super(capacity);
   }
 
   @Override
   public void enqueue(QueueAction action) {
     CountDownLatch latch = new CountDownLatch(1);
-    action.setLatch(latch);
     try {
-      this.offer(action, 1000, TimeUnit.SECONDS);
-      latch.await(1500, TimeUnit.MILLISECONDS);
+      add(action, latch);
+      latch.await(WAIT_FOR_EXECUTION_IN_MS, TimeUnit.MILLISECONDS);
     } catch (InterruptedException e) {
       throw new IllegalStateException("ES update has been interrupted: ");
     }
@@ -53,12 +67,37 @@ public class LocalNonBlockingWorkQueue extends LinkedBlockingQueue<Runnable>
     CountDownLatch latch = new CountDownLatch(actions.size());
     try {
       for (QueueAction action : actions) {
-        action.setLatch(latch);
-        this.offer(action, 1000, TimeUnit.SECONDS);
+        add(action, latch);
       }
-      latch.await(1500, TimeUnit.MILLISECONDS);
+      latch.await(WAIT_FOR_EXECUTION_IN_MS, TimeUnit.MILLISECONDS);
     } catch (InterruptedException e) {
       throw new IllegalStateException("ES update has been interrupted: ");
     }
   }
+
+  private void add(QueueAction action, CountDownLatch latch) throws InterruptedException {
+    action.setLatch(latch);
+    action.setEnqueuedAt(System.currentTimeMillis());
+    if (!offer(action, OFFER_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS)) {
+      throw new IllegalStateException("ES update queue is full since " + OFFER_TIMEOUT_IN_SECONDS + " seconds");
+    }
+  }
+
+  /**
+   * Number of actions waiting to be executed
+   */
+  public int getDepth() {
+    return size();
+  }
+
+  /**
+   * Time in milliseconds since the oldest waiting action has been enqueued, 0 if the queue is empty.
+   */
+  public long getLag() {
+    Runnable oldest = peek();
+    if (oldest instanceof QueueAction) {
+      return Math.max(0L, System.currentTimeMillis() - ((QueueAction) oldest).getEnqueuedAt());
+    }
+    return 0L;
+  }
 }
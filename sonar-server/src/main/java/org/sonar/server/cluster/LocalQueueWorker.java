@@ -19,6 +19,8 @@
  */
 package org.sonar.server.cluster;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Maps;
 import org.picocontainer.Startable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,19 +29,42 @@ import org.sonar.server.search.Index;
 import org.sonar.server.search.IndexAction;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
-public class LocalQueueWorker extends ThreadPoolExecutor
-  implements ServerComponent, Startable {
+import static com.google.common.collect.Lists.newArrayList;
+
+/**
+ * Consumes the actions of {@link LocalNonBlockingWorkQueue}. Waiting actions are drained at once and
+ * grouped by index, so that each index receives a single bulk request. The bulks of the different indexes
+ * are executed concurrently, but a batch is completed before the next one is drained, so the actions
+ * of an index are always executed in the order they were enqueued.
+ */
+public class LocalQueueWorker implements ServerComponent, Startable {
 
   private static final Logger LOG = LoggerFactory.getLogger(LocalQueueWorker.class);
 
-  private Map<String, Index> indexes;
+  @VisibleForTesting
+  static final int MAX_BULK_SIZE = 1000;
+
+  private static final int INDEXER_THREADS = 4;
+
+  private final LocalNonBlockingWorkQueue queue;
+  private final Map<String, Index> indexes;
+
+  private ExecutorService indexers;
+  private Thread dispatcher;
+  private volatile boolean stopping = false;
+  private volatile long lastLag = 0L;
 
   public LocalQueueWorker(LocalNonBlockingWorkQueue queue, Index... allIndexes) {
-    super(10, 10, 500l, TimeUnit.MILLISECONDS, queue);
+    this.queue = queue;
 
     /* Save all instances of Index<?> */
     this.indexes = new HashMap<String, Index>();
@@ -48,30 +73,131 @@ public class LocalQueueWorker extends ThreadPoolExecutor
     }
   }
 
-  protected void beforeExecute(Thread t, Runnable r) {
-    LOG.debug("Starting task: {}", r);
-    super.beforeExecute(t, r);
-    if (IndexAction.class.isAssignableFrom(r.getClass())) {
-      IndexAction ia = (IndexAction) r;
-      LOG.debug("Task is an IndexAction for {}", ia.getIndexName());
-      ia.setIndex(indexes.get(ia.getIndexName()));
+  @Override
+  public void start() {
+    indexers = Executors.newFixedThreadPool(INDEXER_THREADS);
+    dispatcher = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        dispatch();
+      }
+    }, "Index queue worker");
+    dispatcher.setDaemon(true);
+    dispatcher.start();
+  }
+
+  @Override
+  public void stop() {
+    stopping = true;
+    if (dispatcher != null) {
+      dispatcher.interrupt();
+    }
+    if (indexers != null) {
+      indexers.shutdown();
+      try {
+        indexers.awaitTermination(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        LOG.error("Error during stop of index queue worker", e);
+      }
     }
   }
 
-  protected void afterExecute(Runnable r, Throwable t) {
-    super.afterExecute(r, t);
-    if (t != null) {
-      throw new IllegalStateException(t);
+  private void dispatch() {
+    while (!stopping) {
+      try {
+        List<Runnable> actions = newArrayList();
+        actions.add(queue.take());
+        queue.drainTo(actions, MAX_BULK_SIZE - 1);
+        execute(actions);
+      } catch (InterruptedException e) {
+        // stopping
+        return;
+      } catch (Exception e) {
+        LOG.error("Fail to execute queued actions", e);
+      }
     }
   }
 
-  @Override
-  public void start() {
-    this.prestartCoreThread();
+  @VisibleForTesting
+  void execute(List<Runnable> actions) throws InterruptedException {
+    long oldestEnqueuedAt = Long.MAX_VALUE;
+    Map<String, List<IndexAction>> actionsByIndex = Maps.newLinkedHashMap();
+    List<Runnable> otherActions = newArrayList();
+    for (Runnable action : actions) {
+      if (action instanceof IndexAction) {
+        IndexAction indexAction = (IndexAction) action;
+        oldestEnqueuedAt = Math.min(oldestEnqueuedAt, indexAction.getEnqueuedAt());
+        List<IndexAction> indexActions = actionsByIndex.get(indexAction.getIndexName());
+        if (indexActions == null) {
+          indexActions = newArrayList();
+          actionsByIndex.put(indexAction.getIndexName(), indexActions);
+        }
+        indexActions.add(indexAction);
+      } else {
+        otherActions.add(action);
+      }
+    }
+
+    List<Future<Integer>> bulks = newArrayList();
+    for (Map.Entry<String, List<IndexAction>> entry : actionsByIndex.entrySet()) {
+      bulks.add(indexers.submit(new BulkTask(entry.getKey(), entry.getValue())));
+    }
+    for (Runnable action : otherActions) {
+      action.run();
+    }
+    for (Future<Integer> bulk : bulks) {
+      try {
+        bulk.get();
+      } catch (ExecutionException e) {
+        LOG.error("Fail to execute bulk of index actions", e.getCause());
+      }
+    }
+    if (oldestEnqueuedAt != Long.MAX_VALUE) {
+      lastLag = System.currentTimeMillis() - oldestEnqueuedAt;
+    }
   }
 
-  @Override
-  public void stop() {
-    this.shutdown();
+  /**
+   * Number of actions waiting in the queue. Displayed in the System Info page.
+   */
+  public int getQueueDepth() {
+    return queue.getDepth();
+  }
+
+  /**
+   * Time in milliseconds between the enqueuing of the oldest action of the last bulks and their execution.
+   * Displayed in the System Info page.
+   */
+  public long getIndexingLag() {
+    return Math.max(lastLag, queue.getLag());
+  }
+
+  private class BulkTask implements Callable<Integer> {
+    private final String indexName;
+    private final List<IndexAction> actions;
+
+    BulkTask(String indexName, List<IndexAction> actions) {
+      this.indexName = indexName;
+      this.actions = actions;
+    }
+
+    @Override
+    public Integer call() {
+      try {
+        Index index = indexes.get(indexName);
+        if (index == null) {
+          throw new IllegalStateException("Unknown index: " + indexName);
+        }
+        long start = System.currentTimeMillis();
+        index.executeBulk(actions);
+        LOG.debug("{} actions executed on index {} in {} ms", new Object[] {actions.size(), indexName, System.currentTimeMillis() - start});
+        return actions.size();
+      } finally {
+        // release the callers even if the bulk failed, otherwise they would wait until timeout
+        for (IndexAction action : actions) {
+          action.done();
+        }
+      }
+    }
   }
 }
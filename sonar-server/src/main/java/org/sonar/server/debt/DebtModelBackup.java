@@ -38,6 +38,7 @@ import org.sonar.api.utils.ValidationMessages;
 import org.sonar.core.permission.GlobalPermissions;
 import org.sonar.core.persistence.DbSession;
 import org.sonar.core.persistence.MyBatis;
+import org.sonar.core.preview.PreviewCache;
 import org.sonar.core.rule.RuleDao;
 import org.sonar.core.rule.RuleDto;
 import org.sonar.core.technicaldebt.db.CharacteristicDao;
@@ -74,19 +75,21 @@ public class DebtModelBackup implements ServerComponent {
   private final DebtModelXMLExporter debtModelXMLExporter;
   private final RuleRegistry ruleRegistry;
   private final RuleDefinitionsLoader defLoader;
+  private final PreviewCache dryRunCache;
   private final System2 system2;
 
   public DebtModelBackup(MyBatis mybatis, CharacteristicDao dao, RuleDao ruleDao, DebtModelOperations debtModelOperations, RuleOperations ruleOperations,
                          DebtModelPluginRepository debtModelPluginRepository, DebtCharacteristicsXMLImporter characteristicsXMLImporter, DebtRulesXMLImporter rulesXMLImporter,
-                         DebtModelXMLExporter debtModelXMLExporter, RuleRegistry ruleRegistry, RuleDefinitionsLoader defLoader) {
+                         DebtModelXMLExporter debtModelXMLExporter, RuleRegistry ruleRegistry, RuleDefinitionsLoader defLoader, PreviewCache dryRunCache) {
     this(mybatis, dao, ruleDao, debtModelOperations, ruleOperations, debtModelPluginRepository, characteristicsXMLImporter, rulesXMLImporter, debtModelXMLExporter, ruleRegistry,
-      defLoader, System2.INSTANCE);
+      defLoader, dryRunCache, System2.INSTANCE);
   }
 
   @VisibleForTesting
   DebtModelBackup(MyBatis mybatis, CharacteristicDao dao, RuleDao ruleDao, DebtModelOperations debtModelOperations, RuleOperations ruleOperations,
                   DebtModelPluginRepository debtModelPluginRepository, DebtCharacteristicsXMLImporter characteristicsXMLImporter, DebtRulesXMLImporter rulesXMLImporter,
-                  DebtModelXMLExporter debtModelXMLExporter, RuleRegistry ruleRegistry, RuleDefinitionsLoader defLoader, System2 system2) {
+                  DebtModelXMLExporter debtModelXMLExporter, RuleRegistry ruleRegistry, RuleDefinitionsLoader defLoader, PreviewCache dryRunCache,
+                  System2 system2) {
     this.mybatis = mybatis;
     this.dao = dao;
     this.ruleDao = ruleDao;
@@ -98,6 +101,7 @@ public class DebtModelBackup implements ServerComponent {
     this.debtModelXMLExporter = debtModelXMLExporter;
     this.ruleRegistry = ruleRegistry;
     this.defLoader = defLoader;
+    this.dryRunCache = dryRunCache;
     this.system2 = system2;
   }
 
@@ -166,6 +170,7 @@ public class DebtModelBackup implements ServerComponent {
         resetRules(ruleDtos, rules, allCharacteristicDtos, updateDate, session);
       }
 
+      dryRunCache.reportGlobalModification(session);
       session.commit();
     } finally {
       MyBatis.closeQuietly(session);
@@ -231,6 +236,7 @@ public class DebtModelBackup implements ServerComponent {
       List<CharacteristicDto> allCharacteristicDtos = restoreCharacteristics(characteristicsXMLImporter.importXML(xml), updateDate, session);
       restoreRules(allCharacteristicDtos, rules(languageKey, session), rulesXMLImporter.importXML(xml, validationMessages), validationMessages, updateDate, session);
 
+      dryRunCache.reportGlobalModification(session);
       session.commit();
     } catch (IllegalArgumentException e) {
       LOG.debug("Error when restoring the model", e);
@@ -31,6 +31,7 @@ import org.sonar.api.utils.System2;
 import org.sonar.core.permission.GlobalPermissions;
 import org.sonar.core.persistence.DbSession;
 import org.sonar.core.persistence.MyBatis;
+import org.sonar.core.preview.PreviewCache;
 import org.sonar.core.rule.RuleDao;
 import org.sonar.core.rule.RuleDto;
 import org.sonar.core.technicaldebt.db.CharacteristicDao;
@@ -54,17 +55,19 @@ public class DebtModelOperations implements ServerComponent {
   private final RuleDao ruleDao;
   private final System2 system2;
   private final RuleRegistry ruleRegistry;
+  private final PreviewCache dryRunCache;
 
-  public DebtModelOperations(MyBatis mybatis, CharacteristicDao dao, RuleDao ruleDao, RuleRegistry ruleRegistry) {
-    this(mybatis, dao, ruleDao, ruleRegistry, System2.INSTANCE);
+  public DebtModelOperations(MyBatis mybatis, CharacteristicDao dao, RuleDao ruleDao, RuleRegistry ruleRegistry, PreviewCache dryRunCache) {
+    this(mybatis, dao, ruleDao, ruleRegistry, dryRunCache, System2.INSTANCE);
   }
 
   @VisibleForTesting
-  DebtModelOperations(MyBatis mybatis, CharacteristicDao dao, RuleDao ruleDao, RuleRegistry ruleRegistry, System2 system2) {
+  DebtModelOperations(MyBatis mybatis, CharacteristicDao dao, RuleDao ruleDao, RuleRegistry ruleRegistry, PreviewCache dryRunCache, System2 system2) {
     this.mybatis = mybatis;
     this.dao = dao;
     this.ruleDao = ruleDao;
     this.ruleRegistry = ruleRegistry;
+    this.dryRunCache = dryRunCache;
     this.system2 = system2;
   }
 
@@ -194,6 +197,7 @@ public class DebtModelOperations implements ServerComponent {
     DbSession session = mybatis.openSession(true);
     try {
       delete(findCharacteristic(characteristicId, session), updateDate, session);
+      dryRunCache.reportGlobalModification(session);
       session.commit();
     } finally {
       MyBatis.closeQuietly(session);
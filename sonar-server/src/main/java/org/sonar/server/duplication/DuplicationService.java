@@ -0,0 +1,100 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.duplication;
+
+import com.google.common.collect.Lists;
+import org.sonar.api.ServerComponent;
+import org.sonar.api.web.UserRole;
+import org.sonar.core.duplication.DuplicationBlockDto;
+import org.sonar.core.duplication.DuplicationDao;
+import org.sonar.core.duplication.DuplicationGroupDto;
+import org.sonar.server.exceptions.NotFoundException;
+import org.sonar.server.user.AuthorizationCache;
+import org.sonar.server.user.UserSession;
+
+import java.util.List;
+
+/**
+ * Reads the duplications stored in the table DUPLICATION_BLOCKS since version 4.4.
+ *
+ * @since 4.4
+ */
+public class DuplicationService implements ServerComponent {
+
+  private final DuplicationDao dao;
+  private final AuthorizationCache authorizationCache;
+
+  public DuplicationService(DuplicationDao dao, AuthorizationCache authorizationCache) {
+    this.dao = dao;
+    this.authorizationCache = authorizationCache;
+  }
+
+  /**
+   * Duplication groups detected on a file, each group being the list of its blocks. Empty if the file has
+   * no duplications or if it has been analyzed by a version prior to 4.4.
+   * Warning - does not check permission
+   */
+  public List<List<DuplicationBlockDto>> findGroups(int snapshotId) {
+    List<List<DuplicationBlockDto>> groups = Lists.newArrayList();
+    List<DuplicationBlockDto> group = null;
+    for (DuplicationBlockDto block : dao.selectBlocks(snapshotId)) {
+      if (group == null || group.get(0).getGroupIndex() != block.getGroupIndex()) {
+        group = Lists.newArrayList();
+        groups.add(group);
+      }
+      group.add(block);
+    }
+    return groups;
+  }
+
+  /**
+   * Keys of the files that share duplicated blocks with the given file, including files of other projects
+   * when cross-project detection is enabled. Files of the projects that the user is not allowed to browse are excluded.
+   */
+  public List<String> findDuplicatingFiles(String fileKey) {
+    checkPermission(fileKey);
+    UserSession userSession = UserSession.get();
+    List<String> result = Lists.newArrayList();
+    for (String duplicatingFileKey : dao.selectDuplicatingFileKeys(fileKey)) {
+      String projectKey = authorizationCache.rootProjectKey(duplicatingFileKey);
+      if (projectKey != null && userSession.hasProjectPermission(UserRole.USER, projectKey)) {
+        result.add(duplicatingFileKey);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Largest duplication groups of the project containing the given component
+   */
+  public List<DuplicationGroupDto> findLargestGroups(String componentKey, int limit) {
+    String projectKey = checkPermission(componentKey);
+    return dao.selectLargestGroups(projectKey, limit);
+  }
+
+  private String checkPermission(String componentKey) {
+    String projectKey = authorizationCache.rootProjectKey(componentKey);
+    if (projectKey == null) {
+      throw new NotFoundException("Component does not exist: " + componentKey);
+    }
+    UserSession.get().checkProjectPermission(UserRole.USER, projectKey);
+    return projectKey;
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.duplication.ws;
+
+import org.sonar.api.server.ws.Request;
+import org.sonar.api.server.ws.RequestHandler;
+import org.sonar.api.server.ws.Response;
+import org.sonar.api.server.ws.WebService;
+import org.sonar.api.utils.text.JsonWriter;
+import org.sonar.core.duplication.DuplicationGroupDto;
+import org.sonar.server.duplication.DuplicationService;
+
+public class DuplicationsWs implements WebService {
+
+  private final DuplicationService service;
+
+  public DuplicationsWs(DuplicationService service) {
+    this.service = service;
+  }
+
+  @Override
+  public void define(Context context) {
+    NewController controller = context.createController("api/duplications")
+      .setDescription("Duplications")
+      .setSince("4.4");
+
+    NewAction files = controller.createAction("files")
+      .setDescription("Files sharing duplicated blocks with a file, including files of other projects " +
+        "when cross-project detection is enabled. Requires Browse permission on the project of the file.")
+      .setSince("4.4")
+      .setInternal(true)
+      .setHandler(new RequestHandler() {
+        @Override
+        public void handle(Request request, Response response) {
+          files(request, response);
+        }
+      });
+    files.createParam("key")
+      .setRequired(true)
+      .setDescription("File key")
+      .setExampleValue("my_project:/src/foo/Bar.php");
+
+    NewAction groups = controller.createAction("groups")
+      .setDescription("Largest duplication groups of a project, sorted by decreasing number of duplicated lines. " +
+        "A group involving several files is listed once per file. Requires Browse permission on the project.")
+      .setSince("4.4")
+      .setInternal(true)
+      .setHandler(new RequestHandler() {
+        @Override
+        public void handle(Request request, Response response) {
+          groups(request, response);
+        }
+      });
+    groups.createParam("key")
+      .setRequired(true)
+      .setDescription("Project key")
+      .setExampleValue("my_project");
+    groups.createParam("limit")
+      .setDescription("Maximum number of groups")
+      .setDefaultValue("10");
+
+    controller.done();
+  }
+
+  private void files(Request request, Response response) {
+    JsonWriter json = response.newJsonWriter().beginObject().name("files").beginArray();
+    for (String fileKey : service.findDuplicatingFiles(request.mandatoryParam("key"))) {
+      json.value(fileKey);
+    }
+    json.endArray().endObject().close();
+  }
+
+  private void groups(Request request, Response response) {
+    JsonWriter json = response.newJsonWriter().beginObject().name("groups").beginArray();
+    for (DuplicationGroupDto group : service.findLargestGroups(request.mandatoryParam("key"), request.mandatoryParamAsInt("limit"))) {
+      json.beginObject()
+        .prop("file", group.getFileKey())
+        .prop("index", group.getGroupIndex())
+        .prop("blocks", group.getBlocks())
+        .prop("lines", group.getLines())
+        .endObject();
+    }
+    json.endArray().endObject().close();
+  }
+}
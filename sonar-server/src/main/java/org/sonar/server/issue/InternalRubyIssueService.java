@@ -594,6 +594,16 @@ public class InternalRubyIssueService implements ServerComponent {
     return issueBulkChangeService.execute(issueBulkChangeQuery, UserSession.get());
   }
 
+  /**
+   * Executes the bulk change in background
+   *
+   * @since 4.4
+   */
+  public IssueBulkChangeJob submitBulkChange(Map<String, Object> props, String comment, boolean sendNotifications) {
+    IssueBulkChangeQuery issueBulkChangeQuery = new IssueBulkChangeQuery(props, comment, sendNotifications);
+    return issueBulkChangeService.submit(issueBulkChangeQuery, UserSession.get());
+  }
+
   private void checkMandatoryParameter(String value, String paramName, Result result) {
     if (Strings.isNullOrEmpty(value)) {
       result.addError(Result.Message.ofL10n(Validation.CANT_BE_EMPTY_MESSAGE, paramName));
@@ -0,0 +1,109 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.issue;
+
+import javax.annotation.CheckForNull;
+
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * A bulk change submitted with {@link IssueBulkChangeService#submit(IssueBulkChangeQuery, org.sonar.server.user.UserSession)}.
+ * Its progress can be polled while it is executed in background.
+ *
+ * @since 4.4
+ */
+public class IssueBulkChangeJob {
+
+  public enum Status {
+    PENDING, RUNNING, DONE, FAILED
+  }
+
+  private final String key = UUID.randomUUID().toString();
+  private final String login;
+  private final int total;
+  private final Date createdAt;
+  private final IssueBulkChangeResult result = new IssueBulkChangeResult();
+  private volatile Status status = Status.PENDING;
+  private volatile int processed = 0;
+  private volatile String error;
+
+  IssueBulkChangeJob(String login, int total, Date createdAt) {
+    this.login = login;
+    this.total = total;
+    this.createdAt = createdAt;
+  }
+
+  public String key() {
+    return key;
+  }
+
+  public String login() {
+    return login;
+  }
+
+  public Status status() {
+    return status;
+  }
+
+  /**
+   * Number of requested issue keys
+   */
+  public int total() {
+    return total;
+  }
+
+  /**
+   * Number of issue keys already processed, whether the issues have been changed or not
+   */
+  public int processed() {
+    return processed;
+  }
+
+  public Date createdAt() {
+    return createdAt;
+  }
+
+  public IssueBulkChangeResult result() {
+    return result;
+  }
+
+  @CheckForNull
+  public String error() {
+    return error;
+  }
+
+  void start() {
+    status = Status.RUNNING;
+  }
+
+  void progress(int count) {
+    processed += count;
+  }
+
+  void done() {
+    status = Status.DONE;
+  }
+
+  void fail(String message) {
+    error = message;
+    status = Status.FAILED;
+  }
+}
@@ -17,34 +17,51 @@
  * along with this program; if not, write to the Free Software Foundation,
  * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
  */
-
 package org.sonar.server.issue;
 
+import com.google.common.collect.ImmutableList;
 import org.sonar.api.issue.Issue;
 
-import java.util.Collection;
-import java.util.Set;
+import java.util.List;
 
-import static com.google.common.collect.Sets.newHashSet;
+import static com.google.common.collect.Lists.newArrayList;
 
+/**
+ * Outcome of a bulk change. Only the counters are kept for the changed issues, and the keys of the issues
+ * that could not be changed are kept up to {@link #MAX_SAMPLE_SIZE}, so that the result of a change on thousands
+ * of issues stays small. It is updated by the thread executing the change and can be read concurrently.
+ */
 public class IssueBulkChangeResult {
 
-  private Set<Issue> issuesChanged = newHashSet();
-  private Set<Issue> issuesNotChanged = newHashSet();
+  static final int MAX_SAMPLE_SIZE = 100;
+
+  private int issuesChanged = 0;
+  private int issuesNotChanged = 0;
+  private final List<String> issuesNotChangedSample = newArrayList();
 
-  public void addIssueChanged(Issue issue){
-    this.issuesChanged.add(issue);
+  public synchronized void addIssueChanged(Issue issue) {
+    issuesChanged++;
   }
 
-  public void addIssueNotChanged(Issue issue){
-    this.issuesNotChanged.add(issue);
+  public synchronized void addIssueNotChanged(Issue issue) {
+    issuesNotChanged++;
+    if (issuesNotChangedSample.size() < MAX_SAMPLE_SIZE) {
+      issuesNotChangedSample.add(issue.key());
+    }
   }
 
-  public Collection<Issue> issuesChanged() {
+  public synchronized int countIssuesChanged() {
     return issuesChanged;
   }
 
-  public Collection<Issue> issuesNotChanged() {
+  public synchronized int countIssuesNotChanged() {
     return issuesNotChanged;
   }
+
+  /**
+   * Keys of the first issues that could not be changed, at most {@link #MAX_SAMPLE_SIZE}.
+   */
+  public synchronized List<String> issuesNotChanged() {
+    return ImmutableList.copyOf(issuesNotChangedSample);
+  }
 }
@@ -20,12 +20,15 @@
 
 package org.sonar.server.issue;
 
-import org.sonar.core.preview.PreviewCache;
-
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Predicate;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.MapMaker;
+import org.picocontainer.Startable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.sonar.api.ServerComponent;
 import org.sonar.api.issue.Issue;
 import org.sonar.api.issue.IssueQuery;
 import org.sonar.api.issue.IssueQueryResult;
@@ -34,25 +37,48 @@ import org.sonar.api.issue.internal.IssueChangeContext;
 import org.sonar.api.web.UserRole;
 import org.sonar.core.issue.IssueNotifications;
 import org.sonar.core.issue.db.IssueStorage;
+import org.sonar.core.preview.PreviewCache;
 import org.sonar.server.exceptions.BadRequestException;
+import org.sonar.server.exceptions.NotFoundException;
 import org.sonar.server.user.UserSession;
 
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static com.google.common.collect.Lists.newArrayList;
 
-public class IssueBulkChangeService {
+/**
+ * Applies actions on a list of issues. Issues are loaded, changed, saved and notified by chunks of
+ * {@link IssueQuery#MAX_PAGE_SIZE}, so that each chunk is persisted in a single batch and its notifications
+ * are scheduled at once.
+ * <p/>
+ * Changes on many issues should be {@link #submit(IssueBulkChangeQuery, UserSession) submitted}: they are then executed
+ * in background, one at a time, and their progress is polled with {@link #job(String, UserSession)}.
+ */
+public class IssueBulkChangeService implements ServerComponent, Startable {
 
   private static final Logger LOG = LoggerFactory.getLogger(IssueBulkChangeService.class);
 
+  /**
+   * Finished jobs are forgotten when they have not been polled during this delay
+   */
+  private static final long JOB_RETENTION_MINUTES = 60;
+
   private final DefaultIssueFinder issueFinder;
   private final IssueStorage issueStorage;
   private final IssueNotifications issueNotifications;
   private final PreviewCache dryRunCache;
   private final List<Action> actions;
+  private final ConcurrentMap<String, IssueBulkChangeJob> jobs = new MapMaker()
+    .expireAfterAccess(JOB_RETENTION_MINUTES, TimeUnit.MINUTES)
+    .makeMap();
+  private ExecutorService executor;
 
   public IssueBulkChangeService(DefaultIssueFinder issueFinder, IssueStorage issueStorage, IssueNotifications issueNotifications, List<Action> actions, PreviewCache dryRunCache) {
     this.issueFinder = issueFinder;
@@ -62,41 +88,132 @@ public class IssueBulkChangeService {
     this.dryRunCache = dryRunCache;
   }
 
+  @Override
+  public void start() {
+    executor = Executors.newSingleThreadExecutor();
+  }
+
+  @Override
+  public void stop() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Executes the bulk change in the current thread.
+   */
   public IssueBulkChangeResult execute(IssueBulkChangeQuery issueBulkChangeQuery, UserSession userSession) {
+    IssueBulkChangeJob job = newJob(issueBulkChangeQuery, userSession);
+    run(job, issueBulkChangeQuery, userSession);
+    return job.result();
+  }
+
+  /**
+   * Enqueues the bulk change and returns immediately. Actions are verified before being enqueued.
+   *
+   * @since 4.4
+   */
+  public IssueBulkChangeJob submit(final IssueBulkChangeQuery issueBulkChangeQuery, final UserSession userSession) {
+    final IssueBulkChangeJob job = newJob(issueBulkChangeQuery, userSession);
+    jobs.put(job.key(), job);
+    executor.submit(new Runnable() {
+      @Override
+      public void run() {
+        userSession.execute(new Runnable() {
+          @Override
+          public void run() {
+            IssueBulkChangeService.this.run(job, issueBulkChangeQuery, userSession);
+          }
+        });
+      }
+    });
+    return job;
+  }
+
+  /**
+   * Job submitted by the given user
+   *
+   * @since 4.4
+   */
+  public IssueBulkChangeJob job(String key, UserSession userSession) {
+    userSession.checkLoggedIn();
+    IssueBulkChangeJob job = jobs.get(key);
+    if (job == null || !job.login().equals(userSession.login())) {
+      throw new NotFoundException("Bulk change not found: " + key);
+    }
+    return job;
+  }
+
+  private IssueBulkChangeJob newJob(IssueBulkChangeQuery issueBulkChangeQuery, UserSession userSession) {
     LOG.debug("BulkChangeQuery : {}", issueBulkChangeQuery);
-    long start = System.currentTimeMillis();
     userSession.checkLoggedIn();
+    for (String actionKey : issueBulkChangeQuery.actions()) {
+      getAction(actionKey);
+    }
+    return new IssueBulkChangeJob(userSession.login(), issueBulkChangeQuery.issues().size(), new Date());
+  }
+
+  @VisibleForTesting
+  void run(IssueBulkChangeJob job, IssueBulkChangeQuery issueBulkChangeQuery, UserSession userSession) {
+    long start = System.currentTimeMillis();
+    job.start();
+    try {
+      IssueChangeContext issueChangeContext = IssueChangeContext.createUser(new Date(), userSession.login());
+      Set<String> concernedProjects = new HashSet<String>();
+      for (List<String> issueKeys : Lists.partition(issueBulkChangeQuery.issues(), IssueQuery.MAX_PAGE_SIZE)) {
+        concernedProjects.addAll(executeChunk(issueKeys, issueBulkChangeQuery, issueChangeContext, job.result(), userSession));
+        job.progress(issueKeys.size());
+      }
+      // Purge dryRun cache
+      for (String projectKey : concernedProjects) {
+        dryRunCache.reportResourceModification(projectKey);
+      }
+      job.done();
+    } catch (RuntimeException e) {
+      job.fail(e.getMessage());
+      LOG.error("Fail to execute bulk change " + job.key(), e);
+      throw e;
+    }
+    LOG.debug("BulkChange execution time : {} ms", System.currentTimeMillis() - start);
+  }
 
-    IssueBulkChangeResult result = new IssueBulkChangeResult();
-    IssueQueryResult issueQueryResult = issueFinder.find(IssueQuery.builder().issueKeys(issueBulkChangeQuery.issues()).pageSize(-1).requiredRole(UserRole.USER).build());
+  /**
+   * @return the keys of the projects of the changed issues
+   */
+  private Set<String> executeChunk(List<String> issueKeys, IssueBulkChangeQuery issueBulkChangeQuery, IssueChangeContext issueChangeContext,
+                                   IssueBulkChangeResult result, UserSession userSession) {
+    IssueQueryResult issueQueryResult = issueFinder.find(IssueQuery.builder().issueKeys(issueKeys).pageSize(-1).requiredRole(UserRole.USER).build());
     List<Issue> issues = issueQueryResult.issues();
     List<Action> bulkActions = getActionsToApply(issueBulkChangeQuery, issues, userSession);
 
-    IssueChangeContext issueChangeContext = IssueChangeContext.createUser(new Date(), userSession.login());
+    List<DefaultIssue> changedIssues = newArrayList();
     Set<String> concernedProjects = new HashSet<String>();
     for (Issue issue : issues) {
       ActionContext actionContext = new ActionContext(issue, issueChangeContext);
+      boolean changed = false;
       for (Action action : bulkActions) {
-        applyAction(action, actionContext, issueBulkChangeQuery, result);
+        changed |= applyAction(action, actionContext, issueBulkChangeQuery);
       }
-      if (result.issuesChanged().contains(issue)) {
+      if (changed) {
         // Apply comment action only on changed issues
         if (issueBulkChangeQuery.hasComment()) {
-          applyAction(getAction(CommentAction.KEY), actionContext, issueBulkChangeQuery, result);
-        }
-        issueStorage.save((DefaultIssue) issue);
-        if (issueBulkChangeQuery.sendNotifications()) {
-          issueNotifications.sendChanges((DefaultIssue) issue, issueChangeContext, issueQueryResult);
+          applyAction(getAction(CommentAction.KEY), actionContext, issueBulkChangeQuery);
         }
+        changedIssues.add((DefaultIssue) issue);
         concernedProjects.add(((DefaultIssue) issue).projectKey());
+        result.addIssueChanged(issue);
+      } else if (!bulkActions.isEmpty()) {
+        result.addIssueNotChanged(issue);
       }
     }
-    // Purge dryRun cache
-    for (String projectKey : concernedProjects) {
-      dryRunCache.reportResourceModification(projectKey);
+    if (!changedIssues.isEmpty()) {
+      issueStorage.save(changedIssues);
+      if (issueBulkChangeQuery.sendNotifications()) {
+        issueNotifications.sendChanges(changedIssues, issueChangeContext, issueQueryResult);
+      }
     }
-    LOG.debug("BulkChange execution time : {} ms", System.currentTimeMillis() - start);
-    return result;
+    return concernedProjects;
   }
 
   private List<Action> getActionsToApply(IssueBulkChangeQuery issueBulkChangeQuery, List<Issue> issues, UserSession userSession) {
@@ -110,17 +227,13 @@ public class IssueBulkChangeService {
     return bulkActions;
   }
 
-  private void applyAction(Action action, ActionContext actionContext, IssueBulkChangeQuery issueBulkChangeQuery, IssueBulkChangeResult result) {
+  private boolean applyAction(Action action, ActionContext actionContext, IssueBulkChangeQuery issueBulkChangeQuery) {
     Issue issue = actionContext.issue();
     try {
-      if (action.supports(issue) && action.execute(issueBulkChangeQuery.properties(action.key()), actionContext)) {
-        result.addIssueChanged(issue);
-      } else {
-        result.addIssueNotChanged(issue);
-      }
+      return action.supports(issue) && action.execute(issueBulkChangeQuery.properties(action.key()), actionContext);
     } catch (Exception e) {
-      result.addIssueNotChanged(issue);
       LOG.info("An error occur when trying to apply the action : " + action.key() + " on issue : " + issue.key() + ". This issue has been ignored.", e);
+      return false;
     }
   }
 
@@ -0,0 +1,79 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.issue.ws;
+
+import com.google.common.io.Resources;
+import org.sonar.api.server.ws.Request;
+import org.sonar.api.server.ws.RequestHandler;
+import org.sonar.api.server.ws.Response;
+import org.sonar.api.server.ws.WebService;
+import org.sonar.api.utils.text.JsonWriter;
+import org.sonar.server.issue.IssueBulkChangeJob;
+import org.sonar.server.issue.IssueBulkChangeResult;
+import org.sonar.server.issue.IssueBulkChangeService;
+import org.sonar.server.user.UserSession;
+
+/**
+ * Progress of a bulk change submitted with <code>api/issues/bulk_change?async=true</code>
+ */
+public class IssueBulkChangeStatusAction implements RequestHandler {
+
+  private final IssueBulkChangeService bulkChangeService;
+
+  public IssueBulkChangeStatusAction(IssueBulkChangeService bulkChangeService) {
+    this.bulkChangeService = bulkChangeService;
+  }
+
+  void define(WebService.NewController controller) {
+    WebService.NewAction action = controller.createAction("bulk_change_status")
+      .setDescription("Progress of a bulk change executed in background. Requires authentication. Only the bulk changes submitted by the current user are available.")
+      .setSince("4.4")
+      .setHandler(this)
+      .setResponseExample(Resources.getResource(this.getClass(), "example-bulk-change-status.json"));
+    action.createParam("key")
+      .setDescription("Key of the bulk change, as returned by bulk_change when the parameter 'async' is true.")
+      .setRequired(true)
+      .setExampleValue("8ffe3a48-6d8c-4b9f-b5a8-0ec0d9f0b5f3");
+  }
+
+  @Override
+  public void handle(Request request, Response response) {
+    IssueBulkChangeJob job = bulkChangeService.job(request.mandatoryParam("key"), UserSession.get());
+    IssueBulkChangeResult result = job.result();
+
+    JsonWriter json = response.newJsonWriter();
+    json.beginObject().name("job").beginObject()
+      .prop("key", job.key())
+      .prop("status", job.status().name())
+      .propDateTime("createdAt", job.createdAt())
+      .prop("total", job.total())
+      .prop("processed", job.processed())
+      .prop("error", job.error());
+    json.name("issuesChanged").beginObject().prop("total", result.countIssuesChanged()).endObject();
+    json.name("issuesNotChanged").beginObject()
+      .prop("total", result.countIssuesNotChanged())
+      .name("issues").beginArray();
+    for (String issueKey : result.issuesNotChanged()) {
+      json.value(issueKey);
+    }
+    json.endArray().endObject();
+    json.endObject().endObject().close();
+  }
+}
@@ -29,9 +29,11 @@ import org.sonar.api.server.ws.WebService;
 public class IssuesWs implements WebService {
 
   private final IssueShowAction showHandler;
+  private final IssueBulkChangeStatusAction bulkChangeStatusHandler;
 
-  public IssuesWs(IssueShowAction showHandler) {
+  public IssuesWs(IssueShowAction showHandler, IssueBulkChangeStatusAction bulkChangeStatusHandler) {
     this.showHandler = showHandler;
+    this.bulkChangeStatusHandler = bulkChangeStatusHandler;
   }
 
   @Override
@@ -52,6 +54,7 @@ public class IssuesWs implements WebService {
     defineTransitionsAction(controller);
     defineCreateAction(controller);
     defineBulkChangeAction(controller);
+    bulkChangeStatusHandler.define(controller);
 
     controller.done();
   }
@@ -318,6 +321,12 @@ public class IssuesWs implements WebService {
       .setDefaultValue("false")
       .setExampleValue("true")
       .setPossibleValues("true", "false");
+    action.createParam("async")
+      .setDescription("Available since version 4.4. If true, the issues are changed in background and the response only contains the key " +
+        "of the bulk change. Its progress is then available through bulk_change_status.")
+      .setDefaultValue("false")
+      .setExampleValue("true")
+      .setPossibleValues("true", "false");
   }
 
 }
@@ -0,0 +1,283 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.measure;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Objects;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.SqlSession;
+import org.picocontainer.Startable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.ServerComponent;
+import org.sonar.core.measure.MeasureSeries;
+import org.sonar.core.measure.db.MeasureSeriesDao;
+import org.sonar.core.measure.db.MeasureSeriesDto;
+import org.sonar.core.measure.db.MeasureSeriesPointDto;
+import org.sonar.core.persistence.MyBatis;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * History of the measures of projects and modules, as returned by the web service api/timemachine. The history of
+ * each metric is stored in a single row of the table MEASURE_SERIES (see {@link MeasureSeries}), so that it is not
+ * required to join snapshots and measures of all the past analyses.
+ * <p/>
+ * Series are completed with the measures of the new analyses by {@link #refresh(long)} when an analysis is notified.
+ * They are also completed on demand when a request is received before the end of the refresh. The purge of old
+ * snapshots only removes their points from the series. Series of different resources are completed concurrently.
+ *
+ * @since 4.4
+ */
+public class TimeMachineService implements ServerComponent, Startable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(TimeMachineService.class);
+
+  private final MyBatis mybatis;
+  private final MeasureSeriesDao dao;
+  private final ConcurrentMap<Long, Lock> lockPerResource = new ConcurrentHashMap<Long, Lock>();
+  private ExecutorService executor;
+
+  public TimeMachineService(MyBatis mybatis, MeasureSeriesDao dao) {
+    this.mybatis = mybatis;
+    this.dao = dao;
+  }
+
+  @Override
+  public void start() {
+    executor = Executors.newSingleThreadExecutor();
+  }
+
+  @Override
+  public void stop() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Asynchronously appends the measures of the last analysis of the given root project and of its modules.
+   */
+  public void refresh(final long rootProjectId) {
+    executor.submit(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          doRefresh(rootProjectId);
+        } catch (Exception e) {
+          LOG.warn("Fail to refresh the measure history of project " + rootProjectId, e);
+        }
+      }
+    });
+  }
+
+  @VisibleForTesting
+  void doRefresh(long rootProjectId) {
+    for (Long projectId : dao.selectProjectIds(rootProjectId)) {
+      append(projectId);
+    }
+  }
+
+  /**
+   * History of some metrics on a project or a module. Series without any points in the requested period are not returned.
+   *
+   * @param characteristicIds if empty, only the measures that are not related to a characteristic are returned
+   * @param from              if not null, points before this date are excluded
+   * @param to                if not null, points after this date are excluded
+   * @param maxPoints         if positive, the number of points of each series is limited to this value. The requested
+   *                          period is split into periods of the same duration and only the last point of each of them is kept.
+   */
+  public List<MeasureSeriesDto> find(long resourceId, Collection<Integer> metricIds, Collection<Integer> characteristicIds,
+                                     @Nullable Date from, @Nullable Date to, int maxPoints) {
+    List<MeasureSeriesDto> dtos = dao.selectByResource(resourceId);
+    Date lastSnapshotDate = dao.selectLastSnapshotDate(resourceId);
+    Date lastDate = lastDate(dtos);
+    if (lastSnapshotDate != null && (lastDate == null || lastSnapshotDate.after(lastDate))) {
+      dtos = append(resourceId);
+    }
+
+    Long fromTime = from != null ? from.getTime() : null;
+    Long toTime = to != null ? to.getTime() : null;
+    List<MeasureSeriesDto> result = Lists.newArrayList();
+    Map<MeasureSeriesDto, MeasureSeries> seriesByDto = Maps.newHashMap();
+    long lowerDate = Long.MAX_VALUE;
+    long upperDate = Long.MIN_VALUE;
+    for (MeasureSeriesDto dto : dtos) {
+      if (accept(dto, metricIds, characteristicIds)) {
+        MeasureSeries series = dto.getSeries().between(fromTime, toTime);
+        if (!series.isEmpty()) {
+          result.add(dto);
+          seriesByDto.put(dto, series);
+          lowerDate = Math.min(lowerDate, series.date(0));
+          upperDate = Math.max(upperDate, series.lastDate());
+        }
+      }
+    }
+    // series are downsampled on the same periods, so that points of different metrics still share the same dates
+    lowerDate = Objects.firstNonNull(fromTime, lowerDate);
+    upperDate = Objects.firstNonNull(toTime, upperDate);
+    for (MeasureSeriesDto dto : result) {
+      MeasureSeries series = seriesByDto.get(dto);
+      dto.setSeries(maxPoints > 0 ? series.downsample(lowerDate, upperDate, maxPoints) : series);
+    }
+    return result;
+  }
+
+  /**
+   * Appends the measures of the analyses that are not stored yet in the series of the given resource. Measures of
+   * metrics flagged with "delete historical data" replace the existing series, as they are deleted from past analyses.
+   *
+   * @return all the series of the resource
+   */
+  @VisibleForTesting
+  List<MeasureSeriesDto> append(long resourceId) {
+    Lock lock = getLock(resourceId);
+    lock.lock();
+    try {
+      return doAppend(resourceId);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private List<MeasureSeriesDto> doAppend(long resourceId) {
+    SqlSession session = mybatis.openSession(false);
+    try {
+      final List<MeasureSeriesDto> dtos = dao.selectByResource(resourceId, session);
+      final Map<SeriesKey, MeasureSeriesDto> dtosByKey = Maps.newHashMap();
+      for (MeasureSeriesDto dto : dtos) {
+        dtosByKey.put(new SeriesKey(dto.getMetricId(), dto.getCharacteristicId()), dto);
+      }
+      final Map<SeriesKey, MeasureSeries> changedSeries = Maps.newHashMap();
+      final Set<SeriesKey> resetSeries = Sets.newHashSet();
+      dao.selectPoints(resourceId, lastDate(dtos), new ResultHandler() {
+        @Override
+        public void handleResult(ResultContext context) {
+          MeasureSeriesPointDto point = (MeasureSeriesPointDto) context.getResultObject();
+          SeriesKey key = new SeriesKey(point.getMetricId(), point.getCharacteristicId());
+          MeasureSeries series = changedSeries.get(key);
+          if (point.isDeleteHistoricalData() && resetSeries.add(key)) {
+            series = new MeasureSeries();
+          } else if (series == null) {
+            MeasureSeriesDto dto = dtosByKey.get(key);
+            series = dto != null ? dto.getSeries() : new MeasureSeries();
+          }
+          series.add(point.getDate().getTime(), point.getValue(), point.getTextValue());
+          changedSeries.put(key, series);
+        }
+      }, session);
+
+      for (Map.Entry<SeriesKey, MeasureSeries> entry : changedSeries.entrySet()) {
+        SeriesKey key = entry.getKey();
+        MeasureSeriesDto dto = dtosByKey.get(key);
+        if (dto == null) {
+          dto = new MeasureSeriesDto().setResourceId(resourceId).setMetricId(key.metricId).setCharacteristicId(key.characteristicId);
+          dto.setSeries(entry.getValue());
+          dao.insert(dto, session);
+          dtos.add(dto);
+        } else {
+          dto.setSeries(entry.getValue());
+          dao.update(dto, session);
+        }
+      }
+      session.commit();
+      return dtos;
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+  }
+
+  private Lock getLock(long resourceId) {
+    Lock lock = lockPerResource.get(resourceId);
+    if (lock == null) {
+      Lock newLock = new ReentrantLock();
+      lock = lockPerResource.putIfAbsent(resourceId, newLock);
+      if (lock == null) {
+        lock = newLock;
+      }
+    }
+    return lock;
+  }
+
+  private static boolean accept(MeasureSeriesDto dto, Collection<Integer> metricIds, Collection<Integer> characteristicIds) {
+    if (!metricIds.contains(dto.getMetricId())) {
+      return false;
+    }
+    if (characteristicIds.isEmpty()) {
+      return dto.getCharacteristicId() == null;
+    }
+    return characteristicIds.contains(dto.getCharacteristicId());
+  }
+
+  @CheckForNull
+  private static Date lastDate(List<MeasureSeriesDto> dtos) {
+    Date result = null;
+    for (MeasureSeriesDto dto : dtos) {
+      if (dto.getLastDate() != null && (result == null || dto.getLastDate().after(result))) {
+        result = dto.getLastDate();
+      }
+    }
+    return result;
+  }
+
+  private static class SeriesKey {
+    private final int metricId;
+    private final Integer characteristicId;
+
+    SeriesKey(int metricId, @Nullable Integer characteristicId) {
+      this.metricId = metricId;
+      this.characteristicId = characteristicId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      SeriesKey other = (SeriesKey) o;
+      return metricId == other.metricId && Objects.equal(characteristicId, other.characteristicId);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(metricId, characteristicId);
+    }
+  }
+}
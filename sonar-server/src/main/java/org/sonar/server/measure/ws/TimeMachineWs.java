@@ -60,6 +60,11 @@ public class TimeMachineWs implements WebService {
     action.createParam("toDateTime")
       .setDescription("ISO-8601 datetime (inclusive)")
       .setExampleValue("2010-12-25T23:59:59+0100");
+
+    action.createParam("maxPoints")
+      .setDescription("Maximum number of dates to return. The period is split into intervals of the same duration and only the last " +
+        "analysis of each interval is returned. Supported on projects and modules only. Since 4.4.")
+      .setExampleValue("100");
   }
 
 }
@@ -36,6 +36,7 @@ import org.sonar.core.user.UserDao;
 import org.sonar.core.user.UserDto;
 import org.sonar.server.exceptions.BadRequestException;
 import org.sonar.server.exceptions.ForbiddenException;
+import org.sonar.server.user.AuthorizationCache;
 import org.sonar.server.user.UserSession;
 
 import javax.annotation.Nullable;
@@ -62,12 +63,15 @@ public class InternalPermissionService implements ServerComponent {
   private final ResourceDao resourceDao;
   private final PermissionFacade permissionFacade;
   private final PermissionFinder finder;
+  private final AuthorizationCache authorizationCache;
 
-  public InternalPermissionService(UserDao userDao, ResourceDao resourceDao, PermissionFacade permissionFacade, PermissionFinder finder) {
+  public InternalPermissionService(UserDao userDao, ResourceDao resourceDao, PermissionFacade permissionFacade, PermissionFinder finder,
+    AuthorizationCache authorizationCache) {
     this.userDao = userDao;
     this.resourceDao = resourceDao;
     this.permissionFacade = permissionFacade;
     this.finder = finder;
+    this.authorizationCache = authorizationCache;
   }
 
   public List<String> globalPermissions() {
@@ -108,6 +112,7 @@ public class InternalPermissionService implements ServerComponent {
     }
 
     permissionFacade.grantDefaultRoles(component.getId(), component.qualifier());
+    authorizationCache.invalidate();
   }
 
   public void applyPermissionTemplate(Map<String, Object> params) {
@@ -132,6 +137,7 @@ public class InternalPermissionService implements ServerComponent {
       }
       permissionFacade.applyPermissionTemplate(query.getTemplateKey(), component.getId());
     }
+    authorizationCache.invalidate();
   }
 
   private void changePermission(String permissionChange, Map<String, Object> params) {
@@ -139,6 +145,7 @@ public class InternalPermissionService implements ServerComponent {
     PermissionChangeQuery permissionChangeQuery = PermissionChangeQuery.buildFromParams(params);
     permissionChangeQuery.validate();
     applyPermissionChange(permissionChange, permissionChangeQuery);
+    authorizationCache.invalidate();
   }
 
   private void applyPermissionChange(String operation, PermissionChangeQuery permissionChangeQuery) {
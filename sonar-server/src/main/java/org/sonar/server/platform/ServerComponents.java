@@ -52,6 +52,7 @@ import org.sonar.core.issue.workflow.IssueWorkflow;
 import org.sonar.core.measure.MeasureFilterEngine;
 import org.sonar.core.measure.MeasureFilterExecutor;
 import org.sonar.core.measure.MeasureFilterFactory;
+import org.sonar.core.measure.MeasureFilterIndex;
 import org.sonar.core.metric.DefaultMetricFinder;
 import org.sonar.core.notification.DefaultNotificationManager;
 import org.sonar.core.permission.PermissionFacade;
@@ -77,6 +78,8 @@ import org.sonar.jpa.session.DatabaseSessionProvider;
 import org.sonar.jpa.session.DefaultDatabaseConnector;
 import org.sonar.jpa.session.ThreadLocalDatabaseSessionFactory;
 import org.sonar.server.authentication.ws.AuthenticationWs;
+import org.sonar.server.batch.BatchBootstrapWs;
+import org.sonar.server.batch.RulesBundle;
 import org.sonar.server.charts.ChartFactory;
 import org.sonar.server.cluster.LocalNonBlockingWorkQueue;
 import org.sonar.server.component.DefaultComponentFinder;
@@ -86,6 +89,8 @@ import org.sonar.server.db.EmbeddedDatabaseFactory;
 import org.sonar.server.db.migrations.DatabaseMigrations;
 import org.sonar.server.db.migrations.DatabaseMigrator;
 import org.sonar.server.debt.*;
+import org.sonar.server.duplication.DuplicationService;
+import org.sonar.server.duplication.ws.DuplicationsWs;
 import org.sonar.server.es.ESIndex;
 import org.sonar.server.es.ESNode;
 import org.sonar.server.issue.*;
@@ -94,9 +99,11 @@ import org.sonar.server.issue.actionplan.ActionPlanWs;
 import org.sonar.server.issue.filter.IssueFilterService;
 import org.sonar.server.issue.filter.IssueFilterWriter;
 import org.sonar.server.issue.filter.IssueFilterWs;
+import org.sonar.server.issue.ws.IssueBulkChangeStatusAction;
 import org.sonar.server.issue.ws.IssueShowAction;
 import org.sonar.server.issue.ws.IssuesWs;
 import org.sonar.server.measure.ws.ResourcesWs;
+import org.sonar.server.measure.TimeMachineService;
 import org.sonar.server.measure.ws.TimeMachineWs;
 import org.sonar.server.notifications.NotificationCenter;
 import org.sonar.server.notifications.NotificationService;
@@ -121,6 +128,7 @@ import org.sonar.server.rule2.ws.RulesWebService;
 import org.sonar.server.rule2.ws.SearchAction;
 import org.sonar.server.search.IndexUtils;
 import org.sonar.server.source.CodeColorizers;
+import org.sonar.server.source.ColorizedSourceCache;
 import org.sonar.server.source.DeprecatedSourceDecorator;
 import org.sonar.server.source.HtmlSourceDecorator;
 import org.sonar.server.source.SourceService;
@@ -299,6 +307,8 @@ class ServerComponents {
     pico.addSingleton(AddTagsWsHandler.class);
     pico.addSingleton(RemoveTagsWsHandler.class);
     pico.addSingleton(RulesDefinitionXmlLoader.class);
+    pico.addSingleton(RulesBundle.class);
+    pico.addSingleton(BatchBootstrapWs.class);
 
     // experimental rules
     pico.addSingleton(RuleService.class);
@@ -316,10 +326,12 @@ class ServerComponents {
     // measure
     pico.addComponent(MeasuresDao.class, false);
     pico.addSingleton(MeasureFilterFactory.class);
+    pico.addSingleton(MeasureFilterIndex.class);
     pico.addSingleton(MeasureFilterExecutor.class);
     pico.addSingleton(MeasureFilterEngine.class);
     pico.addSingleton(DefaultMetricFinder.class);
     pico.addSingleton(ServerLifecycleNotifier.class);
+    pico.addSingleton(TimeMachineService.class);
     pico.addSingleton(TimeMachineWs.class);
 
     // quality gates
@@ -360,6 +372,7 @@ class ServerComponents {
     pico.addSingleton(DefaultUserFinder.class);
     pico.addSingleton(DefaultUserService.class);
     pico.addSingleton(UsersWs.class);
+    pico.addSingleton(AuthorizationCache.class);
 
     // groups
     pico.addSingleton(GroupMembershipService.class);
@@ -396,6 +409,7 @@ class ServerComponents {
     pico.addSingleton(IssueBulkChangeService.class);
     pico.addSingleton(IssueChangelogFormatter.class);
     pico.addSingleton(IssueShowAction.class);
+    pico.addSingleton(IssueBulkChangeStatusAction.class);
     pico.addSingleton(IssuesWs.class);
 
     // issue filters
@@ -430,6 +444,7 @@ class ServerComponents {
 
     // source
     pico.addSingleton(HtmlSourceDecorator.class);
+    pico.addSingleton(ColorizedSourceCache.class);
     pico.addSingleton(DeprecatedSourceDecorator.class);
     pico.addSingleton(SourceService.class);
     pico.addSingleton(SourcesWs.class);
@@ -437,6 +452,10 @@ class ServerComponents {
     pico.addSingleton(ScmWriter.class);
     pico.addSingleton(ScmAction.class);
 
+    // duplications
+    pico.addSingleton(DuplicationService.class);
+    pico.addSingleton(DuplicationsWs.class);
+
     // text
     pico.addSingleton(MacroInterpreter.class);
     pico.addSingleton(RubyTextService.class);
@@ -19,7 +19,10 @@
  */
 package org.sonar.server.qualityprofile;
 
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Lists;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Maps;
 import org.apache.commons.lang.ObjectUtils;
 import org.apache.commons.lang.StringUtils;
 import org.sonar.api.database.DatabaseSession;
@@ -31,7 +34,11 @@ import org.sonar.jpa.dao.RulesDao;
 
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
+
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 public class ProfilesManager extends BaseDao {
 
@@ -68,16 +75,17 @@ public class ProfilesManager extends BaseDao {
     RulesProfile newParent = getProfile(profile.getLanguage(), parentName);
 
     RuleInheritanceActions actions = new RuleInheritanceActions();
+    InheritanceTree tree = new InheritanceTree(profile.getLanguage());
     // Deactivate all inherited rules from old parent
     if (oldParent != null) {
       for (ActiveRule activeRule : oldParent.getActiveRules()) {
-        actions.add(deactivate(profile, activeRule.getRule(), userName));
+        actions.add(deactivate(tree, profile, activeRule.getRule(), userName));
       }
     }
     // Activate all inherited rules of new parent
     if (newParent != null) {
       for (ActiveRule activeRule : newParent.getActiveRules()) {
-        actions.add(activateOrChange(profile, activeRule, userName));
+        actions.add(activateOrChange(tree, profile, activeRule, userName));
       }
     }
     getSession().commit();
@@ -97,8 +105,9 @@ public class ProfilesManager extends BaseDao {
         RulesProfile profile = activeRule.getRulesProfile();
         incrementProfileVersionIfNeeded(profile);
         ruleDisabled(profile, activeRule, null);
-        for (RulesProfile child : getChildren(profile.getId())) {
-          deactivate(child, activeRule.getRule(), null);
+        InheritanceTree tree = new InheritanceTree(profile.getLanguage());
+        for (RulesProfile child : tree.children(profile)) {
+          deactivate(tree, child, activeRule.getRule(), null);
         }
         activeRulesToRemove.add(activeRule);
       }
@@ -118,11 +127,26 @@ public class ProfilesManager extends BaseDao {
    * Rule was activated
    */
   public RuleInheritanceActions activated(int profileId, int activeRuleId, String userName) {
-    ActiveRule activeRule = getSession().getEntity(ActiveRule.class, activeRuleId);
+    return activated(profileId, Collections.singletonList(activeRuleId), userName);
+  }
+
+  /**
+   * Rules were activated in the same profile. Descendants of the profile are loaded once and changes
+   * are flushed in a single transaction.
+   */
+  public RuleInheritanceActions activated(int profileId, Collection<Integer> activeRuleIds, String userName) {
     RulesProfile profile = getSession().getEntity(RulesProfile.class, profileId);
-    ruleEnabled(profile, activeRule, userName);
-    // Notify child profiles
-    return activatedOrChanged(profileId, activeRuleId, userName);
+    InheritanceTree tree = new InheritanceTree(profile.getLanguage());
+    RuleInheritanceActions actions = new RuleInheritanceActions();
+    for (Integer activeRuleId : activeRuleIds) {
+      ActiveRule activeRule = getSession().getEntity(ActiveRule.class, activeRuleId);
+      ruleEnabled(profile, activeRule, userName);
+      // Notify child profiles
+      actions.add(activatedOrChanged(tree, profile, activeRule, userName));
+    }
+    getSession().commit();
+    dryRunCache.reportGlobalModification();
+    return actions;
   }
 
   /**
@@ -155,18 +179,24 @@ public class ProfilesManager extends BaseDao {
    * Rule was activated/changed in parent profile.
    */
   private RuleInheritanceActions activatedOrChanged(int parentProfileId, int activeRuleId, String userName) {
-    RuleInheritanceActions actions = new RuleInheritanceActions();
+    RulesProfile profile = getSession().getEntity(RulesProfile.class, parentProfileId);
     ActiveRule parentActiveRule = getSession().getEntity(ActiveRule.class, activeRuleId);
+    RuleInheritanceActions actions = activatedOrChanged(new InheritanceTree(profile.getLanguage()), profile, parentActiveRule, userName);
+    getSession().commit();
+    dryRunCache.reportGlobalModification();
+    return actions;
+  }
+
+  private RuleInheritanceActions activatedOrChanged(InheritanceTree tree, RulesProfile parentProfile, ActiveRule parentActiveRule, String userName) {
+    RuleInheritanceActions actions = new RuleInheritanceActions();
     if (parentActiveRule.isInherited()) {
       parentActiveRule.setInheritance(ActiveRule.OVERRIDES);
       getSession().saveWithoutFlush(parentActiveRule);
     }
-    actions.addToIndex(activeRuleId);
-    for (RulesProfile child : getChildren(parentProfileId)) {
-      actions.add(activateOrChange(child, parentActiveRule, userName));
+    actions.addToIndex(parentActiveRule.getId());
+    for (RulesProfile child : tree.children(parentProfile)) {
+      actions.add(activateOrChange(tree, child, parentActiveRule, userName));
     }
-    getSession().commit();
-    dryRunCache.reportGlobalModification();
     return actions;
   }
 
@@ -174,13 +204,24 @@ public class ProfilesManager extends BaseDao {
    * Rule was deactivated in parent profile.
    */
   public RuleInheritanceActions deactivated(int parentProfileId, int deactivatedRuleId, String userName) {
+    return deactivated(parentProfileId, Collections.singletonList(deactivatedRuleId), userName);
+  }
+
+  /**
+   * Rules were deactivated in the same parent profile. Descendants of the profile are loaded once and changes
+   * are flushed in a single transaction.
+   */
+  public RuleInheritanceActions deactivated(int parentProfileId, Collection<Integer> deactivatedRuleIds, String userName) {
     RuleInheritanceActions actions = new RuleInheritanceActions();
-    ActiveRule parentActiveRule = getSession().getEntity(ActiveRule.class, deactivatedRuleId);
     RulesProfile profile = getSession().getEntity(RulesProfile.class, parentProfileId);
-    ruleDisabled(profile, parentActiveRule, userName);
-    actions.addToIndex(parentActiveRule.getId());
-    for (RulesProfile child : getChildren(parentProfileId)) {
-      actions.add(deactivate(child, parentActiveRule.getRule(), userName));
+    InheritanceTree tree = new InheritanceTree(profile.getLanguage());
+    for (Integer deactivatedRuleId : deactivatedRuleIds) {
+      ActiveRule parentActiveRule = getSession().getEntity(ActiveRule.class, deactivatedRuleId);
+      ruleDisabled(profile, parentActiveRule, userName);
+      actions.addToIndex(parentActiveRule.getId());
+      for (RulesProfile child : tree.children(profile)) {
+        actions.add(deactivate(tree, child, parentActiveRule.getRule(), userName));
+      }
     }
     getSession().commit();
     dryRunCache.reportGlobalModification();
@@ -282,11 +323,12 @@ public class ProfilesManager extends BaseDao {
     getSession().saveWithoutFlush(rc);
   }
 
-  private RuleInheritanceActions activateOrChange(RulesProfile profile, ActiveRule parentActiveRule, String userName) {
-    ActiveRule oldActiveRule = profile.getActiveRule(parentActiveRule.getRule());
+  private RuleInheritanceActions activateOrChange(InheritanceTree tree, RulesProfile profile, ActiveRule parentActiveRule, String userName) {
+    ActiveRule oldActiveRule = tree.activeRule(profile, parentActiveRule.getRule());
     RuleInheritanceActions actions = new RuleInheritanceActions();
     if (oldActiveRule != null) {
       if (oldActiveRule.isInherited()) {
+        tree.removeActiveRule(profile, oldActiveRule);
         removeActiveRule(oldActiveRule);
         actions.addToDelete(oldActiveRule.getId());
       } else {
@@ -301,6 +343,7 @@ public class ProfilesManager extends BaseDao {
     newActiveRule.setRulesProfile(profile);
     newActiveRule.setInheritance(ActiveRule.INHERITED);
     profile.addActiveRule(newActiveRule);
+    tree.addActiveRule(profile, newActiveRule);
     getSession().saveWithoutFlush(newActiveRule);
 
     actions.addToIndex(newActiveRule.getId());
@@ -311,20 +354,21 @@ public class ProfilesManager extends BaseDao {
       ruleEnabled(profile, newActiveRule, userName);
     }
 
-    for (RulesProfile child : getChildren(profile)) {
-      actions.add(activateOrChange(child, newActiveRule, userName));
+    for (RulesProfile child : tree.children(profile)) {
+      actions.add(activateOrChange(tree, child, newActiveRule, userName));
     }
 
     return actions;
   }
 
-  private RuleInheritanceActions deactivate(RulesProfile profile, Rule rule, String userName) {
+  private RuleInheritanceActions deactivate(InheritanceTree tree, RulesProfile profile, Rule rule, String userName) {
     RuleInheritanceActions actions = new RuleInheritanceActions();
-    ActiveRule activeRule = profile.getActiveRule(rule);
+    ActiveRule activeRule = tree.activeRule(profile, rule);
     if (activeRule != null) {
       if (activeRule.isInherited()) {
         ruleDisabled(profile, activeRule, userName);
         actions.addToDelete(activeRule.getId());
+        tree.removeActiveRule(profile, activeRule);
         removeActiveRule(activeRule);
       } else {
         activeRule.setInheritance(null);
@@ -334,24 +378,13 @@ public class ProfilesManager extends BaseDao {
         return actions;
       }
 
-      for (RulesProfile child : getChildren(profile)) {
-        actions.add(deactivate(child, rule, userName));
+      for (RulesProfile child : tree.children(profile)) {
+        actions.add(deactivate(tree, child, rule, userName));
       }
     }
     return actions;
   }
 
-  private List<RulesProfile> getChildren(int parentId) {
-    RulesProfile parent = getSession().getEntity(RulesProfile.class, parentId);
-    return getChildren(parent);
-  }
-
-  private List<RulesProfile> getChildren(RulesProfile parent) {
-    return getSession().getResults(RulesProfile.class,
-      "language", parent.getLanguage(),
-      "parentName", parent.getName());
-  }
-
   private void removeActiveRule(ActiveRule activeRule) {
     org.sonar.api.profiles.RulesProfile profile = activeRule.getRulesProfile();
     profile.removeActiveRule(activeRule);
@@ -373,6 +406,62 @@ public class ProfilesManager extends BaseDao {
     return getProfile(profile.getLanguage(), profile.getParentName());
   }
 
+  /**
+   * Profiles of a language indexed by parent, and their active rules indexed by rule, so that changes
+   * can be propagated to descendants without querying each child profile and scanning its active rules.
+   */
+  private class InheritanceTree {
+    private final ListMultimap<String, RulesProfile> childrenByParentName = ArrayListMultimap.create();
+    private final Map<RulesProfile, Map<String, ActiveRule>> activeRulesByProfile = Maps.newHashMap();
+
+    InheritanceTree(String language) {
+      for (RulesProfile profile : getSession().getResults(RulesProfile.class, "language", language)) {
+        if (profile.getParentName() != null) {
+          childrenByParentName.put(profile.getParentName(), profile);
+        }
+      }
+    }
+
+    List<RulesProfile> children(RulesProfile parent) {
+      return childrenByParentName.get(parent.getName());
+    }
+
+    @CheckForNull
+    ActiveRule activeRule(RulesProfile profile, Rule rule) {
+      return activeRules(profile).get(ruleKey(rule.getRepositoryKey(), rule.getKey()));
+    }
+
+    void addActiveRule(RulesProfile profile, ActiveRule activeRule) {
+      if (activeRule.isEnabled()) {
+        activeRules(profile).put(ruleKey(activeRule.getRepositoryKey(), activeRule.getRuleKey()), activeRule);
+      }
+    }
+
+    void removeActiveRule(RulesProfile profile, ActiveRule activeRule) {
+      activeRules(profile).remove(ruleKey(activeRule.getRepositoryKey(), activeRule.getRuleKey()));
+    }
+
+    private Map<String, ActiveRule> activeRules(RulesProfile profile) {
+      Map<String, ActiveRule> activeRules = activeRulesByProfile.get(profile);
+      if (activeRules == null) {
+        activeRules = Maps.newHashMap();
+        for (ActiveRule activeRule : profile.getActiveRules()) {
+          // same behavior than RulesProfile#getActiveRule(Rule) : first enabled active rule wins
+          String key = ruleKey(activeRule.getRepositoryKey(), activeRule.getRuleKey());
+          if (activeRule.isEnabled() && !activeRules.containsKey(key)) {
+            activeRules.put(key, activeRule);
+          }
+        }
+        activeRulesByProfile.put(profile, activeRules);
+      }
+      return activeRules;
+    }
+
+    private String ruleKey(String repositoryKey, String ruleKey) {
+      return repositoryKey + ":" + ruleKey;
+    }
+  }
+
   /**
    * Track changes made to active rules through profile inheritance that impact ES index
    */
@@ -23,6 +23,8 @@ package org.sonar.server.qualityprofile;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Splitter;
 import com.google.common.base.Strings;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
 import org.apache.ibatis.session.SqlSession;
 import org.elasticsearch.common.base.Predicate;
 import org.elasticsearch.common.collect.Iterables;
@@ -144,9 +146,16 @@ public class QProfileActiveRuleOperations implements ServerComponent {
     SqlSession session = myBatis.openSession(false);
     try {
       List<Integer> ruleIdsToActivate = rules.searchInactiveProfileRuleIds(query);
-      for (Integer ruleId : ruleIdsToActivate) {
-        RuleDto rule = findRuleNotNull(ruleId, session);
-        activateRule(profileId, ruleId, rule.getSeverityString(), userSession, session);
+      if (!ruleIdsToActivate.isEmpty()) {
+        List<Integer> activeRuleIds = newArrayList();
+        for (Integer ruleId : ruleIdsToActivate) {
+          RuleDto rule = findRuleNotNull(ruleId, session);
+          activeRuleIds.add(createActiveRule(profileId, ruleId, rule.getSeverityString(), session).getId());
+        }
+        session.commit();
+        // inheritance and index are updated once for all the rules
+        ProfilesManager.RuleInheritanceActions actions = profilesManager.activated(profileId, activeRuleIds, getLoggedName(userSession));
+        reindexInheritanceResult(actions, session);
       }
       return ruleIdsToActivate.size();
     } finally {
@@ -184,16 +193,30 @@ public class QProfileActiveRuleOperations implements ServerComponent {
     validatePermission(userSession);
 
     SqlSession session = myBatis.openSession(false);
-    int numberOfDeactivatedRules = 0;
     try {
       List<Integer> activeRuleIdsToDeactivate = rules.searchProfileRuleIds(query);
+      // only rules that are not inherited can be deactivated
+      ListMultimap<Integer, Integer> activeRuleIdsByProfileId = ArrayListMultimap.create();
       for (int activeRuleId : activeRuleIdsToDeactivate) {
         ActiveRuleDto activeRule = findActiveRuleNotNull(activeRuleId, session);
-        if (deactivateRule(activeRule, userSession, session)) {
-          numberOfDeactivatedRules++;
+        if (activeRule.getInheritance() == null) {
+          activeRuleIdsByProfileId.put(activeRule.getProfileId(), activeRule.getId());
+        }
+      }
+      if (!activeRuleIdsByProfileId.isEmpty()) {
+        ProfilesManager.RuleInheritanceActions actions = new ProfilesManager.RuleInheritanceActions();
+        for (Integer profileId : activeRuleIdsByProfileId.keySet()) {
+          actions.add(profilesManager.deactivated(profileId, activeRuleIdsByProfileId.get(profileId), getLoggedName(userSession)));
+        }
+        for (Integer activeRuleId : activeRuleIdsByProfileId.values()) {
+          activeRuleDao.deleteParameters(activeRuleId, session);
+          activeRuleDao.delete(activeRuleId, session);
+          actions.addToDelete(activeRuleId);
         }
+        session.commit();
+        reindexInheritanceResult(actions, session);
       }
-      return numberOfDeactivatedRules;
+      return activeRuleIdsByProfileId.size();
     } finally {
       MyBatis.closeQuietly(session);
     }
@@ -39,6 +39,7 @@ import org.sonar.check.Cardinality;
 import org.sonar.core.permission.GlobalPermissions;
 import org.sonar.core.persistence.DbSession;
 import org.sonar.core.persistence.MyBatis;
+import org.sonar.core.preview.PreviewCache;
 import org.sonar.core.qualityprofile.db.ActiveRuleDao;
 import org.sonar.core.qualityprofile.db.ActiveRuleDto;
 import org.sonar.core.rule.RuleDao;
@@ -74,17 +75,18 @@ public class RuleOperations implements ServerComponent {
   private final RuleTagOperations ruleTagOperations;
   private final ESActiveRule esActiveRule;
   private final RuleRegistry ruleRegistry;
+  private final PreviewCache dryRunCache;
 
   private final System2 system;
 
   public RuleOperations(MyBatis myBatis, ActiveRuleDao activeRuleDao, RuleDao ruleDao, RuleTagDao ruleTagDao, CharacteristicDao characteristicDao,
-                        RuleTagOperations ruleTagOperations, ESActiveRule esActiveRule, RuleRegistry ruleRegistry) {
-    this(myBatis, activeRuleDao, ruleDao, ruleTagDao, characteristicDao, ruleTagOperations, esActiveRule, ruleRegistry, System2.INSTANCE);
+                        RuleTagOperations ruleTagOperations, ESActiveRule esActiveRule, RuleRegistry ruleRegistry, PreviewCache dryRunCache) {
+    this(myBatis, activeRuleDao, ruleDao, ruleTagDao, characteristicDao, ruleTagOperations, esActiveRule, ruleRegistry, dryRunCache, System2.INSTANCE);
   }
 
   @VisibleForTesting
   RuleOperations(MyBatis myBatis, ActiveRuleDao activeRuleDao, RuleDao ruleDao, RuleTagDao ruleTagDao, CharacteristicDao characteristicDao, RuleTagOperations ruleTagOperations,
-                 ESActiveRule esActiveRule, RuleRegistry ruleRegistry, System2 system) {
+                 ESActiveRule esActiveRule, RuleRegistry ruleRegistry, PreviewCache dryRunCache, System2 system) {
     this.myBatis = myBatis;
     this.activeRuleDao = activeRuleDao;
     this.ruleDao = ruleDao;
@@ -93,6 +95,7 @@ public class RuleOperations implements ServerComponent {
     this.ruleTagOperations = ruleTagOperations;
     this.esActiveRule = esActiveRule;
     this.ruleRegistry = ruleRegistry;
+    this.dryRunCache = dryRunCache;
     this.system = system;
   }
 
@@ -183,6 +186,7 @@ public class RuleOperations implements ServerComponent {
         ruleDao.insert(newTag, session);
       }
 
+      dryRunCache.reportGlobalModification(session);
       session.commit();
       reindexRule(rule, session);
       return rule;
@@ -208,6 +212,7 @@ public class RuleOperations implements ServerComponent {
         ruleParam.setDefaultValue(Strings.emptyToNull(value));
         ruleDao.update(ruleParam, session);
       }
+      dryRunCache.reportGlobalModification(session);
       session.commit();
       reindexRule(rule, session);
     } finally {
@@ -232,6 +237,7 @@ public class RuleOperations implements ServerComponent {
         activeRuleDao.deleteParameters(activeRule.getId(), session);
       }
       activeRuleDao.deleteFromRule(rule.getId(), session);
+      dryRunCache.reportGlobalModification(session);
       session.commit();
       esActiveRule.deleteActiveRules(newArrayList(Iterables.transform(activeRules, new Function<ActiveRuleDto, Integer>() {
         @Override
@@ -286,6 +292,7 @@ public class RuleOperations implements ServerComponent {
       boolean needUpdate = updateRule(ruleDto, subCharacteristic, ruleChange.debtRemediationFunction(), ruleChange.debtRemediationCoefficient(), ruleChange.debtRemediationOffset(),
         new Date(system.now()), session);
       if (needUpdate) {
+        dryRunCache.reportGlobalModification(session);
         session.commit();
         reindexRule(ruleDto, session);
       }
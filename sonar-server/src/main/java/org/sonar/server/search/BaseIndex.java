@@ -20,6 +20,9 @@
 package org.sonar.server.search;
 
 import org.elasticsearch.action.admin.indices.exists.indices.IndicesExistsResponse;
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequestBuilder;
 import org.elasticsearch.action.get.GetResponse;
 import org.elasticsearch.action.search.SearchRequestBuilder;
 import org.elasticsearch.action.update.UpdateRequest;
@@ -54,6 +57,9 @@ public abstract class BaseIndex<K extends Serializable, E extends Dto<K>> implem
   private final ESNode node;
   protected BaseNormalizer<E, K> normalizer;
 
+  /* Bulk being filled by the current thread, if any */
+  private final ThreadLocal<BulkRequestBuilder> currentBulk = new ThreadLocal<BulkRequestBuilder>();
+
   public BaseIndex(BaseNormalizer<E, K> normalizer, WorkQueue workQueue,
                    Profiling profiling, ESNode node) {
     this.normalizer = normalizer;
@@ -179,9 +185,15 @@ public abstract class BaseIndex<K extends Serializable, E extends Dto<K>> implem
 
   private void updateDocument(UpdateRequest request, String key) throws Exception {
     LOG.debug("UPDATE _id:{} in index {}", key, this.getIndexName());
-    getClient().update(request.id(key)
+    request.id(key)
       .type(this.getType())
-      .index(this.getIndexName())).get();
+      .index(this.getIndexName());
+    BulkRequestBuilder bulk = currentBulk.get();
+    if (bulk != null) {
+      bulk.add(request);
+    } else {
+      getClient().update(request).get();
+    }
   }
 
 
@@ -222,9 +234,14 @@ public abstract class BaseIndex<K extends Serializable, E extends Dto<K>> implem
 
   private void deleteDocument(String key) throws ExecutionException, InterruptedException {
     LOG.debug("DELETE _id:{} in index {}", key, this.getIndexName());
-    getClient()
-      .prepareDelete(this.getIndexName(), this.getType(), key)
-      .get();
+    DeleteRequestBuilder request = getClient()
+      .prepareDelete(this.getIndexName(), this.getType(), key);
+    BulkRequestBuilder bulk = currentBulk.get();
+    if (bulk != null) {
+      bulk.add(request);
+    } else {
+      request.get();
+    }
   }
 
   @Override
@@ -257,6 +274,32 @@ public abstract class BaseIndex<K extends Serializable, E extends Dto<K>> implem
     }
   }
 
+  /* Bulk methods */
+
+  @Override
+  public void executeBulk(List<IndexAction> actions) {
+    BulkRequestBuilder bulk = getClient().prepareBulk();
+    currentBulk.set(bulk);
+    try {
+      for (IndexAction action : actions) {
+        action.setIndex(this);
+        try {
+          action.doExecute();
+        } catch (Exception e) {
+          LOG.error("Could not add action to bulk of index " + getIndexName(), e);
+        }
+      }
+    } finally {
+      currentBulk.remove();
+    }
+    if (bulk.numberOfActions() > 0) {
+      BulkResponse response = bulk.get();
+      if (response.hasFailures()) {
+        LOG.error("Could not execute bulk on index {}: {}", getIndexName(), response.buildFailureMessage());
+      }
+    }
+  }
+
   /* Synchronization methods */
 
   Long lastSynch = 0L;
@@ -24,6 +24,7 @@ import org.sonar.core.db.Dto;
 
 import javax.annotation.CheckForNull;
 import java.io.Serializable;
+import java.util.List;
 
 public interface Index<E extends Dto<K>, K extends Serializable> extends Startable {
 
@@ -52,6 +53,12 @@ public interface Index<E extends Dto<K>, K extends Serializable> extends Startab
 
   void deleteByDto(E dto);
 
+  /**
+   * Executes the given actions of this index in a single bulk request, preserving their order.
+   * The callers waiting for the actions are not released, that's the responsibility of the caller.
+   */
+  void executeBulk(List<IndexAction> actions);
+
   Long getLastSynchronization();
 
   void setLastSynchronization(Long time);
@@ -19,17 +19,24 @@
  */
 package org.sonar.server.search;
 
+import com.google.common.collect.Iterables;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.sonar.core.cluster.QueueAction;
 import org.sonar.core.cluster.WorkQueue;
 import org.sonar.core.db.Dao;
 
 import java.io.Serializable;
+import java.util.List;
+
+import static com.google.common.collect.Lists.newArrayList;
 
 public class IndexSynchronizer<K extends Serializable> {
 
   private static final Logger LOG = LoggerFactory.getLogger(IndexSynchronizer.class);
 
+  private static final int ENQUEUE_PARTITION_SIZE = 1000;
+
   private final Index index;
   private final Dao<?,K> dao;
   private final WorkQueue workQueue;
@@ -47,11 +54,16 @@ public class IndexSynchronizer<K extends Serializable> {
     Long since = index.getLastSynchronization();
     index.setLastSynchronization(System.currentTimeMillis());
 
-    for (K key : dao.keysOfRowsUpdatedAfter(since)) {
-      if (LOG.isTraceEnabled()) {
-        LOG.trace("Adding {} to workQueue for {}", key, index.getClass().getSimpleName());
+    // keys are enqueued by partitions, so that they are indexed in bulk without waiting for each of them
+    for (List<K> keys : Iterables.partition(dao.keysOfRowsUpdatedAfter(since), ENQUEUE_PARTITION_SIZE)) {
+      List<QueueAction> actions = newArrayList();
+      for (K key : keys) {
+        if (LOG.isTraceEnabled()) {
+          LOG.trace("Adding {} to workQueue for {}", key, index.getClass().getSimpleName());
+        }
+        actions.add(new KeyIndexAction<K>(index.getIndexName(), IndexAction.Method.INSERT, key));
       }
-      workQueue.enqueue(new KeyIndexAction<K>(index.getIndexName(), IndexAction.Method.INSERT, key));
+      workQueue.enqueue(actions);
     }
 
     return this;
@@ -0,0 +1,184 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.source;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Objects;
+import com.google.common.base.Splitter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableList;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.picocontainer.Startable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.ServerComponent;
+import org.sonar.core.source.db.SnapshotSourceDao;
+import org.sonar.core.source.db.SnapshotSourceDto;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps the sources colorized by {@link CodeColorizers} split by line, so that displaying some lines of a file
+ * does not require to colorize the whole file on each request.
+ * <p/>
+ * Entries are keyed by snapshot id and language, so they never have to be invalidated : a new analysis
+ * creates new snapshots. The cache is warmed asynchronously when an analysis is notified with {@link #warm(long)}.
+ *
+ * @since 4.4
+ */
+public class ColorizedSourceCache implements ServerComponent, Startable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ColorizedSourceCache.class);
+
+  @VisibleForTesting
+  static final int MAX_SIZE = 500;
+
+  /**
+   * Warming is limited to a fraction of the cache, so that the analysis of a big project does not evict
+   * the sources currently browsed on other projects
+   */
+  @VisibleForTesting
+  static final int MAX_WARMED_SIZE = MAX_SIZE / 5;
+
+  private static final Splitter LINE_SPLITTER = Splitter.onPattern("\r?\n|\r");
+
+  private final SnapshotSourceDao snapshotSourceDao;
+  private final CodeColorizers codeColorizers;
+  private final Cache<Key, List<String>> cache;
+  private ExecutorService executor;
+
+  public ColorizedSourceCache(SnapshotSourceDao snapshotSourceDao, CodeColorizers codeColorizers) {
+    this.snapshotSourceDao = snapshotSourceDao;
+    this.codeColorizers = codeColorizers;
+    this.cache = CacheBuilder.newBuilder()
+      .maximumSize(MAX_SIZE)
+      .build(new CacheLoader<Key, List<String>>() {
+        @Override
+        public List<String> load(Key key) {
+          String source = ColorizedSourceCache.this.snapshotSourceDao.selectSnapshotSource(key.snapshotId);
+          if (source == null) {
+            return Collections.emptyList();
+          }
+          return colorize(source, key.language);
+        }
+      });
+  }
+
+  @Override
+  public void start() {
+    executor = Executors.newSingleThreadExecutor();
+  }
+
+  @Override
+  public void stop() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Colorized lines of the source attached to the given snapshot. The returned list is empty if the snapshot has no source.
+   */
+  public List<String> getLines(long snapshotId, String language) {
+    return cache.getUnchecked(new Key(snapshotId, language));
+  }
+
+  /**
+   * Asynchronously colorizes the sources of the last analysis of the given root project.
+   */
+  public void warm(final long rootProjectId) {
+    if (executor == null) {
+      LOG.debug("Colorized sources are not warmed, the cache is not started");
+      return;
+    }
+    executor.submit(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          doWarm(rootProjectId);
+        } catch (Exception e) {
+          LOG.warn("Fail to warm the cache of colorized sources of project " + rootProjectId, e);
+        }
+      }
+    });
+  }
+
+  @VisibleForTesting
+  void doWarm(long rootProjectId) {
+    snapshotSourceDao.selectLastSnapshotSourcesByRootProjectId(rootProjectId, new ResultHandler() {
+      private int count = 0;
+
+      @Override
+      public void handleResult(ResultContext context) {
+        SnapshotSourceDto dto = (SnapshotSourceDto) context.getResultObject();
+        cache.asMap().put(new Key(dto.getSnapshotId(), dto.getLanguage()), colorize(dto.getData(), dto.getLanguage()));
+        count++;
+        if (count >= MAX_WARMED_SIZE) {
+          context.stop();
+        }
+      }
+    });
+  }
+
+  /**
+   * Statistics displayed in the System Info page
+   */
+  public CacheStats stats() {
+    return cache.stats();
+  }
+
+  private List<String> colorize(String source, String language) {
+    return ImmutableList.copyOf(LINE_SPLITTER.split(codeColorizers.toHtml(source, language)));
+  }
+
+  private static class Key {
+    private final long snapshotId;
+    private final String language;
+
+    Key(long snapshotId, String language) {
+      this.snapshotId = snapshotId;
+      this.language = language;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Key other = (Key) o;
+      return snapshotId == other.snapshotId && Objects.equal(language, other.language);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(snapshotId, language);
+    }
+  }
+}
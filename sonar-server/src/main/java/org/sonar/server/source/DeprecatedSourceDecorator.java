@@ -20,14 +20,13 @@
 
 package org.sonar.server.source;
 
-import com.google.common.base.Splitter;
 import org.apache.ibatis.session.SqlSession;
 import org.sonar.api.ServerComponent;
 import org.sonar.core.persistence.MyBatis;
 import org.sonar.core.resource.ResourceDao;
 import org.sonar.core.resource.ResourceDto;
 import org.sonar.core.resource.ResourceQuery;
-import org.sonar.core.source.db.SnapshotSourceDao;
+import org.sonar.core.resource.SnapshotDto;
 import org.sonar.server.exceptions.NotFoundException;
 
 import javax.annotation.CheckForNull;
@@ -45,14 +44,12 @@ public class DeprecatedSourceDecorator implements ServerComponent {
 
   private final MyBatis mybatis;
   private final ResourceDao resourceDao;
-  private final CodeColorizers codeColorizers;
-  private final SnapshotSourceDao snapshotSourceDao;
+  private final ColorizedSourceCache colorizedSourceCache;
 
-  public DeprecatedSourceDecorator(MyBatis mybatis, ResourceDao resourceDao, CodeColorizers codeColorizers, SnapshotSourceDao snapshotSourceDao) {
+  public DeprecatedSourceDecorator(MyBatis mybatis, ResourceDao resourceDao, ColorizedSourceCache colorizedSourceCache) {
     this.mybatis = mybatis;
     this.resourceDao = resourceDao;
-    this.codeColorizers = codeColorizers;
-    this.snapshotSourceDao = snapshotSourceDao;
+    this.colorizedSourceCache = colorizedSourceCache;
   }
 
   @CheckForNull
@@ -68,9 +65,9 @@ public class DeprecatedSourceDecorator implements ServerComponent {
       if (component == null) {
         throw new NotFoundException("The component '" + componentKey + "' does not exists.");
       }
-      String source = snapshotSourceDao.selectSnapshotSourceByComponentKey(componentKey, session);
-      if (source != null) {
-        return splitSourceByLine(source, component.getLanguage(), from, to);
+      SnapshotDto snapshot = resourceDao.getLastSnapshotByResourceId(component.getId(), session);
+      if (snapshot != null) {
+        return selectLines(colorizedSourceCache.getLines(snapshot.getId(), component.getLanguage()), from, to);
       } else {
         return Collections.emptyList();
       }
@@ -79,18 +76,9 @@ public class DeprecatedSourceDecorator implements ServerComponent {
     }
   }
 
-  private List<String> splitSourceByLine(String source, String language, @Nullable Integer from, @Nullable Integer to) {
-    String htmlSource = codeColorizers.toHtml(source, language);
-    List<String> splitSource = newArrayList(Splitter.onPattern("\r?\n|\r").split(htmlSource));
-    List<String> result = newArrayList();
-    for (int i = 0; i < splitSource.size(); i++) {
-      int currentLine = i + 1;
-      if (to != null && to < currentLine) {
-        break;
-      } else if (from == null || currentLine >= from) {
-        result.add(splitSource.get(currentLine - 1));
-      }
-    }
-    return result;
+  private List<String> selectLines(List<String> lines, @Nullable Integer from, @Nullable Integer to) {
+    int fromIndex = from != null ? Math.min(Math.max(from - 1, 0), lines.size()) : 0;
+    int toIndex = to != null ? Math.min(Math.max(to, fromIndex), lines.size()) : lines.size();
+    return newArrayList(lines.subList(fromIndex, toIndex));
   }
 }
@@ -25,9 +25,8 @@ import org.sonar.api.measures.CoreMetrics;
 import org.sonar.api.web.UserRole;
 import org.sonar.core.measure.db.MeasureDataDao;
 import org.sonar.core.measure.db.MeasureDataDto;
-import org.sonar.core.resource.ResourceDao;
-import org.sonar.core.resource.ResourceDto;
 import org.sonar.server.exceptions.NotFoundException;
+import org.sonar.server.user.AuthorizationCache;
 import org.sonar.server.user.UserSession;
 
 import javax.annotation.CheckForNull;
@@ -43,13 +42,14 @@ public class SourceService implements ServerComponent {
    */
   private final DeprecatedSourceDecorator deprecatedSourceDecorator;
 
-  private final ResourceDao resourceDao;
+  private final AuthorizationCache authorizationCache;
   private final MeasureDataDao measureDataDao;
 
-  public SourceService(HtmlSourceDecorator sourceDecorator, DeprecatedSourceDecorator deprecatedSourceDecorator, ResourceDao resourceDao, MeasureDataDao measureDataDao) {
+  public SourceService(HtmlSourceDecorator sourceDecorator, DeprecatedSourceDecorator deprecatedSourceDecorator, AuthorizationCache authorizationCache,
+    MeasureDataDao measureDataDao) {
     this.sourceDecorator = sourceDecorator;
     this.deprecatedSourceDecorator = deprecatedSourceDecorator;
-    this.resourceDao = resourceDao;
+    this.authorizationCache = authorizationCache;
     this.measureDataDao = measureDataDao;
   }
 
@@ -68,11 +68,11 @@ public class SourceService implements ServerComponent {
   }
 
   public void checkPermission(String fileKey) {
-    ResourceDto project = resourceDao.getRootProjectByComponentKey(fileKey);
-    if (project == null) {
+    String projectKey = authorizationCache.rootProjectKey(fileKey);
+    if (projectKey == null) {
       throw new NotFoundException("File does not exist");
     }
-    UserSession.get().checkProjectPermission(UserRole.CODEVIEWER, project.getKey());
+    UserSession.get().checkProjectPermission(UserRole.CODEVIEWER, projectKey);
   }
 
   /**
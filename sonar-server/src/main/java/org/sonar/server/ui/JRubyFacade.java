@@ -38,6 +38,7 @@ import org.sonar.api.test.Testable;
 import org.sonar.api.web.*;
 import org.sonar.core.component.SnapshotPerspectives;
 import org.sonar.core.measure.MeasureFilterEngine;
+import org.sonar.core.measure.MeasureFilterIndex;
 import org.sonar.core.measure.MeasureFilterResult;
 import org.sonar.core.persistence.Database;
 import org.sonar.core.preview.PreviewCache;
@@ -339,6 +340,7 @@ public final class JRubyFacade {
   public void deleteResourceTree(long rootProjectId) {
     try {
       get(PurgeDao.class).deleteResourceTree(rootProjectId);
+      get(MeasureFilterIndex.class).remove(rootProjectId);
     } catch (RuntimeException e) {
       LoggerFactory.getLogger(JRubyFacade.class).error("Fail to delete resource with ID: " + rootProjectId, e);
       throw e;
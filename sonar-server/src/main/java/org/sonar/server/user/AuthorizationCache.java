@@ -0,0 +1,242 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.user;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.Maps;
+import org.sonar.api.ServerComponent;
+import org.sonar.core.resource.ResourceDao;
+import org.sonar.core.resource.ResourceDto;
+import org.sonar.core.user.AuthorizationDao;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server-wide cache of the root projects that users are allowed to access. Keys of root projects are interned
+ * to int ids, so that the projects authorized for a user and a permission are stored as a bitset.
+ * <p/>
+ * Entries are invalidated by {@link #invalidate()} when permissions or group memberships are changed
+ * on server side. Projects interned after an entry was loaded, for example created by a new analysis, are not
+ * known by this entry, so checking them reloads the entry.
+ * <p/>
+ * Keys of deleted projects, or of unknown projects requested by clients, are never removed from the interned keys.
+ * The interned keys are reset, and all the entries invalidated, when their number reaches {@link #MAX_PROJECTS}.
+ *
+ * @since 4.4
+ */
+public class AuthorizationCache implements ServerComponent {
+
+  @VisibleForTesting
+  static final int MAX_SIZE = 10000;
+
+  @VisibleForTesting
+  static final int MAX_PROJECTS = 100000;
+
+  /**
+   * Safety net for the permissions that are changed outside the server, for example when a project
+   * is provisioned with a permission template.
+   */
+  private static final long EXPIRATION_MINUTES = 30;
+
+  private final AuthorizationDao authorizationDao;
+  private final ResourceDao resourceDao;
+  private final int maxProjects;
+  private final Object projectIdsLock = new Object();
+  // guarded by projectIdsLock. The instance is replaced when the interned keys are reset.
+  private Map<String, Integer> projectIds = Maps.newHashMap();
+  private final Cache<Key, AuthorizedProjects> authorizations;
+  private final Cache<String, Optional<String>> rootProjectKeys;
+
+  public AuthorizationCache(AuthorizationDao authorizationDao, ResourceDao resourceDao) {
+    this(authorizationDao, resourceDao, MAX_PROJECTS);
+  }
+
+  @VisibleForTesting
+  AuthorizationCache(AuthorizationDao authorizationDao, ResourceDao resourceDao, int maxProjects) {
+    this.authorizationDao = authorizationDao;
+    this.resourceDao = resourceDao;
+    this.maxProjects = maxProjects;
+    this.authorizations = CacheBuilder.newBuilder()
+      .maximumSize(MAX_SIZE)
+      .expireAfterWrite(EXPIRATION_MINUTES, TimeUnit.MINUTES)
+      .build(new CacheLoader<Key, AuthorizedProjects>() {
+        @Override
+        public AuthorizedProjects load(Key key) {
+          return loadAuthorizedProjects(key);
+        }
+      });
+    this.rootProjectKeys = CacheBuilder.newBuilder()
+      .maximumSize(MAX_SIZE)
+      .expireAfterWrite(EXPIRATION_MINUTES, TimeUnit.MINUTES)
+      .build(new CacheLoader<String, Optional<String>>() {
+        @Override
+        public Optional<String> load(String componentKey) {
+          ResourceDto project = AuthorizationCache.this.resourceDao.getRootProjectByComponentKey(componentKey);
+          return project != null ? Optional.of(project.getKey()) : Optional.<String>absent();
+        }
+      });
+  }
+
+  public boolean hasProjectPermission(@Nullable Integer userId, String permission, String projectKey) {
+    Key key = new Key(userId, permission);
+    for (int attempt = 0; attempt < 2; attempt++) {
+      AuthorizedProjects projects = authorizations.getUnchecked(key);
+      synchronized (projectIdsLock) {
+        int projectId = intern(projectKey);
+        if (projects.isUpToDate(projectIds, projectId)) {
+          return projects.contains(projectId);
+        }
+      }
+      // project is more recent than the authorizations, or interned keys have been reset
+      authorizations.invalidate(key);
+    }
+    // interned keys are reset concurrently, or the user is authorized on more than MAX_PROJECTS projects
+    return authorizationDao.selectAuthorizedRootProjectsKeys(userId, permission).contains(projectKey);
+  }
+
+  /**
+   * Key of the root project of the given component, or null if the component does not exist.
+   */
+  @CheckForNull
+  public String rootProjectKey(String componentKey) {
+    Optional<String> projectKey = rootProjectKeys.getUnchecked(componentKey);
+    if (!projectKey.isPresent()) {
+      // the component can be created by a future analysis
+      rootProjectKeys.invalidate(componentKey);
+    }
+    return projectKey.orNull();
+  }
+
+  /**
+   * Must be called when project permissions or group memberships are changed.
+   */
+  public void invalidate() {
+    authorizations.invalidateAll();
+  }
+
+  public CacheStats stats() {
+    return authorizations.stats();
+  }
+
+  @VisibleForTesting
+  int internedProjects() {
+    synchronized (projectIdsLock) {
+      return projectIds.size();
+    }
+  }
+
+  private AuthorizedProjects loadAuthorizedProjects(Key key) {
+    Collection<String> projectKeys = authorizationDao.selectAuthorizedRootProjectsKeys(key.userId, key.permission);
+    BitSet projects = new BitSet();
+    synchronized (projectIdsLock) {
+      if (projectIds.size() + projectKeys.size() > maxProjects) {
+        resetProjectIds();
+      }
+      for (String projectKey : projectKeys) {
+        projects.set(intern(projectKey));
+      }
+      return new AuthorizedProjects(projectIds, projects, projectIds.size());
+    }
+  }
+
+  /**
+   * Must be called with projectIdsLock held. Entries that refer to the previous interned keys are reloaded when read.
+   */
+  private void resetProjectIds() {
+    projectIds = Maps.newHashMap();
+    authorizations.invalidateAll();
+  }
+
+  /**
+   * Must be called with projectIdsLock held
+   */
+  private int intern(String projectKey) {
+    Integer projectId = projectIds.get(projectKey);
+    if (projectId == null) {
+      if (projectIds.size() >= maxProjects) {
+        resetProjectIds();
+      }
+      projectId = projectIds.size();
+      projectIds.put(projectKey, projectId);
+    }
+    return projectId;
+  }
+
+  private static class AuthorizedProjects {
+    // interned keys that the ids refer to
+    private final Map<String, Integer> internedKeys;
+    private final BitSet projectIds;
+    // number of projects interned when authorizations were loaded
+    private final int knownProjects;
+
+    AuthorizedProjects(Map<String, Integer> internedKeys, BitSet projectIds, int knownProjects) {
+      this.internedKeys = internedKeys;
+      this.projectIds = projectIds;
+      this.knownProjects = knownProjects;
+    }
+
+    boolean isUpToDate(Map<String, Integer> currentInternedKeys, int projectId) {
+      return internedKeys == currentInternedKeys && projectId < knownProjects;
+    }
+
+    boolean contains(int projectId) {
+      return projectIds.get(projectId);
+    }
+  }
+
+  private static class Key {
+    private final Integer userId;
+    private final String permission;
+
+    Key(@Nullable Integer userId, String permission) {
+      this.userId = userId;
+      this.permission = permission;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Key other = (Key) o;
+      return Objects.equal(userId, other.userId) && permission.equals(other.permission);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(userId, permission);
+    }
+  }
+}
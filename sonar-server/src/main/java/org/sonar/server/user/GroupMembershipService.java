@@ -35,15 +35,24 @@ public class GroupMembershipService implements ServerComponent {
   private static final String DESELECTED_MEMBERSHIP = "deselected";
 
   private final GroupMembershipFinder finder;
+  private final AuthorizationCache authorizationCache;
 
-  public GroupMembershipService(GroupMembershipFinder finder) {
+  public GroupMembershipService(GroupMembershipFinder finder, AuthorizationCache authorizationCache) {
     this.finder = finder;
+    this.authorizationCache = authorizationCache;
   }
 
   public GroupMembershipFinder.Membership find(Map<String, Object> params) {
     return finder.find(parseQuery(params));
   }
 
+  /**
+   * Must be called by ruby code when groups or their members are changed.
+   */
+  public void invalidateAuthorizations() {
+    authorizationCache.invalidate();
+  }
+
   private GroupMembershipQuery parseQuery(Map<String, Object> params) {
     GroupMembershipQuery.Builder builder = GroupMembershipQuery.builder();
     builder.membership(membership(params));
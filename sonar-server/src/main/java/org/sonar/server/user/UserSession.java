@@ -21,7 +21,6 @@ package org.sonar.server.user;
 
 import com.google.common.base.Objects;
 import com.google.common.base.Strings;
-import com.google.common.collect.HashMultimap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.core.permission.GlobalPermissions;
@@ -34,12 +33,9 @@ import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
 import java.util.Locale;
 
-import static com.google.common.collect.Lists.newArrayList;
-
 /**
  * Part of the current HTTP session
  */
@@ -57,9 +53,6 @@ public class UserSession {
   private Locale locale = Locale.ENGLISH;
   List<String> globalPermissions = null;
 
-  HashMultimap<String, String> projectKeyByPermission = HashMultimap.create();
-  List<String> projectPermissions = newArrayList();
-
   UserSession() {
   }
 
@@ -159,24 +152,41 @@ public class UserSession {
    * Does the user have the given project permission ?
    */
   public boolean hasProjectPermission(String permission, String projectKey) {
-    if (!projectPermissions.contains(permission)) {
-      Collection<String> projectKeys = authorizationDao().selectAuthorizedRootProjectsKeys(userId, permission);
-      for (String key : projectKeys) {
-        projectKeyByPermission.put(permission, key);
-      }
-      projectPermissions.add(permission);
-    }
-    return projectKeyByPermission.get(permission).contains(projectKey);
+    return authorizationCache().hasProjectPermission(userId, permission, projectKey);
   }
 
   AuthorizationDao authorizationDao() {
     return Platform.component(AuthorizationDao.class);
   }
 
+  AuthorizationCache authorizationCache() {
+    return Platform.component(AuthorizationCache.class);
+  }
+
   public static UserSession get() {
     return Objects.firstNonNull(THREAD_LOCAL.get(), ANONYMOUS);
   }
 
+  /**
+   * Executes a task on behalf of this user, for example in a background thread processing a request
+   * of the user. The session of the current thread is restored afterwards.
+   *
+   * @since 4.4
+   */
+  public void execute(Runnable task) {
+    UserSession previous = THREAD_LOCAL.get();
+    set(this);
+    try {
+      task.run();
+    } finally {
+      if (previous == null) {
+        remove();
+      } else {
+        set(previous);
+      }
+    }
+  }
+
   static void set(UserSession session) {
     THREAD_LOCAL.set(session);
   }
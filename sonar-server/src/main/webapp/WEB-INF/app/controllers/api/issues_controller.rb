@@ -296,6 +296,8 @@ class Api::IssuesController < Api::ApiController
   # 'do_transition.transition' to execute a transition on all issues.
   # 'comment' to add a comment on all issues.
   # 'sendNotifications' to send notification for each modified issue (default is 'false')
+  # 'async' to execute the change in background (default is 'false'). The response then contains the key of the job,
+  # whose progress is returned by /api/issues/bulk_change_status?key=<job key>. Since 4.4.
   #
   # -- Example
   # curl -X POST -v -u admin:admin 'http://localhost:9000/api/issues/bulk_change?issues=4a2881e7-825e-4140-a154-01f420c43d11,4a2881e7-825e-4140-a154-01f420c43d30&actions=assign,plan&assign.assignee=simon&plan.plan=3.7'
@@ -305,15 +307,23 @@ class Api::IssuesController < Api::ApiController
 
     comment = Api::Utils.read_post_request_param(params[:comment])
     sendNotifications = params[:sendNotifications] || 'false'
-    result = Internal.issues.bulkChange(params, comment, sendNotifications == 'true')
     hash = {}
-    hash[:issuesChanged] = {
-      :total => result.issuesChanged().size,
-    }
-    hash[:issuesNotChanged] = {
-      :total => result.issuesNotChanged().size,
-      :issues => result.issuesNotChanged().map { |issue| issue.key() }
-    }
+    if params[:async] == 'true'
+      job = Internal.issues.submitBulkChange(params, comment, sendNotifications == 'true')
+      hash[:job] = {
+        :key => job.key(),
+        :total => job.total()
+      }
+    else
+      result = Internal.issues.bulkChange(params, comment, sendNotifications == 'true')
+      hash[:issuesChanged] = {
+        :total => result.countIssuesChanged(),
+      }
+      hash[:issuesNotChanged] = {
+        :total => result.countIssuesNotChanged(),
+        :issues => result.issuesNotChanged().to_a
+      }
+    end
 
     respond_to do |format|
       # if the request header "Accept" is "*/*", then the default format is the first one (json)
@@ -55,6 +55,7 @@ class Api::TimemachineController < Api::ApiController
   # - toDateTime
   # - model
   # - characteristics
+  # - maxPoints (since 4.4, projects and modules only)
   #
   def index
     begin
@@ -73,54 +74,13 @@ class Api::TimemachineController < Api::ApiController
       @measures_by_sid={}
 
       unless @metrics.empty?
-        sql_conditions = ['snapshots.project_id=:rid AND snapshots.status=:status AND project_measures.rule_id IS NULL AND project_measures.rule_priority IS NULL AND project_measures.person_id IS NULL']
-        sql_values = {:rid => @resource.id, :status => Snapshot::STATUS_PROCESSED}
-
-        if params[:fromDateTime]
-          from = parse_datetime(params[:fromDateTime])
-          if from
-            sql_conditions << 'snapshots.created_at>=:from'
-            sql_values[:from] = from
-          end
-        end
-
-        if params[:toDateTime]
-          to = parse_datetime(params[:toDateTime])
-          if to
-            sql_conditions << 'snapshots.created_at<=:to'
-            sql_values[:to] = to
-          end
-        end
-
-        sql_conditions << 'project_measures.metric_id IN (:metrics)'
-        sql_values[:metrics] = @metrics.select{|m| m.id}
-
-        if @characteristics.empty?
-          sql_conditions<<'project_measures.characteristic_id IS NULL'
+        from = parse_datetime(params[:fromDateTime]) if params[:fromDateTime]
+        to = parse_datetime(params[:toDateTime]) if params[:toDateTime]
+        if @resource.scope==Project::SCOPE_SET
+          load_series(from, to)
         else
-          sql_conditions<<'project_measures.characteristic_id IN (:characteristics)'
-          sql_values[:characteristics]=@characteristics.select{|c| c.id}
-        end
-
-        measures = ProjectMeasure.find(:all,
-          :joins => :snapshot,
-          :select => 'project_measures.id,project_measures.value,project_measures.text_value,project_measures.metric_id,project_measures.snapshot_id,project_measures.characteristic_id,snapshots.created_at',
-          :conditions => [sql_conditions.join(' AND '), sql_values],
-          :order => 'snapshots.created_at')
-
-        # ---------- PROCESS RESPONSE
-        # sorted array of unique snapshot ids
-
-        # workaround to convert snapshot date from string to datetime
-        date_column=Snapshot.connection.columns('snapshots')[1]
-
-        measures.each do |m|
-          @sids<<m.snapshot_id
-          @dates_by_sid[m.snapshot_id]=date_column.type_cast(m.attributes['created_at'])
-          @measures_by_sid[m.snapshot_id]||={}
-          @measures_by_sid[m.snapshot_id][MetadataId.new(m.metric_id, m.characteristic_id)]=m
+          load_measures(from, to)
         end
-        @sids.uniq!
       end
 
       # ---------- FORMAT RESPONSE
@@ -140,6 +100,75 @@ class Api::TimemachineController < Api::ApiController
 
   private
 
+  # History of projects and modules is stored in compacted series
+  def load_series(from, to)
+    series_list = Internal.time_machine.find(@resource.id, @metrics.map(&:id), @characteristics.map(&:id),
+      from && Java::JavaUtil::Date.new((from.to_f * 1000).to_i), to && Java::JavaUtil::Date.new((to.to_f * 1000).to_i), params[:maxPoints].to_i)
+    metrics_by_id = @metrics.inject({}) { |h, metric| h[metric.id]=metric; h }
+
+    series_list.each do |dto|
+      metric = metrics_by_id[dto.getMetricId()]
+      series = dto.getSeries()
+      (0...series.size()).each do |index|
+        # the date in milliseconds is the key of the analysis
+        sid = series.date(index)
+        @sids<<sid
+        @dates_by_sid[sid] ||= Time.at(sid / 1000.0)
+        measure = ProjectMeasure.new(:value => series.value(index), :text_value => series.textValue(index))
+        measure.metric = metric
+        @measures_by_sid[sid]||={}
+        @measures_by_sid[sid][MetadataId.new(dto.getMetricId(), dto.getCharacteristicId())]=measure
+      end
+    end
+    @sids.uniq!
+    @sids.sort!
+  end
+
+  def load_measures(from, to)
+    sql_conditions = ['snapshots.project_id=:rid AND snapshots.status=:status AND project_measures.rule_id IS NULL AND project_measures.rule_priority IS NULL AND project_measures.person_id IS NULL']
+    sql_values = {:rid => @resource.id, :status => Snapshot::STATUS_PROCESSED}
+
+    if from
+      sql_conditions << 'snapshots.created_at>=:from'
+      sql_values[:from] = from
+    end
+
+    if to
+      sql_conditions << 'snapshots.created_at<=:to'
+      sql_values[:to] = to
+    end
+
+    sql_conditions << 'project_measures.metric_id IN (:metrics)'
+    sql_values[:metrics] = @metrics.select{|m| m.id}
+
+    if @characteristics.empty?
+      sql_conditions<<'project_measures.characteristic_id IS NULL'
+    else
+      sql_conditions<<'project_measures.characteristic_id IN (:characteristics)'
+      sql_values[:characteristics]=@characteristics.select{|c| c.id}
+    end
+
+    measures = ProjectMeasure.find(:all,
+      :joins => :snapshot,
+      :select => 'project_measures.id,project_measures.value,project_measures.text_value,project_measures.metric_id,project_measures.snapshot_id,project_measures.characteristic_id,snapshots.created_at',
+      :conditions => [sql_conditions.join(' AND '), sql_values],
+      :order => 'snapshots.created_at')
+
+    # ---------- PROCESS RESPONSE
+    # sorted array of unique snapshot ids
+
+    # workaround to convert snapshot date from string to datetime
+    date_column=Snapshot.connection.columns('snapshots')[1]
+
+    measures.each do |m|
+      @sids<<m.snapshot_id
+      @dates_by_sid[m.snapshot_id]=date_column.type_cast(m.attributes['created_at'])
+      @measures_by_sid[m.snapshot_id]||={}
+      @measures_by_sid[m.snapshot_id][MetadataId.new(m.metric_id, m.characteristic_id)]=m
+    end
+    @sids.uniq!
+  end
+
   def load_metrics
     if params[:metrics]
       @metrics = Metric.by_keys(params[:metrics].split(','))
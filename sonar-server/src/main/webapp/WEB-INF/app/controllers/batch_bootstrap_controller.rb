@@ -45,6 +45,9 @@ class BatchBootstrapController < Api::ApiController
 
     if project
       Property.set(Java::OrgSonarCorePreview::PreviewCache::SONAR_PREVIEW_CACHE_LAST_UPDATE_KEY, java.lang.System.currentTimeMillis, project.root_project.id)
+      Internal.colorized_sources.warm(project.root_project.id)
+      Internal.measure_filter_index.refresh(project.root_project.id)
+      Internal.time_machine.refresh(project.root_project.id)
       render_success('dryRun DB evicted')
     else
       render_bad_request('missing projectId')
@@ -76,6 +76,7 @@ class GroupsController < ApplicationController
     require_parameters :id
     group = Group.find(params[:id])
     if group.destroy
+      Internal.group_membership.invalidateAuthorizations()
       flash[:notice] = 'Group is deleted.'
     end
     to_index(group.errors, nil)
@@ -160,6 +161,7 @@ class GroupsController < ApplicationController
     if user && group
       group.users << user
       status = 200 if group.save
+      Internal.group_membership.invalidateAuthorizations()
     end
     render :status => status, :text => '{}'
   end
@@ -177,6 +179,7 @@ class GroupsController < ApplicationController
       if user_from_group
         group.users.delete(user_from_group)
         status = 200 if group.save
+        Internal.group_membership.invalidateAuthorizations()
       else
         status = 200  
       end
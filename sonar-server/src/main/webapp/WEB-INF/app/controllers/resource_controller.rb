@@ -220,18 +220,23 @@ class ResourceController < ApplicationController
   end
 
   def render_duplications
-    duplications_data = @snapshot.measure('duplications_data')
-
     # create duplication groups
     @duplication_groups = []
-    if duplications_data && duplications_data.data
-      dups = Document.new duplications_data.data.to_s
-      if XPath.match(dups, "//g").size > 0
-        parse_duplications(dups, @duplication_groups)
-      else
-        # This is the format prior to Sonar 2.12 => we display nothing but a message
-        @duplication_group_warning = message('duplications.old_format_should_reanalyze')
+    groups = Internal.duplications.findGroups(@snapshot.id)
+    if groups.empty?
+      # Analyses prior to SonarQube 4.4 only stored the XML measure
+      duplications_data = @snapshot.measure('duplications_data')
+      if duplications_data && duplications_data.data
+        dups = Document.new duplications_data.data.to_s
+        if XPath.match(dups, "//g").size > 0
+          parse_duplications(dups, @duplication_groups)
+        else
+          # This is the format prior to Sonar 2.12 => we display nothing but a message
+          @duplication_group_warning = message('duplications.old_format_should_reanalyze')
+        end
       end
+    else
+      load_duplications(groups, @duplication_groups)
     end
 
     # And sort them
@@ -287,6 +292,30 @@ class ResourceController < ApplicationController
     @duplication_group_warning = message('duplications.dups_found_on_deleted_resource') if dups_found_on_deleted_resource
   end
 
+  def load_duplications(groups, duplication_groups)
+    resource_by_key = {}
+    resource_by_key[@resource.key] = @resource
+    dups_found_on_deleted_resource = false
+    groups.each do |group|
+      dup_group = []
+      group.each do |block|
+        resource_key = block.getComponentKey()
+        resource = resource_by_key[resource_key]
+        unless resource
+          resource = Project.by_key(resource_key)
+          resource_by_key[resource_key] = resource
+        end
+        if resource
+          dup_group << {:resource => resource, :lines_count => block.getLines(), :from_line => block.getStartLine()}
+        else
+          dups_found_on_deleted_resource = true
+        end
+      end
+      duplication_groups << dup_group if dup_group.size > 1
+    end
+    @duplication_group_warning = message('duplications.dups_found_on_deleted_resource') if dups_found_on_deleted_resource
+  end
+
   def render_issues
     load_sources()
     @display_issues = true
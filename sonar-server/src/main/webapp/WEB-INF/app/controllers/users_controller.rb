@@ -186,6 +186,7 @@ class UsersController < ApplicationController
     @user = User.find(params[:id])
 
     if  @user.set_groups(params[:groups])
+      Internal.group_membership.invalidateAuthorizations()
       flash[:notice] = 'User is updated.'
     end
 
@@ -94,6 +94,38 @@ class Internal
     component(Java::OrgSonarServerUi::JRubyI18n.java_class)
   end
 
+  def self.colorized_sources
+    component(Java::OrgSonarServerSource::ColorizedSourceCache.java_class)
+  end
+
+  def self.measure_filter_index
+    component(Java::OrgSonarCoreMeasure::MeasureFilterIndex.java_class)
+  end
+
+  def self.time_machine
+    component(Java::OrgSonarServerMeasure::TimeMachineService.java_class)
+  end
+
+  def self.duplications
+    component(Java::OrgSonarServerDuplication::DuplicationService.java_class)
+  end
+
+  def self.index_queue_worker
+    component(Java::OrgSonarServerCluster::LocalQueueWorker.java_class)
+  end
+
+  def self.authorizations
+    component(Java::OrgSonarServerUser::AuthorizationCache.java_class)
+  end
+
+  def self.semaphore_updater
+    component(Java::OrgSonarCorePersistence::SemaphoreUpdater.java_class)
+  end
+
+  def self.snapshot_perspectives
+    component(Java::OrgSonarCoreComponent::SnapshotPerspectives.java_class)
+  end
+
   private
 
   def self.component(component_java_class)
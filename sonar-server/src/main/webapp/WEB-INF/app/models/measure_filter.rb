@@ -260,9 +260,11 @@ class MeasureFilter < ActiveRecord::Base
         rows_by_snapshot_id[snapshot.id] = row
       end
 
-      # @rows must be in the same order than the snapshot ids
+      # @rows must be in the same order than the snapshot ids. Snapshots returned by the in-memory index
+      # may have been deleted in the meantime.
       snapshot_ids.each do |sid|
-        @rows << rows_by_snapshot_id[sid]
+        row = rows_by_snapshot_id[sid]
+        @rows << row if row
       end
 
       unless metric_ids.empty?
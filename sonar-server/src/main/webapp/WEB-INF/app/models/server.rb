@@ -20,7 +20,7 @@
 class Server
 
   def info
-    system_info + sonar_info + system_statistics + sonar_plugins + system_properties
+    system_info + sonar_info + system_statistics + cache_statistics + sonar_plugins + system_properties
   end
 
   def system_info
@@ -57,6 +57,14 @@ class Server
     system_statistics
   end
 
+  def cache_statistics
+    cache_statistics=[]
+    add_property(cache_statistics, 'Colorized Sources') { format_cache_stats(Internal.colorized_sources.stats()) }
+    add_property(cache_statistics, 'Authorizations') { format_cache_stats(Internal.authorizations.stats()) }
+    add_property(cache_statistics, 'Snapshot Perspectives') { format_cache_stats(Internal.snapshot_perspectives.stats()) }
+    cache_statistics
+  end
+
   def sonar_info
     sonar_info=[]
     add_property(sonar_info, 'Server ID') { sonar_property(ServerIdConfigurationController::PROPERTY_SERVER_ID) }
@@ -72,6 +80,10 @@ class Server
     add_property(sonar_info, 'Automatic User Creation') { sonar_property(org.sonar.api.CoreProperties.CORE_AUTHENTICATOR_CREATE_USERS) }
     add_property(sonar_info, 'Allow Users to Sign Up') { sonar_property(org.sonar.api.CoreProperties.CORE_ALLOW_USERS_TO_SIGNUP_PROPERTY) }
     add_property(sonar_info, 'Force Authentication') { sonar_property(org.sonar.api.CoreProperties.CORE_FORCE_AUTHENTICATION_PROPERTY) }
+    add_property(sonar_info, 'Index Queue Depth') { Internal.index_queue_worker.getQueueDepth() }
+    add_property(sonar_info, 'Indexing Lag') { "#{Internal.index_queue_worker.getIndexingLag()} ms" }
+    add_property(sonar_info, 'Held Semaphores') { Internal.semaphore_updater.heldCount() }
+    add_property(sonar_info, 'Semaphore Heartbeat Duration') { "#{Internal.semaphore_updater.lastHeartbeatDurationInMs()} ms" }
     sonar_info
   end
 
@@ -114,6 +126,10 @@ class Server
     (d * 10).to_i / 10.0
   end
 
+  def format_cache_stats(stats)
+    "#{stats.hitCount()} hits / #{stats.missCount()} misses (#{format_double(100.0 * stats.hitRate())}% hit rate), #{stats.evictionCount()} evictions"
+  end
+
   def format_date(date)
     java.text.SimpleDateFormat.new("yyyy-MM-dd'T'HH:mm:ss.SSSZ").format(date)
   end
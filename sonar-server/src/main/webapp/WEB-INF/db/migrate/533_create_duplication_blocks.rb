@@ -0,0 +1,38 @@
+#
+# SonarQube, open source software quality management tool.
+# Copyright (C) 2008-2014 SonarSource
+# mailto:contact AT sonarsource DOT com
+#
+# SonarQube is free software; you can redistribute it and/or
+# modify it under the terms of the GNU Lesser General Public
+# License as published by the Free Software Foundation; either
+# version 3 of the License, or (at your option) any later version.
+#
+# SonarQube is distributed in the hope that it will be useful,
+# but WITHOUT ANY WARRANTY; without even the implied warranty of
+# MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+# Lesser General Public License for more details.
+#
+# You should have received a copy of the GNU Lesser General Public License
+# along with this program; if not, write to the Free Software Foundation,
+# Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+#
+
+#
+# SonarQube 4.4
+#
+class CreateDuplicationBlocks < ActiveRecord::Migration
+
+  def self.up
+    create_table :duplication_blocks do |t|
+      t.column :snapshot_id,   :integer, :null => false
+      t.column :group_index,   :integer, :null => false
+      t.column :component_key, :string,  :null => false, :limit => 400
+      t.column :start_line,    :integer, :null => false
+      t.column :end_line,      :integer, :null => false
+    end
+    add_index 'duplication_blocks', 'snapshot_id', :name => 'duplication_blocks_sid'
+    add_index 'duplication_blocks', 'component_key', :name => 'duplication_blocks_component'
+  end
+
+end
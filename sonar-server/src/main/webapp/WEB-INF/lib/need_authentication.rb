@@ -161,6 +161,7 @@ class PluginRealm
         Rails.logger.error("Error from external groups provider: #{e.message}")
       else
         if groups
+          previous_group_ids = user.groups.map(&:id).sort
           user.groups = []
           for group_name in groups
             group = Group.find_by_name(group_name)
@@ -168,6 +169,10 @@ class PluginRealm
               user.groups << group
             end
           end
+          if user.groups.map(&:id).sort != previous_group_ids
+            # permissions of the user may have changed
+            Internal.group_membership.invalidateAuthorizations()
+          end
         end
       end
     end
@@ -0,0 +1,86 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.batch;
+
+import com.google.common.base.Charsets;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonar.api.server.ws.WebService;
+import org.sonar.core.permission.GlobalPermissions;
+import org.sonar.server.exceptions.ForbiddenException;
+import org.sonar.server.user.MockUserSession;
+import org.sonar.server.ws.WsTester;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Fail.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BatchBootstrapWsTest {
+
+  RulesBundle rulesBundle = mock(RulesBundle.class);
+
+  WsTester tester;
+
+  @Before
+  public void setUp() throws Exception {
+    when(rulesBundle.hash()).thenReturn("acbd18db4cc2f85cedef654fccc4a4d8");
+    when(rulesBundle.content()).thenReturn("foo".getBytes(Charsets.UTF_8));
+    tester = new WsTester(new BatchBootstrapWs(rulesBundle));
+  }
+
+  @Test
+  public void define_ws() throws Exception {
+    WebService.Controller controller = tester.controller("api/batch_bootstrap");
+    assertThat(controller).isNotNull();
+    assertThat(controller.since()).isEqualTo("4.4");
+    assertThat(controller.actions()).hasSize(2);
+    assertThat(controller.action("rules_hash").isInternal()).isTrue();
+    assertThat(controller.action("rules").isInternal()).isTrue();
+  }
+
+  @Test
+  public void rules_hash() throws Exception {
+    MockUserSession.set().setGlobalPermissions(GlobalPermissions.SCAN_EXECUTION);
+
+    String hash = tester.newGetRequest("api/batch_bootstrap", "rules_hash").execute().outputAsString();
+    assertThat(hash).isEqualTo("acbd18db4cc2f85cedef654fccc4a4d8");
+  }
+
+  @Test
+  public void rules() throws Exception {
+    MockUserSession.set().setGlobalPermissions(GlobalPermissions.DRY_RUN_EXECUTION);
+
+    String content = tester.newGetRequest("api/batch_bootstrap", "rules").execute().outputAsString();
+    assertThat(content).isEqualTo("foo");
+  }
+
+  @Test
+  public void fail_without_scan_permission() throws Exception {
+    MockUserSession.set().setGlobalPermissions(GlobalPermissions.SYSTEM_ADMIN);
+
+    try {
+      tester.newGetRequest("api/batch_bootstrap", "rules").execute();
+      fail();
+    } catch (Exception e) {
+      assertThat(e).isInstanceOf(ForbiddenException.class);
+    }
+  }
+}
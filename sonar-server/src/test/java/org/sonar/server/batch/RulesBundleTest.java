@@ -0,0 +1,182 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.batch;
+
+import com.google.common.base.Charsets;
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.skyscreamer.jsonassert.JSONAssert;
+import org.sonar.core.persistence.AbstractDaoTestCase;
+import org.sonar.core.preview.PreviewCache;
+import org.sonar.core.qualityprofile.db.ActiveRuleDao;
+import org.sonar.core.rule.RuleDao;
+import org.sonar.core.technicaldebt.db.CharacteristicDao;
+
+import javax.annotation.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Fail.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RulesBundleTest extends AbstractDaoTestCase {
+
+  PreviewCache dryRunCache = mock(PreviewCache.class);
+
+  RulesBundle bundle;
+
+  @Before
+  public void setUp() throws Exception {
+    bundle = new RulesBundle(getMyBatis(), new RuleDao(getMyBatis()), new ActiveRuleDao(getMyBatis()), new CharacteristicDao(getMyBatis()), dryRunCache);
+  }
+
+  @Test
+  public void write_rules() throws Exception {
+    setupData("characteristics", "rules");
+
+    // description is not part of the bundle
+    assertJson(bundle, "{\"rules\": [{\"id\": 1, \"repo\": \"checkstyle\", \"key\": \"AvoidNull\", \"name\": \"Avoid Null\", \"severity\": \"MINOR\", \"status\": \"READY\", " +
+      "\"debtChar\": \"EFFICIENCY\", \"debtFn\": \"LINEAR_OFFSET\", \"debtCoef\": \"5d\", \"debtOffset\": \"10h\", " +
+      "\"params\": [{\"key\": \"myParameter\", \"desc\": \"My Parameter\"}]}], \"activeRules\": []}", true);
+  }
+
+  @Test
+  public void write_active_rules() throws Exception {
+    setupData("characteristics", "active_rules");
+
+    // parameters that are not set on active rules get the default values of rules. Active rules on removed rules are ignored.
+    assertJson(bundle, "{\"activeRules\": [" +
+      "{\"profileId\": 2, \"repo\": \"squid\", \"key\": \"S0001\", \"severity\": \"INFO\", \"internalKey\": \"TemplateKey\", \"params\": {\"max\": \"20\", \"format\": \"html\", \"min\": \"12\"}}," +
+      "{\"profileId\": 2, \"repo\": \"squid\", \"key\": \"S0001_123\", \"severity\": \"MAJOR\", \"internalKey\": \"TemplateKey\", \"params\": {}}," +
+      "{\"profileId\": 3, \"repo\": \"phpunit\", \"key\": \"P1\", \"severity\": \"BLOCKER\", \"params\": {}}" +
+      "]}", false);
+  }
+
+  @Test
+  public void build_rules_with_overridden_debt_definitions() throws Exception {
+    setupData("characteristics", "build_rules_with_overridden_debt_definitions");
+
+    assertDebt("PORTABILITY", "LINEAR", "2h", null);
+  }
+
+  @Test
+  public void build_rules_with_default_and_overridden_debt_definitions() throws Exception {
+    setupData("characteristics", "build_rules_with_default_and_overridden_debt_definitions");
+
+    // As both default columns and user columns on debt are set, user debt columns should be used
+    assertDebt("PORTABILITY", "LINEAR", "2h", null);
+  }
+
+  @Test
+  public void build_rules_with_default_characteristic_and_overridden_function() throws Exception {
+    setupData("characteristics", "build_rules_with_default_characteristic_and_overridden_function");
+
+    assertDebt("PORTABILITY", "LINEAR", "2h", null);
+  }
+
+  @Test
+  public void build_rules_with_overridden_characteristic_and_default_function() throws Exception {
+    setupData("characteristics", "build_rules_with_overridden_characteristic_and_default_function");
+
+    assertDebt("PORTABILITY", "LINEAR", "2h", null);
+  }
+
+  @Test
+  public void build_rules_with_default_debt_definitions() throws Exception {
+    setupData("characteristics", "build_rules_with_default_debt_definitions");
+
+    assertDebt("EFFICIENCY", "LINEAR_OFFSET", "5d", "10h");
+  }
+
+  @Test
+  public void build_rules_with_disable_characteristic() throws Exception {
+    setupData("characteristics", "build_rules_with_disable_characteristic");
+
+    assertDebt(null, null, null, null);
+  }
+
+  @Test
+  public void build_rules_with_default_characteristic_and_disable_characteristic() throws Exception {
+    setupData("characteristics", "build_rules_with_default_characteristic_and_disable_characteristic");
+
+    assertDebt(null, null, null, null);
+  }
+
+  @Test
+  public void fail_if_characteristic_not_found() throws Exception {
+    setupData("characteristics", "fail_if_characteristic_not_found");
+
+    try {
+      bundle.content();
+      fail();
+    } catch (Exception e) {
+      assertThat(e).isInstanceOf(IllegalStateException.class).hasMessage("Sub characteristic id '999' on rule 'checkstyle:AvoidNull' has not been found");
+    }
+  }
+
+  @Test
+  public void fail_if_no_function() throws Exception {
+    setupData("characteristics", "fail_if_no_function");
+
+    try {
+      bundle.content();
+      fail();
+    } catch (Exception e) {
+      assertThat(e).isInstanceOf(IllegalStateException.class).hasMessage("Remediation function should not be null on rule 'checkstyle:AvoidNull'");
+    }
+  }
+
+  @Test
+  public void keep_bundle_until_global_modification() throws Exception {
+    setupData("characteristics", "rules");
+    when(dryRunCache.getGlobalModificationTimestamp()).thenReturn(1000L);
+    byte[] content = bundle.content();
+    String hash = bundle.hash();
+    assertThat(hash).hasSize(32);
+
+    // same instance is returned as long as nothing changed
+    assertThat(bundle.content()).isSameAs(content);
+    assertThat(bundle.hash()).isEqualTo(hash);
+
+    when(dryRunCache.getGlobalModificationTimestamp()).thenReturn(2000L);
+    assertThat(bundle.content()).isNotSameAs(content);
+  }
+
+  private void assertDebt(@Nullable String characteristic, @Nullable String function, @Nullable String coefficient, @Nullable String offset) throws Exception {
+    JSONObject rule = new JSONObject(json(bundle)).getJSONArray("rules").getJSONObject(0);
+    assertThat(rule.optString("debtChar", null)).isEqualTo(characteristic);
+    assertThat(rule.optString("debtFn", null)).isEqualTo(function);
+    assertThat(rule.optString("debtCoef", null)).isEqualTo(coefficient);
+    assertThat(rule.optString("debtOffset", null)).isEqualTo(offset);
+  }
+
+  private static void assertJson(RulesBundle bundle, String expected, boolean strict) throws Exception {
+    JSONAssert.assertEquals(expected, json(bundle), strict);
+  }
+
+  private static String json(RulesBundle bundle) throws Exception {
+    return IOUtils.toString(new GZIPInputStream(new ByteArrayInputStream(bundle.content())), Charsets.UTF_8.name());
+  }
+}
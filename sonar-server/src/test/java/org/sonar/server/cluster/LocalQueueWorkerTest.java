@@ -0,0 +1,149 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.cluster;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.sonar.core.cluster.QueueAction;
+import org.sonar.server.search.Index;
+import org.sonar.server.search.IndexAction;
+import org.sonar.server.search.KeyIndexAction;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Matchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class LocalQueueWorkerTest {
+
+  LocalNonBlockingWorkQueue queue = new LocalNonBlockingWorkQueue();
+  Index rules = mock(Index.class);
+  Index issues = mock(Index.class);
+  LocalQueueWorker worker;
+
+  @Before
+  public void setUp() throws Exception {
+    when(rules.getIndexName()).thenReturn("rules");
+    when(issues.getIndexName()).thenReturn("issues");
+    worker = new LocalQueueWorker(queue, rules, issues);
+    worker.start();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    worker.stop();
+  }
+
+  @Test
+  public void group_actions_by_index_in_order() throws Exception {
+    IndexAction rule1 = new KeyIndexAction<String>("rules", IndexAction.Method.INSERT, "R1");
+    IndexAction issue1 = new KeyIndexAction<String>("issues", IndexAction.Method.INSERT, "I1");
+    IndexAction rule2 = new KeyIndexAction<String>("rules", IndexAction.Method.DELETE, "R2");
+    final AtomicBoolean executed = new AtomicBoolean(false);
+    QueueAction other = new QueueAction() {
+      @Override
+      public void doExecute() {
+        executed.set(true);
+      }
+    };
+
+    worker.execute(Arrays.<Runnable>asList(rule1, issue1, other, rule2));
+
+    ArgumentCaptor<List> ruleActions = ArgumentCaptor.forClass(List.class);
+    verify(rules).executeBulk(ruleActions.capture());
+    assertThat(ruleActions.getValue()).containsExactly(rule1, rule2);
+
+    ArgumentCaptor<List> issueActions = ArgumentCaptor.forClass(List.class);
+    verify(issues).executeBulk(issueActions.capture());
+    assertThat(issueActions.getValue()).containsExactly(issue1);
+
+    assertThat(executed.get()).isTrue();
+  }
+
+  @Test
+  public void do_not_fail_on_unknown_index() throws Exception {
+    worker.execute(Arrays.<Runnable>asList(new KeyIndexAction<String>("unknown", IndexAction.Method.INSERT, "K1")));
+
+    verify(rules, never()).executeBulk(anyList());
+    verify(issues, never()).executeBulk(anyList());
+  }
+
+  @Test
+  public void release_callers_of_unknown_index() throws Exception {
+    CountDownLatch latch = new CountDownLatch(1);
+    IndexAction action = new KeyIndexAction<String>("unknown", IndexAction.Method.INSERT, "K1");
+    action.setLatch(latch);
+
+    worker.execute(Arrays.<Runnable>asList(action));
+
+    assertThat(latch.getCount()).isEqualTo(0L);
+  }
+
+  @Test
+  public void release_callers_if_bulk_fails() throws Exception {
+    doThrow(new IllegalStateException("ES is down")).when(rules).executeBulk(anyList());
+    CountDownLatch latch = new CountDownLatch(2);
+    IndexAction rule1 = new KeyIndexAction<String>("rules", IndexAction.Method.INSERT, "R1");
+    rule1.setLatch(latch);
+    IndexAction rule2 = new KeyIndexAction<String>("rules", IndexAction.Method.DELETE, "R2");
+    rule2.setLatch(latch);
+
+    worker.execute(Arrays.<Runnable>asList(rule1, rule2));
+
+    assertThat(latch.getCount()).isEqualTo(0L);
+  }
+
+  @Test
+  public void release_callers_of_bulk() throws Exception {
+    CountDownLatch latch = new CountDownLatch(1);
+    IndexAction issue1 = new KeyIndexAction<String>("issues", IndexAction.Method.INSERT, "I1");
+    issue1.setLatch(latch);
+
+    worker.execute(Arrays.<Runnable>asList(issue1));
+
+    assertThat(latch.getCount()).isEqualTo(0L);
+  }
+
+  @Test
+  public void measure_depth_and_lag() throws Exception {
+    worker.stop();
+    LocalNonBlockingWorkQueue pendingQueue = new LocalNonBlockingWorkQueue();
+    LocalQueueWorker stoppedWorker = new LocalQueueWorker(pendingQueue, rules);
+    assertThat(stoppedWorker.getQueueDepth()).isEqualTo(0);
+    assertThat(stoppedWorker.getIndexingLag()).isEqualTo(0L);
+
+    KeyIndexAction<String> action = new KeyIndexAction<String>("rules", IndexAction.Method.INSERT, "R1");
+    action.setEnqueuedAt(System.currentTimeMillis() - 1000L);
+    pendingQueue.add(action);
+
+    assertThat(stoppedWorker.getQueueDepth()).isEqualTo(1);
+    assertThat(stoppedWorker.getIndexingLag()).isGreaterThanOrEqualTo(1000L);
+  }
+}
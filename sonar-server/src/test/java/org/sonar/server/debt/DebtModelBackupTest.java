@@ -41,6 +41,7 @@ import org.sonar.api.utils.ValidationMessages;
 import org.sonar.core.permission.GlobalPermissions;
 import org.sonar.core.persistence.DbSession;
 import org.sonar.core.persistence.MyBatis;
+import org.sonar.core.preview.PreviewCache;
 import org.sonar.core.rule.RuleDao;
 import org.sonar.core.rule.RuleDto;
 import org.sonar.core.technicaldebt.db.CharacteristicDao;
@@ -112,6 +113,9 @@ public class DebtModelBackupTest {
   @Mock
   RuleDefinitionsLoader defLoader;
 
+  @Mock
+  PreviewCache dryRunCache;
+
   @Mock
   System2 system2;
 
@@ -154,7 +158,7 @@ public class DebtModelBackupTest {
     when(debtModelPluginRepository.createReaderForXMLFile("technical-debt")).thenReturn(defaultModelReader);
 
     debtModelBackup = new DebtModelBackup(myBatis, dao, ruleDao, debtModelOperations, ruleOperations, debtModelPluginRepository, characteristicsXMLImporter, rulesXMLImporter,
-      debtModelXMLExporter, ruleRegistry, defLoader, system2);
+      debtModelXMLExporter, ruleRegistry, defLoader, dryRunCache, system2);
   }
 
   @Test
@@ -443,6 +447,7 @@ public class DebtModelBackupTest {
     verifyNoMoreInteractions(ruleDao);
     verify(ruleRegistry).reindex(ruleCaptor.getAllValues(), session);
 
+    verify(dryRunCache).reportGlobalModification(session);
     verify(session).commit();
 
     RuleDto rule = ruleCaptor.getValue();
@@ -624,6 +629,7 @@ public class DebtModelBackupTest {
 
     verify(ruleDao).selectEnablesAndNonManual(session);
     verify(ruleRegistry).reindex(ruleCaptor.getAllValues(), session);
+    verify(dryRunCache).reportGlobalModification(session);
     verify(session).commit();
   }
 
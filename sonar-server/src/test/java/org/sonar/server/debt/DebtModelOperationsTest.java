@@ -37,6 +37,7 @@ import org.sonar.api.utils.System2;
 import org.sonar.core.permission.GlobalPermissions;
 import org.sonar.core.persistence.DbSession;
 import org.sonar.core.persistence.MyBatis;
+import org.sonar.core.preview.PreviewCache;
 import org.sonar.core.rule.RuleDao;
 import org.sonar.core.rule.RuleDto;
 import org.sonar.core.technicaldebt.db.CharacteristicDao;
@@ -79,6 +80,9 @@ public class DebtModelOperationsTest {
   @Mock
   RuleRegistry ruleRegistry;
 
+  @Mock
+  PreviewCache dryRunCache;
+
   @Mock
   System2 system2;
 
@@ -126,7 +130,7 @@ public class DebtModelOperationsTest {
     }).when(dao).insert(any(CharacteristicDto.class), any(SqlSession.class));
 
     when(mybatis.openSession(false)).thenReturn(session);
-    service = new DebtModelOperations(mybatis, dao, ruleDao, ruleRegistry, system2);
+    service = new DebtModelOperations(mybatis, dao, ruleDao, ruleRegistry, dryRunCache, system2);
   }
 
   @Test
@@ -465,6 +469,7 @@ public class DebtModelOperationsTest {
     assertThat(characteristicDto.getUpdatedAt()).isEqualTo(now);
 
     verify(ruleRegistry).reindex(ruleCaptor.getAllValues(), batchSession);
+    verify(dryRunCache).reportGlobalModification(batchSession);
   }
 
   @Test
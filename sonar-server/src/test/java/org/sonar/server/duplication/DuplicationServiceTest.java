@@ -0,0 +1,128 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.duplication;
+
+import org.junit.Test;
+import org.sonar.api.web.UserRole;
+import org.sonar.core.duplication.DuplicationBlockDto;
+import org.sonar.core.duplication.DuplicationDao;
+import org.sonar.core.duplication.DuplicationGroupDto;
+import org.sonar.core.resource.ResourceDao;
+import org.sonar.core.resource.ResourceDto;
+import org.sonar.core.user.AuthorizationDao;
+import org.sonar.server.exceptions.ForbiddenException;
+import org.sonar.server.exceptions.NotFoundException;
+import org.sonar.server.user.AuthorizationCache;
+import org.sonar.server.user.MockUserSession;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Fail.fail;
+import static org.mockito.Mockito.*;
+
+public class DuplicationServiceTest {
+
+  DuplicationDao dao = mock(DuplicationDao.class);
+  ResourceDao resourceDao = mock(ResourceDao.class);
+  DuplicationService service = new DuplicationService(dao, new AuthorizationCache(mock(AuthorizationDao.class), resourceDao));
+
+  @Test
+  public void find_groups_of_file() throws Exception {
+    when(dao.selectBlocks(10)).thenReturn(Arrays.asList(
+      new DuplicationBlockDto().setGroupIndex(0).setComponentKey("prj:Foo"),
+      new DuplicationBlockDto().setGroupIndex(0).setComponentKey("prj:Bar"),
+      new DuplicationBlockDto().setGroupIndex(1).setComponentKey("prj:Foo"),
+      new DuplicationBlockDto().setGroupIndex(1).setComponentKey("prj:Foo"),
+      new DuplicationBlockDto().setGroupIndex(1).setComponentKey("prj:Baz")));
+
+    List<List<DuplicationBlockDto>> groups = service.findGroups(10);
+    assertThat(groups).hasSize(2);
+    assertThat(groups.get(0)).hasSize(2);
+    assertThat(groups.get(1)).hasSize(3);
+    assertThat(groups.get(1).get(2).getComponentKey()).isEqualTo("prj:Baz");
+  }
+
+  @Test
+  public void find_no_groups() throws Exception {
+    when(dao.selectBlocks(10)).thenReturn(Collections.<DuplicationBlockDto>emptyList());
+
+    assertThat(service.findGroups(10)).isEmpty();
+  }
+
+  @Test
+  public void find_duplicating_files() throws Exception {
+    MockUserSession.set().addProjectPermissions(UserRole.USER, "prj", "other");
+    when(resourceDao.getRootProjectByComponentKey("prj:Foo")).thenReturn(new ResourceDto().setKey("prj"));
+    when(resourceDao.getRootProjectByComponentKey("prj:Bar")).thenReturn(new ResourceDto().setKey("prj"));
+    when(resourceDao.getRootProjectByComponentKey("other:Baz")).thenReturn(new ResourceDto().setKey("other"));
+    when(dao.selectDuplicatingFileKeys("prj:Foo")).thenReturn(Arrays.asList("other:Baz", "prj:Bar"));
+
+    assertThat(service.findDuplicatingFiles("prj:Foo")).containsExactly("other:Baz", "prj:Bar");
+  }
+
+  @Test
+  public void exclude_duplicating_files_of_unauthorized_projects() throws Exception {
+    MockUserSession.set().addProjectPermissions(UserRole.USER, "prj");
+    when(resourceDao.getRootProjectByComponentKey("prj:Foo")).thenReturn(new ResourceDto().setKey("prj"));
+    when(resourceDao.getRootProjectByComponentKey("prj:Bar")).thenReturn(new ResourceDto().setKey("prj"));
+    when(resourceDao.getRootProjectByComponentKey("secret:Baz")).thenReturn(new ResourceDto().setKey("secret"));
+    when(dao.selectDuplicatingFileKeys("prj:Foo")).thenReturn(Arrays.asList("prj:Bar", "secret:Baz"));
+
+    assertThat(service.findDuplicatingFiles("prj:Foo")).containsExactly("prj:Bar");
+  }
+
+  @Test
+  public void find_largest_groups_of_root_project() throws Exception {
+    MockUserSession.set().addProjectPermissions(UserRole.USER, "prj");
+    when(resourceDao.getRootProjectByComponentKey("prj:module")).thenReturn(new ResourceDto().setKey("prj"));
+    DuplicationGroupDto group = new DuplicationGroupDto().setFileKey("prj:Foo").setLines(60);
+    when(dao.selectLargestGroups("prj", 5)).thenReturn(Arrays.asList(group));
+
+    assertThat(service.findLargestGroups("prj:module", 5)).containsExactly(group);
+  }
+
+  @Test
+  public void fail_if_component_not_found() throws Exception {
+    MockUserSession.set().addProjectPermissions(UserRole.USER, "prj");
+    try {
+      service.findDuplicatingFiles("prj:Unknown");
+      fail();
+    } catch (Exception e) {
+      assertThat(e).isInstanceOf(NotFoundException.class);
+    }
+    verifyZeroInteractions(dao);
+  }
+
+  @Test
+  public void fail_if_no_permission() throws Exception {
+    MockUserSession.set().addProjectPermissions(UserRole.USER, "other");
+    when(resourceDao.getRootProjectByComponentKey("prj:Foo")).thenReturn(new ResourceDto().setKey("prj"));
+    try {
+      service.findLargestGroups("prj:Foo", 10);
+      fail();
+    } catch (Exception e) {
+      assertThat(e).isInstanceOf(ForbiddenException.class);
+    }
+    verifyZeroInteractions(dao);
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.duplication.ws;
+
+import org.junit.Test;
+import org.sonar.api.server.ws.WebService;
+import org.sonar.core.duplication.DuplicationGroupDto;
+import org.sonar.server.duplication.DuplicationService;
+import org.sonar.server.ws.WsTester;
+
+import java.util.Arrays;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DuplicationsWsTest {
+
+  DuplicationService service = mock(DuplicationService.class);
+  WsTester tester = new WsTester(new DuplicationsWs(service));
+
+  @Test
+  public void define_ws() throws Exception {
+    WebService.Controller controller = tester.controller("api/duplications");
+    assertThat(controller).isNotNull();
+    assertThat(controller.since()).isEqualTo("4.4");
+    assertThat(controller.actions()).hasSize(2);
+
+    WebService.Action files = controller.action("files");
+    assertThat(files.isInternal()).isTrue();
+    assertThat(files.params()).hasSize(1);
+
+    WebService.Action groups = controller.action("groups");
+    assertThat(groups.isInternal()).isTrue();
+    assertThat(groups.params()).hasSize(2);
+  }
+
+  @Test
+  public void files() throws Exception {
+    when(service.findDuplicatingFiles("prj:Foo")).thenReturn(Arrays.asList("other:Baz", "prj:Bar"));
+
+    tester.newGetRequest("api/duplications", "files").setParam("key", "prj:Foo").execute().assertJson(getClass(), "files.json");
+  }
+
+  @Test
+  public void groups() throws Exception {
+    when(service.findLargestGroups("prj", 10)).thenReturn(Arrays.asList(
+      new DuplicationGroupDto().setFileKey("prj:Foo").setGroupIndex(1).setBlocks(2).setLines(60),
+      new DuplicationGroupDto().setFileKey("prj:Bar").setGroupIndex(0).setBlocks(2).setLines(20)));
+
+    tester.newGetRequest("api/duplications", "groups").setParam("key", "prj").execute().assertJson(getClass(), "groups.json");
+  }
+}
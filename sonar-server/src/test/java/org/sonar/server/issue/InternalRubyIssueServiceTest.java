@@ -644,6 +644,16 @@ public class InternalRubyIssueServiceTest {
     verify(issueBulkChangeService).execute(any(IssueBulkChangeQuery.class), any(UserSession.class));
   }
 
+  @Test
+  public void submit_bulk_change() {
+    Map<String, Object> params = newHashMap();
+    params.put("issues", newArrayList("ABCD", "EFGH"));
+    params.put("actions", newArrayList("assign"));
+    params.put("assign.assignee", "arthur");
+    service.submitBulkChange(params, null, false);
+    verify(issueBulkChangeService).submit(any(IssueBulkChangeQuery.class), any(UserSession.class));
+  }
+
   @Test
   public void format_changelog() {
     FieldDiffs fieldDiffs = new FieldDiffs();
@@ -35,6 +35,7 @@ import org.sonar.api.web.UserRole;
 import org.sonar.core.issue.IssueNotifications;
 import org.sonar.core.issue.db.IssueStorage;
 import org.sonar.server.exceptions.BadRequestException;
+import org.sonar.server.exceptions.NotFoundException;
 import org.sonar.server.exceptions.UnauthorizedException;
 import org.sonar.server.user.MockUserSession;
 import org.sonar.server.user.UserSession;
@@ -52,7 +53,6 @@ import static org.mockito.Matchers.anyMap;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -93,12 +93,12 @@ public class IssueBulkChangeServiceTest {
 
     IssueBulkChangeQuery issueBulkChangeQuery = new IssueBulkChangeQuery(properties, true);
     IssueBulkChangeResult result = service.execute(issueBulkChangeQuery, userSession);
-    assertThat(result.issuesChanged()).hasSize(1);
-    assertThat(result.issuesNotChanged()).isEmpty();
+    assertThat(result.countIssuesChanged()).isEqualTo(1);
+    assertThat(result.countIssuesNotChanged()).isEqualTo(0);
 
-    verify(issueStorage).save(eq(issue));
+    verify(issueStorage).save(newArrayList(issue));
     verifyNoMoreInteractions(issueStorage);
-    verify(issueNotifications).sendChanges(eq(issue), any(IssueChangeContext.class), eq(issueQueryResult));
+    verify(issueNotifications).sendChanges(eq(newArrayList(issue)), any(IssueChangeContext.class), eq(issueQueryResult));
     verifyNoMoreInteractions(issueNotifications);
   }
 
@@ -112,13 +112,12 @@ public class IssueBulkChangeServiceTest {
 
     IssueBulkChangeQuery issueBulkChangeQuery = new IssueBulkChangeQuery(properties, false);
     IssueBulkChangeResult result = service.execute(issueBulkChangeQuery, userSession);
-    assertThat(result.issuesChanged()).hasSize(1);
-    assertThat(result.issuesNotChanged()).isEmpty();
+    assertThat(result.countIssuesChanged()).isEqualTo(1);
+    assertThat(result.countIssuesNotChanged()).isEqualTo(0);
 
-    verify(issueStorage).save(eq(issue));
+    verify(issueStorage).save(newArrayList(issue));
     verifyNoMoreInteractions(issueStorage);
-    verify(issueNotifications, never()).sendChanges(eq(issue), any(IssueChangeContext.class), eq(issueQueryResult));
-    verifyNoMoreInteractions(issueNotifications);
+    verifyZeroInteractions(issueNotifications);
   }
 
   @Test
@@ -138,11 +137,11 @@ public class IssueBulkChangeServiceTest {
 
     IssueBulkChangeQuery issueBulkChangeQuery = new IssueBulkChangeQuery(properties, "my comment", true);
     IssueBulkChangeResult result = service.execute(issueBulkChangeQuery, userSession);
-    assertThat(result.issuesChanged()).hasSize(1);
-    assertThat(result.issuesNotChanged()).isEmpty();
+    assertThat(result.countIssuesChanged()).isEqualTo(1);
+    assertThat(result.countIssuesNotChanged()).isEqualTo(0);
 
     verify(commentAction).execute(anyMap(), any(IssueBulkChangeService.ActionContext.class));
-    verify(issueStorage).save(eq(issue));
+    verify(issueStorage).save(newArrayList(issue));
   }
 
   @Test
@@ -171,12 +170,12 @@ public class IssueBulkChangeServiceTest {
 
     IssueBulkChangeQuery issueBulkChangeQuery = new IssueBulkChangeQuery(properties, "my comment", true);
     IssueBulkChangeResult result = service.execute(issueBulkChangeQuery, userSession);
-    assertThat(result.issuesChanged()).hasSize(1);
-    assertThat(result.issuesNotChanged()).hasSize(1);
+    assertThat(result.countIssuesChanged()).isEqualTo(1);
+    assertThat(result.countIssuesNotChanged()).isEqualTo(1);
 
     // Only one issue will receive the comment
     verify(assignAction, times(1)).execute(anyMap(), any(IssueBulkChangeService.ActionContext.class));
-    verify(issueStorage).save(eq(issue));
+    verify(issueStorage).save(newArrayList(issue));
   }
 
   @Test
@@ -192,12 +191,12 @@ public class IssueBulkChangeServiceTest {
 
     IssueBulkChangeQuery issueBulkChangeQuery = new IssueBulkChangeQuery(properties, true);
     IssueBulkChangeResult result = service.execute(issueBulkChangeQuery, userSession);
-    assertThat(result.issuesChanged()).hasSize(1);
-    assertThat(result.issuesNotChanged()).isEmpty();
+    assertThat(result.countIssuesChanged()).isEqualTo(1);
+    assertThat(result.countIssuesNotChanged()).isEqualTo(0);
 
-    verify(issueStorage, times(1)).save(eq(issue));
+    verify(issueStorage, times(1)).save(newArrayList(issue));
     verifyNoMoreInteractions(issueStorage);
-    verify(issueNotifications, times(1)).sendChanges(eq(issue), any(IssueChangeContext.class), eq(issueQueryResult));
+    verify(issueNotifications, times(1)).sendChanges(eq(newArrayList(issue)), any(IssueChangeContext.class), eq(issueQueryResult));
     verifyNoMoreInteractions(issueNotifications);
   }
 
@@ -220,6 +219,88 @@ public class IssueBulkChangeServiceTest {
     assertThat(query.requiredRole()).isEqualTo(UserRole.USER);
   }
 
+  @Test
+  public void should_load_and_save_issues_by_chunks() {
+    List<String> keys = newArrayList();
+    for (int i = 0; i < IssueQuery.MAX_PAGE_SIZE + 1; i++) {
+      keys.add("KEY" + i);
+    }
+    Map<String, Object> properties = newHashMap();
+    properties.put("issues", keys);
+    properties.put("actions", "assign");
+    properties.put("assign.assignee", "fred");
+    actions.add(new MockAction("assign"));
+
+    IssueBulkChangeQuery issueBulkChangeQuery = new IssueBulkChangeQuery(properties, false);
+    service.execute(issueBulkChangeQuery, userSession);
+
+    ArgumentCaptor<IssueQuery> captor = ArgumentCaptor.forClass(IssueQuery.class);
+    verify(finder, times(2)).find(captor.capture());
+    assertThat(captor.getAllValues().get(0).issueKeys()).hasSize(IssueQuery.MAX_PAGE_SIZE);
+    assertThat(captor.getAllValues().get(1).issueKeys()).containsOnly("KEY" + IssueQuery.MAX_PAGE_SIZE);
+    // one batch per chunk
+    verify(issueStorage, times(2)).save(newArrayList(issue));
+  }
+
+  @Test
+  public void should_execute_submitted_bulk_change_in_background() throws Exception {
+    Map<String, Object> properties = newHashMap();
+    properties.put("issues", "ABCD");
+    properties.put("actions", "assign");
+    properties.put("assign.assignee", "fred");
+    actions.add(new MockAction("assign"));
+
+    service.start();
+    try {
+      IssueBulkChangeJob job = service.submit(new IssueBulkChangeQuery(properties, false), userSession);
+      assertThat(job.login()).isEqualTo("john");
+      assertThat(job.total()).isEqualTo(1);
+      assertThat(service.job(job.key(), userSession)).isSameAs(job);
+
+      long timeout = System.currentTimeMillis() + 10000L;
+      while (job.status() != IssueBulkChangeJob.Status.DONE && System.currentTimeMillis() < timeout) {
+        Thread.sleep(10L);
+      }
+      assertThat(job.status()).isEqualTo(IssueBulkChangeJob.Status.DONE);
+      assertThat(job.processed()).isEqualTo(1);
+      assertThat(job.result().countIssuesChanged()).isEqualTo(1);
+      verify(issueStorage).save(newArrayList(issue));
+    } finally {
+      service.stop();
+    }
+  }
+
+  @Test
+  public void should_not_return_job_of_another_user() {
+    Map<String, Object> properties = newHashMap();
+    properties.put("issues", "ABCD");
+    properties.put("actions", "assign");
+    properties.put("assign.assignee", "fred");
+    actions.add(new MockAction("assign"));
+
+    service.start();
+    try {
+      IssueBulkChangeJob job = service.submit(new IssueBulkChangeQuery(properties, false), userSession);
+      service.job(job.key(), MockUserSession.create().setLogin("fred"));
+      fail();
+    } catch (Exception e) {
+      assertThat(e).isInstanceOf(NotFoundException.class);
+    } finally {
+      service.stop();
+    }
+  }
+
+  @Test
+  public void should_keep_a_sample_of_issues_not_changed() {
+    IssueBulkChangeResult result = new IssueBulkChangeResult();
+    for (int i = 0; i < IssueBulkChangeResult.MAX_SAMPLE_SIZE + 10; i++) {
+      result.addIssueNotChanged(new DefaultIssue().setKey("KEY" + i));
+    }
+    assertThat(result.countIssuesNotChanged()).isEqualTo(IssueBulkChangeResult.MAX_SAMPLE_SIZE + 10);
+    assertThat(result.issuesNotChanged()).hasSize(IssueBulkChangeResult.MAX_SAMPLE_SIZE);
+    assertThat(result.issuesNotChanged().get(0)).isEqualTo("KEY0");
+  }
+
   @Test
   public void should_not_execute_bulk_if_issue_does_not_support_action() {
     Map<String, Object> properties = newHashMap();
@@ -230,8 +311,8 @@ public class IssueBulkChangeServiceTest {
 
     IssueBulkChangeQuery issueBulkChangeQuery = new IssueBulkChangeQuery(properties, true);
     IssueBulkChangeResult result = service.execute(issueBulkChangeQuery, userSession);
-    assertThat(result.issuesChanged()).isEmpty();
-    assertThat(result.issuesNotChanged()).hasSize(1);
+    assertThat(result.countIssuesChanged()).isEqualTo(0);
+    assertThat(result.countIssuesNotChanged()).isEqualTo(1);
 
     verifyZeroInteractions(issueStorage);
     verifyZeroInteractions(issueNotifications);
@@ -247,8 +328,8 @@ public class IssueBulkChangeServiceTest {
 
     IssueBulkChangeQuery issueBulkChangeQuery = new IssueBulkChangeQuery(properties, true);
     IssueBulkChangeResult result = service.execute(issueBulkChangeQuery, userSession);
-    assertThat(result.issuesChanged()).isEmpty();
-    assertThat(result.issuesNotChanged()).isEmpty();
+    assertThat(result.countIssuesChanged()).isEqualTo(0);
+    assertThat(result.countIssuesNotChanged()).isEqualTo(0);
 
     verifyZeroInteractions(issueStorage);
     verifyZeroInteractions(issueNotifications);
@@ -264,8 +345,8 @@ public class IssueBulkChangeServiceTest {
 
     IssueBulkChangeQuery issueBulkChangeQuery = new IssueBulkChangeQuery(properties, true);
     IssueBulkChangeResult result = service.execute(issueBulkChangeQuery, userSession);
-    assertThat(result.issuesChanged()).isEmpty();
-    assertThat(result.issuesNotChanged()).hasSize(1);
+    assertThat(result.countIssuesChanged()).isEqualTo(0);
+    assertThat(result.countIssuesNotChanged()).isEqualTo(1);
 
     verifyZeroInteractions(issueStorage);
     verifyZeroInteractions(issueNotifications);
@@ -287,8 +368,8 @@ public class IssueBulkChangeServiceTest {
 
     IssueBulkChangeQuery issueBulkChangeQuery = new IssueBulkChangeQuery(properties, true);
     IssueBulkChangeResult result = service.execute(issueBulkChangeQuery, userSession);
-    assertThat(result.issuesChanged()).isEmpty();
-    assertThat(result.issuesNotChanged()).hasSize(1);
+    assertThat(result.countIssuesChanged()).isEqualTo(0);
+    assertThat(result.countIssuesNotChanged()).isEqualTo(1);
 
     verifyZeroInteractions(issueStorage);
     verifyZeroInteractions(issueNotifications);
@@ -0,0 +1,75 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.issue.ws;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sonar.api.i18n.I18n;
+import org.sonar.api.issue.IssueFinder;
+import org.sonar.api.issue.internal.DefaultIssue;
+import org.sonar.api.utils.DateUtils;
+import org.sonar.api.utils.Durations;
+import org.sonar.server.debt.DebtModelService;
+import org.sonar.server.issue.ActionService;
+import org.sonar.server.issue.IssueBulkChangeJob;
+import org.sonar.server.issue.IssueBulkChangeResult;
+import org.sonar.server.issue.IssueBulkChangeService;
+import org.sonar.server.issue.IssueChangelogService;
+import org.sonar.server.issue.IssueService;
+import org.sonar.server.user.UserSession;
+import org.sonar.server.ws.WsTester;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class IssueBulkChangeStatusActionTest {
+
+  IssueBulkChangeService bulkChangeService = mock(IssueBulkChangeService.class);
+
+  WsTester tester;
+
+  @Before
+  public void setUp() throws Exception {
+    IssueShowAction showAction = new IssueShowAction(mock(IssueFinder.class), mock(IssueService.class), mock(IssueChangelogService.class), mock(ActionService.class),
+      mock(DebtModelService.class), mock(I18n.class), mock(Durations.class));
+    tester = new WsTester(new IssuesWs(showAction, new IssueBulkChangeStatusAction(bulkChangeService)));
+  }
+
+  @Test
+  public void show_progress() throws Exception {
+    IssueBulkChangeResult result = new IssueBulkChangeResult();
+    result.addIssueChanged(new DefaultIssue().setKey("ABCD"));
+    result.addIssueNotChanged(new DefaultIssue().setKey("EFGH"));
+
+    IssueBulkChangeJob job = mock(IssueBulkChangeJob.class);
+    when(job.key()).thenReturn("JOB1");
+    when(job.status()).thenReturn(IssueBulkChangeJob.Status.RUNNING);
+    when(job.createdAt()).thenReturn(DateUtils.parseDateTime("2014-05-12T10:21:45+0200"));
+    when(job.total()).thenReturn(1000);
+    when(job.processed()).thenReturn(500);
+    when(job.result()).thenReturn(result);
+    when(bulkChangeService.job(eq("JOB1"), any(UserSession.class))).thenReturn(job);
+
+    WsTester.TestRequest request = tester.newGetRequest("api/issues", "bulk_change_status").setParam("key", "JOB1");
+    request.execute().assertJson(getClass(), "show_progress.json");
+  }
+}
@@ -50,6 +50,7 @@ import org.sonar.core.issue.workflow.Transition;
 import org.sonar.core.user.DefaultUser;
 import org.sonar.server.debt.DebtModelService;
 import org.sonar.server.issue.ActionService;
+import org.sonar.server.issue.IssueBulkChangeService;
 import org.sonar.server.issue.IssueChangelog;
 import org.sonar.server.issue.IssueChangelogService;
 import org.sonar.server.issue.IssueService;
@@ -113,7 +114,7 @@ public class IssueShowActionTest {
 
     when(i18n.message(any(Locale.class), eq("created"), eq((String) null))).thenReturn("Created");
 
-    tester = new WsTester(new IssuesWs(new IssueShowAction(issueFinder, issueService, issueChangelogService, actionService, debtModel, i18n, durations)));
+    tester = new WsTester(new IssuesWs(new IssueShowAction(issueFinder, issueService, issueChangelogService, actionService, debtModel, i18n, durations), new IssueBulkChangeStatusAction(mock(IssueBulkChangeService.class))));
   }
 
   @Test
@@ -28,6 +28,7 @@ import org.sonar.api.server.ws.WebService;
 import org.sonar.api.utils.Durations;
 import org.sonar.server.debt.DebtModelService;
 import org.sonar.server.issue.ActionService;
+import org.sonar.server.issue.IssueBulkChangeService;
 import org.sonar.server.issue.IssueChangelogService;
 import org.sonar.server.issue.IssueService;
 import org.sonar.server.ws.WsTester;
@@ -45,7 +46,7 @@ public class IssuesWsTest {
   public void setUp() throws Exception {
     showAction = new IssueShowAction(mock(IssueFinder.class), mock(IssueService.class), mock(IssueChangelogService.class), mock(ActionService.class),
       mock(DebtModelService.class), mock(I18n.class), mock(Durations.class));
-    tester = new WsTester(new IssuesWs(showAction));
+    tester = new WsTester(new IssuesWs(showAction, new IssueBulkChangeStatusAction(mock(IssueBulkChangeService.class))));
   }
 
   @Test
@@ -54,7 +55,7 @@ public class IssuesWsTest {
     assertThat(controller).isNotNull();
     assertThat(controller.description()).isNotEmpty();
     assertThat(controller.since()).isEqualTo("3.6");
-    assertThat(controller.actions()).hasSize(12);
+    assertThat(controller.actions()).hasSize(13);
   }
 
   @Test
@@ -229,7 +230,21 @@ public class IssuesWsTest {
     assertThat(action.isPost()).isTrue();
     assertThat(action.isInternal()).isFalse();
     assertThat(action.handler()).isInstanceOf(RailsHandler.class);
-    assertThat(action.params()).hasSize(8);
+    assertThat(action.params()).hasSize(9);
+  }
+
+  @Test
+  public void define_bulk_change_status_action() throws Exception {
+    WebService.Controller controller = tester.controller("api/issues");
+
+    WebService.Action action = controller.action("bulk_change_status");
+    assertThat(action).isNotNull();
+    assertThat(action.since()).isEqualTo("4.4");
+    assertThat(action.isPost()).isFalse();
+    assertThat(action.isInternal()).isFalse();
+    assertThat(action.handler()).isInstanceOf(IssueBulkChangeStatusAction.class);
+    assertThat(action.responseExampleAsString()).isNotEmpty();
+    assertThat(action.params()).hasSize(1);
   }
 
 }
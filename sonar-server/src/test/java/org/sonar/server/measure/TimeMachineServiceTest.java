@@ -0,0 +1,141 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.measure;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonar.api.utils.DateUtils;
+import org.sonar.core.measure.MeasureSeries;
+import org.sonar.core.measure.db.MeasureSeriesDao;
+import org.sonar.core.measure.db.MeasureSeriesDto;
+import org.sonar.core.persistence.AbstractDaoTestCase;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class TimeMachineServiceTest extends AbstractDaoTestCase {
+
+  static final List<Integer> NO_CHARACTERISTICS = Collections.emptyList();
+
+  MeasureSeriesDao dao;
+  TimeMachineService service;
+
+  @Before
+  public void setUp() throws Exception {
+    dao = new MeasureSeriesDao(getMyBatis());
+    service = new TimeMachineService(getMyBatis(), dao);
+    service.start();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    service.stop();
+  }
+
+  @Test
+  public void build_series_on_first_request() {
+    setupData("shared");
+
+    List<MeasureSeriesDto> result = service.find(1L, Arrays.asList(1), NO_CHARACTERISTICS, null, null, 0);
+
+    assertThat(result).hasSize(1);
+    MeasureSeries series = result.get(0).getSeries();
+    assertThat(series.size()).isEqualTo(3);
+    assertThat(series.date(0)).isEqualTo(DateUtils.parseDate("2010-01-01").getTime());
+    assertThat(series.value(0)).isEqualTo(50.0);
+    assertThat(series.value(2)).isEqualTo(800.0);
+
+    // series of ncloc, ncloc on characteristic and distribution are stored
+    assertThat(dao.selectByResource(1L)).hasSize(3);
+  }
+
+  @Test
+  public void append_new_analysis() {
+    setupData("shared");
+    service.find(1L, Arrays.asList(1), NO_CHARACTERISTICS, null, null, 0);
+
+    setupData("new_analysis");
+    List<MeasureSeriesDto> result = service.find(1L, Arrays.asList(1, 2), NO_CHARACTERISTICS, null, null, 0);
+
+    assertThat(result).hasSize(2);
+    for (MeasureSeriesDto dto : result) {
+      MeasureSeries series = dto.getSeries();
+      if (dto.getMetricId() == 1) {
+        assertThat(series.size()).isEqualTo(4);
+        assertThat(series.value(3)).isEqualTo(900.0);
+      } else {
+        // history of distributions is not kept
+        assertThat(series.size()).isEqualTo(1);
+        assertThat(series.textValue(0)).isEqualTo("java=900");
+      }
+    }
+  }
+
+  @Test
+  public void refresh_project_and_modules() {
+    setupData("shared");
+
+    service.doRefresh(1L);
+
+    assertThat(dao.selectByResource(1L)).hasSize(3);
+    assertThat(dao.selectByResource(2L)).hasSize(1);
+    assertThat(dao.selectByResource(2L).get(0).getSeries().value(0)).isEqualTo(300.0);
+  }
+
+  @Test
+  public void filter_by_characteristic() {
+    setupData("shared");
+
+    List<MeasureSeriesDto> result = service.find(1L, Arrays.asList(1), Arrays.asList(7), null, null, 0);
+
+    assertThat(result).hasSize(1);
+    assertThat(result.get(0).getCharacteristicId()).isEqualTo(7);
+    assertThat(result.get(0).getSeries().value(0)).isEqualTo(20.0);
+  }
+
+  @Test
+  public void filter_by_dates() {
+    setupData("shared");
+
+    List<MeasureSeriesDto> result = service.find(1L, Arrays.asList(1), NO_CHARACTERISTICS,
+      DateUtils.parseDate("2010-06-01"), DateUtils.parseDate("2011-06-01"), 0);
+
+    MeasureSeries series = result.get(0).getSeries();
+    assertThat(series.size()).isEqualTo(1);
+    assertThat(series.value(0)).isEqualTo(500.0);
+
+    assertThat(service.find(1L, Arrays.asList(1), NO_CHARACTERISTICS, DateUtils.parseDate("2015-01-01"), null, 0)).isEmpty();
+  }
+
+  @Test
+  public void downsample() {
+    setupData("shared");
+
+    List<MeasureSeriesDto> result = service.find(1L, Arrays.asList(1), NO_CHARACTERISTICS, null, null, 1);
+
+    MeasureSeries series = result.get(0).getSeries();
+    assertThat(series.size()).isEqualTo(1);
+    assertThat(series.value(0)).isEqualTo(800.0);
+  }
+}
@@ -47,6 +47,7 @@ import org.sonar.core.user.UserDto;
 import org.sonar.server.exceptions.BadRequestException;
 import org.sonar.server.exceptions.ForbiddenException;
 import org.sonar.server.exceptions.UnauthorizedException;
+import org.sonar.server.user.AuthorizationCache;
 import org.sonar.server.user.MockUserSession;
 
 import java.util.Map;
@@ -76,6 +77,9 @@ public class InternalPermissionServiceTest {
   @Mock
   PermissionFinder finder;
 
+  @Mock
+  AuthorizationCache authorizationCache;
+
   Map<String, Object> params;
   InternalPermissionService service;
 
@@ -86,7 +90,7 @@ public class InternalPermissionServiceTest {
 
     MockUserSession.set().setLogin("admin").setGlobalPermissions(GlobalPermissions.SYSTEM_ADMIN);
 
-    service = new InternalPermissionService(userDao, resourceDao, permissionFacade, finder);
+    service = new InternalPermissionService(userDao, resourceDao, permissionFacade, finder, authorizationCache);
   }
 
   @Test
@@ -136,6 +140,7 @@ public class InternalPermissionServiceTest {
     service.addPermission(params);
 
     verify(permissionFacade).insertUserPermission(eq((Long) null), eq(2L), eq("shareDashboard"));
+    verify(authorizationCache).invalidate();
   }
 
   @Test
@@ -484,6 +489,7 @@ public class InternalPermissionServiceTest {
     service.applyDefaultPermissionTemplate(componentKey);
     verify(resourceDao).findByKey(componentKey);
     verify(permissionFacade).grantDefaultRoles(componentId, qualifier);
+    verify(authorizationCache).invalidate();
   }
 
   @Test(expected = ForbiddenException.class)
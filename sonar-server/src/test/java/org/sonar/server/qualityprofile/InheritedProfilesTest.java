@@ -25,6 +25,8 @@ import org.sonar.core.preview.PreviewCache;
 import org.sonar.jpa.test.AbstractDbUnitTestCase;
 import org.sonar.server.qualityprofile.ProfilesManager;
 
+import java.util.Arrays;
+
 import static org.fest.assertions.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
 
@@ -84,4 +86,12 @@ public class InheritedProfilesTest extends AbstractDbUnitTestCase {
     assertThat(actions.idsToDelete()).isEmpty();
   }
 
+  @Test
+  public void shouldActivateSeveralRulesInDescendants() {
+    setupData("shouldActivateSeveralRulesInDescendants");
+    ProfilesManager.RuleInheritanceActions actions = profilesManager.activated(1, Arrays.asList(1, 2), "admin");
+    checkTables("shouldActivateSeveralRulesInDescendants", "active_rules", "rules_profiles");
+    assertThat(actions.idsToIndex()).containsOnly(1, 2, 3, 4, 5, 6);
+    assertThat(actions.idsToDelete()).isEmpty();
+  }
 }
@@ -56,6 +56,7 @@ import static com.google.common.collect.Lists.newArrayList;
 import static org.fest.assertions.Assertions.assertThat;
 import static org.fest.assertions.Fail.fail;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyList;
 import static org.mockito.Matchers.anyListOf;
@@ -234,7 +235,7 @@ public class QProfileActiveRuleOperationsTest {
     ProfilesManager.RuleInheritanceActions inheritanceActions = new ProfilesManager.RuleInheritanceActions()
       .addToIndex(idActiveRuleToUpdate)
       .addToDelete(idActiveRuleToDelete);
-    when(profilesManager.activated(eq(1), anyInt(), eq("Nicolas"))).thenReturn(inheritanceActions);
+    when(profilesManager.activated(eq(1), anyCollectionOf(Integer.class), eq("Nicolas"))).thenReturn(inheritanceActions);
 
     operations.activateRules(1, query, authorizedUserSession);
 
@@ -249,7 +250,7 @@ public class QProfileActiveRuleOperationsTest {
     assertThat(activeRuleParamArgument.getValue().getValue()).isEqualTo("10");
 
     verify(session).commit();
-    verify(profilesManager).activated(eq(1), anyInt(), eq("Nicolas"));
+    verify(profilesManager).activated(eq(1), anyCollectionOf(Integer.class), eq("Nicolas"));
     verify(esActiveRule).deleteActiveRules(eq(newArrayList(idActiveRuleToDelete)));
     verify(esActiveRule).bulkIndexActiveRuleIds(eq(newArrayList(idActiveRuleToUpdate)), eq(session));
   }
@@ -296,7 +297,7 @@ public class QProfileActiveRuleOperationsTest {
     when(ruleDao.selectById(10, session)).thenReturn(new RuleDto().setId(10));
     ActiveRuleDto activeRule = new ActiveRuleDto().setId(5).setProfileId(1).setRuleId(10).setSeverity(Severity.MINOR);
     when(activeRuleDao.selectById(5, session)).thenReturn(activeRule);
-    when(profilesManager.deactivated(eq(1), anyInt(), eq("Nicolas"))).thenReturn(new ProfilesManager.RuleInheritanceActions());
+    when(profilesManager.deactivated(eq(1), anyCollectionOf(Integer.class), eq("Nicolas"))).thenReturn(new ProfilesManager.RuleInheritanceActions());
     ProfileRuleQuery query = ProfileRuleQuery.create(1);
     when(rules.searchProfileRuleIds(query)).thenReturn(newArrayList(5));
 
@@ -306,7 +307,7 @@ public class QProfileActiveRuleOperationsTest {
     verify(activeRuleDao).delete(eq(5), eq(session));
     verify(activeRuleDao).deleteParameters(eq(5), eq(session));
     verify(session).commit();
-    verify(profilesManager).deactivated(eq(1), anyInt(), eq("Nicolas"));
+    verify(profilesManager).deactivated(eq(1), eq(newArrayList(5)), eq("Nicolas"));
     verify(esActiveRule).deleteActiveRules(anyListOf(Integer.class));
     verify(esActiveRule).bulkIndexActiveRuleIds(anyListOf(Integer.class), eq(session));
   }
@@ -41,6 +41,7 @@ import org.sonar.check.Cardinality;
 import org.sonar.core.permission.GlobalPermissions;
 import org.sonar.core.persistence.DbSession;
 import org.sonar.core.persistence.MyBatis;
+import org.sonar.core.preview.PreviewCache;
 import org.sonar.core.qualityprofile.db.ActiveRuleDao;
 import org.sonar.core.qualityprofile.db.ActiveRuleDto;
 import org.sonar.core.rule.RuleDao;
@@ -108,6 +109,9 @@ public class RuleOperationsTest {
   @Mock
   RuleRegistry ruleRegistry;
 
+  @Mock
+  PreviewCache dryRunCache;
+
   @Mock
   System2 system;
 
@@ -139,7 +143,7 @@ public class RuleOperationsTest {
       }
     }).when(activeRuleDao).insert(any(ActiveRuleDto.class), any(SqlSession.class));
 
-    operations = new RuleOperations(myBatis, activeRuleDao, ruleDao, ruleTagDao, characteristicDao, ruleTagOperations, esActiveRule, ruleRegistry, system);
+    operations = new RuleOperations(myBatis, activeRuleDao, ruleDao, ruleTagDao, characteristicDao, ruleTagOperations, esActiveRule, ruleRegistry, dryRunCache, system);
   }
 
   @Test
@@ -264,6 +268,7 @@ public class RuleOperationsTest {
     assertThat(ruleTagArgument.getValue().getTag()).isEqualTo("style");
     assertThat(ruleTagArgument.getValue().getType()).isEqualTo(RuleTagType.SYSTEM);
 
+    verify(dryRunCache).reportGlobalModification(session);
     verify(session).commit();
     verify(ruleRegistry).reindex(eq(ruleArgument.getValue()), eq(session));
   }
@@ -288,6 +293,7 @@ public class RuleOperationsTest {
     verify(ruleDao).update(ruleParamArgument.capture(), eq(session));
     assertThat(ruleParamArgument.getValue().getDefaultValue()).isEqualTo("21");
 
+    verify(dryRunCache).reportGlobalModification(session);
     verify(session).commit();
     verify(ruleRegistry).reindex(eq(ruleArgument.getValue()), eq(session));
   }
@@ -314,6 +320,7 @@ public class RuleOperationsTest {
     verify(ruleRegistry).reindex(eq(ruleCaptor.getValue()), eq(session));
     verify(activeRuleDao).deleteParameters(eq(activeRuleId), eq(session));
     verify(activeRuleDao).deleteFromRule(eq(ruleId), eq(session));
+    verify(dryRunCache).reportGlobalModification(session);
     verify(session, times(2)).commit();
     verify(esActiveRule).deleteActiveRules(newArrayList(activeRuleId));
   }
@@ -410,6 +417,7 @@ public class RuleOperationsTest {
 
     verify(ruleDao).update(ruleCaptor.capture(), eq(session));
     verify(ruleRegistry).reindex(eq(ruleCaptor.getValue()), eq(session));
+    verify(dryRunCache).reportGlobalModification(session);
     verify(session).commit();
 
     RuleDto result = ruleCaptor.getValue();
@@ -0,0 +1,133 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.source;
+
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+import org.sonar.core.source.db.SnapshotSourceDao;
+import org.sonar.core.source.db.SnapshotSourceDto;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ColorizedSourceCacheTest {
+
+  @Mock
+  SnapshotSourceDao snapshotSourceDao;
+
+  @Mock
+  CodeColorizers codeColorizers;
+
+  ColorizedSourceCache cache;
+
+  @Before
+  public void setUp() throws Exception {
+    cache = new ColorizedSourceCache(snapshotSourceDao, codeColorizers);
+  }
+
+  @Test
+  public void colorize_source_only_once() throws Exception {
+    when(snapshotSourceDao.selectSnapshotSource(10L)).thenReturn("line 1\nline 2\n");
+    when(codeColorizers.toHtml("line 1\nline 2\n", "java")).thenReturn("<span>line 1</span>\r\n<span>line 2</span>\n");
+
+    assertThat(cache.getLines(10L, "java")).containsExactly("<span>line 1</span>", "<span>line 2</span>", "");
+    assertThat(cache.getLines(10L, "java")).containsExactly("<span>line 1</span>", "<span>line 2</span>", "");
+
+    verify(snapshotSourceDao, times(1)).selectSnapshotSource(10L);
+    verify(codeColorizers, times(1)).toHtml(anyString(), anyString());
+    assertThat(cache.stats().hitCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void return_empty_lines_if_no_source() throws Exception {
+    when(snapshotSourceDao.selectSnapshotSource(10L)).thenReturn(null);
+
+    assertThat(cache.getLines(10L, "java")).isEmpty();
+    verify(codeColorizers, never()).toHtml(anyString(), anyString());
+  }
+
+  @Test
+  public void warm_sources_of_project() throws Exception {
+    doAnswer(new Answer() {
+      @Override
+      public Object answer(InvocationOnMock invocation) throws Throwable {
+        ResultContext context = mock(ResultContext.class);
+        when(context.getResultObject()).thenReturn(new SnapshotSourceDto().setSnapshotId(10L).setLanguage("java").setData("line 1"));
+        ((ResultHandler) invocation.getArguments()[1]).handleResult(context);
+        return null;
+      }
+    }).when(snapshotSourceDao).selectLastSnapshotSourcesByRootProjectId(eq(1L), any(ResultHandler.class));
+    when(codeColorizers.toHtml("line 1", "java")).thenReturn("<span>line 1</span>");
+
+    cache.doWarm(1L);
+
+    assertThat(cache.getLines(10L, "java")).containsExactly("<span>line 1</span>");
+    verify(snapshotSourceDao, never()).selectSnapshotSource(10L);
+  }
+
+  @Test
+  public void warm_only_a_fraction_of_the_cache() throws Exception {
+    doAnswer(new Answer() {
+      @Override
+      public Object answer(InvocationOnMock invocation) throws Throwable {
+        ResultContext context = mock(ResultContext.class);
+        ResultHandler handler = (ResultHandler) invocation.getArguments()[1];
+        for (long i = 0; i < ColorizedSourceCache.MAX_SIZE; i++) {
+          when(context.getResultObject()).thenReturn(new SnapshotSourceDto().setSnapshotId(i).setLanguage("java").setData("line"));
+          handler.handleResult(context);
+          if (i == ColorizedSourceCache.MAX_WARMED_SIZE - 1) {
+            verify(context).stop();
+            break;
+          }
+        }
+        return null;
+      }
+    }).when(snapshotSourceDao).selectLastSnapshotSourcesByRootProjectId(eq(1L), any(ResultHandler.class));
+    when(codeColorizers.toHtml("line", "java")).thenReturn("line");
+
+    cache.doWarm(1L);
+
+    verify(codeColorizers, times(ColorizedSourceCache.MAX_WARMED_SIZE)).toHtml("line", "java");
+  }
+
+  @Test
+  public void do_not_warm_if_not_started() throws Exception {
+    cache.warm(1L);
+
+    verify(snapshotSourceDao, never()).selectLastSnapshotSourcesByRootProjectId(anyLong(), any(ResultHandler.class));
+  }
+}
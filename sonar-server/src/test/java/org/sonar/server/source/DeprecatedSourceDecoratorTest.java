@@ -30,15 +30,21 @@ import org.sonar.core.persistence.MyBatis;
 import org.sonar.core.resource.ResourceDao;
 import org.sonar.core.resource.ResourceDto;
 import org.sonar.core.resource.ResourceQuery;
-import org.sonar.core.source.db.SnapshotSourceDao;
+import org.sonar.core.resource.SnapshotDto;
 import org.sonar.server.exceptions.NotFoundException;
 
+import java.util.Collections;
 import java.util.List;
 
+import static com.google.common.collect.Lists.newArrayList;
 import static org.fest.assertions.Assertions.assertThat;
 import static org.fest.assertions.Fail.fail;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -54,28 +60,24 @@ public class DeprecatedSourceDecoratorTest {
   ResourceDao resourceDao;
 
   @Mock
-  CodeColorizers codeColorizers;
-
-  @Mock
-  SnapshotSourceDao snapshotSourceDao;
+  ColorizedSourceCache colorizedSourceCache;
 
   DeprecatedSourceDecorator sourceDecorator;
 
   @Before
   public void setUp() throws Exception {
     when(mybatis.openSession(false)).thenReturn(session);
-    sourceDecorator = new DeprecatedSourceDecorator(mybatis, resourceDao, codeColorizers, snapshotSourceDao);
+    sourceDecorator = new DeprecatedSourceDecorator(mybatis, resourceDao, colorizedSourceCache);
   }
 
   @Test
   public void get_source_as_html() throws Exception {
     String componentKey = "org.sonar.sample:Sample";
-    String source = "line 1\nline 2\nline 3\n";
-    String htmlSource = "<span>line 1</span>\n<span>line 2</span>\n";
+    List<String> htmlLines = newArrayList("<span>line 1</span>", "<span>line 2</span>", "");
 
-    when(resourceDao.getResource(any(ResourceQuery.class), eq(session))).thenReturn(new ResourceDto().setKey(componentKey).setLanguage("java"));
-    when(snapshotSourceDao.selectSnapshotSourceByComponentKey(componentKey, session)).thenReturn(source);
-    when(codeColorizers.toHtml(source, "java")).thenReturn(htmlSource);
+    when(resourceDao.getResource(any(ResourceQuery.class), eq(session))).thenReturn(new ResourceDto().setId(1L).setKey(componentKey).setLanguage("java"));
+    when(resourceDao.getLastSnapshotByResourceId(1L, session)).thenReturn(new SnapshotDto().setId(10L));
+    when(colorizedSourceCache.getLines(10L, "java")).thenReturn(htmlLines);
 
     List<String> result = sourceDecorator.getSourceAsHtml(componentKey);
     assertThat(result).containsExactly("<span>line 1</span>", "<span>line 2</span>", "");
@@ -84,10 +86,21 @@ public class DeprecatedSourceDecoratorTest {
   @Test
   public void return_empty_list_if_no_source_code_on_component() throws Exception {
     String componentKey = "org.sonar.sample:Sample";
-    when(resourceDao.getResource(any(ResourceQuery.class), eq(session))).thenReturn(new ResourceDto().setKey(componentKey).setLanguage("java"));
-    when(snapshotSourceDao.selectSnapshotSourceByComponentKey(componentKey, session)).thenReturn(null);
+    when(resourceDao.getResource(any(ResourceQuery.class), eq(session))).thenReturn(new ResourceDto().setId(1L).setKey(componentKey).setLanguage("java"));
+    when(resourceDao.getLastSnapshotByResourceId(1L, session)).thenReturn(new SnapshotDto().setId(10L));
+    when(colorizedSourceCache.getLines(10L, "java")).thenReturn(Collections.<String>emptyList());
+
+    assertThat(sourceDecorator.getSourceAsHtml(componentKey)).isEmpty();
+  }
+
+  @Test
+  public void return_empty_list_if_no_snapshot_on_component() throws Exception {
+    String componentKey = "org.sonar.sample:Sample";
+    when(resourceDao.getResource(any(ResourceQuery.class), eq(session))).thenReturn(new ResourceDto().setId(1L).setKey(componentKey).setLanguage("java"));
+    when(resourceDao.getLastSnapshotByResourceId(1L, session)).thenReturn(null);
 
     assertThat(sourceDecorator.getSourceAsHtml(componentKey)).isEmpty();
+    verify(colorizedSourceCache, never()).getLines(anyLong(), anyString());
   }
 
   @Test
@@ -105,12 +118,11 @@ public class DeprecatedSourceDecoratorTest {
   @Test
   public void get_source_as_html_with_from_and_to_params() throws Exception {
     String componentKey = "org.sonar.sample:Sample";
-    String source = "line 1\nline 2\nline 3\n";
-    String htmlSource = "<span>line 1</span>\n<span>line 2</span>\n<span>line 3</span>\n";
+    List<String> htmlLines = newArrayList("<span>line 1</span>", "<span>line 2</span>", "<span>line 3</span>", "");
 
-    when(resourceDao.getResource(any(ResourceQuery.class), eq(session))).thenReturn(new ResourceDto().setKey(componentKey).setLanguage("java"));
-    when(snapshotSourceDao.selectSnapshotSourceByComponentKey(componentKey, session)).thenReturn(source);
-    when(codeColorizers.toHtml(source, "java")).thenReturn(htmlSource);
+    when(resourceDao.getResource(any(ResourceQuery.class), eq(session))).thenReturn(new ResourceDto().setId(1L).setKey(componentKey).setLanguage("java"));
+    when(resourceDao.getLastSnapshotByResourceId(1L, session)).thenReturn(new SnapshotDto().setId(10L));
+    when(colorizedSourceCache.getLines(10L, "java")).thenReturn(htmlLines);
 
     List<String> result = sourceDecorator.getSourceAsHtml(componentKey, 2, 3);
     assertThat(result).containsExactly("<span>line 2</span>", "<span>line 3</span>");
@@ -119,12 +131,11 @@ public class DeprecatedSourceDecoratorTest {
   @Test
   public void get_source_as_html_with_from_param() throws Exception {
     String componentKey = "org.sonar.sample:Sample";
-    String source = "line 1\nline 2\nline 3\n";
-    String htmlSource = "<span>line 1</span>\n<span>line 2</span>\n<span>line 3</span>\n";
+    List<String> htmlLines = newArrayList("<span>line 1</span>", "<span>line 2</span>", "<span>line 3</span>", "");
 
-    when(resourceDao.getResource(any(ResourceQuery.class), eq(session))).thenReturn(new ResourceDto().setKey(componentKey).setLanguage("java"));
-    when(snapshotSourceDao.selectSnapshotSourceByComponentKey(componentKey, session)).thenReturn(source);
-    when(codeColorizers.toHtml(source, "java")).thenReturn(htmlSource);
+    when(resourceDao.getResource(any(ResourceQuery.class), eq(session))).thenReturn(new ResourceDto().setId(1L).setKey(componentKey).setLanguage("java"));
+    when(resourceDao.getLastSnapshotByResourceId(1L, session)).thenReturn(new SnapshotDto().setId(10L));
+    when(colorizedSourceCache.getLines(10L, "java")).thenReturn(htmlLines);
 
     List<String> result = sourceDecorator.getSourceAsHtml(componentKey, 2, null);
     assertThat(result).containsExactly("<span>line 2</span>", "<span>line 3</span>", "");
@@ -133,12 +144,11 @@ public class DeprecatedSourceDecoratorTest {
   @Test
   public void get_source_as_html_with_to_param() throws Exception {
     String componentKey = "org.sonar.sample:Sample";
-    String source = "line 1\nline 2\nline 3\n";
-    String htmlSource = "<span>line 1</span>\n<span>line 2</span>\n<span>line 3</span>\n";
+    List<String> htmlLines = newArrayList("<span>line 1</span>", "<span>line 2</span>", "<span>line 3</span>", "");
 
-    when(resourceDao.getResource(any(ResourceQuery.class), eq(session))).thenReturn(new ResourceDto().setKey(componentKey).setLanguage("java"));
-    when(snapshotSourceDao.selectSnapshotSourceByComponentKey(componentKey, session)).thenReturn(source);
-    when(codeColorizers.toHtml(source, "java")).thenReturn(htmlSource);
+    when(resourceDao.getResource(any(ResourceQuery.class), eq(session))).thenReturn(new ResourceDto().setId(1L).setKey(componentKey).setLanguage("java"));
+    when(resourceDao.getLastSnapshotByResourceId(1L, session)).thenReturn(new SnapshotDto().setId(10L));
+    when(colorizedSourceCache.getLines(10L, "java")).thenReturn(htmlLines);
 
     List<String> result = sourceDecorator.getSourceAsHtml(componentKey, null, 3);
     assertThat(result).containsExactly("<span>line 1</span>", "<span>line 2</span>", "<span>line 3</span>");
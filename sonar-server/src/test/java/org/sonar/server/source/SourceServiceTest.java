@@ -30,7 +30,9 @@ import org.sonar.api.web.UserRole;
 import org.sonar.core.measure.db.MeasureDataDao;
 import org.sonar.core.resource.ResourceDao;
 import org.sonar.core.resource.ResourceDto;
+import org.sonar.core.user.AuthorizationDao;
 import org.sonar.server.exceptions.NotFoundException;
+import org.sonar.server.user.AuthorizationCache;
 import org.sonar.server.user.MockUserSession;
 
 import java.util.Collections;
@@ -58,7 +60,7 @@ public class SourceServiceTest {
 
   @Before
   public void setUp() throws Exception {
-    service = new SourceService(sourceDecorator, deprecatedSourceDecorator, resourceDao, measureDataDao);
+    service = new SourceService(sourceDecorator, deprecatedSourceDecorator, new AuthorizationCache(mock(AuthorizationDao.class), resourceDao), measureDataDao);
   }
 
   @Test
@@ -0,0 +1,116 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.user;
+
+import org.junit.Test;
+import org.sonar.api.web.UserRole;
+import org.sonar.core.resource.ResourceDao;
+import org.sonar.core.resource.ResourceDto;
+import org.sonar.core.user.AuthorizationDao;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AuthorizationCacheTest {
+
+  AuthorizationDao authorizationDao = mock(AuthorizationDao.class);
+  ResourceDao resourceDao = mock(ResourceDao.class);
+  AuthorizationCache cache = new AuthorizationCache(authorizationDao, resourceDao);
+
+  @Test
+  public void load_authorizations_once() throws Exception {
+    when(authorizationDao.selectAuthorizedRootProjectsKeys(1, UserRole.USER)).thenReturn(newArrayList("foo", "bar"));
+
+    assertThat(cache.hasProjectPermission(1, UserRole.USER, "foo")).isTrue();
+    assertThat(cache.hasProjectPermission(1, UserRole.USER, "bar")).isTrue();
+    assertThat(cache.hasProjectPermission(1, UserRole.USER, "other")).isFalse();
+    assertThat(cache.hasProjectPermission(1, UserRole.USER, "other")).isFalse();
+
+    // "other" was not known when authorizations were loaded
+    verify(authorizationDao, times(2)).selectAuthorizedRootProjectsKeys(1, UserRole.USER);
+    assertThat(cache.stats().hitCount()).isEqualTo(3);
+  }
+
+  @Test
+  public void authorizations_depend_on_user_and_permission() throws Exception {
+    when(authorizationDao.selectAuthorizedRootProjectsKeys(1, UserRole.USER)).thenReturn(newArrayList("foo"));
+    when(authorizationDao.selectAuthorizedRootProjectsKeys(null, UserRole.USER)).thenReturn(newArrayList("bar"));
+
+    assertThat(cache.hasProjectPermission(1, UserRole.USER, "foo")).isTrue();
+    assertThat(cache.hasProjectPermission(1, UserRole.ADMIN, "foo")).isFalse();
+    assertThat(cache.hasProjectPermission(null, UserRole.USER, "foo")).isFalse();
+    assertThat(cache.hasProjectPermission(null, UserRole.USER, "bar")).isTrue();
+  }
+
+  @Test
+  public void reload_authorizations_when_project_is_more_recent() throws Exception {
+    when(authorizationDao.selectAuthorizedRootProjectsKeys(1, UserRole.USER)).thenReturn(newArrayList("foo"));
+    assertThat(cache.hasProjectPermission(1, UserRole.USER, "foo")).isTrue();
+
+    // new project
+    when(authorizationDao.selectAuthorizedRootProjectsKeys(1, UserRole.USER)).thenReturn(newArrayList("foo", "new"));
+    assertThat(cache.hasProjectPermission(1, UserRole.USER, "new")).isTrue();
+  }
+
+  @Test
+  public void invalidate() throws Exception {
+    when(authorizationDao.selectAuthorizedRootProjectsKeys(1, UserRole.USER)).thenReturn(newArrayList("foo"));
+    assertThat(cache.hasProjectPermission(1, UserRole.USER, "foo")).isTrue();
+
+    when(authorizationDao.selectAuthorizedRootProjectsKeys(1, UserRole.USER)).thenReturn(newArrayList("bar"));
+    assertThat(cache.hasProjectPermission(1, UserRole.USER, "foo")).isTrue();
+
+    cache.invalidate();
+    assertThat(cache.hasProjectPermission(1, UserRole.USER, "foo")).isFalse();
+  }
+
+  @Test
+  public void bound_number_of_interned_projects() throws Exception {
+    AuthorizationCache cache = new AuthorizationCache(authorizationDao, resourceDao, 5);
+    when(authorizationDao.selectAuthorizedRootProjectsKeys(1, UserRole.USER)).thenReturn(newArrayList("foo", "bar"));
+
+    for (int i = 0; i < 20; i++) {
+      assertThat(cache.hasProjectPermission(1, UserRole.USER, "unknown" + i)).isFalse();
+      assertThat(cache.hasProjectPermission(1, UserRole.USER, "foo")).isTrue();
+      assertThat(cache.internedProjects()).isLessThanOrEqualTo(5);
+    }
+    assertThat(cache.hasProjectPermission(1, UserRole.USER, "bar")).isTrue();
+  }
+
+  @Test
+  public void root_project_key() throws Exception {
+    when(resourceDao.getRootProjectByComponentKey("foo:src/Bar.java")).thenReturn(new ResourceDto().setKey("foo"));
+
+    assertThat(cache.rootProjectKey("foo:src/Bar.java")).isEqualTo("foo");
+    assertThat(cache.rootProjectKey("foo:src/Bar.java")).isEqualTo("foo");
+    verify(resourceDao, times(1)).getRootProjectByComponentKey("foo:src/Bar.java");
+  }
+
+  @Test
+  public void unknown_component_is_not_cached() throws Exception {
+    assertThat(cache.rootProjectKey("unknown")).isNull();
+    assertThat(cache.rootProjectKey("unknown")).isNull();
+    verify(resourceDao, times(2)).getRootProjectByComponentKey("unknown");
+  }
+}
@@ -33,6 +33,8 @@ import java.util.List;
 
 import static org.fest.assertions.Assertions.assertThat;
 import static org.fest.assertions.Fail.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 
 /**
  * Use BbUnit tests because there's no IT on this feature for the moment
@@ -40,13 +42,14 @@ import static org.fest.assertions.Fail.fail;
 public class GroupMembershipServiceTest extends AbstractDaoTestCase {
 
   GroupMembershipService service;
+  AuthorizationCache authorizationCache = mock(AuthorizationCache.class);
 
   @Before
   public void before() throws Exception {
     GroupMembershipDao membershipDao = new GroupMembershipDao(getMyBatis());
     UserDao userDao = new UserDao(getMyBatis());
     GroupMembershipFinder finder = new GroupMembershipFinder(userDao, membershipDao);
-    service = new GroupMembershipService(finder);
+    service = new GroupMembershipService(finder, authorizationCache);
   }
 
   @Test
@@ -169,4 +172,11 @@ public class GroupMembershipServiceTest extends AbstractDaoTestCase {
     assertThat(groupMembership.name()).isEqualTo(expectedName);
     assertThat(groupMembership.isMember()).isEqualTo(isMember);
   }
+
+  @Test
+  public void invalidate_authorizations() {
+    service.invalidateAuthorizations();
+
+    verify(authorizationCache).invalidate();
+  }
 }
@@ -33,9 +33,10 @@ import static org.mockito.Mockito.mock;
 
 public class MockUserSession extends UserSession {
 
+  private final HashMultimap<String, String> projectKeyByPermission = HashMultimap.create();
+
   private MockUserSession() {
     globalPermissions = Collections.emptyList();
-    projectKeyByPermission = HashMultimap.create();
   }
 
   public static MockUserSession set() {
@@ -74,11 +75,15 @@ public class MockUserSession extends UserSession {
   }
 
   public MockUserSession addProjectPermissions(String projectPermission, String... projectKeys) {
-    this.projectPermissions.add(projectPermission);
     this.projectKeyByPermission.putAll(projectPermission, newArrayList(projectKeys));
     return this;
   }
 
+  @Override
+  public boolean hasProjectPermission(String permission, String projectKey) {
+    return projectKeyByPermission.get(permission).contains(projectKey);
+  }
+
   @Override
   AuthorizationDao authorizationDao() {
     return mock(AuthorizationDao.class);
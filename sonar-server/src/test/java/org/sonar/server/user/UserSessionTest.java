@@ -22,6 +22,7 @@ package org.sonar.server.user;
 import org.junit.Test;
 import org.sonar.api.web.UserRole;
 import org.sonar.core.permission.GlobalPermissions;
+import org.sonar.core.resource.ResourceDao;
 import org.sonar.core.user.AuthorizationDao;
 import org.sonar.server.exceptions.ForbiddenException;
 
@@ -140,5 +141,10 @@ public class UserSessionTest {
     AuthorizationDao authorizationDao() {
       return authorizationDao;
     }
+
+    @Override
+    AuthorizationCache authorizationCache() {
+      return new AuthorizationCache(authorizationDao, mock(ResourceDao.class));
+    }
   }
 }
@@ -19,18 +19,28 @@
  */
 package org.sonar.wsclient;
 
+import org.sonar.wsclient.connectors.ConnectionException;
 import org.sonar.wsclient.connectors.Connector;
 import org.sonar.wsclient.connectors.ConnectorFactory;
 import org.sonar.wsclient.services.*;
+import org.sonar.wsclient.unmarshallers.AbstractUnmarshaller;
 import org.sonar.wsclient.unmarshallers.UnmarshalException;
 import org.sonar.wsclient.unmarshallers.Unmarshaller;
 import org.sonar.wsclient.unmarshallers.Unmarshallers;
 
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
 import java.util.Collections;
 import java.util.List;
 
 public class Sonar {
 
+  /**
+   * Maximum number of characters of a streamed response that are kept for the message of {@link UnmarshalException}
+   */
+  static final int MAX_RESPONSE_PREFIX = 1000;
+
   static {
     WSUtils.setInstance(new JdkUtils());
   }
@@ -60,13 +70,16 @@ public class Sonar {
   }
 
   public <M extends Model> List<M> findAll(Query<M> query) {
+    Unmarshaller<M> unmarshaller = Unmarshallers.forModel(query.getModelClass());
+    if (unmarshaller instanceof AbstractUnmarshaller) {
+      return findAll(query, (AbstractUnmarshaller<M>) unmarshaller);
+    }
     String json = connector.execute(query);
     List<M> result;
     if (json == null) {
       result = Collections.emptyList();
     } else {
       try {
-        Unmarshaller<M> unmarshaller = Unmarshallers.forModel(query.getModelClass());
         result = unmarshaller.toModels(json);
       } catch (Exception e) {
         throw new UnmarshalException(query, json, e);
@@ -75,6 +88,76 @@ public class Sonar {
     return result;
   }
 
+  /**
+   * Models are converted while the response is read, so that the JSON response is never fully loaded in memory
+   */
+  private <M extends Model> List<M> findAll(Query<M> query, AbstractUnmarshaller<M> unmarshaller) {
+    Reader reader = connector.open(query);
+    if (reader == null) {
+      return Collections.emptyList();
+    }
+    PrefixRecordingReader json = new PrefixRecordingReader(reader, MAX_RESPONSE_PREFIX);
+    try {
+      return unmarshaller.toModels(json);
+    } catch (ConnectionException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new UnmarshalException(query, json.prefix(), e);
+    } finally {
+      closeQuietly(json);
+    }
+  }
+
+  private static void closeQuietly(Reader reader) {
+    try {
+      reader.close();
+    } catch (IOException e) {
+      // ignored
+    }
+  }
+
+  /**
+   * Keeps the beginning of the response, so that it can be logged if it can not be parsed
+   */
+  static class PrefixRecordingReader extends FilterReader {
+    private final int maxLength;
+    private final StringBuilder prefix = new StringBuilder();
+    private boolean truncated = false;
+
+    PrefixRecordingReader(Reader in, int maxLength) {
+      super(in);
+      this.maxLength = maxLength;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int c = super.read();
+      if (c >= 0) {
+        record(new char[] {(char) c}, 0, 1);
+      }
+      return c;
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+      int count = super.read(cbuf, off, len);
+      if (count > 0) {
+        record(cbuf, off, count);
+      }
+      return count;
+    }
+
+    private void record(char[] cbuf, int off, int len) {
+      int length = Math.min(len, maxLength - prefix.length());
+      prefix.append(cbuf, off, length);
+      truncated |= length < len;
+    }
+
+    String prefix() {
+      return truncated ? prefix.toString() + "..." : prefix.toString();
+    }
+  }
+
   public <M extends Model> M create(CreateQuery<M> query) {
     String json = connector.execute(query);
     M result = null;
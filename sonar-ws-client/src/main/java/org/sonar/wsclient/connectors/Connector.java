@@ -24,6 +24,11 @@ import org.sonar.wsclient.services.DeleteQuery;
 import org.sonar.wsclient.services.Query;
 import org.sonar.wsclient.services.UpdateQuery;
 
+import javax.annotation.CheckForNull;
+
+import java.io.Reader;
+import java.io.StringReader;
+
 /**
  * @since 2.1
  */
@@ -35,6 +40,20 @@ public abstract class Connector {
    */
   public abstract String execute(Query<?> query);
 
+  /**
+   * Executes the query and gives access to the JSON response without loading it in memory, when supported by the connector.
+   * The caller must close the reader. The default implementation reads the whole response.
+   *
+   * @return reader of the JSON response or null if 404 NOT FOUND error
+   * @throws ConnectionException if connection error or HTTP status not in (200, 404)
+   * @since 4.4
+   */
+  @CheckForNull
+  public Reader open(Query<?> query) {
+    String json = execute(query);
+    return json != null ? new StringReader(json) : null;
+  }
+
   /**
    * @return JSON response or null if 404 NOT FOUND error
    * @since 2.2
@@ -39,9 +39,11 @@ import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
 import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.client.protocol.ClientContext;
+import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.auth.BasicScheme;
 import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
 import org.apache.http.params.CoreConnectionPNames;
 import org.apache.http.params.HttpConnectionParams;
 import org.apache.http.params.HttpParams;
@@ -57,13 +59,19 @@ import org.sonar.wsclient.services.Query;
 import org.sonar.wsclient.services.UpdateQuery;
 
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
 
 /**
  * @since 2.1
  */
 public class HttpClient4Connector extends Connector {
 
+  private static final int MAX_CONNECTIONS = 10;
+  private static final Charset DEFAULT_CHARSET = Charset.forName("UTF-8");
+
   private Host server;
   private DefaultHttpClient client;
 
@@ -96,21 +104,43 @@ public class HttpClient4Connector extends Connector {
     return executeRequest(newDeleteMethod(query));
   }
 
+  /**
+   * The response is streamed. The connection is given back to the pool when the reader is closed.
+   *
+   * @since 4.4
+   */
+  @Override
+  public Reader open(Query<?> query) {
+    HttpRequestBase request = newGetMethod(query);
+    boolean streamed = false;
+    try {
+      HttpResponse response = client.execute(request, createLocalContext());
+      HttpEntity entity = response.getEntity();
+      if (entity != null && isSuccess(request, response)) {
+        Charset charset = ContentType.getOrDefault(entity).getCharset();
+        Reader reader = new InputStreamReader(entity.getContent(), charset != null ? charset : DEFAULT_CHARSET);
+        streamed = true;
+        return reader;
+      }
+      return null;
+
+    } catch (IOException e) {
+      throw new ConnectionException("Query: " + request.getURI(), e);
+
+    } finally {
+      if (!streamed) {
+        request.releaseConnection();
+      }
+    }
+  }
+
   private String executeRequest(HttpRequestBase request) {
     String json = null;
     try {
-      BasicHttpContext context = createLocalContext(client);
-      HttpResponse response = client.execute(request, context);
+      HttpResponse response = client.execute(request, createLocalContext());
       HttpEntity entity = response.getEntity();
-      if (entity != null) {
-        if (response.getStatusLine().getStatusCode() == HttpStatus.SC_OK) {
-          json = EntityUtils.toString(entity);
-
-        } else if (response.getStatusLine().getStatusCode() != HttpStatus.SC_NOT_FOUND) {
-          throw new ConnectionException("HTTP error: " + response.getStatusLine().getStatusCode()
-            + ", msg: " + response.getStatusLine().getReasonPhrase()
-            + ", query: " + request.toString());
-        }
+      if (entity != null && isSuccess(request, response)) {
+        json = EntityUtils.toString(entity);
       }
 
     } catch (IOException e) {
@@ -122,6 +152,23 @@ public class HttpClient4Connector extends Connector {
     return json;
   }
 
+  /**
+   * @return false if 404 NOT FOUND
+   * @throws ConnectionException if HTTP status is not in (200, 404)
+   */
+  private boolean isSuccess(HttpRequestBase request, HttpResponse response) {
+    int status = response.getStatusLine().getStatusCode();
+    if (status == HttpStatus.SC_OK) {
+      return true;
+    }
+    if (status != HttpStatus.SC_NOT_FOUND) {
+      throw new ConnectionException("HTTP error: " + status
+        + ", msg: " + response.getStatusLine().getReasonPhrase()
+        + ", query: " + request.toString());
+    }
+    return false;
+  }
+
   public void close() {
     if (client != null) {
       client.getConnectionManager().shutdown();
@@ -129,17 +176,23 @@ public class HttpClient4Connector extends Connector {
   }
 
   private void initClient() {
-    client = new DefaultHttpClient();
+    // connections are kept alive and shared by the threads using this connector
+    PoolingClientConnectionManager connectionManager = new PoolingClientConnectionManager();
+    connectionManager.setMaxTotal(MAX_CONNECTIONS);
+    connectionManager.setDefaultMaxPerRoute(MAX_CONNECTIONS);
+    client = new DefaultHttpClient(connectionManager);
     HttpParams params = client.getParams();
     HttpConnectionParams.setConnectionTimeout(params, AbstractQuery.DEFAULT_TIMEOUT_MILLISECONDS);
     HttpConnectionParams.setSoTimeout(params, AbstractQuery.DEFAULT_TIMEOUT_MILLISECONDS);
     if (server.getUsername() != null) {
       client.getCredentialsProvider()
         .setCredentials(AuthScope.ANY, new UsernamePasswordCredentials(server.getUsername(), server.getPassword()));
+      // Add as the first request interceptor
+      client.addRequestInterceptor(new PreemptiveAuth(), 0);
     }
   }
 
-  private BasicHttpContext createLocalContext(DefaultHttpClient client) {
+  private BasicHttpContext createLocalContext() {
     BasicHttpContext localcontext = new BasicHttpContext();
 
     if (server.getUsername() != null) {
@@ -147,9 +200,6 @@ public class HttpClient4Connector extends Connector {
       // execution context
       BasicScheme basicAuth = new BasicScheme();
       localcontext.setAttribute(PreemptiveAuth.ATTRIBUTE, basicAuth);
-
-      // Add as the first request interceptor
-      client.addRequestInterceptor(new PreemptiveAuth(), 0);
     }
     return localcontext;
   }
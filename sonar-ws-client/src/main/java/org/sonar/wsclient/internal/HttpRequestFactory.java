@@ -23,6 +23,10 @@ import com.github.kevinsawicki.http.HttpRequest;
 import org.sonar.wsclient.base.HttpException;
 
 import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
 import java.util.Arrays;
 import java.util.Map;
 
@@ -34,6 +38,16 @@ import static java.net.HttpURLConnection.*;
 public class HttpRequestFactory {
 
   private static final int[] RESPONSE_SUCCESS = {HTTP_OK, HTTP_CREATED, HTTP_NO_CONTENT};
+  private static final int BUFFER_SIZE = 8192;
+
+  /**
+   * Consumes the body of a successful response
+   *
+   * @since 4.4
+   */
+  public interface ResponseHandler<T> {
+    T handle(Reader reader) throws IOException;
+  }
 
   private final String baseUrl;
   private String login, password, proxyHost, proxyLogin, proxyPassword;
@@ -131,16 +145,51 @@ public class HttpRequestFactory {
     return execute(request);
   }
 
+  /**
+   * Reads the response without loading it in memory. The reader is closed when the handler returns.
+   *
+   * @since 4.4
+   */
+  public <T> T get(String wsUrl, Map<String, Object> queryParams, ResponseHandler<T> handler) {
+    HttpRequest request = prepare(HttpRequest.get(baseUrl + wsUrl, queryParams, true));
+    return execute(request, handler);
+  }
+
   private String execute(HttpRequest request) {
+    return execute(request, new ResponseHandler<String>() {
+      @Override
+      public String handle(Reader reader) throws IOException {
+        StringWriter writer = new StringWriter();
+        char[] buffer = new char[BUFFER_SIZE];
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+          writer.write(buffer, 0, read);
+        }
+        return writer.toString();
+      }
+    });
+  }
+
+  private <T> T execute(HttpRequest request, ResponseHandler<T> handler) {
     try {
       if (isSuccess(request)) {
-        return request.body(HttpRequest.CHARSET_UTF8);
+        Reader reader = request.bufferedReader(HttpRequest.CHARSET_UTF8);
+        try {
+          return handler.handle(reader);
+        } finally {
+          // the connection is kept alive by the JDK only if the response has been fully read and closed
+          reader.close();
+        }
       }
       // TODO handle error messages
+      // read the error page, so that the connection can be reused
+      request.body();
       throw new HttpException(request.url().toString(), request.code());
 
     } catch (HttpRequest.HttpRequestException e) {
       throw new IllegalStateException("Fail to request " + request.url(), e.getCause());
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to request " + request.url(), e);
     }
   }
 
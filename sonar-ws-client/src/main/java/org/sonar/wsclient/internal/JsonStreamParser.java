@@ -0,0 +1,168 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.wsclient.internal;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.ContentHandler;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parses a JSON document from a stream, without loading it in memory first. The elements of one array,
+ * either the root array or an array field of the root object, are passed one by one to a {@link ElementHandler}
+ * as soon as they are parsed and are not kept in the parsed tree, so that large responses are converted
+ * to models incrementally.
+ * <p/>
+ * Objects and arrays are parsed as {@link JSONObject} and {@link JSONArray}, as with {@link org.json.simple.JSONValue#parse(Reader)}.
+ * <p/>
+ * Not an API. Please do not use this class, except maybe for unit tests.
+ *
+ * @since 4.4
+ */
+public class JsonStreamParser {
+
+  public interface ElementHandler {
+    void handle(Object element);
+  }
+
+  private JsonStreamParser() {
+    // only static methods
+  }
+
+  /**
+   * @param arrayField name of the array field of the root object whose elements are streamed, or null to stream
+   *                   the elements of the root array
+   * @return the root value, without the streamed elements. Null if the document is empty.
+   */
+  @CheckForNull
+  public static Object parse(Reader reader, @Nullable String arrayField, ElementHandler handler) {
+    TreeBuilder builder = new TreeBuilder(arrayField, handler);
+    try {
+      new JSONParser().parse(reader, builder);
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to read JSON response", e);
+    } catch (ParseException e) {
+      throw new IllegalStateException("Invalid JSON response: " + e, e);
+    }
+    return builder.root;
+  }
+
+  private static class TreeBuilder implements ContentHandler {
+    private final String arrayField;
+    private final ElementHandler handler;
+    private final Deque<Object> values = new ArrayDeque<Object>();
+    private final Deque<String> keys = new ArrayDeque<String>();
+    private Object streamedArray;
+    private Object root;
+
+    TreeBuilder(@Nullable String arrayField, ElementHandler handler) {
+      this.arrayField = arrayField;
+      this.handler = handler;
+    }
+
+    @Override
+    public void startJSON() {
+      // nothing to do
+    }
+
+    @Override
+    public void endJSON() {
+      // nothing to do
+    }
+
+    @Override
+    public boolean startObject() {
+      values.push(new JSONObject());
+      return true;
+    }
+
+    @Override
+    public boolean endObject() {
+      add(values.pop());
+      return true;
+    }
+
+    @Override
+    public boolean startObjectEntry(String key) {
+      keys.push(key);
+      return true;
+    }
+
+    @Override
+    public boolean endObjectEntry() {
+      return true;
+    }
+
+    @Override
+    public boolean startArray() {
+      JSONArray array = new JSONArray();
+      if (isStreamedArray()) {
+        streamedArray = array;
+      }
+      values.push(array);
+      return true;
+    }
+
+    @Override
+    public boolean endArray() {
+      add(values.pop());
+      return true;
+    }
+
+    @Override
+    public boolean primitive(Object value) {
+      add(value);
+      return true;
+    }
+
+    private boolean isStreamedArray() {
+      if (arrayField == null) {
+        return values.isEmpty();
+      }
+      return values.size() == 1 && values.peek() instanceof Map && arrayField.equals(keys.peek());
+    }
+
+    private void add(@Nullable Object value) {
+      if (values.isEmpty()) {
+        root = value;
+        return;
+      }
+      Object parent = values.peek();
+      if (parent == streamedArray) {
+        handler.handle(value);
+      } else if (parent instanceof List) {
+        ((List) parent).add(value);
+      } else {
+        ((Map) parent).put(keys.pop(), value);
+      }
+    }
+  }
+}
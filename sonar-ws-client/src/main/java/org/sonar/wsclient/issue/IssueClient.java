@@ -35,6 +35,15 @@ public interface IssueClient {
    */
   Issues find(IssueQuery query);
 
+  /**
+   * Iterates over all the issues matching the query. Pages are requested while iterating, so only one page of issues
+   * is kept in memory. The page size is the maximum allowed by the server, unless it is set in the query.
+   * Note that the server does not return more than 10,000 issues for a given query.
+   *
+   * @since 4.4
+   */
+  Iterable<Issue> findAll(IssueQuery query);
+
   /**
    * Assign an existing issue to a user. A null assignee removes the assignee.
    *
@@ -26,6 +26,9 @@ import org.sonar.wsclient.issue.*;
 
 import javax.annotation.Nullable;
 
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -46,8 +49,27 @@ public class DefaultIssueClient implements IssueClient {
   }
 
   public Issues find(IssueQuery query) {
-    String json = requestFactory.get(SEARCH_URL, query.urlParams());
-    return parser.parseIssues(json);
+    return find(query.urlParams());
+  }
+
+  Issues find(Map<String, Object> queryParams) {
+    return requestFactory.get(SEARCH_URL, queryParams, new HttpRequestFactory.ResponseHandler<Issues>() {
+      @Override
+      public Issues handle(Reader json) {
+        return parser.parseIssues(json);
+      }
+    });
+  }
+
+  @Override
+  public Iterable<Issue> findAll(IssueQuery query) {
+    final Map<String, Object> queryParams = new HashMap<String, Object>(query.urlParams());
+    return new Iterable<Issue>() {
+      @Override
+      public Iterator<Issue> iterator() {
+        return new IssueIterator(DefaultIssueClient.this, queryParams);
+      }
+    };
   }
 
   @Override
@@ -0,0 +1,84 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.wsclient.issue.internal;
+
+import org.sonar.wsclient.issue.Issue;
+import org.sonar.wsclient.issue.Issues;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Requests the pages of /api/issues/search as the issues are consumed. Only the current page is kept in memory.
+ *
+ * @since 4.4
+ */
+class IssueIterator implements Iterator<Issue> {
+
+  /**
+   * Maximum page size accepted by the server
+   */
+  private static final int DEFAULT_PAGE_SIZE = -1;
+
+  private final DefaultIssueClient client;
+  private final Map<String, Object> params;
+  private Iterator<Issue> page = Collections.<Issue>emptyList().iterator();
+  private int pageIndex;
+  private boolean lastPage = false;
+
+  IssueIterator(DefaultIssueClient client, Map<String, Object> queryParams) {
+    this.client = client;
+    this.params = new HashMap<String, Object>(queryParams);
+    if (!params.containsKey("pageSize")) {
+      params.put("pageSize", DEFAULT_PAGE_SIZE);
+    }
+    Object firstPage = params.get("pageIndex");
+    this.pageIndex = firstPage != null ? Integer.parseInt(firstPage.toString()) - 1 : 0;
+  }
+
+  @Override
+  public boolean hasNext() {
+    while (!page.hasNext() && !lastPage) {
+      pageIndex++;
+      params.put("pageIndex", pageIndex);
+      Issues issues = client.find(params);
+      Integer pages = issues.paging().pages();
+      lastPage = issues.size() == 0 || pages == null || pageIndex >= pages;
+      page = issues.list().iterator();
+    }
+    return page.hasNext();
+  }
+
+  @Override
+  public Issue next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    return page.next();
+  }
+
+  @Override
+  public void remove() {
+    throw new UnsupportedOperationException();
+  }
+}
@@ -23,6 +23,7 @@ import org.json.simple.JSONArray;
 import org.json.simple.JSONValue;
 import org.sonar.wsclient.base.Paging;
 import org.sonar.wsclient.component.Component;
+import org.sonar.wsclient.internal.JsonStreamParser;
 import org.sonar.wsclient.issue.BulkChange;
 import org.sonar.wsclient.issue.IssueChange;
 import org.sonar.wsclient.issue.Issues;
@@ -30,6 +31,8 @@ import org.sonar.wsclient.rule.Rule;
 import org.sonar.wsclient.unmarshallers.JsonUtils;
 import org.sonar.wsclient.user.User;
 
+import java.io.Reader;
+import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -43,14 +46,23 @@ public class IssueJsonParser {
   private static final String TOTAL = "total";
 
   public Issues parseIssues(String json) {
-    DefaultIssues result = new DefaultIssues();
-    Map jsonRoot = (Map) JSONValue.parse(json);
-    List<Map> jsonIssues = (List<Map>) jsonRoot.get(ISSUES);
-    if (jsonIssues != null) {
-      for (Map jsonIssue : jsonIssues) {
-        result.add(new DefaultIssue(jsonIssue));
+    return parseIssues(new StringReader(json));
+  }
+
+  /**
+   * Issues are converted one by one while the response is read, so that the whole JSON tree
+   * is never loaded in memory.
+   *
+   * @since 4.4
+   */
+  public Issues parseIssues(Reader json) {
+    final DefaultIssues result = new DefaultIssues();
+    Map jsonRoot = (Map) JsonStreamParser.parse(json, ISSUES, new JsonStreamParser.ElementHandler() {
+      @Override
+      public void handle(Object jsonIssue) {
+        result.add(new DefaultIssue((Map) jsonIssue));
       }
-    }
+    });
     parseRules(result, jsonRoot);
     parseUsers(result, jsonRoot);
     parseComponents(result, jsonRoot);
@@ -19,9 +19,11 @@
  */
 package org.sonar.wsclient.unmarshallers;
 
+import org.sonar.wsclient.internal.JsonStreamParser;
 import org.sonar.wsclient.services.Model;
 import org.sonar.wsclient.services.WSUtils;
 
+import java.io.Reader;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -58,5 +60,26 @@ public abstract class AbstractUnmarshaller<M extends Model> implements Unmarshal
     return result;
   }
 
+  /**
+   * Converts the elements of the JSON array one by one while it is read
+   *
+   * @since 4.4
+   */
+  public final List<M> toModels(Reader json) {
+    final List<M> result = new ArrayList<M>();
+    Object array = JsonStreamParser.parse(json, null, new JsonStreamParser.ElementHandler() {
+      @Override
+      public void handle(Object elt) {
+        if (elt != null) {
+          result.add(parse(elt));
+        }
+      }
+    });
+    if (!(array instanceof List)) {
+      throw new IllegalArgumentException("JSON array expected");
+    }
+    return result;
+  }
+
   protected abstract M parse(Object elt);
 }
@@ -19,6 +19,7 @@
  */
 package org.sonar.wsclient;
 
+import org.apache.commons.io.IOUtils;
 import org.eclipse.jetty.testing.ServletTester;
 import org.junit.AfterClass;
 import org.junit.Test;
@@ -35,6 +36,7 @@ import org.sonar.wsclient.services.Server;
 import org.sonar.wsclient.services.ServerQuery;
 import org.sonar.wsclient.unmarshallers.UnmarshalException;
 
+import java.io.StringReader;
 import java.util.Arrays;
 import java.util.Collection;
 
@@ -127,6 +129,14 @@ public class SonarTest {
     }
   }
 
+  @Test
+  public void shouldKeepOnlyPrefixOfStreamedResponse() throws Exception {
+    Sonar.PrefixRecordingReader reader = new Sonar.PrefixRecordingReader(new StringReader(BadRulesServlet.JSON), 5);
+    IOUtils.toString(reader);
+
+    assertThat(reader.prefix(), is(BadRulesServlet.JSON.substring(0, 5) + "..."));
+  }
+
   static class EmptyQuery extends Query<Metric> {
     @Override
     public String getUrl() {
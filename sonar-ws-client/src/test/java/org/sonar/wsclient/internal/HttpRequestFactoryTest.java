@@ -19,6 +19,7 @@
  */
 package org.sonar.wsclient.internal;
 
+import org.apache.commons.io.IOUtils;
 import org.junit.Rule;
 import org.junit.Test;
 import org.sonar.wsclient.MockHttpServerInterceptor;
@@ -26,6 +27,8 @@ import org.sonar.wsclient.issue.IssueClient;
 import org.sonar.wsclient.issue.IssueQuery;
 import org.sonar.wsclient.issue.internal.DefaultIssueClient;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.net.ConnectException;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
@@ -50,6 +53,22 @@ public class HttpRequestFactoryTest {
     assertThat(httpServer.requestedPath()).isEqualTo("/api/issues");
   }
 
+  @Test
+  public void test_get_with_response_handler() {
+    httpServer.stubStatusCode(200).stubResponseBody("{'issues': []}");
+
+    HttpRequestFactory factory = new HttpRequestFactory(httpServer.url());
+    Integer length = factory.get("/api/issues", Collections.<String, Object>emptyMap(), new HttpRequestFactory.ResponseHandler<Integer>() {
+      @Override
+      public Integer handle(Reader reader) throws IOException {
+        return IOUtils.toString(reader).length();
+      }
+    });
+
+    assertThat(length).isEqualTo(14);
+    assertThat(httpServer.requestedPath()).isEqualTo("/api/issues");
+  }
+
   @Test
   public void should_throw_illegal_state_exc_if_connect_exception() {
     HttpRequestFactory factory = new HttpRequestFactory("http://localhost:1");
@@ -0,0 +1,90 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.wsclient.internal;
+
+import org.json.simple.JSONArray;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Fail.fail;
+
+public class JsonStreamParserTest {
+
+  CollectingHandler handler = new CollectingHandler();
+
+  @Test
+  public void stream_elements_of_root_array() {
+    Object root = JsonStreamParser.parse(new StringReader("[{\"key\": \"A\"}, {\"key\": \"B\", \"tags\": [\"x\", \"y\"]}]"), null, handler);
+
+    assertThat((List) root).isEmpty();
+    assertThat(handler.elements).hasSize(2);
+    assertThat(((Map) handler.elements.get(0)).get("key")).isEqualTo("A");
+    Map second = (Map) handler.elements.get(1);
+    assertThat(second.get("key")).isEqualTo("B");
+    assertThat(second.get("tags")).isInstanceOf(JSONArray.class);
+    assertThat((List) second.get("tags")).containsExactly("x", "y");
+  }
+
+  @Test
+  public void stream_elements_of_array_field() {
+    String json = "{\"issues\": [{\"key\": \"A\", \"issues\": [1]}, {\"key\": \"B\"}], \"paging\": {\"pages\": 3}, \"users\": [{\"login\": \"john\"}]}";
+    Map root = (Map) JsonStreamParser.parse(new StringReader(json), "issues", handler);
+
+    assertThat(handler.elements).hasSize(2);
+    // nested arrays with the same name are not streamed
+    assertThat((List) ((Map) handler.elements.get(0)).get("issues")).containsExactly(1L);
+    assertThat((List) root.get("issues")).isEmpty();
+    assertThat(((Map) root.get("paging")).get("pages")).isEqualTo(3L);
+    assertThat((List) root.get("users")).hasSize(1);
+  }
+
+  @Test
+  public void parse_whole_tree_if_field_is_missing() {
+    Map root = (Map) JsonStreamParser.parse(new StringReader("{\"users\": [{\"login\": \"john\"}], \"total\": 1}"), "issues", handler);
+
+    assertThat(handler.elements).isEmpty();
+    assertThat(root.get("total")).isEqualTo(1L);
+    assertThat((List) root.get("users")).hasSize(1);
+  }
+
+  @Test
+  public void fail_if_invalid_json() {
+    try {
+      JsonStreamParser.parse(new StringReader("[{\"key\": }]"), null, handler);
+      fail();
+    } catch (IllegalStateException e) {
+      assertThat(e.getMessage()).startsWith("Invalid JSON response");
+    }
+  }
+
+  private static class CollectingHandler implements JsonStreamParser.ElementHandler {
+    List<Object> elements = new ArrayList<Object>();
+
+    @Override
+    public void handle(Object element) {
+      elements.add(element);
+    }
+  }
+}
@@ -22,16 +22,29 @@ package org.sonar.wsclient.issue.internal;
 import org.apache.commons.io.IOUtils;
 import org.junit.Rule;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.sonar.wsclient.MockHttpServerInterceptor;
 import org.sonar.wsclient.base.HttpException;
 import org.sonar.wsclient.internal.HttpRequestFactory;
 import org.sonar.wsclient.issue.*;
 
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import static org.fest.assertions.Assertions.assertThat;
 import static org.fest.assertions.Fail.fail;
 import static org.fest.assertions.MapAssert.entry;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyMap;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class DefaultIssueClientTest {
 
@@ -68,6 +81,44 @@ public class DefaultIssueClientTest {
     }
   }
 
+  @Test
+  public void should_iterate_over_all_issues() {
+    HttpRequestFactory requestFactory = new HttpRequestFactory(httpServer.url());
+    httpServer.stubResponseBody("{\"issues\": [{\"key\": \"ABCDE\"}, {\"key\": \"FGHIJ\"}], \"paging\": {\"pageIndex\": 1, \"pages\": 1}}");
+
+    IssueClient client = new DefaultIssueClient(requestFactory);
+    List<String> keys = new ArrayList<String>();
+    for (Issue issue : client.findAll(IssueQuery.create().statuses("OPEN"))) {
+      keys.add(issue.key());
+    }
+
+    assertThat(keys).containsExactly("ABCDE", "FGHIJ");
+    assertThat(httpServer.requestParams()).includes(entry("statuses", "OPEN"), entry("pageIndex", "1"), entry("pageSize", "-1"));
+  }
+
+  @Test
+  public void should_request_pages_while_iterating() {
+    HttpRequestFactory requestFactory = mock(HttpRequestFactory.class);
+    when(requestFactory.get(eq("/api/issues/search"), anyMap(), any(HttpRequestFactory.ResponseHandler.class))).thenAnswer(new Answer<Object>() {
+      @Override
+      public Object answer(InvocationOnMock invocation) throws Throwable {
+        Map params = (Map) invocation.getArguments()[1];
+        int pageIndex = (Integer) params.get("pageIndex");
+        String json = "{\"issues\": [{\"key\": \"ISSUE" + pageIndex + "\"}], \"paging\": {\"pageIndex\": " + pageIndex + ", \"pages\": 3}}";
+        return ((HttpRequestFactory.ResponseHandler) invocation.getArguments()[2]).handle(new StringReader(json));
+      }
+    });
+
+    IssueClient client = new DefaultIssueClient(requestFactory);
+    Iterator<Issue> issues = client.findAll(IssueQuery.create().pageIndex(2).pageSize(1)).iterator();
+
+    assertThat(issues.next().key()).isEqualTo("ISSUE2");
+    verify(requestFactory, times(1)).get(eq("/api/issues/search"), anyMap(), any(HttpRequestFactory.ResponseHandler.class));
+    assertThat(issues.next().key()).isEqualTo("ISSUE3");
+    assertThat(issues.hasNext()).isFalse();
+    verify(requestFactory, times(2)).get(eq("/api/issues/search"), anyMap(), any(HttpRequestFactory.ResponseHandler.class));
+  }
+
   @Test
   public void should_set_severity() {
     HttpRequestFactory requestFactory = new HttpRequestFactory(httpServer.url());
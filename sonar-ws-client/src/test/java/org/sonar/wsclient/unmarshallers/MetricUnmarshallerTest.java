@@ -22,6 +22,7 @@ package org.sonar.wsclient.unmarshallers;
 import org.junit.Test;
 import org.sonar.wsclient.services.Metric;
 
+import java.io.StringReader;
 import java.util.Collection;
 
 import static org.hamcrest.CoreMatchers.nullValue;
@@ -56,4 +57,14 @@ public class MetricUnmarshallerTest extends UnmarshallerTestCase {
     assertThat(metrics.size(), is(10));
   }
 
+  @Test
+  public void toModels_from_stream() {
+    Collection<Metric> metrics = new MetricUnmarshaller().toModels(new StringReader("[]"));
+    assertThat(metrics.size(), is(0));
+
+    metrics = new MetricUnmarshaller().toModels(new StringReader(loadFile("/metrics/many_metrics.json")));
+    assertThat(metrics.size(), is(10));
+    assertThat(metrics.iterator().next().getKey(), is(new MetricUnmarshaller().toModels(loadFile("/metrics/many_metrics.json")).get(0).getKey()));
+  }
+
 }